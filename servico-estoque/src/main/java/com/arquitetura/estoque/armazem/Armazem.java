@@ -0,0 +1,47 @@
+package com.arquitetura.estoque.armazem;
+
+/**
+ * Armazém do catálogo. O estoque de um SKU em um armazém fica no inventário
+ * sob a chave {@code sku@codigo}.
+ */
+public record Armazem(String codigo, double latitude, double longitude) {
+  private static final double RAIO_TERRA_KM = 6371.0;
+
+  /** Lê a definição {@code codigo:latitude:longitude} da configuração. */
+  public static Armazem de(String definicao) {
+    String[] partes = definicao.trim().split(":");
+    if (partes.length != 3 || partes[0].isBlank()) {
+      throw new IllegalArgumentException(
+        "Armazém inválido (esperado codigo:latitude:longitude): " + definicao
+      );
+    }
+    try {
+      return new Armazem(
+        partes[0].trim(),
+        Double.parseDouble(partes[1].trim()),
+        Double.parseDouble(partes[2].trim())
+      );
+    } catch (NumberFormatException e) {
+      throw new IllegalArgumentException(
+        "Coordenadas inválidas para o armazém: " + definicao,
+        e
+      );
+    }
+  }
+
+  public String chave(String sku) {
+    return sku + '@' + codigo;
+  }
+
+  /** Distância em linha reta (haversine). */
+  public double distanciaKm(Armazem outro) {
+    double dLat = Math.toRadians(outro.latitude - latitude);
+    double dLon = Math.toRadians(outro.longitude - longitude);
+    double a =
+      Math.pow(Math.sin(dLat / 2), 2) +
+      Math.cos(Math.toRadians(latitude)) *
+      Math.cos(Math.toRadians(outro.latitude)) *
+      Math.pow(Math.sin(dLon / 2), 2);
+    return 2 * RAIO_TERRA_KM * Math.asin(Math.sqrt(a));
+  }
+}
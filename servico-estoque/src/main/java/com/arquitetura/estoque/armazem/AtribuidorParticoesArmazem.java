@@ -0,0 +1,198 @@
+package com.arquitetura.estoque.armazem;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.clients.consumer.ConsumerPartitionAssignor;
+import org.apache.kafka.common.Cluster;
+import org.apache.kafka.common.Configurable;
+import org.apache.kafka.common.TopicPartition;
+
+/**
+ * Estratégia de atribuição do grupo de consumo com armazéns: a partição
+ * {@code p} do tópico de pedidos vai só para membros cuja instância tem o
+ * armazém {@code p % catalogo}, em rodízio entre eles. Cada membro anuncia os
+ * armazéns da sua instância na assinatura, e o líder do rebalanceamento monta
+ * a atribuição a partir disso; todas as instâncias ficam no mesmo grupo.
+ *
+ * <p>Partições de um armazém que nenhuma instância tem ficam sem consumidor
+ * (e com um aviso no log) até alguma instância com ele entrar no grupo.
+ * Outros tópicos assinados pelo grupo são distribuídos em rodízio.
+ */
+@Slf4j
+public class AtribuidorParticoesArmazem
+  implements ConsumerPartitionAssignor, Configurable {
+
+  public static final String TOPICO = "estoque.armazens.topico";
+  public static final String CATALOGO = "estoque.armazens.catalogo";
+  public static final String PROPRIOS = "estoque.armazens.proprios";
+
+  private String topico;
+  private int catalogo;
+  private int[] proprios;
+
+  /** Propriedades do consumidor que ativam a estratégia para a instância. */
+  public static Map<String, Object> configuracao(
+    String topico,
+    RoteadorPedidos roteador
+  ) {
+    Map<String, Object> configuracao = new HashMap<>();
+    configuracao.put(
+      ConsumerConfig.PARTITION_ASSIGNMENT_STRATEGY_CONFIG,
+      AtribuidorParticoesArmazem.class.getName()
+    );
+    configuracao.put(TOPICO, topico);
+    configuracao.put(CATALOGO, roteador.getCatalogo().size());
+    configuracao.put(PROPRIOS, roteador.indicesProprios());
+    return configuracao;
+  }
+
+  @Override
+  public void configure(Map<String, ?> configs) {
+    Object tamanho = configs.get(CATALOGO);
+    Object indices = configs.get(PROPRIOS);
+    topico = (String) configs.get(TOPICO);
+    if (topico == null || tamanho == null || !(indices instanceof List<?>)) {
+      throw new IllegalArgumentException(
+        "Atribuidor de armazéns sem tópico, catálogo ou armazéns próprios"
+      );
+    }
+    catalogo = Integer.parseInt(String.valueOf(tamanho));
+    proprios = ((List<?>) indices).stream()
+      .mapToInt(indice -> Integer.parseInt(String.valueOf(indice)))
+      .toArray();
+  }
+
+  @Override
+  public ByteBuffer subscriptionUserData(Set<String> topics) {
+    ByteBuffer dados = ByteBuffer.allocate(
+      Integer.BYTES * (proprios.length + 1)
+    );
+    dados.putInt(proprios.length);
+    for (int indice : proprios) {
+      dados.putInt(indice);
+    }
+    return dados.flip();
+  }
+
+  @Override
+  public GroupAssignment assign(
+    Cluster metadata,
+    GroupSubscription groupSubscription
+  ) {
+    // Ordenados pelo id para que a atribuição não dependa da ordem de entrada
+    Map<String, Subscription> membros = new TreeMap<>(
+      groupSubscription.groupSubscription()
+    );
+    Map<String, List<TopicPartition>> atribuicao = new HashMap<>();
+    membros.keySet().forEach(membro ->
+      atribuicao.put(membro, new ArrayList<>())
+    );
+
+    Map<String, List<String>> assinantes = new TreeMap<>();
+    membros.forEach((membro, assinatura) ->
+      assinatura
+        .topics()
+        .forEach(nome ->
+          assinantes.computeIfAbsent(nome, t -> new ArrayList<>()).add(membro)
+        )
+    );
+
+    assinantes.forEach((nome, membrosDoTopico) -> {
+      Integer particoes = metadata.partitionCountForTopic(nome);
+      if (particoes == null) {
+        return;
+      }
+      if (nome.equals(topico)) {
+        atribuirPorArmazem(
+          nome,
+          particoes,
+          membrosDoTopico,
+          membros,
+          atribuicao
+        );
+      } else {
+        for (int p = 0; p < particoes; p++) {
+          atribuicao
+            .get(membrosDoTopico.get(p % membrosDoTopico.size()))
+            .add(new TopicPartition(nome, p));
+        }
+      }
+    });
+
+    Map<String, Assignment> resultado = new HashMap<>();
+    atribuicao.forEach((membro, particoes) ->
+      resultado.put(membro, new Assignment(particoes))
+    );
+    return new GroupAssignment(resultado);
+  }
+
+  private void atribuirPorArmazem(
+    String nome,
+    int particoes,
+    List<String> membrosDoTopico,
+    Map<String, Subscription> membros,
+    Map<String, List<TopicPartition>> atribuicao
+  ) {
+    List<List<String>> porArmazem = new ArrayList<>(catalogo);
+    for (int i = 0; i < catalogo; i++) {
+      porArmazem.add(new ArrayList<>());
+    }
+    for (String membro : membrosDoTopico) {
+      for (int indice : armazens(membros.get(membro))) {
+        if (indice >= 0 && indice < catalogo) {
+          porArmazem.get(indice).add(membro);
+        }
+      }
+    }
+
+    List<Integer> semDono = new ArrayList<>();
+    for (int p = 0; p < particoes; p++) {
+      List<String> candidatos = porArmazem.get(p % catalogo);
+      if (candidatos.isEmpty()) {
+        semDono.add(p);
+        continue;
+      }
+      atribuicao
+        .get(candidatos.get((p / catalogo) % candidatos.size()))
+        .add(new TopicPartition(nome, p));
+    }
+    if (!semDono.isEmpty()) {
+      log.warn(
+        "⚠️ [ARMAZÉNS] Partições sem instância com o armazém: topico={} particoes={}",
+        nome,
+        semDono
+      );
+    }
+    if (particoes < catalogo) {
+      log.warn(
+        "⚠️ [ARMAZÉNS] Tópico com menos partições ({}) que armazéns ({}): alguns armazéns nunca recebem pedidos",
+        particoes,
+        catalogo
+      );
+    }
+  }
+
+  private static int[] armazens(Subscription assinatura) {
+    ByteBuffer dados = assinatura.userData();
+    if (dados == null || dados.remaining() < Integer.BYTES) {
+      return new int[0];
+    }
+    ByteBuffer leitura = dados.duplicate();
+    int[] indices = new int[leitura.getInt()];
+    Arrays.setAll(indices, i -> leitura.getInt());
+    return indices;
+  }
+
+  @Override
+  public String name() {
+    return "estoque-armazens";
+  }
+}
@@ -0,0 +1,48 @@
+package com.arquitetura.estoque.armazem;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Atende a linha no armazém mais próximo da origem que tem a quantidade
+ * inteira. Se nenhum tem, a linha fica na origem e o pedido é recusado por
+ * falta de estoque, como sem roteamento. A ordem dos vizinhos de cada origem
+ * é calculada uma vez.
+ */
+public class MaisProximoComEstoque implements PoliticaRoteamento {
+
+  private final List<Armazem> candidatos;
+  private final Map<Armazem, Armazem[]> vizinhos = new ConcurrentHashMap<>();
+
+  public MaisProximoComEstoque(List<Armazem> candidatos) {
+    if (candidatos.isEmpty()) {
+      throw new IllegalArgumentException("Nenhum armazém candidato");
+    }
+    this.candidatos = List.copyOf(candidatos);
+  }
+
+  @Override
+  public Armazem escolher(
+    Armazem origem,
+    String sku,
+    int quantidade,
+    ConsultaSaldo saldos
+  ) {
+    Armazem[] ordem = vizinhos.computeIfAbsent(origem, this::ordenar);
+    for (Armazem armazem : ordem) {
+      if (saldos.saldo(armazem, sku) >= quantidade) {
+        return armazem;
+      }
+    }
+    return candidatos.contains(origem) ? origem : ordem[0];
+  }
+
+  private Armazem[] ordenar(Armazem origem) {
+    return candidatos
+      .stream()
+      .sorted(Comparator.comparingDouble(origem::distanciaKm))
+      .toArray(Armazem[]::new);
+  }
+}
@@ -0,0 +1,23 @@
+package com.arquitetura.estoque.armazem;
+
+/**
+ * Escolhe o armazém que atende cada linha de um pedido. Só recebe armazéns
+ * desta instância, cujos saldos estão no inventário local.
+ */
+@FunctionalInterface
+public interface PoliticaRoteamento {
+  /** Toda linha sai do armazém de origem do cliente. */
+  PoliticaRoteamento ORIGEM = (origem, sku, quantidade, saldos) -> origem;
+
+  Armazem escolher(
+    Armazem origem,
+    String sku,
+    int quantidade,
+    ConsultaSaldo saldos
+  );
+
+  @FunctionalInterface
+  interface ConsultaSaldo {
+    int saldo(Armazem armazem, String sku);
+  }
+}
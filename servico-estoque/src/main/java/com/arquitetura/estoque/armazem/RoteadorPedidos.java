@@ -0,0 +1,144 @@
+package com.arquitetura.estoque.armazem;
+
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Particiona o inventário por armazém e distribui os armazéns entre as
+ * instâncias do serviço.
+ *
+ * <p>Cada partição do tópico de pedidos pertence a um armazém do catálogo
+ * ({@code particao % catalogo}), e a origem de um pedido é o armazém da
+ * partição em que ele chegou. O {@link AtribuidorParticoesArmazem} entrega a
+ * cada instância só as partições dos seus armazéns, e a instância roteia as
+ * linhas, pela {@link PoliticaRoteamento}, entre esses mesmos armazéns. Assim
+ * cada pedido tem um único dono, nenhuma instância lê pedidos que não são
+ * seus, e os saldos que ele toca estão todos no inventário local.
+ */
+public class RoteadorPedidos {
+
+  private final List<Armazem> catalogo;
+  private final List<Armazem> proprios;
+  private final Set<Armazem> propriosConjunto;
+  private final PoliticaRoteamento politica;
+
+  public RoteadorPedidos(
+    List<Armazem> catalogo,
+    Collection<String> codigosProprios,
+    PoliticaRoteamento politica
+  ) {
+    if (catalogo.isEmpty()) {
+      throw new IllegalArgumentException("Catálogo de armazéns vazio");
+    }
+    Map<String, Armazem> porCodigo = new LinkedHashMap<>();
+    for (Armazem armazem : catalogo) {
+      if (porCodigo.put(armazem.codigo(), armazem) != null) {
+        throw new IllegalArgumentException(
+          "Armazém repetido no catálogo: " + armazem.codigo()
+        );
+      }
+    }
+    for (String codigo : codigosProprios) {
+      if (!porCodigo.containsKey(codigo)) {
+        throw new IllegalArgumentException(
+          "Armazém fora do catálogo: " + codigo
+        );
+      }
+    }
+
+    this.catalogo = List.copyOf(catalogo);
+    this.proprios = codigosProprios.isEmpty()
+      ? this.catalogo
+      : this.catalogo
+        .stream()
+        .filter(armazem -> codigosProprios.contains(armazem.codigo()))
+        .toList();
+    this.propriosConjunto = Set.copyOf(proprios);
+    this.politica = politica;
+  }
+
+  /** Armazém dono da partição; igual em todas as instâncias. */
+  public Armazem origemDa(int particao) {
+    return catalogo.get(Math.floorMod(particao, catalogo.size()));
+  }
+
+  /** Se os pedidos da partição pertencem a esta instância. */
+  public boolean atende(int particao) {
+    return propriosConjunto.contains(origemDa(particao));
+  }
+
+  /**
+   * Distribui as linhas do pedido entre os armazéns desta instância. As
+   * partes são reservadas juntas, tudo ou nada; os saldos consultados aqui
+   * só orientam a escolha e são conferidos de novo na reserva.
+   */
+  public Divisao dividir(
+    int particao,
+    Map<String, Integer> quantidadesPorSku,
+    PoliticaRoteamento.ConsultaSaldo saldos
+  ) {
+    Armazem origem = origemDa(particao);
+    if (!propriosConjunto.contains(origem)) {
+      throw new IllegalArgumentException(
+        "Origem " + origem.codigo() + " pertence a outra instância"
+      );
+    }
+
+    Map<Armazem, Map<String, Integer>> partes = new LinkedHashMap<>(4);
+    for (Map.Entry<String, Integer> linha : quantidadesPorSku.entrySet()) {
+      Armazem armazem = politica.escolher(
+        origem,
+        linha.getKey(),
+        linha.getValue(),
+        saldos
+      );
+      partes
+        .computeIfAbsent(armazem, a -> new LinkedHashMap<>())
+        .put(linha.getKey(), linha.getValue());
+    }
+    return new Divisao(origem, partes);
+  }
+
+  public List<Armazem> getCatalogo() {
+    return catalogo;
+  }
+
+  /** Armazéns desta instância, na ordem do catálogo. */
+  public List<Armazem> getProprios() {
+    return proprios;
+  }
+
+  /** Posições dos armazéns desta instância no catálogo. */
+  public List<Integer> indicesProprios() {
+    return proprios.stream().map(catalogo::indexOf).toList();
+  }
+
+  /** Linhas do pedido agrupadas pelo armazém que as atende. */
+  public record Divisao(
+    Armazem origem,
+    Map<Armazem, Map<String, Integer>> partes
+  ) {
+    /** Todas as partes com a chave de inventário, para uma única reserva. */
+    public Map<String, Integer> quantidades() {
+      Map<String, Integer> quantidades = new LinkedHashMap<>();
+      partes.forEach((armazem, linhas) ->
+        linhas.forEach((sku, quantidade) ->
+          quantidades.put(armazem.chave(sku), quantidade)
+        )
+      );
+      return quantidades;
+    }
+
+    public String armazens() {
+      return partes
+        .keySet()
+        .stream()
+        .map(Armazem::codigo)
+        .collect(Collectors.joining(","));
+    }
+  }
+}
@@ -0,0 +1,67 @@
+package com.arquitetura.estoque.config;
+
+import com.arquitetura.estoque.armazem.Armazem;
+import com.arquitetura.estoque.armazem.MaisProximoComEstoque;
+import com.arquitetura.estoque.armazem.PoliticaRoteamento;
+import com.arquitetura.estoque.armazem.RoteadorPedidos;
+import java.util.Arrays;
+import java.util.List;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Slf4j
+@Configuration
+@ConditionalOnProperty(
+  name = "app.estoque.armazens.habilitado",
+  havingValue = "true"
+)
+public class ArmazensConfig {
+
+  @Value("${app.estoque.armazens.catalogo}")
+  private String[] catalogo;
+
+  @Value("${app.estoque.armazens.proprios:}")
+  private String[] proprios;
+
+  @Value("${app.estoque.armazens.politica:mais-proximo-com-estoque}")
+  private String politica;
+
+  @Bean
+  public RoteadorPedidos roteadorPedidos() {
+    List<Armazem> armazens = Arrays.stream(catalogo).map(Armazem::de).toList();
+    List<String> codigosProprios = Arrays.stream(proprios)
+      .map(String::trim)
+      .filter(codigo -> !codigo.isEmpty())
+      .toList();
+
+    List<Armazem> candidatos = codigosProprios.isEmpty()
+      ? armazens
+      : armazens
+        .stream()
+        .filter(armazem -> codigosProprios.contains(armazem.codigo()))
+        .toList();
+    PoliticaRoteamento escolhida = switch (politica) {
+      case "origem" -> PoliticaRoteamento.ORIGEM;
+      case "mais-proximo-com-estoque" -> new MaisProximoComEstoque(candidatos);
+      default -> throw new IllegalArgumentException(
+        "Política de roteamento desconhecida: " + politica
+      );
+    };
+
+    RoteadorPedidos roteador = new RoteadorPedidos(
+      armazens,
+      codigosProprios,
+      escolhida
+    );
+    log.info(
+      "etapa=estoque.armazens catalogo={} proprios={} politica={}",
+      armazens.size(),
+      roteador.getProprios().stream().map(Armazem::codigo).toList(),
+      politica
+    );
+    return roteador;
+  }
+}
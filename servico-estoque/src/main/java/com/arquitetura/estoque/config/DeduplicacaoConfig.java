@@ -0,0 +1,36 @@
+package com.arquitetura.estoque.config;
+
+import com.arquitetura.estoque.processamento.DeduplicadorPedidos;
+import java.time.Duration;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Slf4j
+@Configuration
+public class DeduplicacaoConfig {
+
+  @Value("${app.estoque.deduplicacao.capacidade:65536}")
+  private int capacidade;
+
+  @Value("${app.estoque.deduplicacao.janela:10m}")
+  private Duration janela;
+
+  @Value("${app.estoque.deduplicacao.fatias:4}")
+  private int fatias;
+
+  @Bean
+  public DeduplicadorPedidos deduplicadorPedidos() {
+    DeduplicadorPedidos deduplicador = new DeduplicadorPedidos(
+      capacidade,
+      janela,
+      fatias
+    );
+    log.debug("🧮 [DEDUPLICAÇÃO] Pedidos recentes por id");
+    log.debug("   └─ Capacidade: {} ids", capacidade);
+    log.debug("   └─ Janela: {} em {} fatias", janela, fatias);
+    log.debug("   └─ Memória: {} bytes", deduplicador.getBytesOcupados());
+    return deduplicador;
+  }
+}
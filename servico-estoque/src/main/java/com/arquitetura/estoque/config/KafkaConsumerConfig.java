@@ -2,11 +2,22 @@ package com.arquitetura.estoque.config;
 
 import brave.Tracing;
 import brave.kafka.clients.KafkaTracing;
+import com.arquitetura.estoque.armazem.Armazem;
+import com.arquitetura.estoque.armazem.AtribuidorParticoesArmazem;
+import com.arquitetura.estoque.armazem.RoteadorPedidos;
+import com.arquitetura.estoque.model.EventoStatusPedido;
 import com.arquitetura.estoque.model.Pedido;
+import com.arquitetura.estoque.serializer.PedidoDeserializer;
+import com.arquitetura.estoque.service.EstoqueService;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.Properties;
+import java.util.stream.Collectors;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
 import org.apache.kafka.clients.consumer.ConsumerConfig;
 import org.apache.kafka.common.serialization.StringDeserializer;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
@@ -14,18 +25,34 @@ import org.springframework.kafka.annotation.EnableKafka;
 import org.springframework.kafka.config.ConcurrentKafkaListenerContainerFactory;
 import org.springframework.kafka.core.ConsumerFactory;
 import org.springframework.kafka.core.DefaultKafkaConsumerFactory;
+import org.springframework.kafka.listener.ContainerProperties;
+import org.springframework.kafka.listener.DefaultErrorHandler;
+import org.springframework.kafka.support.serializer.ErrorHandlingDeserializer;
 import org.springframework.kafka.support.serializer.JsonDeserializer;
+import org.springframework.util.backoff.FixedBackOff;
 
+@Slf4j
 @EnableKafka
 @Configuration
+@RequiredArgsConstructor
 public class KafkaConsumerConfig {
 
+  private final ObjectProvider<RoteadorPedidos> roteadorProvider;
+
   @Value("${spring.kafka.bootstrap-servers}")
   private String bootstrapServers;
 
   @Value("${spring.kafka.consumer.group-id}")
   private String groupId;
 
+  @Value("${app.kafka.topic.pedidos}")
+  private String topicoPedidos;
+
+  /**
+   * Com armazéns, o grupo distribui as partições de pedidos pelo
+   * {@link AtribuidorParticoesArmazem}: cada instância só recebe as
+   * partições dos seus armazéns.
+   */
   @Bean
   public ConsumerFactory<String, Pedido> consumerFactory() {
     Map<String, Object> configProps = new HashMap<>();
@@ -38,11 +65,11 @@ public class KafkaConsumerConfig {
     );
     configProps.put(
       ConsumerConfig.VALUE_DESERIALIZER_CLASS_CONFIG,
-      JsonDeserializer.class
+      PedidoDeserializer.class
     );
     configProps.put(ConsumerConfig.AUTO_OFFSET_RESET_CONFIG, "earliest");
-    configProps.put(ConsumerConfig.ENABLE_AUTO_COMMIT_CONFIG, true);
-    configProps.put(ConsumerConfig.AUTO_COMMIT_INTERVAL_MS_CONFIG, 1000);
+    // Offsets só são commitados pelos listeners, depois de aplicar o evento
+    configProps.put(ConsumerConfig.ENABLE_AUTO_COMMIT_CONFIG, false);
     configProps.put(ConsumerConfig.SESSION_TIMEOUT_MS_CONFIG, 30000);
     configProps.put(ConsumerConfig.HEARTBEAT_INTERVAL_MS_CONFIG, 10000);
     configProps.put(ConsumerConfig.MAX_POLL_RECORDS_CONFIG, 100);
@@ -57,20 +84,190 @@ public class KafkaConsumerConfig {
       JsonDeserializer.VALUE_DEFAULT_TYPE,
       "com.arquitetura.estoque.model.Pedido"
     );
+    RoteadorPedidos roteador = roteadorProvider.getIfAvailable();
+    if (roteador != null) {
+      configProps.putAll(
+        AtribuidorParticoesArmazem.configuracao(topicoPedidos, roteador)
+      );
+    }
 
     return new DefaultKafkaConsumerFactory<>(configProps);
   }
 
+  /**
+   * Fábrica do modo individual: o listener reconhece cada pedido depois de
+   * aplicá-lo, e os reconhecimentos de um poll são commitados juntos ao fim
+   * dele. Um pedido que falha em todas as tentativas é descartado também no
+   * inventário persistido; sem isso, a posição persistida da partição
+   * pararia nele enquanto o commit do Kafka segue adiante.
+   */
   @Bean
   public ConcurrentKafkaListenerContainerFactory<
     String,
     Pedido
-  > kafkaListenerContainerFactory() {
+  > kafkaListenerContainerFactory(EstoqueService estoqueService) {
     ConcurrentKafkaListenerContainerFactory<String, Pedido> factory =
       new ConcurrentKafkaListenerContainerFactory<>();
 
     factory.setConsumerFactory(consumerFactory());
     factory.setConcurrency(3);
+    factory
+      .getContainerProperties()
+      .setAckMode(ContainerProperties.AckMode.MANUAL);
+
+    factory.setCommonErrorHandler(descartarAoEsgotar(estoqueService));
+
+    return factory;
+  }
+
+  /**
+   * Fábrica do modo lote ({@code app.estoque.consumo.modo=lote}): entrega o
+   * poll inteiro ao listener e commita só no {@code acknowledge()}. Falhas de
+   * desserialização chegam como registros com valor null, em vez de travar a
+   * partição. Um lote que falha ao ser aplicado volta do começo nas novas
+   * tentativas; esgotadas, cada registro dele é descartado como no modo
+   * individual e o lote é commitado.
+   */
+  @Bean
+  public ConcurrentKafkaListenerContainerFactory<
+    String,
+    Pedido
+  > kafkaBatchListenerContainerFactory(EstoqueService estoqueService) {
+    ConcurrentKafkaListenerContainerFactory<String, Pedido> factory =
+      fabricaLote();
+    factory.setCommonErrorHandler(descartarAoEsgotar(estoqueService));
+    return factory;
+  }
+
+  /**
+   * Fábrica do modo paralelo ({@code app.estoque.consumo.modo=paralelo}):
+   * como a do lote, mas o listener commita sozinho até o maior offset contíguo
+   * concluído. O evento de container ocioso dá a chance de commitar o que
+   * terminou depois do último poll com registros.
+   */
+  @Bean
+  public ConcurrentKafkaListenerContainerFactory<
+    String,
+    Pedido
+  > kafkaParaleloListenerContainerFactory() {
+    ConcurrentKafkaListenerContainerFactory<String, Pedido> factory =
+      fabricaLote();
+    factory.getContainerProperties().setIdleEventInterval(1000L);
+    return factory;
+  }
+
+  private static DefaultErrorHandler descartarAoEsgotar(
+    EstoqueService estoqueService
+  ) {
+    DefaultErrorHandler erros = new DefaultErrorHandler(
+      (registro, erro) -> {
+        log.error(
+          "etapa=estoque.falha particao={} offset={} motivo=tentativas-esgotadas erro=\"{}\"",
+          registro.partition(),
+          registro.offset(),
+          erro.getMessage()
+        );
+        estoqueService.descartar(registro.partition(), registro.offset());
+      },
+      // As mesmas nove novas tentativas imediatas do padrão do Spring Kafka
+      new FixedBackOff(0L, 9L)
+    );
+    erros.setCommitRecovered(true);
+    return erros;
+  }
+
+  private ConcurrentKafkaListenerContainerFactory<
+    String,
+    Pedido
+  > fabricaLote() {
+    ConcurrentKafkaListenerContainerFactory<String, Pedido> factory =
+      new ConcurrentKafkaListenerContainerFactory<>();
+
+    factory.setConsumerFactory(consumerFactory());
+    factory.setConcurrency(3);
+    factory.setBatchListener(true);
+
+    ContainerProperties container = factory.getContainerProperties();
+    container.setAckMode(ContainerProperties.AckMode.MANUAL);
+
+    Properties sobrescritas = new Properties();
+    sobrescritas.put(
+      ConsumerConfig.VALUE_DESERIALIZER_CLASS_CONFIG,
+      ErrorHandlingDeserializer.class.getName()
+    );
+    sobrescritas.put(
+      ErrorHandlingDeserializer.VALUE_DESERIALIZER_CLASS,
+      PedidoDeserializer.class.getName()
+    );
+    container.setKafkaConsumerProperties(sobrescritas);
+
+    return factory;
+  }
+
+  /**
+   * Eventos de status dos pedidos (JSON), que confirmam ou cancelam reservas
+   * com prazo. Payload ilegível chega como null ao listener. Com armazéns, a
+   * reserva fica na instância dona da partição do pedido, e o status chega
+   * em outra partição: cada conjunto de armazéns lê o tópico inteiro num
+   * grupo próprio.
+   */
+  @Bean
+  public ConsumerFactory<String, EventoStatusPedido> statusConsumerFactory() {
+    Map<String, Object> configProps = new HashMap<>();
+
+    configProps.put(ConsumerConfig.BOOTSTRAP_SERVERS_CONFIG, bootstrapServers);
+    configProps.put(ConsumerConfig.GROUP_ID_CONFIG, grupoStatus());
+    configProps.put(
+      ConsumerConfig.KEY_DESERIALIZER_CLASS_CONFIG,
+      StringDeserializer.class
+    );
+    configProps.put(
+      ConsumerConfig.VALUE_DESERIALIZER_CLASS_CONFIG,
+      ErrorHandlingDeserializer.class
+    );
+    configProps.put(
+      ErrorHandlingDeserializer.VALUE_DESERIALIZER_CLASS,
+      JsonDeserializer.class
+    );
+    configProps.put(ConsumerConfig.AUTO_OFFSET_RESET_CONFIG, "earliest");
+    configProps.put(ConsumerConfig.ENABLE_AUTO_COMMIT_CONFIG, false);
+    configProps.put(JsonDeserializer.TRUSTED_PACKAGES, "*");
+    configProps.put(JsonDeserializer.USE_TYPE_INFO_HEADERS, false);
+    configProps.put(
+      JsonDeserializer.VALUE_DEFAULT_TYPE,
+      "com.arquitetura.estoque.model.EventoStatusPedido"
+    );
+
+    return new DefaultKafkaConsumerFactory<>(configProps);
+  }
+
+  private String grupoStatus() {
+    RoteadorPedidos roteador = roteadorProvider.getIfAvailable();
+    if (roteador == null) {
+      return groupId;
+    }
+    return roteador
+      .getProprios()
+      .stream()
+      .map(Armazem::codigo)
+      .collect(Collectors.joining("-", groupId + "-status-", ""));
+  }
+
+  @Bean
+  public ConcurrentKafkaListenerContainerFactory<
+    String,
+    EventoStatusPedido
+  > statusListenerContainerFactory() {
+    ConcurrentKafkaListenerContainerFactory<
+      String,
+      EventoStatusPedido
+    > factory = new ConcurrentKafkaListenerContainerFactory<>();
+
+    factory.setConsumerFactory(statusConsumerFactory());
+    factory.setConcurrency(1);
+    factory
+      .getContainerProperties()
+      .setAckMode(ContainerProperties.AckMode.MANUAL);
 
     return factory;
   }
@@ -0,0 +1,53 @@
+package com.arquitetura.estoque.config;
+
+import com.arquitetura.estoque.model.EventoStatusPedido;
+import java.util.HashMap;
+import java.util.Map;
+import org.apache.kafka.clients.producer.ProducerConfig;
+import org.apache.kafka.common.serialization.StringSerializer;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.kafka.core.DefaultKafkaProducerFactory;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.core.ProducerFactory;
+import org.springframework.kafka.support.serializer.JsonSerializer;
+
+/**
+ * Produtor dos eventos de status (JSON, sem cabeçalho de tipo: cada serviço
+ * desserializa na sua própria classe).
+ */
+@Configuration
+@ConditionalOnProperty(
+  name = "app.estoque.status.publicar",
+  havingValue = "true",
+  matchIfMissing = true
+)
+public class KafkaProducerConfig {
+
+  @Value("${spring.kafka.bootstrap-servers}")
+  private String bootstrapServers;
+
+  @Bean
+  public ProducerFactory<String, EventoStatusPedido> statusProducerFactory() {
+    Map<String, Object> configProps = new HashMap<>();
+
+    configProps.put(ProducerConfig.BOOTSTRAP_SERVERS_CONFIG, bootstrapServers);
+    configProps.put(ProducerConfig.ACKS_CONFIG, "all");
+    configProps.put(ProducerConfig.ENABLE_IDEMPOTENCE_CONFIG, true);
+    configProps.put(ProducerConfig.LINGER_MS_CONFIG, 10);
+    configProps.put(JsonSerializer.ADD_TYPE_INFO_HEADERS, false);
+
+    return new DefaultKafkaProducerFactory<>(
+      configProps,
+      new StringSerializer(),
+      new JsonSerializer<>()
+    );
+  }
+
+  @Bean
+  public KafkaTemplate<String, EventoStatusPedido> statusKafkaTemplate() {
+    return new KafkaTemplate<>(statusProducerFactory());
+  }
+}
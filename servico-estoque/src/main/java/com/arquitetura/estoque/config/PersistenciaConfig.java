@@ -0,0 +1,63 @@
+package com.arquitetura.estoque.config;
+
+import com.arquitetura.estoque.persistencia.PersistenciaEstoque;
+import com.arquitetura.estoque.processamento.DeduplicadorPedidos;
+import com.arquitetura.estoque.reserva.ReservasPendentes;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Slf4j
+@Configuration
+@ConditionalOnProperty(
+  name = "app.estoque.persistencia.habilitada",
+  havingValue = "true"
+)
+public class PersistenciaConfig {
+
+  @Value("${app.estoque.persistencia.diretorio:./data/estoque}")
+  private Path diretorio;
+
+  @Value("${app.estoque.persistencia.intervalo-snapshot:5m}")
+  private Duration intervaloSnapshot;
+
+  @Value("${app.estoque.persistencia.intervalo-fsync:1s}")
+  private Duration intervaloFsync;
+
+  @Bean(destroyMethod = "encerrar")
+  public PersistenciaEstoque persistenciaEstoque(
+    DeduplicadorPedidos deduplicador,
+    ObjectProvider<ReservasPendentes> reservasProvider
+  ) throws IOException {
+    ReservasPendentes reservas = reservasProvider.getIfAvailable();
+    PersistenciaEstoque persistencia = new PersistenciaEstoque(
+      diretorio,
+      deduplicador,
+      reservas
+    );
+    persistencia.iniciarManutencao(intervaloSnapshot, intervaloFsync);
+
+    PersistenciaEstoque.Recuperacao recuperacao = persistencia.getRecuperacao();
+    log.info(
+      "etapa=estoque.recuperado skus={} registros={} pedidosRecentes={} reservasPendentes={} duracaoMs={}",
+      recuperacao.skus(),
+      recuperacao.registrosReaplicados(),
+      deduplicador.getTamanho(),
+      reservas != null ? reservas.getAtivas() : 0,
+      recuperacao.duracao().toMillis()
+    );
+    log.debug("💾 [PERSISTÊNCIA] Inventário recuperado do disco");
+    log.debug("   └─ Diretório: {}", diretorio.toAbsolutePath());
+    log.debug("   └─ Snapshot: geração {}", recuperacao.geracaoSnapshot());
+    log.debug("   └─ Snapshot a cada: {}", intervaloSnapshot);
+    log.debug("   └─ Fsync a cada: {}", intervaloFsync);
+
+    return persistencia;
+  }
+}
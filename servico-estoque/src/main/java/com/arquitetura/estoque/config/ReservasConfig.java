@@ -0,0 +1,58 @@
+package com.arquitetura.estoque.config;
+
+import com.arquitetura.estoque.reserva.ReservasPendentes;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.time.Duration;
+import java.util.Map;
+import java.util.function.ToDoubleFunction;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Slf4j
+@Configuration
+@ConditionalOnProperty(
+  name = "app.estoque.reserva.expiracao.habilitada",
+  havingValue = "true"
+)
+public class ReservasConfig {
+
+  @Value("${app.estoque.reserva.expiracao.ttl:15m}")
+  private Duration ttl;
+
+  @Value("${app.estoque.reserva.expiracao.resolucao:100ms}")
+  private Duration resolucao;
+
+  @Bean
+  public ReservasPendentes reservasPendentes(MeterRegistry meterRegistry) {
+    ReservasPendentes reservas = new ReservasPendentes(ttl, resolucao);
+
+    Gauge.builder(
+      "estoque.reservas.ativas",
+      reservas,
+      ReservasPendentes::getAtivas
+    ).register(meterRegistry);
+    Map<String, ToDoubleFunction<ReservasPendentes>> encerradas = Map.of(
+      "confirmada",
+      ReservasPendentes::getConfirmadas,
+      "cancelada",
+      ReservasPendentes::getCanceladas,
+      "expirada",
+      ReservasPendentes::getExpiradas
+    );
+    encerradas.forEach((desfecho, contagem) ->
+      FunctionCounter.builder("estoque.reservas.encerradas", reservas, contagem)
+        .tag("desfecho", desfecho)
+        .register(meterRegistry)
+    );
+
+    log.debug("⏳ [RESERVAS] Reservas com prazo habilitadas");
+    log.debug("   └─ Prazo: {}", ttl);
+    log.debug("   └─ Resolução: {}", resolucao);
+    return reservas;
+  }
+}
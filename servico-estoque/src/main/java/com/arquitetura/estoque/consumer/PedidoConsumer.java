@@ -2,10 +2,16 @@ package com.arquitetura.estoque.consumer;
 
 import com.arquitetura.estoque.model.Pedido;
 import com.arquitetura.estoque.service.EstoqueService;
+import com.arquitetura.estoque.service.EstoqueService.Desfecho;
 import io.micrometer.tracing.Tracer;
+import java.util.Map;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.common.TopicPartition;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.kafka.listener.ConsumerSeekAware;
+import org.springframework.kafka.support.Acknowledgment;
 import org.springframework.kafka.support.KafkaHeaders;
 import org.springframework.messaging.handler.annotation.Header;
 import org.springframework.messaging.handler.annotation.Payload;
@@ -14,10 +20,24 @@ import org.springframework.stereotype.Component;
 @Slf4j
 @Component
 @RequiredArgsConstructor
-public class PedidoConsumer {
+@ConditionalOnProperty(
+  name = "app.estoque.consumo.modo",
+  havingValue = "individual",
+  matchIfMissing = true
+)
+public class PedidoConsumer implements ConsumerSeekAware {
 
   private final EstoqueService estoqueService;
   private final Tracer tracer;
+  private final PosicionadorOffsets posicionadorOffsets;
+
+  @Override
+  public void onPartitionsAssigned(
+    Map<TopicPartition, Long> atribuicoes,
+    ConsumerSeekCallback callback
+  ) {
+    posicionadorOffsets.posicionar(atribuicoes, callback);
+  }
 
   @KafkaListener(
     topics = "${app.kafka.topic.pedidos}",
@@ -27,29 +47,67 @@ public class PedidoConsumer {
   public void consumirEventoPedido(
     @Payload Pedido pedido,
     @Header(KafkaHeaders.RECEIVED_PARTITION) int partition,
-    @Header(KafkaHeaders.OFFSET) long offset
+    @Header(KafkaHeaders.OFFSET) long offset,
+    Acknowledgment ack
   ) {
     var span = tracer.currentSpan();
     var traceId = span != null ? span.context().traceId() : "no-trace";
 
-    log.info("═══════════════════════════════════════════════════════════");
-    log.info("📥 [CONSUMER] Evento de pedido recebido do Kafka");
-    log.info("   └─ Pedido ID: {}", pedido.getId());
-    log.info("   └─ Cliente ID: {}", pedido.getClienteId());
-    log.info("   └─ Valor Total: R$ {}", pedido.getValorTotal());
-    log.info("   └─ Partition: {}", partition);
-    log.info("   └─ Offset: {}", offset);
-    log.info("   └─ Trace ID: {}", traceId);
-    log.info("═══════════════════════════════════════════════════════════");
+    if (log.isDebugEnabled()) {
+      log.debug("═══════════════════════════════════════════════════════════");
+      log.debug("📥 [CONSUMER] Evento de pedido recebido do Kafka");
+      log.debug("   └─ Pedido ID: {}", pedido.getId());
+      log.debug("   └─ Cliente ID: {}", pedido.getClienteId());
+      log.debug("   └─ Valor Total: R$ {}", pedido.getValorTotal());
+      log.debug("   └─ Partition: {}", partition);
+      log.debug("   └─ Offset: {}", offset);
+      log.debug("   └─ Trace ID: {}", traceId);
+      log.debug("═══════════════════════════════════════════════════════════");
+    }
 
     try {
-      estoqueService.processarPedido(pedido);
+      Desfecho desfecho = estoqueService.processarPedido(
+        pedido,
+        partition,
+        offset
+      );
+      // Commit só depois de aplicado: uma queda antes disso redistribui o
+      // evento, que o inventário reconhece como já aplicado
+      ack.acknowledge();
+
+      String motivo = switch (desfecho) {
+        case JA_APLICADO -> "ja-aplicado";
+        case DUPLICADO -> "duplicado";
+        case OUTRA_INSTANCIA -> "outra-instancia";
+        default -> null;
+      };
+      if (motivo != null) {
+        log.info(
+          "etapa=estoque.ignorado pedidoId={} particao={} offset={} motivo={}",
+          pedido.getId(),
+          partition,
+          offset,
+          motivo
+        );
+        return;
+      }
 
-      log.info("═══════════════════════════════════════════════════════════");
-      log.info("✅ [CONSUMER] Evento processado com sucesso!");
-      log.info("   └─ Pedido ID: {}", pedido.getId());
-      log.info("   └─ Trace ID: {}", traceId);
-      log.info("═══════════════════════════════════════════════════════════\n");
+      log.info(
+        "etapa=estoque.processado pedidoId={} particao={} offset={} desfecho={}",
+        pedido.getId(),
+        partition,
+        offset,
+        desfecho
+      );
+      if (log.isDebugEnabled()) {
+        log.debug("═══════════════════════════════════════════════════════════");
+        log.debug("✅ [CONSUMER] Evento processado com sucesso!");
+        log.debug("   └─ Pedido ID: {}", pedido.getId());
+        log.debug("   └─ Trace ID: {}", traceId);
+        log.debug(
+          "═══════════════════════════════════════════════════════════\n"
+        );
+      }
     } catch (Exception e) {
       log.error("═══════════════════════════════════════════════════════════");
       log.error("❌ [CONSUMER] Erro ao processar evento de pedido");
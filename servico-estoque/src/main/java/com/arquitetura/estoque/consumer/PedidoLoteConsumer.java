@@ -0,0 +1,118 @@
+package com.arquitetura.estoque.consumer;
+
+import com.arquitetura.estoque.model.Pedido;
+import com.arquitetura.estoque.service.EstoqueService;
+import com.arquitetura.estoque.service.EstoqueService.Desfecho;
+import com.arquitetura.estoque.service.EstoqueService.EventoPedido;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.common.TopicPartition;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.kafka.listener.ConsumerSeekAware;
+import org.springframework.kafka.support.Acknowledgment;
+import org.springframework.stereotype.Component;
+
+/**
+ * Consome o poll inteiro de uma vez: os pedidos do lote são reservados juntos
+ * (cada SKU deduzido uma vez por lote) e os offsets só são commitados depois
+ * que o lote foi aplicado. Registros que não desserializam ou com pedido
+ * inválido são registrados e pulados sem derrubar o resto do lote. Se o lote
+ * falha ao ser aplicado, o erro volta ao container, que refaz o lote inteiro
+ * e, esgotadas as tentativas, descarta os registros dele.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "app.estoque.consumo.modo", havingValue = "lote")
+public class PedidoLoteConsumer implements ConsumerSeekAware {
+
+  private final EstoqueService estoqueService;
+  private final PosicionadorOffsets posicionadorOffsets;
+
+  @Override
+  public void onPartitionsAssigned(
+    Map<TopicPartition, Long> atribuicoes,
+    ConsumerSeekCallback callback
+  ) {
+    posicionadorOffsets.posicionar(atribuicoes, callback);
+  }
+
+  @KafkaListener(
+    topics = "${app.kafka.topic.pedidos}",
+    groupId = "${spring.kafka.consumer.group-id}",
+    containerFactory = "kafkaBatchListenerContainerFactory"
+  )
+  public void consumirLote(
+    List<ConsumerRecord<String, Pedido>> registros,
+    Acknowledgment ack
+  ) {
+    long inicio = System.nanoTime();
+    List<EventoPedido> eventos = new ArrayList<>(registros.size());
+    int falhas = 0;
+    for (ConsumerRecord<String, Pedido> registro : registros) {
+      if (registro.value() == null) {
+        // O ErrorHandlingDeserializer entrega null se o payload não decodifica
+        log.warn(
+          "etapa=estoque.falha particao={} offset={} motivo=desserializacao",
+          registro.partition(),
+          registro.offset()
+        );
+        estoqueService.descartar(registro.partition(), registro.offset());
+        falhas++;
+        continue;
+      }
+      eventos.add(
+        new EventoPedido(
+          registro.value(),
+          registro.partition(),
+          registro.offset()
+        )
+      );
+    }
+
+    List<Desfecho> desfechos;
+    try {
+      desfechos = estoqueService.processarLote(eventos);
+    } catch (RuntimeException e) {
+      log.error(
+        "❌ [CONSUMER] Erro ao aplicar lote de {} registros; o container tenta de novo",
+        registros.size(),
+        e
+      );
+      throw e;
+    }
+    ack.acknowledge();
+
+    Map<Desfecho, Integer> contagem = new EnumMap<>(Desfecho.class);
+    for (int i = 0; i < eventos.size(); i++) {
+      EventoPedido evento = eventos.get(i);
+      Desfecho desfecho = desfechos.get(i);
+      contagem.merge(desfecho, 1, Integer::sum);
+      log.info(
+        "etapa=estoque.processado pedidoId={} particao={} offset={} desfecho={}",
+        evento.pedido().getId(),
+        evento.particao(),
+        evento.offset(),
+        desfecho
+      );
+    }
+
+    log.info(
+      "etapa=estoque.lote registros={} reservados={} recusados={} ignorados={} duplicados={} outraInstancia={} invalidos={} duracaoMs={}",
+      registros.size(),
+      contagem.getOrDefault(Desfecho.RESERVADO, 0),
+      contagem.getOrDefault(Desfecho.RECUSADO, 0),
+      contagem.getOrDefault(Desfecho.JA_APLICADO, 0),
+      contagem.getOrDefault(Desfecho.DUPLICADO, 0),
+      contagem.getOrDefault(Desfecho.OUTRA_INSTANCIA, 0),
+      contagem.getOrDefault(Desfecho.INVALIDO, 0) + falhas,
+      (System.nanoTime() - inicio) / 1_000_000
+    );
+  }
+}
@@ -0,0 +1,287 @@
+package com.arquitetura.estoque.consumer;
+
+import com.arquitetura.estoque.model.Pedido;
+import com.arquitetura.estoque.processamento.JanelaOffsets;
+import com.arquitetura.estoque.processamento.ProcessadorOrdenadoPorChave;
+import com.arquitetura.estoque.service.EstoqueService;
+import com.arquitetura.estoque.service.EstoqueService.Desfecho;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.common.TopicPartition;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.event.EventListener;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.kafka.event.ListenerContainerIdleEvent;
+import org.springframework.kafka.listener.ConsumerSeekAware;
+import org.springframework.stereotype.Component;
+
+/**
+ * Processa registros da mesma partição em paralelo, preservando a ordem por
+ * chave do registro (o id do pedido): cada chave vai sempre para a mesma
+ * trilha do {@link ProcessadorOrdenadoPorChave}. Como a conclusão sai de
+ * ordem, o commit avança só até o maior offset contíguo concluído de cada
+ * partição ({@link JanelaOffsets}); um restart reprocessa no máximo o que
+ * estava em voo, e o inventário persistido descarta o que já foi aplicado.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(
+  name = "app.estoque.consumo.modo",
+  havingValue = "paralelo"
+)
+public class PedidoParaleloConsumer implements ConsumerSeekAware {
+
+  private static final String ID_LISTENER = "estoque-paralelo";
+
+  private final EstoqueService estoqueService;
+  private final PosicionadorOffsets posicionadorOffsets;
+
+  @Value("${app.estoque.consumo.paralelo.trilhas:8}")
+  private int trilhas;
+
+  @Value("${app.estoque.consumo.paralelo.capacidade-trilha:256}")
+  private int capacidadeTrilha;
+
+  @Value("${app.estoque.consumo.paralelo.espera-revogacao:30s}")
+  private Duration esperaRevogacao;
+
+  private final Map<TopicPartition, Andamento> andamentos =
+    new ConcurrentHashMap<>();
+  private final ThreadLocal<Consumer<?, ?>> consumidorDaThread =
+    new ThreadLocal<>();
+  private ProcessadorOrdenadoPorChave processador;
+
+  @PostConstruct
+  public void iniciar() {
+    processador = new ProcessadorOrdenadoPorChave(
+      "estoque-trilha",
+      trilhas,
+      capacidadeTrilha
+    );
+    log.info(
+      "etapa=estoque.paralelo trilhas={} capacidadeTrilha={}",
+      trilhas,
+      capacidadeTrilha
+    );
+  }
+
+  @PreDestroy
+  public void parar() throws InterruptedException {
+    processador.close();
+  }
+
+  @Override
+  public void onPartitionsAssigned(
+    Map<TopicPartition, Long> atribuicoes,
+    ConsumerSeekCallback callback
+  ) {
+    posicionadorOffsets.posicionar(atribuicoes, callback);
+    atribuicoes.forEach((particao, posicao) -> {
+      Long persistido = estoqueService.proximoOffset(particao.partition());
+      andamentos.put(
+        particao,
+        new Andamento(persistido != null ? persistido : posicao)
+      );
+    });
+  }
+
+  /**
+   * Espera o que está em voo nas partições revogadas e commita até onde
+   * chegou, para o próximo dono não reprocessar trabalho já feito. O que
+   * ainda estiver na fila depois da espera é cancelado: passa a ser do
+   * próximo dono.
+   */
+  @Override
+  public void onPartitionsRevoked(Collection<TopicPartition> particoes) {
+    long limite = System.nanoTime() + esperaRevogacao.toNanos();
+    try {
+      for (TopicPartition particao : particoes) {
+        Andamento andamento = andamentos.get(particao);
+        while (
+          andamento != null &&
+          andamento.pendentes.get() > 0 &&
+          System.nanoTime() < limite
+        ) {
+          Thread.sleep(5);
+        }
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+    for (TopicPartition particao : particoes) {
+      Andamento andamento = andamentos.get(particao);
+      if (andamento != null && andamento.pendentes.get() > 0) {
+        andamento.revogada = true;
+        log.warn(
+          "etapa=estoque.revogacao particao={} cancelados={}",
+          particao.partition(),
+          andamento.pendentes.get()
+        );
+      }
+    }
+
+    Consumer<?, ?> consumidor = consumidorDaThread.get();
+    if (consumidor != null) {
+      Map<TopicPartition, OffsetAndMetadata> offsets = offsetsAvancados(
+        particoes
+      );
+      if (!offsets.isEmpty()) {
+        consumidor.commitSync(offsets);
+      }
+    }
+    particoes.forEach(andamentos::remove);
+  }
+
+  @KafkaListener(
+    id = ID_LISTENER,
+    topics = "${app.kafka.topic.pedidos}",
+    groupId = "${spring.kafka.consumer.group-id}",
+    containerFactory = "kafkaParaleloListenerContainerFactory"
+  )
+  public void consumirLote(
+    List<ConsumerRecord<String, Pedido>> registros,
+    Consumer<?, ?> consumidor
+  ) throws InterruptedException {
+    consumidorDaThread.set(consumidor);
+
+    for (ConsumerRecord<String, Pedido> registro : registros) {
+      TopicPartition particao = new TopicPartition(
+        registro.topic(),
+        registro.partition()
+      );
+      Andamento andamento = andamentos.computeIfAbsent(particao, p ->
+        new Andamento(registro.offset())
+      );
+      andamento.pendentes.incrementAndGet();
+
+      Object chave = registro.key() != null ? registro.key() : particao;
+      processador.submeter(chave, () -> processar(registro, andamento));
+    }
+
+    commitar(consumidor);
+  }
+
+  @EventListener(condition = "event.listenerId.startsWith('estoque-paralelo')")
+  public void aoFicarOcioso(ListenerContainerIdleEvent evento) {
+    // Publicado na thread do consumidor: pode usar o Consumer diretamente
+    commitar(evento.getConsumer());
+  }
+
+  private void processar(
+    ConsumerRecord<String, Pedido> registro,
+    Andamento andamento
+  ) {
+    if (andamento.revogada) {
+      // Partição revogada antes de a tarefa sair da fila: nada é concluído
+      andamento.pendentes.decrementAndGet();
+      return;
+    }
+    try {
+      Pedido pedido = registro.value();
+      if (pedido == null) {
+        log.warn(
+          "etapa=estoque.falha particao={} offset={} motivo=desserializacao",
+          registro.partition(),
+          registro.offset()
+        );
+        estoqueService.descartar(registro.partition(), registro.offset());
+        return;
+      }
+
+      Desfecho desfecho = estoqueService.processarPedido(
+        pedido,
+        registro.partition(),
+        registro.offset()
+      );
+      log.info(
+        "etapa=estoque.processado pedidoId={} particao={} offset={} desfecho={}",
+        pedido.getId(),
+        registro.partition(),
+        registro.offset(),
+        desfecho
+      );
+    } catch (RuntimeException e) {
+      // Isolado: o offset é descartado também no inventário persistido, ou a
+      // posição dele pararia aqui enquanto o commit do Kafka segue adiante
+      log.error(
+        "etapa=estoque.falha particao={} offset={} erro=\"{}\"",
+        registro.partition(),
+        registro.offset(),
+        e.getMessage(),
+        e
+      );
+      estoqueService.descartar(registro.partition(), registro.offset());
+    } finally {
+      andamento.janela.concluir(registro.offset());
+      andamento.pendentes.decrementAndGet();
+    }
+  }
+
+  private void commitar(Consumer<?, ?> consumidor) {
+    Map<TopicPartition, OffsetAndMetadata> offsets = offsetsAvancados(
+      consumidor.assignment()
+    );
+    if (offsets.isEmpty()) {
+      return;
+    }
+
+    consumidor.commitAsync(
+      offsets,
+      (commitados, erro) -> {
+        if (erro != null) {
+          log.warn(
+            "⚠️ [CONSUMER] Commit de {} falhou: {}",
+            commitados,
+            erro.getMessage()
+          );
+        }
+      }
+    );
+  }
+
+  private Map<TopicPartition, OffsetAndMetadata> offsetsAvancados(
+    Collection<TopicPartition> particoes
+  ) {
+    Map<TopicPartition, OffsetAndMetadata> offsets = new HashMap<>();
+    for (TopicPartition particao : particoes) {
+      Andamento andamento = andamentos.get(particao);
+      if (andamento == null) {
+        continue;
+      }
+      long base = andamento.janela.getBase();
+      if (base > andamento.commitado) {
+        offsets.put(particao, new OffsetAndMetadata(base));
+        andamento.commitado = base;
+      }
+    }
+    return offsets;
+  }
+
+  /** Estado de uma partição atribuída a este consumidor. */
+  private static final class Andamento {
+
+    private final JanelaOffsets janela;
+    private final AtomicInteger pendentes = new AtomicInteger();
+    private volatile boolean revogada;
+    private long commitado;
+
+    Andamento(long posicao) {
+      this.janela = new JanelaOffsets(posicao);
+      this.commitado = posicao;
+    }
+  }
+}
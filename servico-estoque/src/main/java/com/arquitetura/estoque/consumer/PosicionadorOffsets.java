@@ -0,0 +1,47 @@
+package com.arquitetura.estoque.consumer;
+
+import com.arquitetura.estoque.service.EstoqueService;
+import java.util.Map;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.common.TopicPartition;
+import org.springframework.kafka.listener.ConsumerSeekAware.ConsumerSeekCallback;
+import org.springframework.stereotype.Component;
+
+/**
+ * Posiciona cada partição recebida logo após o último evento refletido no
+ * inventário persistido, em vez de depender do offset commitado no grupo.
+ * Partições ainda desconhecidas têm a posição atual registrada como início.
+ * Usado pelos listeners no {@code onPartitionsAssigned}.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class PosicionadorOffsets {
+
+  private final EstoqueService estoqueService;
+
+  public void posicionar(
+    Map<TopicPartition, Long> atribuicoes,
+    ConsumerSeekCallback callback
+  ) {
+    for (Map.Entry<TopicPartition, Long> atribuicao : atribuicoes.entrySet()) {
+      TopicPartition particao = atribuicao.getKey();
+      Long proximo = estoqueService.proximoOffset(particao.partition());
+      if (proximo == null) {
+        estoqueService.iniciarParticao(
+          particao.partition(),
+          atribuicao.getValue()
+        );
+      } else {
+        callback.seek(particao.topic(), particao.partition(), proximo);
+        log.info(
+          "etapa=estoque.posicionado topico={} particao={} offset={}",
+          particao.topic(),
+          particao.partition(),
+          proximo
+        );
+      }
+    }
+  }
+}
@@ -0,0 +1,392 @@
+package com.arquitetura.estoque.consumer;
+
+import com.arquitetura.estoque.armazem.RoteadorPedidos;
+import com.arquitetura.estoque.model.EventoStatusPedido;
+import com.arquitetura.estoque.model.Pedido;
+import com.arquitetura.estoque.processamento.DeduplicadorPedidos;
+import com.arquitetura.estoque.serializer.PedidoDeserializer;
+import com.arquitetura.estoque.service.EstoqueService;
+import com.arquitetura.estoque.service.EstoqueService.Desfecho;
+import com.arquitetura.estoque.service.EstoqueService.EventoPedido;
+import com.arquitetura.estoque.service.EstoqueService.Reconstrucao;
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.ConsumerRecords;
+import org.apache.kafka.common.PartitionInfo;
+import org.apache.kafka.common.TopicPartition;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.kafka.core.ConsumerFactory;
+import org.springframework.kafka.support.serializer.ErrorHandlingDeserializer;
+import org.springframework.stereotype.Component;
+
+/**
+ * Modo replay ({@code app.estoque.consumo.modo=replay}): relê um trecho do
+ * tópico de pedidos o mais rápido possível e reconstrói o inventário do zero,
+ * sem latência simulada, log por pedido, commit de offsets nem persistência
+ * durante a leitura. Quando alcança o fim do trecho, troca o estado em uso
+ * pelo reconstruído de uma vez.
+ *
+ * <p>A troca só acontece se a leitura começou no offset 0 de todas as
+ * partições (com armazéns, de todas as partições dos armazéns da instância;
+ * e, com reservas com prazo, também do tópico de status, relido antes para
+ * refazer confirmações e cancelamentos). Um trecho parcial, por
+ * {@code particoes}, {@code inicio} ou retenção do tópico, só é contado e
+ * registrado no log: os saldos dele ignoram o que não foi lido.
+ *
+ * <p>O consumidor é atribuído às partições, sem entrar no rebalanceamento do
+ * grupo: não disputa partições nem commita offsets. Os listeners normais
+ * ficam desligados nesse modo; para voltar a consumir, sobe-se de novo em
+ * outro modo (com persistência, a partir das posições do snapshot gravado na
+ * troca).
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(
+  name = "app.estoque.consumo.modo",
+  havingValue = "replay"
+)
+public class ReconstrucaoEstoque {
+
+  private static final long INTERVALO_PROGRESSO_NANOS = 10_000_000_000L;
+
+  private final EstoqueService estoqueService;
+  private final ConsumerFactory<String, Pedido> consumerFactory;
+  private final ConsumerFactory<
+    String,
+    EventoStatusPedido
+  > statusConsumerFactory;
+  private final ObjectProvider<RoteadorPedidos> roteadorProvider;
+
+  @Value("${app.kafka.topic.pedidos}")
+  private String topico;
+
+  @Value("${app.kafka.topic.status}")
+  private String topicoStatus;
+
+  @Value("${app.estoque.reconstrucao.particoes:}")
+  private int[] particoes;
+
+  @Value("${app.estoque.reconstrucao.inicio:-1}")
+  private long inicio;
+
+  @Value("${app.estoque.reconstrucao.fim:-1}")
+  private long fim;
+
+  @Value("${app.estoque.reconstrucao.lote:5000}")
+  private int lote;
+
+  @Value("${app.estoque.deduplicacao.capacidade:65536}")
+  private int capacidadeDeduplicacao;
+
+  @Value("${app.estoque.deduplicacao.janela:10m}")
+  private Duration janelaDeduplicacao;
+
+  @Value("${app.estoque.deduplicacao.fatias:4}")
+  private int fatiasDeduplicacao;
+
+  @EventListener(ApplicationReadyEvent.class)
+  public void iniciar() {
+    Thread thread = new Thread(this::executar, "estoque-reconstrucao");
+    thread.setDaemon(true);
+    thread.start();
+  }
+
+  void executar() {
+    try {
+      reconstruir();
+    } catch (IOException | RuntimeException e) {
+      log.error(
+        "❌ [RECONSTRUÇÃO] Falha; o estado em uso não foi trocado: {}",
+        e.getMessage(),
+        e
+      );
+    }
+  }
+
+  private void reconstruir() throws IOException {
+    Properties sobrescritas = new Properties();
+    sobrescritas.put(ConsumerConfig.MAX_POLL_RECORDS_CONFIG, lote);
+    sobrescritas.put(
+      ConsumerConfig.VALUE_DESERIALIZER_CLASS_CONFIG,
+      ErrorHandlingDeserializer.class.getName()
+    );
+    sobrescritas.put(
+      ErrorHandlingDeserializer.VALUE_DESERIALIZER_CLASS,
+      PedidoDeserializer.class.getName()
+    );
+
+    try (
+      Consumer<String, Pedido> consumidor = consumerFactory.createConsumer(
+        null,
+        "estoque-reconstrucao",
+        null,
+        sobrescritas
+      )
+    ) {
+      List<TopicPartition> alvo = particoes(consumidor);
+      consumidor.assign(alvo);
+      if (inicio < 0) {
+        consumidor.seekToBeginning(alvo);
+      } else {
+        alvo.forEach(particao -> consumidor.seek(particao, inicio));
+      }
+      Map<TopicPartition, Long> limites = limites(consumidor, alvo);
+      boolean completa =
+        inicio <= 0 &&
+        alvo.containsAll(proprias(consumidor)) &&
+        desdeOComeco(consumidor, alvo);
+
+      long comeco = System.nanoTime();
+      // O deduplicador da reconstrução começa vazio; ao fim, os ids dele
+      // substituem os do estado em uso junto com os saldos
+      DeduplicadorPedidos deduplicador = new DeduplicadorPedidos(
+        capacidadeDeduplicacao,
+        janelaDeduplicacao,
+        fatiasDeduplicacao
+      );
+      Reconstrucao reconstrucao;
+      if (estoqueService.isComReservas()) {
+        try (
+          Consumer<String, EventoStatusPedido> status =
+            statusConsumerFactory.createConsumer(
+              null,
+              "estoque-reconstrucao-status",
+              null,
+              sobrescritasStatus()
+            )
+        ) {
+          List<TopicPartition> particoesStatus = todas(status, topicoStatus);
+          status.assign(particoesStatus);
+          status.seekToBeginning(particoesStatus);
+          completa = completa && desdeOComeco(status, particoesStatus);
+          reconstrucao = estoqueService.iniciarReconstrucao(
+            deduplicador,
+            completa
+          );
+          relerStatus(status, particoesStatus, reconstrucao);
+        }
+      } else {
+        reconstrucao = estoqueService.iniciarReconstrucao(
+          deduplicador,
+          completa
+        );
+      }
+
+      log.info(
+        "etapa=estoque.reconstrucao particoes={} inicio={} limites={} completa={}",
+        alvo.size(),
+        inicio,
+        limites,
+        completa
+      );
+      if (!completa) {
+        log.warn(
+          "⚠️ [RECONSTRUÇÃO] Leitura parcial: o resultado só vai para o log, o estado em uso não será trocado"
+        );
+      }
+      long ultimoProgresso = comeco;
+
+      while (!alcancou(consumidor, alvo, limites)) {
+        ConsumerRecords<String, Pedido> registros = consumidor.poll(
+          Duration.ofMillis(500)
+        );
+        List<EventoPedido> eventos = new ArrayList<>(registros.count());
+        long maisAntigo = Long.MAX_VALUE;
+        for (ConsumerRecord<String, Pedido> registro : registros) {
+          TopicPartition particao = new TopicPartition(
+            registro.topic(),
+            registro.partition()
+          );
+          if (fim >= 0 && registro.offset() >= limites.get(particao)) {
+            continue;
+          }
+          if (registro.value() == null) {
+            reconstrucao.descartar(registro.partition(), registro.offset());
+            continue;
+          }
+          eventos.add(
+            new EventoPedido(
+              registro.value(),
+              registro.partition(),
+              registro.offset()
+            )
+          );
+          maisAntigo = Math.min(maisAntigo, registro.timestamp());
+        }
+        if (!eventos.isEmpty()) {
+          reconstrucao.aplicar(eventos, maisAntigo);
+        }
+
+        long agora = System.nanoTime();
+        if (agora - ultimoProgresso >= INTERVALO_PROGRESSO_NANOS) {
+          ultimoProgresso = agora;
+          log.info(
+            "etapa=estoque.reconstruindo pedidos={} pedidosPorSegundo={}",
+            reconstrucao.getEventos(),
+            porSegundo(reconstrucao.getEventos(), agora - comeco)
+          );
+        }
+
+        if (fim < 0 && alcancou(consumidor, alvo, limites)) {
+          // Sem fim fixo, o alvo é o fim do tópico: confere se ele andou
+          // enquanto a reconstrução corria
+          limites = limites(consumidor, alvo);
+        }
+      }
+
+      long leitura = System.nanoTime() - comeco;
+      if (completa) {
+        estoqueService.substituirEstado(reconstrucao);
+      }
+      long duracao = System.nanoTime() - comeco;
+
+      log.info(
+        "etapa=estoque.reconstruido trocado={} pedidos={} reservados={} recusados={} duplicados={} outraInstancia={} invalidos={} skus={} duracaoMs={} trocaMs={} pedidosPorSegundo={}",
+        completa,
+        reconstrucao.getEventos(),
+        reconstrucao.total(Desfecho.RESERVADO),
+        reconstrucao.total(Desfecho.RECUSADO),
+        reconstrucao.total(Desfecho.DUPLICADO),
+        reconstrucao.total(Desfecho.OUTRA_INSTANCIA),
+        reconstrucao.total(Desfecho.INVALIDO),
+        reconstrucao.getTotalSkus(),
+        duracao / 1_000_000,
+        (duracao - leitura) / 1_000_000,
+        porSegundo(reconstrucao.getEventos(), duracao)
+      );
+    }
+  }
+
+  private List<TopicPartition> particoes(Consumer<String, Pedido> consumidor) {
+    if (particoes.length == 0) {
+      return proprias(consumidor);
+    }
+    List<TopicPartition> alvo = new ArrayList<>();
+    for (int particao : particoes) {
+      alvo.add(new TopicPartition(topico, particao));
+    }
+    return alvo;
+  }
+
+  /** Partições de pedidos desta instância: todas, ou as dos seus armazéns. */
+  private List<TopicPartition> proprias(Consumer<String, Pedido> consumidor) {
+    RoteadorPedidos roteador = roteadorProvider.getIfAvailable();
+    List<TopicPartition> todas = todas(consumidor, topico);
+    if (roteador == null) {
+      return todas;
+    }
+    return todas
+      .stream()
+      .filter(particao -> roteador.atende(particao.partition()))
+      .toList();
+  }
+
+  private static List<TopicPartition> todas(
+    Consumer<?, ?> consumidor,
+    String nome
+  ) {
+    List<TopicPartition> todas = new ArrayList<>();
+    for (PartitionInfo info : consumidor.partitionsFor(nome)) {
+      todas.add(new TopicPartition(nome, info.partition()));
+    }
+    return todas;
+  }
+
+  /** O primeiro offset ainda retido de cada partição é 0. */
+  private static boolean desdeOComeco(
+    Consumer<?, ?> consumidor,
+    List<TopicPartition> alvo
+  ) {
+    return consumidor
+      .beginningOffsets(alvo)
+      .values()
+      .stream()
+      .allMatch(primeiro -> primeiro == 0);
+  }
+
+  /**
+   * Lê o tópico de status até o fim de agora e entrega cada evento, com o
+   * instante em que foi publicado, à reconstrução.
+   */
+  private void relerStatus(
+    Consumer<String, EventoStatusPedido> consumidor,
+    List<TopicPartition> alvo,
+    Reconstrucao reconstrucao
+  ) {
+    Map<TopicPartition, Long> fins = consumidor.endOffsets(alvo);
+    long lidos = 0;
+    while (!alcancou(consumidor, alvo, fins)) {
+      ConsumerRecords<String, EventoStatusPedido> registros = consumidor.poll(
+        Duration.ofMillis(500)
+      );
+      for (ConsumerRecord<String, EventoStatusPedido> registro : registros) {
+        EventoStatusPedido evento = registro.value();
+        if (evento != null) {
+          reconstrucao.registrarStatus(
+            evento.getPedidoId(),
+            evento.getStatus(),
+            registro.timestamp()
+          );
+          lidos++;
+        }
+      }
+    }
+    log.info(
+      "etapa=estoque.reconstrucao.status particoes={} eventos={}",
+      alvo.size(),
+      lidos
+    );
+  }
+
+  private Properties sobrescritasStatus() {
+    Properties sobrescritas = new Properties();
+    sobrescritas.put(ConsumerConfig.MAX_POLL_RECORDS_CONFIG, lote);
+    return sobrescritas;
+  }
+
+  /** Offset (exclusivo) até onde ler cada partição. */
+  private Map<TopicPartition, Long> limites(
+    Consumer<String, Pedido> consumidor,
+    List<TopicPartition> alvo
+  ) {
+    Map<TopicPartition, Long> limites = new HashMap<>(
+      consumidor.endOffsets(alvo)
+    );
+    if (fim >= 0) {
+      limites.replaceAll((particao, ultimo) -> Math.min(ultimo, fim));
+    }
+    return limites;
+  }
+
+  private static boolean alcancou(
+    Consumer<?, ?> consumidor,
+    List<TopicPartition> alvo,
+    Map<TopicPartition, Long> limites
+  ) {
+    for (TopicPartition particao : alvo) {
+      if (consumidor.position(particao) < limites.get(particao)) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private static long porSegundo(long pedidos, long nanos) {
+    return nanos == 0 ? 0 : pedidos * 1_000_000_000L / nanos;
+  }
+}
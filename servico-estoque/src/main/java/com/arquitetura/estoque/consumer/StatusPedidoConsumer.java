@@ -0,0 +1,64 @@
+package com.arquitetura.estoque.consumer;
+
+import com.arquitetura.estoque.model.EventoStatusPedido;
+import com.arquitetura.estoque.service.EstoqueService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.kafka.support.Acknowledgment;
+import org.springframework.messaging.handler.annotation.Payload;
+import org.springframework.stereotype.Component;
+
+/**
+ * Confirma ou cancela reservas com prazo a partir do status dos pedidos:
+ * CONFIRMADO torna a reserva definitiva e CANCELADO a devolve ao estoque. Os
+ * demais status não mexem na reserva. Pedidos sem reserva pendente (de outra
+ * instância, já expirados ou repetidos) são ignorados.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(
+  name = "app.estoque.reserva.expiracao.habilitada",
+  havingValue = "true"
+)
+public class StatusPedidoConsumer {
+
+  private final EstoqueService estoqueService;
+
+  @KafkaListener(
+    topics = "${app.kafka.topic.status}",
+    containerFactory = "statusListenerContainerFactory"
+  )
+  public void consumirStatus(
+    @Payload(required = false) EventoStatusPedido evento,
+    Acknowledgment ack
+  ) {
+    if (
+      evento == null ||
+      evento.getPedidoId() == null ||
+      evento.getStatus() == null
+    ) {
+      log.warn("⚠️ [CONSUMER] Evento de status ilegível descartado");
+      ack.acknowledge();
+      return;
+    }
+
+    boolean alterada = switch (evento.getStatus()) {
+      case CONFIRMADO -> estoqueService.confirmarReserva(evento.getPedidoId());
+      case CANCELADO -> estoqueService.cancelarReserva(evento.getPedidoId());
+      default -> false;
+    };
+    ack.acknowledge();
+
+    if (alterada) {
+      log.info(
+        "etapa=estoque.reserva pedidoId={} status={} origem={}",
+        evento.getPedidoId(),
+        evento.getStatus(),
+        evento.getOrigem()
+      );
+    }
+  }
+}
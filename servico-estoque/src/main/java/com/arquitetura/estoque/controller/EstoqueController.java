@@ -0,0 +1,66 @@
+package com.arquitetura.estoque.controller;
+
+import com.arquitetura.estoque.dto.ItemEstoqueDTO;
+import com.arquitetura.estoque.dto.PaginaEstoqueDTO;
+import com.arquitetura.estoque.model.NivelEstoque;
+import com.arquitetura.estoque.service.ConsultaEstoqueService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+@Slf4j
+@RestController
+@RequestMapping("/api/estoque")
+@RequiredArgsConstructor
+public class EstoqueController {
+
+  private final ConsultaEstoqueService consultaEstoqueService;
+
+  @GetMapping
+  public ResponseEntity<PaginaEstoqueDTO> listarEstoque(
+    @RequestParam(required = false) String cursor,
+    @RequestParam(defaultValue = "20") int limite
+  ) {
+    log.debug("🔎 [CONTROLLER] Consulta do estoque (cursor={})", cursor);
+
+    return ResponseEntity.ok(consultaEstoqueService.listar(cursor, limite));
+  }
+
+  @GetMapping("/{codigo}")
+  public ResponseEntity<ItemEstoqueDTO> buscarItem(
+    @PathVariable String codigo
+  ) {
+    log.debug("🔎 [CONTROLLER] Consulta do SKU {}", codigo);
+
+    return consultaEstoqueService
+      .buscarPorCodigo(codigo)
+      .map(ResponseEntity::ok)
+      .orElseGet(() -> ResponseEntity.notFound().build());
+  }
+
+  @GetMapping("/nivel/{nivel}")
+  public ResponseEntity<PaginaEstoqueDTO> listarPorNivel(
+    @PathVariable NivelEstoque nivel,
+    @RequestParam(required = false) String cursor,
+    @RequestParam(defaultValue = "20") int limite
+  ) {
+    log.debug(
+      "🔎 [CONTROLLER] Consulta do estoque no nível {} (cursor={})",
+      nivel,
+      cursor
+    );
+
+    return ResponseEntity.ok(
+      consultaEstoqueService.listarPorNivel(nivel, cursor, limite)
+    );
+  }
+
+  @ExceptionHandler(IllegalArgumentException.class)
+  public ResponseEntity<String> tratarParametroInvalido(
+    IllegalArgumentException e
+  ) {
+    log.warn("⚠️ [CONTROLLER] Consulta inválida: {}", e.getMessage());
+    return ResponseEntity.badRequest().body(e.getMessage());
+  }
+}
@@ -0,0 +1,29 @@
+package com.arquitetura.estoque.dto;
+
+import com.arquitetura.estoque.model.NivelEstoque;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ItemEstoqueDTO {
+
+  private String codigo;
+  private Integer quantidade;
+  private NivelEstoque nivel;
+  private String descricaoNivel;
+
+  public static ItemEstoqueDTO de(String codigo, int quantidade) {
+    NivelEstoque nivel = NivelEstoque.de(quantidade);
+    return ItemEstoqueDTO.builder()
+      .codigo(codigo)
+      .quantidade(quantidade)
+      .nivel(nivel)
+      .descricaoNivel(nivel.getDescricao())
+      .build();
+  }
+}
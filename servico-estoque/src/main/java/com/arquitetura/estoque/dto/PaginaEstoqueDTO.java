@@ -0,0 +1,22 @@
+package com.arquitetura.estoque.dto;
+
+import com.arquitetura.estoque.model.NivelEstoque;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import java.util.List;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class PaginaEstoqueDTO {
+
+  private NivelEstoque nivel;
+  private Integer total;
+  private List<ItemEstoqueDTO> itens;
+  private String proximoCursor;
+}
@@ -1,5 +1,8 @@
 package com.arquitetura.estoque.model;
 
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonProperty;
 import java.math.BigDecimal;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
@@ -15,12 +18,47 @@ public class ItemPedido {
   private String codigo;
   private String nome;
   private Integer quantidade;
-  private BigDecimal preco;
 
-  public BigDecimal getSubtotal() {
-    if (quantidade != null && preco != null) {
-      return preco.multiply(BigDecimal.valueOf(quantidade));
+  /** Preço unitário em unidades mínimas da moeda. */
+  @JsonIgnore
+  private long precoCentavos;
+
+  @Builder.Default
+  private String moeda = Dinheiro.MOEDA_PADRAO;
+
+  /** Borda JSON: o preço chega em decimal e vira centavos uma única vez. */
+  @JsonCreator
+  public static ItemPedido deJson(
+    @JsonProperty("codigo") String codigo,
+    @JsonProperty("nome") String nome,
+    @JsonProperty("quantidade") Integer quantidade,
+    @JsonProperty("preco") BigDecimal preco,
+    @JsonProperty("moeda") String moeda
+  ) {
+    String codigoMoeda = Dinheiro.moedaOuPadrao(moeda);
+    return new ItemPedido(
+      codigo,
+      nome,
+      quantidade,
+      preco != null ? Dinheiro.centavosDe(preco, codigoMoeda) : 0L,
+      codigoMoeda
+    );
+  }
+
+  @JsonProperty("preco")
+  public BigDecimal getPreco() {
+    return Dinheiro.valorDe(precoCentavos, moeda);
+  }
+
+  @JsonIgnore
+  public long getSubtotalCentavos() {
+    if (quantidade == null) {
+      return 0L;
     }
-    return BigDecimal.ZERO;
+    return Math.multiplyExact(precoCentavos, quantidade.longValue());
+  }
+
+  public BigDecimal getSubtotal() {
+    return Dinheiro.valorDe(getSubtotalCentavos(), moeda);
   }
 }
@@ -0,0 +1,30 @@
+package com.arquitetura.estoque.model;
+
+public enum NivelEstoque {
+  BAIXO("Menos de 20 unidades - reabastecer"),
+  MEDIO("De 20 a 49 unidades"),
+  ALTO("50 unidades ou mais");
+
+  private static final int LIMITE_BAIXO = 20;
+  private static final int LIMITE_MEDIO = 50;
+
+  private final String descricao;
+
+  NivelEstoque(String descricao) {
+    this.descricao = descricao;
+  }
+
+  public String getDescricao() {
+    return descricao;
+  }
+
+  public static NivelEstoque de(int quantidade) {
+    if (quantidade < LIMITE_BAIXO) {
+      return BAIXO;
+    } else if (quantidade < LIMITE_MEDIO) {
+      return MEDIO;
+    } else {
+      return ALTO;
+    }
+  }
+}
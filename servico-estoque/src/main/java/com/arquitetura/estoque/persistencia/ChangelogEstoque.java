@@ -0,0 +1,290 @@
+package com.arquitetura.estoque.persistencia;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.zip.CRC32C;
+
+/**
+ * Log append-only das alterações de estoque, um arquivo por geração
+ * ({@code changelog-<geração>.log}). A geração N contém tudo o que aconteceu
+ * depois do snapshot N.
+ *
+ * <p>Registro: {@code [int tamanho][int crc32c][payload]}, com payload
+ * {@code [byte tipo][int partição][long offset][int linhas]} seguido de
+ * {@code [byte tamanho][código][int quantidade]} por linha. Reservas guardam as
+ * quantidades deduzidas; definições guardam o saldo absoluto; inícios marcam
+ * a posição a partir da qual uma partição passou a ser consumida. Reservas de
+ * um pedido identificado ({@link #TIPO_RESERVA_PEDIDO}) trazem ainda
+ * {@code [long impressão do id]} logo após o offset.
+ *
+ * <p>Reservas com prazo ({@link #TIPO_RESERVA_PRAZO}) trazem a impressão e
+ * {@code [long prazo em epoch ms]}. Liberações (cancelamento ou expiração)
+ * guardam as quantidades devolvidas ao estoque e confirmações só a
+ * impressão; ambas sem partição/offset.
+ */
+public class ChangelogEstoque implements Closeable {
+
+  public static final byte TIPO_RESERVA = 1;
+  public static final byte TIPO_DEFINICAO = 2;
+  public static final byte TIPO_INICIO = 3;
+  public static final byte TIPO_RESERVA_PEDIDO = 4;
+  public static final byte TIPO_RESERVA_PRAZO = 5;
+  public static final byte TIPO_LIBERACAO = 6;
+  public static final byte TIPO_CONFIRMACAO = 7;
+
+  private static final int CABECALHO = 8;
+  private static final String PREFIXO = "changelog-";
+  private static final String EXTENSAO = ".log";
+
+  private final Path diretorio;
+  private FileChannel canal;
+  private long geracao;
+  private ByteBuffer buffer = ByteBuffer.allocateDirect(64 * 1024);
+  private boolean pendenteFsync;
+
+  /** Abre a geração para escrita, continuando do fim do arquivo. */
+  public ChangelogEstoque(Path diretorio, long geracao) throws IOException {
+    this.diretorio = diretorio;
+    this.geracao = geracao;
+    this.canal = abrir(arquivo(diretorio, geracao));
+  }
+
+  public static Path arquivo(Path diretorio, long geracao) {
+    return diretorio.resolve(
+      String.format("%s%020d%s", PREFIXO, geracao, EXTENSAO)
+    );
+  }
+
+  public static Long geracaoDe(Path arquivo) {
+    String nome = arquivo.getFileName().toString();
+    if (!nome.startsWith(PREFIXO) || !nome.endsWith(EXTENSAO)) {
+      return null;
+    }
+    return Long.parseLong(
+      nome.substring(PREFIXO.length(), nome.length() - EXTENSAO.length())
+    );
+  }
+
+  public void anexar(
+    byte tipo,
+    int particao,
+    long offset,
+    Map<String, Integer> linhas
+  ) {
+    anexar(tipo, particao, offset, 0L, 0L, linhas);
+  }
+
+  public void anexar(
+    byte tipo,
+    int particao,
+    long offset,
+    long pedido,
+    Map<String, Integer> linhas
+  ) {
+    anexar(tipo, particao, offset, pedido, 0L, linhas);
+  }
+
+  /**
+   * Anexa um registro; {@code pedido} só é gravado nos tipos que identificam
+   * o pedido e {@code prazo}, só em reservas com prazo.
+   */
+  public synchronized void anexar(
+    byte tipo,
+    int particao,
+    long offset,
+    long pedido,
+    long prazo,
+    Map<String, Integer> linhas
+  ) {
+    boolean comPedido = temPedido(tipo);
+    boolean comPrazo = tipo == TIPO_RESERVA_PRAZO;
+    byte[][] codigos = new byte[linhas.size()][];
+    int tamanho = 1 + 4 + 8 + (comPedido ? 8 : 0) + (comPrazo ? 8 : 0) + 4;
+    int i = 0;
+    for (String sku : linhas.keySet()) {
+      codigos[i] = sku.getBytes(StandardCharsets.UTF_8);
+      tamanho += 1 + codigos[i].length + 4;
+      i++;
+    }
+
+    if (buffer.capacity() < CABECALHO + tamanho) {
+      buffer = ByteBuffer.allocateDirect(CABECALHO + tamanho);
+    }
+    buffer.clear();
+    buffer.position(CABECALHO);
+    buffer.put(tipo).putInt(particao).putLong(offset);
+    if (comPedido) {
+      buffer.putLong(pedido);
+    }
+    if (comPrazo) {
+      buffer.putLong(prazo);
+    }
+    buffer.putInt(linhas.size());
+    i = 0;
+    for (int quantidade : linhas.values()) {
+      buffer.put((byte) codigos[i].length).put(codigos[i]).putInt(quantidade);
+      i++;
+    }
+    buffer.flip();
+
+    CRC32C crc = new CRC32C();
+    crc.update(buffer.duplicate().position(CABECALHO));
+    buffer.putInt(0, tamanho).putInt(4, (int) crc.getValue());
+
+    try {
+      while (buffer.hasRemaining()) {
+        canal.write(buffer);
+      }
+      pendenteFsync = true;
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  /** Força os registros anexados para o disco, se houver algum pendente. */
+  public synchronized void forcar() throws IOException {
+    if (pendenteFsync) {
+      canal.force(false);
+      pendenteFsync = false;
+    }
+  }
+
+  /** Fecha a geração atual e passa a escrever na seguinte. */
+  public synchronized long rolar() throws IOException {
+    canal.force(false);
+    canal.close();
+    pendenteFsync = false;
+    geracao++;
+    canal = abrir(arquivo(diretorio, geracao));
+    return geracao;
+  }
+
+  public synchronized long getGeracao() {
+    return geracao;
+  }
+
+  @Override
+  public synchronized void close() throws IOException {
+    if (canal.isOpen()) {
+      canal.force(false);
+      canal.close();
+    }
+  }
+
+  /**
+   * Lê os registros válidos do arquivo e descarta uma cauda incompleta (escrita
+   * interrompida por queda do processo). Devolve a quantidade de registros.
+   */
+  public static long reproduzir(Path arquivo, Consumer<Registro> consumidor)
+    throws IOException {
+    if (!Files.exists(arquivo)) {
+      return 0;
+    }
+
+    long registros = 0;
+    int valido = 0;
+    try (
+      FileChannel leitura = FileChannel.open(
+        arquivo,
+        StandardOpenOption.READ,
+        StandardOpenOption.WRITE
+      )
+    ) {
+      long tamanhoArquivo = leitura.size();
+      if (tamanhoArquivo > Integer.MAX_VALUE) {
+        throw new IOException("Changelog maior que 2 GiB: " + arquivo);
+      }
+
+      MappedByteBuffer mapa = leitura.map(
+        FileChannel.MapMode.READ_ONLY,
+        0,
+        tamanhoArquivo
+      );
+      CRC32C crc = new CRC32C();
+      byte[] codigo = new byte[255];
+
+      while (mapa.remaining() >= CABECALHO) {
+        int inicio = mapa.position();
+        int tamanho = mapa.getInt();
+        int esperado = mapa.getInt();
+        if (tamanho <= 0 || tamanho > mapa.remaining()) {
+          break;
+        }
+
+        crc.reset();
+        crc.update(mapa.slice(mapa.position(), tamanho));
+        if ((int) crc.getValue() != esperado) {
+          break;
+        }
+
+        byte tipo = mapa.get();
+        int particao = mapa.getInt();
+        long offset = mapa.getLong();
+        long pedido = temPedido(tipo) ? mapa.getLong() : 0L;
+        long prazo = tipo == TIPO_RESERVA_PRAZO ? mapa.getLong() : 0L;
+        int quantidadeLinhas = mapa.getInt();
+        Map<String, Integer> linhas = new LinkedHashMap<>(
+          quantidadeLinhas * 2
+        );
+        for (int i = 0; i < quantidadeLinhas; i++) {
+          int tamanhoCodigo = mapa.get() & 0xFF;
+          mapa.get(codigo, 0, tamanhoCodigo);
+          linhas.put(
+            new String(codigo, 0, tamanhoCodigo, StandardCharsets.UTF_8),
+            mapa.getInt()
+          );
+        }
+
+        consumidor.accept(
+          new Registro(tipo, particao, offset, pedido, prazo, linhas)
+        );
+        registros++;
+        valido = inicio + CABECALHO + tamanho;
+        mapa.position(valido);
+      }
+
+      if (valido < tamanhoArquivo) {
+        leitura.truncate(valido);
+      }
+    }
+
+    return registros;
+  }
+
+  private static boolean temPedido(byte tipo) {
+    return tipo >= TIPO_RESERVA_PEDIDO && tipo <= TIPO_CONFIRMACAO;
+  }
+
+  private static FileChannel abrir(Path arquivo) throws IOException {
+    return FileChannel.open(
+      arquivo,
+      StandardOpenOption.CREATE,
+      StandardOpenOption.WRITE,
+      StandardOpenOption.APPEND
+    );
+  }
+
+  /**
+   * {@code pedido} é a impressão do id do pedido, ou 0 se não houver;
+   * {@code prazo}, o de uma reserva com prazo, ou 0.
+   */
+  public record Registro(
+    byte tipo,
+    int particao,
+    long offset,
+    long pedido,
+    long prazo,
+    Map<String, Integer> linhas
+  ) {}
+}
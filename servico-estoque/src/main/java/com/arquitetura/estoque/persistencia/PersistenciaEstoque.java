@@ -0,0 +1,726 @@
+package com.arquitetura.estoque.persistencia;
+
+import com.arquitetura.estoque.processamento.DeduplicadorPedidos;
+import com.arquitetura.estoque.processamento.JanelaOffsets;
+import com.arquitetura.estoque.reserva.InventarioSku;
+import com.arquitetura.estoque.reserva.MotorReserva;
+import com.arquitetura.estoque.reserva.ReservasPendentes;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Stream;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Inventário durável: snapshot periódico mais changelog das alterações, cada
+ * reserva marcada com a partição/offset do evento que a originou.
+ *
+ * <p>Na abertura, o snapshot mais recente é mapeado em memória e só os
+ * changelogs posteriores a ele são reaplicados. Os próximos offsets por
+ * partição saem do mesmo estado, então o consumidor pode se posicionar
+ * exatamente onde o inventário parou, sem reler o tópico desde o início.
+ *
+ * <p>Com um {@link DeduplicadorPedidos}, as reservas também gravam a
+ * impressão do id do pedido e o snapshot guarda os pedidos recentes, então a
+ * deduplicação por id sobrevive a um restart junto com o inventário.
+ *
+ * <p>Com {@link ReservasPendentes}, a reserva de um pedido identificado grava
+ * também o prazo; confirmações e liberações (cancelamento ou expiração) têm
+ * registros próprios, e o snapshot guarda as reservas ainda pendentes. No
+ * restart elas voltam com os prazos originais, e as vencidas enquanto o
+ * serviço estava parado expiram no primeiro ciclo.
+ *
+ * <p>Reservas e definições seguram a leitura de um read-write lock; o snapshot
+ * segura a escrita só para rolar o changelog e copiar os saldos, e grava o
+ * arquivo depois de liberá-lo.
+ */
+@Slf4j
+public class PersistenciaEstoque implements Closeable {
+
+  private final Path diretorio;
+  private final InventarioSku inventario;
+  private final ChangelogEstoque changelog;
+  private final DeduplicadorPedidos deduplicador;
+  private final ReservasPendentes reservas;
+  private final Map<Integer, JanelaOffsets> janelas = new ConcurrentHashMap<>();
+  private final ReentrantReadWriteLock corte = new ReentrantReadWriteLock();
+  private final Object gravacaoSnapshot = new Object();
+  private final Recuperacao recuperacao;
+  private ScheduledExecutorService manutencao;
+  private volatile Runnable antesDoSnapshot;
+
+  public PersistenciaEstoque(Path diretorio) throws IOException {
+    this(diretorio, null);
+  }
+
+  public PersistenciaEstoque(
+    Path diretorio,
+    DeduplicadorPedidos deduplicador
+  ) throws IOException {
+    this(diretorio, deduplicador, null);
+  }
+
+  public PersistenciaEstoque(
+    Path diretorio,
+    DeduplicadorPedidos deduplicador,
+    ReservasPendentes reservas
+  ) throws IOException {
+    this.diretorio = Files.createDirectories(diretorio);
+    this.inventario = new InventarioSku();
+    this.deduplicador = deduplicador;
+    this.reservas = reservas;
+
+    long inicio = System.nanoTime();
+    long geracaoSnapshot = carregarSnapshot();
+
+    TreeMap<Long, Path> changelogs = listar(true);
+    long registros = 0;
+    long ultimaGeracao = geracaoSnapshot;
+    for (Map.Entry<Long, Path> arquivo : changelogs.entrySet()) {
+      if (arquivo.getKey() >= geracaoSnapshot) {
+        registros += ChangelogEstoque.reproduzir(
+          arquivo.getValue(),
+          this::reaplicar
+        );
+        ultimaGeracao = arquivo.getKey();
+      }
+    }
+
+    this.changelog = new ChangelogEstoque(diretorio, ultimaGeracao);
+    this.recuperacao = new Recuperacao(
+      geracaoSnapshot,
+      inventario.getTotalSkus(),
+      registros,
+      Duration.ofNanos(System.nanoTime() - inicio)
+    );
+  }
+
+  public InventarioSku getInventario() {
+    return inventario;
+  }
+
+  public Recuperacao getRecuperacao() {
+    return recuperacao;
+  }
+
+  /**
+   * Primeiro offset da partição ainda não aplicado, ou null se a partição é
+   * desconhecida. Offsets acima dele podem já ter sido aplicados quando o
+   * consumo é paralelo; {@link #jaAplicado} os reconhece.
+   */
+  public Long proximoOffset(int particao) {
+    JanelaOffsets janela = janelas.get(particao);
+    return janela != null ? janela.getBase() : null;
+  }
+
+  public boolean jaAplicado(int particao, long offset) {
+    JanelaOffsets janela = janelas.get(particao);
+    return janela != null && janela.concluido(offset);
+  }
+
+  /**
+   * Registra a posição inicial de uma partição ainda desconhecida, para que
+   * eventos concluídos fora de ordem sejam contados a partir dela. Sem isso,
+   * o primeiro evento aplicado da partição vira a posição inicial.
+   */
+  public void iniciarParticao(int particao, long posicao) {
+    corte.readLock().lock();
+    try {
+      if (janelas.putIfAbsent(particao, new JanelaOffsets(posicao)) == null) {
+        changelog.anexar(
+          ChangelogEstoque.TIPO_INICIO,
+          particao,
+          posicao,
+          Map.of()
+        );
+      }
+    } finally {
+      corte.readLock().unlock();
+    }
+  }
+
+  /** Define saldos absolutos (carga inicial ou inventário físico). */
+  public void definirEstoque(
+    MotorReserva motor,
+    Map<String, Integer> quantidades
+  ) {
+    corte.readLock().lock();
+    try {
+      quantidades.forEach(motor::definirEstoque);
+      changelog.anexar(ChangelogEstoque.TIPO_DEFINICAO, -1, -1, quantidades);
+    } finally {
+      corte.readLock().unlock();
+    }
+  }
+
+  /**
+   * Reserva as quantidades do evento e registra o resultado no changelog. Um
+   * evento já aplicado (offset abaixo do próximo da partição) é ignorado e
+   * devolve null. Eventos recusados também são registrados, para que o offset
+   * avance e a recusa não seja refeita com outro saldo após um restart.
+   */
+  public MotorReserva.Resultado reservar(
+    MotorReserva motor,
+    int particao,
+    long offset,
+    Map<String, Integer> quantidades
+  ) {
+    return reservar(motor, new Evento(particao, offset, quantidades));
+  }
+
+  /**
+   * Como {@link #reservar(MotorReserva, int, long, Map)}, registrando também
+   * o id do pedido no deduplicador, no mesmo registro do changelog.
+   */
+  public MotorReserva.Resultado reservar(MotorReserva motor, Evento evento) {
+    corte.readLock().lock();
+    try {
+      if (jaAplicado(evento.particao(), evento.offset())) {
+        return null;
+      }
+
+      MotorReserva.Resultado resultado = motor.reservar(evento.quantidades());
+      registrar(evento, resultado);
+      return resultado;
+    } finally {
+      corte.readLock().unlock();
+    }
+  }
+
+  /**
+   * Marca o evento como aplicado sem alterar saldos (pedido inválido ou
+   * duplicado), para que a posição da partição continue avançando.
+   */
+  public void descartar(int particao, long offset) {
+    corte.readLock().lock();
+    try {
+      if (jaAplicado(particao, offset)) {
+        return;
+      }
+      changelog.anexar(
+        ChangelogEstoque.TIPO_RESERVA,
+        particao,
+        offset,
+        Map.of()
+      );
+      concluir(particao, offset);
+    } finally {
+      corte.readLock().unlock();
+    }
+  }
+
+  /**
+   * Versão em lote de {@link #reservar}: eventos já aplicados ficam de fora
+   * (resultado null) e os demais passam juntos por
+   * {@link MotorReserva#reservarLote}. O changelog mantém um registro por
+   * evento, então o replay não depende do tamanho dos lotes.
+   */
+  public List<MotorReserva.Resultado> reservarLote(
+    MotorReserva motor,
+    List<Evento> eventos
+  ) {
+    corte.readLock().lock();
+    try {
+      List<Evento> pendentes = new ArrayList<>(eventos.size());
+      for (Evento evento : eventos) {
+        if (!jaAplicado(evento.particao(), evento.offset())) {
+          pendentes.add(evento);
+        }
+      }
+
+      List<MotorReserva.Resultado> aplicados = motor.reservarLote(
+        pendentes.stream().map(Evento::quantidades).toList()
+      );
+
+      List<MotorReserva.Resultado> resultados = new ArrayList<>(
+        eventos.size()
+      );
+      int p = 0;
+      for (Evento evento : eventos) {
+        if (p < pendentes.size() && pendentes.get(p) == evento) {
+          MotorReserva.Resultado resultado = aplicados.get(p++);
+          registrar(evento, resultado);
+          resultados.add(resultado);
+        } else {
+          resultados.add(null);
+        }
+      }
+      return resultados;
+    } finally {
+      corte.readLock().unlock();
+    }
+  }
+
+  /**
+   * Confirma a reserva pendente do pedido, que deixa de expirar. False se o
+   * pedido não tinha reserva pendente.
+   */
+  public boolean confirmar(String pedidoId) {
+    corte.readLock().lock();
+    try {
+      long pedido = DeduplicadorPedidos.impressao(pedidoId);
+      if (reservas == null || reservas.confirmar(pedido) == null) {
+        return false;
+      }
+      changelog.anexar(
+        ChangelogEstoque.TIPO_CONFIRMACAO,
+        -1,
+        -1,
+        pedido,
+        Map.of()
+      );
+      return true;
+    } finally {
+      corte.readLock().unlock();
+    }
+  }
+
+  /**
+   * Devolve ao estoque a reserva pendente do pedido cancelado. Null se o
+   * pedido não tinha reserva pendente.
+   */
+  public ReservasPendentes.Pendente cancelar(
+    MotorReserva motor,
+    String pedidoId
+  ) {
+    corte.readLock().lock();
+    try {
+      if (reservas == null) {
+        return null;
+      }
+      ReservasPendentes.Pendente pendente = reservas.cancelar(
+        DeduplicadorPedidos.impressao(pedidoId)
+      );
+      if (pendente != null) {
+        liberar(motor, pendente);
+      }
+      return pendente;
+    } finally {
+      corte.readLock().unlock();
+    }
+  }
+
+  /** Devolve ao estoque as reservas com prazo vencido. */
+  public List<ReservasPendentes.Pendente> expirar(MotorReserva motor) {
+    corte.readLock().lock();
+    try {
+      if (reservas == null) {
+        return List.of();
+      }
+      List<ReservasPendentes.Pendente> vencidas = reservas.expirar();
+      for (ReservasPendentes.Pendente pendente : vencidas) {
+        liberar(motor, pendente);
+      }
+      return vencidas;
+    } finally {
+      corte.readLock().unlock();
+    }
+  }
+
+  /**
+   * Executada sob o corte, antes de copiar os saldos: o motor devolve ao
+   * inventário as unidades que estão nos orçamentos de SKUs quentes.
+   */
+  public void setAntesDoSnapshot(Runnable antesDoSnapshot) {
+    this.antesDoSnapshot = antesDoSnapshot;
+  }
+
+  public void forcar() throws IOException {
+    changelog.forcar();
+  }
+
+  /**
+   * Grava um snapshot do estado atual e apaga os arquivos que ele torna
+   * desnecessários. Devolve a geração gravada.
+   */
+  public long gravarSnapshot() throws IOException {
+    return gravarSnapshot(null);
+  }
+
+  /**
+   * Troca o estado inteiro pelo de uma reconstrução: saldos, reservas
+   * pendentes, posição de cada partição e pedidos recentes. Partições fora de
+   * {@code proximosOffsets} ficam sem posição. A troca e o snapshot que a
+   * grava acontecem sob a escrita do corte; uma queda antes do snapshot volta
+   * ao estado anterior. Devolve a geração gravada.
+   */
+  public long substituir(
+    MotorReserva motor,
+    Map<String, Integer> saldos,
+    List<ReservasPendentes.Pendente> pendentes,
+    Map<Integer, Long> proximosOffsets,
+    long[] pedidos
+  ) throws IOException {
+    return gravarSnapshot(() -> {
+      motor.substituirSaldos(saldos);
+      if (reservas != null) {
+        reservas.substituir(pendentes);
+      }
+      janelas.clear();
+      proximosOffsets.forEach((particao, proximo) ->
+        janelas.put(particao, new JanelaOffsets(proximo))
+      );
+      if (deduplicador != null) {
+        for (long pedido : pedidos) {
+          deduplicador.registrarImpressao(pedido);
+        }
+      }
+    });
+  }
+
+  /**
+   * Com {@code troca}, ela roda sob o corte e o arquivo é gravado antes de
+   * liberá-lo: nada é anexado ao changelog sobre o estado novo antes de ele
+   * estar no disco.
+   */
+  private long gravarSnapshot(Runnable troca) throws IOException {
+    synchronized (gravacaoSnapshot) {
+      long geracao;
+      int[] saldos;
+      long[] pedidos;
+      List<ReservasPendentes.Pendente> pendentes;
+      Map<Integer, JanelaOffsets> offsets = new HashMap<>();
+
+      corte.writeLock().lock();
+      try {
+        if (troca != null) {
+          troca.run();
+        }
+        geracao = changelog.rolar();
+        Runnable consolidar = antesDoSnapshot;
+        if (consolidar != null) {
+          consolidar.run();
+        }
+        saldos = new int[inventario.getTotalSkus()];
+        inventario.paraCada((id, saldo) -> saldos[id] = saldo);
+        janelas.forEach((particao, janela) ->
+          offsets.put(particao, janela.copiar())
+        );
+        pedidos = deduplicador != null
+          ? deduplicador.getRecentes()
+          : new long[0];
+        pendentes = reservas != null ? reservas.getPendentes() : List.of();
+        if (troca != null) {
+          gravar(geracao, saldos, offsets, pedidos, pendentes);
+        }
+      } finally {
+        corte.writeLock().unlock();
+      }
+
+      if (troca == null) {
+        gravar(geracao, saldos, offsets, pedidos, pendentes);
+      }
+      apagarAnteriores(geracao);
+      return geracao;
+    }
+  }
+
+  private void gravar(
+    long geracao,
+    int[] saldos,
+    Map<Integer, JanelaOffsets> offsets,
+    long[] pedidos,
+    List<ReservasPendentes.Pendente> pendentes
+  ) throws IOException {
+    SnapshotEstoque.gravar(
+      SnapshotEstoque.arquivo(diretorio, geracao),
+      inventario,
+      saldos,
+      offsets,
+      pedidos,
+      pendentes
+    );
+  }
+
+  /**
+   * Agenda o fsync em grupo do changelog e os snapshots periódicos, que
+   * limitam quanto changelog precisa ser reaplicado no próximo restart.
+   */
+  public synchronized void iniciarManutencao(
+    Duration intervaloSnapshot,
+    Duration intervaloFsync
+  ) {
+    if (manutencao != null) {
+      return;
+    }
+
+    manutencao = Executors.newSingleThreadScheduledExecutor(tarefa -> {
+      Thread thread = new Thread(tarefa, "estoque-persistencia");
+      thread.setDaemon(true);
+      return thread;
+    });
+    manutencao.scheduleWithFixedDelay(
+      () -> executar("fsync", this::forcar),
+      intervaloFsync.toMillis(),
+      intervaloFsync.toMillis(),
+      TimeUnit.MILLISECONDS
+    );
+    manutencao.scheduleWithFixedDelay(
+      () -> executar("snapshot", this::gravarSnapshot),
+      intervaloSnapshot.toMillis(),
+      intervaloSnapshot.toMillis(),
+      TimeUnit.MILLISECONDS
+    );
+  }
+
+  /**
+   * Grava um snapshot final e fecha, deixando o próximo restart sem changelog
+   * para reaplicar. Usado no desligamento normal do serviço.
+   */
+  public void encerrar() throws IOException {
+    pararManutencao();
+    try {
+      gravarSnapshot();
+    } finally {
+      close();
+    }
+  }
+
+  /** Fecha sem snapshot; o que foi anexado continua no changelog. */
+  @Override
+  public void close() throws IOException {
+    pararManutencao();
+    changelog.close();
+  }
+
+  private synchronized void pararManutencao() {
+    if (manutencao == null) {
+      return;
+    }
+    manutencao.shutdown();
+    try {
+      manutencao.awaitTermination(10, TimeUnit.SECONDS);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  private void executar(String tarefa, TarefaIo acao) {
+    try {
+      acao.executar();
+    } catch (IOException | RuntimeException e) {
+      log.error("❌ [PERSISTÊNCIA] Falha no {}: {}", tarefa, e.getMessage(), e);
+    }
+  }
+
+  private long carregarSnapshot() throws IOException {
+    TreeMap<Long, Path> snapshots = listar(false);
+    if (snapshots.isEmpty()) {
+      return 0;
+    }
+
+    // Só o mais recente: um snapshot corrompido não pode ser remendado com
+    // o anterior, cujo changelog já foi apagado
+    Map.Entry<Long, Path> ultimo = snapshots.lastEntry();
+    SnapshotEstoque.Conteudo conteudo = SnapshotEstoque.carregar(
+      ultimo.getValue(),
+      inventario
+    );
+    janelas.putAll(conteudo.janelas());
+    if (deduplicador != null) {
+      for (long pedido : conteudo.pedidos()) {
+        deduplicador.registrarImpressao(pedido);
+      }
+    }
+    if (reservas != null) {
+      for (ReservasPendentes.Pendente pendente : conteudo.pendentes()) {
+        reservas.registrar(
+          pendente.pedido(),
+          pendente.quantidades(),
+          pendente.prazoMillis()
+        );
+      }
+    }
+    return ultimo.getKey();
+  }
+
+  private void reaplicar(ChangelogEstoque.Registro registro) {
+    if (registro.tipo() == ChangelogEstoque.TIPO_INICIO) {
+      janelas.putIfAbsent(
+        registro.particao(),
+        new JanelaOffsets(registro.offset())
+      );
+      return;
+    }
+    if (registro.tipo() == ChangelogEstoque.TIPO_DEFINICAO) {
+      registro
+        .linhas()
+        .forEach((sku, quantidade) ->
+          inventario.definirSaldo(inventario.registrar(sku), quantidade)
+        );
+      return;
+    }
+    if (registro.tipo() == ChangelogEstoque.TIPO_LIBERACAO) {
+      registro
+        .linhas()
+        .forEach((sku, quantidade) ->
+          inventario.somarSaldo(inventario.registrar(sku), quantidade)
+        );
+      if (reservas != null) {
+        reservas.remover(registro.pedido());
+      }
+      return;
+    }
+    if (registro.tipo() == ChangelogEstoque.TIPO_CONFIRMACAO) {
+      if (reservas != null) {
+        reservas.remover(registro.pedido());
+      }
+      return;
+    }
+
+    registro
+      .linhas()
+      .forEach((sku, quantidade) ->
+        inventario.somarSaldo(inventario.registrar(sku), -quantidade)
+      );
+    if (registro.pedido() != 0 && deduplicador != null) {
+      deduplicador.registrarImpressao(registro.pedido());
+    }
+    // Sem reservas com prazo habilitadas, a reserva fica definitiva
+    if (
+      registro.tipo() == ChangelogEstoque.TIPO_RESERVA_PRAZO &&
+      reservas != null
+    ) {
+      reservas.registrar(
+        registro.pedido(),
+        registro.linhas(),
+        registro.prazo()
+      );
+    }
+    concluir(registro.particao(), registro.offset());
+  }
+
+  /** Changelog, posição, deduplicador e prazo de um evento decidido. */
+  private void registrar(Evento evento, MotorReserva.Resultado resultado) {
+    Map<String, Integer> deduzido = resultado.reservado()
+      ? evento.quantidades()
+      : Map.of();
+    if (
+      evento.pedidoId() != null && resultado.reservado() && reservas != null
+    ) {
+      long pedido = DeduplicadorPedidos.impressao(evento.pedidoId());
+      long prazo = reservas.prazoNovo();
+      // Registro antes da reserva pendente: uma expiração concorrente só
+      // grava a liberação depois dele
+      changelog.anexar(
+        ChangelogEstoque.TIPO_RESERVA_PRAZO,
+        evento.particao(),
+        evento.offset(),
+        pedido,
+        prazo,
+        deduzido
+      );
+      if (deduplicador != null) {
+        deduplicador.registrarImpressao(pedido);
+      }
+      reservas.registrar(pedido, deduzido, prazo);
+    } else if (evento.pedidoId() != null && deduplicador != null) {
+      long pedido = DeduplicadorPedidos.impressao(evento.pedidoId());
+      changelog.anexar(
+        ChangelogEstoque.TIPO_RESERVA_PEDIDO,
+        evento.particao(),
+        evento.offset(),
+        pedido,
+        deduzido
+      );
+      // Ainda sob o lock de leitura: um snapshot vê o pedido se e só se vê
+      // a reserva
+      deduplicador.registrarImpressao(pedido);
+    } else {
+      changelog.anexar(
+        ChangelogEstoque.TIPO_RESERVA,
+        evento.particao(),
+        evento.offset(),
+        deduzido
+      );
+    }
+    concluir(evento.particao(), evento.offset());
+  }
+
+  private void liberar(
+    MotorReserva motor,
+    ReservasPendentes.Pendente pendente
+  ) {
+    pendente.quantidades().forEach(motor::repor);
+    changelog.anexar(
+      ChangelogEstoque.TIPO_LIBERACAO,
+      -1,
+      -1,
+      pendente.pedido(),
+      pendente.quantidades()
+    );
+  }
+
+  private void concluir(int particao, long offset) {
+    janelas
+      .computeIfAbsent(particao, p -> new JanelaOffsets(offset))
+      .concluir(offset);
+  }
+
+  private void apagarAnteriores(long geracao) throws IOException {
+    List<Path> obsoletos = new ArrayList<>();
+    listar(false).headMap(geracao).values().forEach(obsoletos::add);
+    listar(true).headMap(geracao).values().forEach(obsoletos::add);
+    for (Path arquivo : obsoletos) {
+      Files.deleteIfExists(arquivo);
+    }
+  }
+
+  private TreeMap<Long, Path> listar(boolean changelogs) throws IOException {
+    TreeMap<Long, Path> arquivos = new TreeMap<>();
+    try (Stream<Path> conteudo = Files.list(diretorio)) {
+      conteudo.forEach(arquivo -> {
+        Long geracao = changelogs
+          ? ChangelogEstoque.geracaoDe(arquivo)
+          : SnapshotEstoque.geracaoDe(arquivo);
+        if (geracao != null) {
+          arquivos.put(geracao, arquivo);
+        }
+      });
+    } catch (UncheckedIOException e) {
+      throw e.getCause();
+    }
+    return arquivos;
+  }
+
+  @FunctionalInterface
+  private interface TarefaIo {
+    void executar() throws IOException;
+  }
+
+  /**
+   * Reserva originada pelo evento na partição/offset indicados, do pedido
+   * {@code pedidoId} (opcional).
+   */
+  public record Evento(
+    int particao,
+    long offset,
+    Map<String, Integer> quantidades,
+    String pedidoId
+  ) {
+    public Evento(int particao, long offset, Map<String, Integer> quantidades) {
+      this(particao, offset, quantidades, null);
+    }
+  }
+
+  /** Como o estado foi reconstruído na abertura. */
+  public record Recuperacao(
+    long geracaoSnapshot,
+    int skus,
+    long registrosReaplicados,
+    Duration duracao
+  ) {}
+}
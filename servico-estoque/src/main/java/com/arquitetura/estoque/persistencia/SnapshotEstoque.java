@@ -0,0 +1,302 @@
+package com.arquitetura.estoque.persistencia;
+
+import com.arquitetura.estoque.processamento.DeduplicadorPedidos;
+import com.arquitetura.estoque.processamento.JanelaOffsets;
+import com.arquitetura.estoque.reserva.InventarioSku;
+import com.arquitetura.estoque.reserva.ReservasPendentes;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CRC32C;
+
+/**
+ * Snapshot completo do inventário ({@code snapshot-<geração>.bin}).
+ *
+ * <p>Formato: {@code [int MAGICO][int versão][int skus][int partições]},
+ * {@code [int partição][long base][int n][long concluído]*n} por partição
+ * (ver {@link JanelaOffsets}), {@code [int n][long impressão]*n} dos pedidos
+ * aplicados recentemente (ver {@link DeduplicadorPedidos}),
+ * {@code [int n]} reservas com prazo ainda pendentes, cada uma
+ * {@code [long impressão][long prazo][int linhas]} e
+ * {@code [byte tamanho][código][int quantidade]} por linha (ver
+ * {@link ReservasPendentes}),
+ * {@code [byte tamanho][código][int saldo]} por SKU na ordem dos ids e, ao
+ * final, {@code [int crc32c][int MAGICO]}. O arquivo é escrito em um
+ * temporário e renomeado, e o diretório é sincronizado depois do rename,
+ * então um snapshot visível está sempre completo e sobrevive a uma queda; o
+ * CRC protege contra corrupção do disco.
+ */
+public final class SnapshotEstoque {
+
+  private static final int MAGICO = 0x45535431; // "EST1"
+  private static final int VERSAO = 1;
+  private static final int RODAPE = 8;
+  private static final String PREFIXO = "snapshot-";
+  private static final String EXTENSAO = ".bin";
+
+  private SnapshotEstoque() {}
+
+  public static Path arquivo(Path diretorio, long geracao) {
+    return diretorio.resolve(
+      String.format("%s%020d%s", PREFIXO, geracao, EXTENSAO)
+    );
+  }
+
+  public static Long geracaoDe(Path arquivo) {
+    String nome = arquivo.getFileName().toString();
+    if (!nome.startsWith(PREFIXO) || !nome.endsWith(EXTENSAO)) {
+      return null;
+    }
+    return Long.parseLong(
+      nome.substring(PREFIXO.length(), nome.length() - EXTENSAO.length())
+    );
+  }
+
+  /**
+   * Grava os saldos dos ids {@code 0..saldos.length-1}. Os códigos desses ids
+   * são imutáveis, então podem ser lidos do inventário em uso.
+   */
+  public static void gravar(
+    Path destino,
+    InventarioSku inventario,
+    int[] saldos,
+    Map<Integer, JanelaOffsets> janelas,
+    long[] pedidos,
+    List<ReservasPendentes.Pendente> pendentes
+  ) throws IOException {
+    Path temporario = destino.resolveSibling(destino.getFileName() + ".tmp");
+    CRC32C crc = new CRC32C();
+    ByteBuffer buffer = ByteBuffer.allocate(1 << 20);
+
+    try (
+      FileChannel canal = FileChannel.open(
+        temporario,
+        StandardOpenOption.CREATE,
+        StandardOpenOption.TRUNCATE_EXISTING,
+        StandardOpenOption.WRITE
+      )
+    ) {
+      buffer
+        .putInt(MAGICO)
+        .putInt(VERSAO)
+        .putInt(saldos.length)
+        .putInt(janelas.size());
+      for (Map.Entry<Integer, JanelaOffsets> janela : janelas.entrySet()) {
+        long[] acima = janela.getValue().getConcluidosAcima();
+        if (buffer.remaining() < 16) {
+          descarregar(canal, buffer, crc);
+        }
+        buffer
+          .putInt(janela.getKey())
+          .putLong(janela.getValue().getBase())
+          .putInt(acima.length);
+        for (long offset : acima) {
+          if (buffer.remaining() < 8) {
+            descarregar(canal, buffer, crc);
+          }
+          buffer.putLong(offset);
+        }
+      }
+
+      if (buffer.remaining() < 4) {
+        descarregar(canal, buffer, crc);
+      }
+      buffer.putInt(pedidos.length);
+      for (long pedido : pedidos) {
+        if (buffer.remaining() < 8) {
+          descarregar(canal, buffer, crc);
+        }
+        buffer.putLong(pedido);
+      }
+
+      if (buffer.remaining() < 4) {
+        descarregar(canal, buffer, crc);
+      }
+      buffer.putInt(pendentes.size());
+      for (ReservasPendentes.Pendente pendente : pendentes) {
+        if (buffer.remaining() < 20) {
+          descarregar(canal, buffer, crc);
+        }
+        Map<String, Integer> linhas = pendente.quantidades();
+        buffer
+          .putLong(pendente.pedido())
+          .putLong(pendente.prazoMillis())
+          .putInt(linhas.size());
+        for (Map.Entry<String, Integer> linha : linhas.entrySet()) {
+          byte[] codigo = linha.getKey().getBytes(StandardCharsets.UTF_8);
+          if (buffer.remaining() < 1 + codigo.length + 4) {
+            descarregar(canal, buffer, crc);
+          }
+          buffer.put((byte) codigo.length).put(codigo).putInt(linha.getValue());
+        }
+      }
+
+      for (int id = 0; id < saldos.length; id++) {
+        byte[] codigo = inventario
+          .codigoDe(id)
+          .getBytes(StandardCharsets.UTF_8);
+        if (buffer.remaining() < 1 + codigo.length + 4) {
+          descarregar(canal, buffer, crc);
+        }
+        buffer.put((byte) codigo.length).put(codigo).putInt(saldos[id]);
+      }
+
+      descarregar(canal, buffer, crc);
+      buffer.putInt((int) crc.getValue()).putInt(MAGICO).flip();
+      while (buffer.hasRemaining()) {
+        canal.write(buffer);
+      }
+      canal.force(true);
+    }
+
+    Files.move(
+      temporario,
+      destino,
+      StandardCopyOption.ATOMIC_MOVE,
+      StandardCopyOption.REPLACE_EXISTING
+    );
+    sincronizarDiretorio(destino.toAbsolutePath().getParent());
+  }
+
+  /**
+   * Mapeia o snapshot em memória, confere o CRC e registra os SKUs no
+   * inventário vazio na mesma ordem de ids. Devolve a janela de offsets
+   * aplicados de cada partição, os pedidos recentes e as reservas pendentes.
+   */
+  public static Conteudo carregar(
+    Path arquivo,
+    InventarioSku inventario
+  ) throws IOException {
+    try (
+      FileChannel canal = FileChannel.open(arquivo, StandardOpenOption.READ)
+    ) {
+      long tamanho = canal.size();
+      if (tamanho > Integer.MAX_VALUE) {
+        throw new IOException("Snapshot maior que 2 GiB: " + arquivo);
+      }
+      if (tamanho < 16 + RODAPE) {
+        throw new IOException("Snapshot truncado: " + arquivo);
+      }
+
+      MappedByteBuffer mapa = canal.map(
+        FileChannel.MapMode.READ_ONLY,
+        0,
+        tamanho
+      );
+      int conteudo = (int) tamanho - RODAPE;
+      CRC32C crc = new CRC32C();
+      crc.update(mapa.slice(0, conteudo));
+      if (
+        mapa.getInt(conteudo + 4) != MAGICO ||
+        mapa.getInt(conteudo) != (int) crc.getValue()
+      ) {
+        throw new IOException("Snapshot corrompido: " + arquivo);
+      }
+
+      int versao = mapa.getInt(4);
+      if (mapa.getInt() != MAGICO || versao != VERSAO) {
+        throw new IOException("Formato de snapshot desconhecido: " + arquivo);
+      }
+      mapa.getInt();
+      int skus = mapa.getInt();
+      int particoes = mapa.getInt();
+
+      Map<Integer, JanelaOffsets> janelas = new HashMap<>();
+      for (int i = 0; i < particoes; i++) {
+        int particao = mapa.getInt();
+        long base = mapa.getLong();
+        long[] acima = new long[mapa.getInt()];
+        for (int j = 0; j < acima.length; j++) {
+          acima[j] = mapa.getLong();
+        }
+        janelas.put(particao, new JanelaOffsets(base, acima));
+      }
+
+      long[] pedidos = new long[mapa.getInt()];
+      for (int i = 0; i < pedidos.length; i++) {
+        pedidos[i] = mapa.getLong();
+      }
+
+      byte[] codigo = new byte[255];
+      int totalPendentes = mapa.getInt();
+      List<ReservasPendentes.Pendente> pendentes = new ArrayList<>(
+        totalPendentes
+      );
+      for (int i = 0; i < totalPendentes; i++) {
+        long pedido = mapa.getLong();
+        long prazo = mapa.getLong();
+        int linhas = mapa.getInt();
+        Map<String, Integer> quantidades = new LinkedHashMap<>(linhas * 2);
+        for (int j = 0; j < linhas; j++) {
+          int tamanhoCodigo = mapa.get() & 0xFF;
+          mapa.get(codigo, 0, tamanhoCodigo);
+          quantidades.put(
+            new String(codigo, 0, tamanhoCodigo, StandardCharsets.UTF_8),
+            mapa.getInt()
+          );
+        }
+        pendentes.add(
+          new ReservasPendentes.Pendente(pedido, quantidades, prazo)
+        );
+      }
+
+      for (int id = 0; id < skus; id++) {
+        int tamanhoCodigo = mapa.get() & 0xFF;
+        mapa.get(codigo, 0, tamanhoCodigo);
+        int registrado = inventario.registrar(
+          new String(codigo, 0, tamanhoCodigo, StandardCharsets.UTF_8)
+        );
+        if (registrado != id) {
+          throw new IOException(
+            "Snapshot com SKU repetido ou inventário não vazio: " + arquivo
+          );
+        }
+        inventario.definirSaldo(id, mapa.getInt());
+      }
+
+      return new Conteudo(janelas, pedidos, pendentes);
+    }
+  }
+
+  /**
+   * O rename só é durável depois que a entrada do diretório chega ao disco;
+   * antes disso, uma queda pode deixar o snapshot anterior no lugar.
+   */
+  private static void sincronizarDiretorio(Path diretorio) throws IOException {
+    try (
+      FileChannel canal = FileChannel.open(diretorio, StandardOpenOption.READ)
+    ) {
+      canal.force(true);
+    }
+  }
+
+  private static void descarregar(
+    FileChannel canal,
+    ByteBuffer buffer,
+    CRC32C crc
+  ) throws IOException {
+    buffer.flip();
+    crc.update(buffer.array(), 0, buffer.limit());
+    while (buffer.hasRemaining()) {
+      canal.write(buffer);
+    }
+    buffer.clear();
+  }
+
+  public record Conteudo(
+    Map<Integer, JanelaOffsets> janelas,
+    long[] pedidos,
+    List<ReservasPendentes.Pendente> pendentes
+  ) {}
+}
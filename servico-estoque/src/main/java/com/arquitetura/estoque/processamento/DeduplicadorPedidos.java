@@ -0,0 +1,284 @@
+package com.arquitetura.estoque.processamento;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.function.LongSupplier;
+
+/**
+ * Ids de pedidos aplicados recentemente, para descartar o mesmo pedido
+ * publicado de novo em outro offset (retentativa do produtor, replay do
+ * outbox).
+ *
+ * <p>Dois níveis, ambos sobre uma impressão de 64 bits do id:
+ * <ul>
+ *   <li>filtros de Bloom por fatia de tempo: a fatia atual recebe as
+ *   inserções e a mais antiga é zerada e reaproveitada quando o tempo da fatia
+ *   passa ou ela enche. Um "não" do filtro é definitivo e resolve o caso comum
+ *   (pedido novo) sem tocar na tabela exata;</li>
+ *   <li>um conjunto exato dos últimos {@code capacidade} ids, em anel, que
+ *   confirma os "talvez" do filtro. Um falso positivo do Bloom nunca descarta
+ *   um pedido novo.</li>
+ * </ul>
+ *
+ * <p>Um id é duplicado só enquanto está nos dois: dentro da janela de tempo
+ * e entre os últimos {@code capacidade} registrados. A memória é fixa: cerca
+ * de 24 bytes por id da capacidade mais ~10 bits por id nos filtros.
+ */
+public class DeduplicadorPedidos {
+
+  private static final int FUNCOES_HASH = 7;
+  private static final int BITS_POR_ID = 10;
+  private static final double CARGA_MAXIMA = 0.75;
+
+  private final long duracaoFatia;
+  private final int idsPorFatia;
+  private final LongSupplier relogio;
+
+  private final long[][] filtros;
+  private final int[] idsNaFatia;
+  private final int mascaraFiltro;
+  private int fatiaAtual;
+  private long inicioFatia;
+
+  private final long[] anel;
+  private final long[] tabela;
+  private final int mascaraTabela;
+  private int proximoNoAnel;
+  private int tamanho;
+
+  private long duplicados;
+  private long incertos;
+
+  public DeduplicadorPedidos(int capacidade, Duration janela, int fatias) {
+    this(capacidade, janela, fatias, System::nanoTime);
+  }
+
+  DeduplicadorPedidos(
+    int capacidade,
+    Duration janela,
+    int fatias,
+    LongSupplier relogio
+  ) {
+    if (
+      capacidade < 1 ||
+      fatias < 1 ||
+      janela.isNegative() ||
+      janela.isZero()
+    ) {
+      throw new IllegalArgumentException(
+        "Deduplicação inválida: capacidade=" +
+        capacidade +
+        ", janela=" +
+        janela +
+        ", fatias=" +
+        fatias
+      );
+    }
+
+    this.duracaoFatia = Math.max(1, janela.toNanos() / fatias);
+    this.idsPorFatia = Math.max(1, capacidade / fatias);
+    this.relogio = relogio;
+
+    int bitsFiltro = potenciaDeDois((long) idsPorFatia * BITS_POR_ID);
+    this.filtros = new long[fatias][Math.max(1, bitsFiltro >>> 6)];
+    this.idsNaFatia = new int[fatias];
+    this.mascaraFiltro = bitsFiltro - 1;
+    this.inicioFatia = relogio.getAsLong();
+
+    this.anel = new long[capacidade];
+    this.tabela = new long[
+      potenciaDeDois((long) (capacidade / CARGA_MAXIMA) + 1)
+    ];
+    this.mascaraTabela = tabela.length - 1;
+  }
+
+  /** Se o pedido foi registrado recentemente. */
+  public synchronized boolean contem(String pedidoId) {
+    long impressao = impressao(pedidoId);
+    avancarFatias();
+    if (!talvezNosFiltros(impressao)) {
+      return false;
+    }
+    if (buscar(impressao) >= 0) {
+      duplicados++;
+      return true;
+    }
+    // Falso positivo do filtro ou id que já saiu do anel
+    incertos++;
+    return false;
+  }
+
+  /** Registra um pedido aplicado (reservado ou recusado). */
+  public void registrar(String pedidoId) {
+    registrarImpressao(impressao(pedidoId));
+  }
+
+  /** Registra pela impressão, como gravada em disco pela persistência. */
+  public synchronized void registrarImpressao(long impressao) {
+    avancarFatias();
+    if (idsNaFatia[fatiaAtual] >= idsPorFatia) {
+      girarFatia();
+    }
+    long[] filtro = filtros[fatiaAtual];
+    for (int i = 0; i < FUNCOES_HASH; i++) {
+      int bit = posicaoNoFiltro(impressao, i);
+      filtro[bit >>> 6] |= 1L << bit;
+    }
+    idsNaFatia[fatiaAtual]++;
+
+    if (buscar(impressao) >= 0) {
+      return;
+    }
+    if (tamanho == anel.length) {
+      remover(anel[proximoNoAnel]);
+      tamanho--;
+    }
+    anel[proximoNoAnel] = impressao;
+    proximoNoAnel = (proximoNoAnel + 1) % anel.length;
+    inserir(impressao);
+    tamanho++;
+  }
+
+  /** Impressões no conjunto exato, da mais antiga para a mais recente. */
+  public synchronized long[] getRecentes() {
+    long[] recentes = new long[tamanho];
+    int inicio = Math.floorMod(proximoNoAnel - tamanho, anel.length);
+    for (int i = 0; i < tamanho; i++) {
+      recentes[i] = anel[(inicio + i) % anel.length];
+    }
+    return recentes;
+  }
+
+  public synchronized long getDuplicados() {
+    return duplicados;
+  }
+
+  /** Consultas em que o filtro disse "talvez" e o conjunto exato, não. */
+  public synchronized long getIncertos() {
+    return incertos;
+  }
+
+  public synchronized int getTamanho() {
+    return tamanho;
+  }
+
+  public long getBytesOcupados() {
+    return (
+      (long) filtros.length * filtros[0].length * Long.BYTES +
+      (long) (anel.length + tabela.length) * Long.BYTES
+    );
+  }
+
+  private void avancarFatias() {
+    long agora = relogio.getAsLong();
+    // Depois de uma pausa maior que a janela, todas as fatias expiraram
+    int expiradas = (int) Math.min(
+      filtros.length,
+      (agora - inicioFatia) / duracaoFatia
+    );
+    for (int i = 0; i < expiradas; i++) {
+      girarFatia();
+    }
+    if (expiradas == filtros.length) {
+      inicioFatia = agora;
+    } else {
+      inicioFatia += expiradas * duracaoFatia;
+    }
+  }
+
+  private void girarFatia() {
+    fatiaAtual = (fatiaAtual + 1) % filtros.length;
+    Arrays.fill(filtros[fatiaAtual], 0L);
+    idsNaFatia[fatiaAtual] = 0;
+  }
+
+  private boolean talvezNosFiltros(long impressao) {
+    for (long[] filtro : filtros) {
+      boolean todos = true;
+      for (int i = 0; i < FUNCOES_HASH && todos; i++) {
+        int bit = posicaoNoFiltro(impressao, i);
+        todos = (filtro[bit >>> 6] & (1L << bit)) != 0;
+      }
+      if (todos) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private int posicaoNoFiltro(long impressao, int funcao) {
+    // Hash duplo (Kirsch-Mitzenmacher) a partir das duas metades
+    int h1 = (int) impressao;
+    int h2 = (int) (impressao >>> 32) | 1;
+    return (h1 + funcao * h2) & mascaraFiltro;
+  }
+
+  private int buscar(long impressao) {
+    for (int i = indice(impressao);; i = (i + 1) & mascaraTabela) {
+      if (tabela[i] == 0) {
+        return -1;
+      }
+      if (tabela[i] == impressao) {
+        return i;
+      }
+    }
+  }
+
+  private void inserir(long impressao) {
+    int i = indice(impressao);
+    while (tabela[i] != 0) {
+      i = (i + 1) & mascaraTabela;
+    }
+    tabela[i] = impressao;
+  }
+
+  /** Remoção com deslocamento para trás, sem lápides. */
+  private void remover(long impressao) {
+    int vazio = buscar(impressao);
+    if (vazio < 0) {
+      return;
+    }
+    tabela[vazio] = 0;
+    for (
+      int i = (vazio + 1) & mascaraTabela;
+      tabela[i] != 0;
+      i = (i + 1) & mascaraTabela
+    ) {
+      int ideal = indice(tabela[i]);
+      // Move se a posição ideal não está no trecho (vazio, i]
+      if (((i - ideal) & mascaraTabela) >= ((i - vazio) & mascaraTabela)) {
+        tabela[vazio] = tabela[i];
+        tabela[i] = 0;
+        vazio = i;
+      }
+    }
+  }
+
+  private int indice(long impressao) {
+    return (int) (impressao ^ (impressao >>> 32)) & mascaraTabela;
+  }
+
+  /** FNV-1a de 64 bits seguido da finalização do MurmurHash3; nunca 0. */
+  public static long impressao(String pedidoId) {
+    long h = 0xcbf29ce484222325L;
+    for (int i = 0; i < pedidoId.length(); i++) {
+      h = (h ^ pedidoId.charAt(i)) * 0x100000001b3L;
+    }
+    h ^= h >>> 33;
+    h *= 0xff51afd7ed558ccdL;
+    h ^= h >>> 33;
+    h *= 0xc4ceb9fe1a85ec53L;
+    h ^= h >>> 33;
+    return h != 0 ? h : 1;
+  }
+
+  private static int potenciaDeDois(long minimo) {
+    if (minimo > 1 << 30) {
+      throw new IllegalArgumentException(
+        "Capacidade de deduplicação excessiva"
+      );
+    }
+    int potencia = Integer.highestOneBit((int) Math.max(1, minimo - 1)) << 1;
+    return Math.max(64, potencia);
+  }
+}
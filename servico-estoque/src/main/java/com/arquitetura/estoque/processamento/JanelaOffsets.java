@@ -0,0 +1,86 @@
+package com.arquitetura.estoque.processamento;
+
+import java.util.BitSet;
+
+/**
+ * Offsets concluídos de uma partição quando a conclusão pode sair de ordem.
+ *
+ * <p>{@code base} é o primeiro offset ainda não concluído: tudo abaixo dele
+ * está feito e é o que pode ser commitado. Os concluídos acima da base ficam
+ * num bitmap relativo a {@code origem}, compactado quando a base avança o
+ * suficiente.
+ */
+public class JanelaOffsets {
+
+  private static final int COMPACTAR_APOS = 4096;
+
+  private long base;
+  private long origem;
+  private BitSet acima = new BitSet();
+
+  public JanelaOffsets(long base) {
+    this.base = base;
+    this.origem = base;
+  }
+
+  /** Restaura uma janela gravada com {@link #getConcluidosAcima}. */
+  public JanelaOffsets(long base, long[] concluidosAcima) {
+    this(base);
+    for (long offset : concluidosAcima) {
+      concluir(offset);
+    }
+  }
+
+  public synchronized JanelaOffsets copiar() {
+    return new JanelaOffsets(base, getConcluidosAcima());
+  }
+
+  /** Marca o offset como concluído. Devolve false se já estava. */
+  public synchronized boolean concluir(long offset) {
+    if (offset < base) {
+      return false;
+    }
+    if (offset == base) {
+      base++;
+      while (acima.get(indice(base))) {
+        base++;
+      }
+      if (base - origem >= COMPACTAR_APOS) {
+        int inicio = indice(base);
+        acima = acima.get(inicio, Math.max(acima.length(), inicio));
+        origem = base;
+      }
+      return true;
+    }
+
+    int indice = indice(offset);
+    if (acima.get(indice)) {
+      return false;
+    }
+    acima.set(indice);
+    return true;
+  }
+
+  public synchronized boolean concluido(long offset) {
+    return offset < base || acima.get(indice(offset));
+  }
+
+  /** Primeiro offset não concluído: a posição a commitar ou retomar. */
+  public synchronized long getBase() {
+    return base;
+  }
+
+  /** Offsets concluídos acima da base, em ordem crescente. */
+  public synchronized long[] getConcluidosAcima() {
+    int desde = indice(base);
+    return acima
+      .stream()
+      .filter(i -> i > desde)
+      .mapToLong(i -> origem + i)
+      .toArray();
+  }
+
+  private int indice(long offset) {
+    return Math.toIntExact(offset - origem);
+  }
+}
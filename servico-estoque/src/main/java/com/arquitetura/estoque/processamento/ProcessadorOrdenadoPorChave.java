@@ -0,0 +1,106 @@
+package com.arquitetura.estoque.processamento;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Executa tarefas em paralelo mantendo a ordem por chave.
+ *
+ * <p>Cada chave cai sempre na mesma trilha (uma thread com fila própria),
+ * então duas tarefas da mesma chave rodam na ordem de submissão, e chaves em
+ * trilhas diferentes rodam ao mesmo tempo. A fila de cada trilha é limitada:
+ * com ela cheia, {@link #submeter} bloqueia o chamador, o que segura o poll
+ * do consumidor em vez de acumular registros em memória.
+ */
+@Slf4j
+public class ProcessadorOrdenadoPorChave implements AutoCloseable {
+
+  private static final Runnable FIM = () -> {};
+
+  private final Trilha[] trilhas;
+
+  public ProcessadorOrdenadoPorChave(
+    String nome,
+    int quantidadeTrilhas,
+    int capacidadeTrilha
+  ) {
+    if (quantidadeTrilhas < 1 || capacidadeTrilha < 1) {
+      throw new IllegalArgumentException(
+        "Trilhas e capacidade devem ser positivas: " +
+        quantidadeTrilhas +
+        ", " +
+        capacidadeTrilha
+      );
+    }
+
+    this.trilhas = new Trilha[quantidadeTrilhas];
+    for (int i = 0; i < quantidadeTrilhas; i++) {
+      trilhas[i] = new Trilha(nome + "-" + i, capacidadeTrilha);
+    }
+  }
+
+  public void submeter(Object chave, Runnable tarefa)
+    throws InterruptedException {
+    trilhas[trilhaDe(chave)].fila.put(tarefa);
+  }
+
+  public int getQuantidadeTrilhas() {
+    return trilhas.length;
+  }
+
+  /** Processa o que já está nas filas e encerra as threads. */
+  @Override
+  public void close() throws InterruptedException {
+    for (Trilha trilha : trilhas) {
+      trilha.fila.put(FIM);
+    }
+    for (Trilha trilha : trilhas) {
+      trilha.thread.join(TimeUnit.SECONDS.toMillis(30));
+    }
+  }
+
+  private int trilhaDe(Object chave) {
+    int h = chave == null ? 0 : chave.hashCode();
+    // Espalha os bits altos, como o HashMap, antes de reduzir ao módulo
+    h ^= h >>> 16;
+    return Math.floorMod(h, trilhas.length);
+  }
+
+  private static final class Trilha {
+
+    private final BlockingQueue<Runnable> fila;
+    private final Thread thread;
+
+    Trilha(String nome, int capacidade) {
+      this.fila = new ArrayBlockingQueue<>(capacidade);
+      this.thread = new Thread(this::executar, nome);
+      thread.setDaemon(true);
+      thread.start();
+    }
+
+    private void executar() {
+      try {
+        while (true) {
+          Runnable tarefa = fila.take();
+          if (tarefa == FIM) {
+            return;
+          }
+          try {
+            tarefa.run();
+          } catch (RuntimeException e) {
+            // A tarefa trata os próprios erros; isto só protege a trilha
+            log.error(
+              "❌ [PARALELO] Tarefa falhou na trilha {}",
+              thread.getName(),
+              e
+            );
+          }
+        }
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+    }
+  }
+}
@@ -0,0 +1,203 @@
+package com.arquitetura.estoque.processamento;
+
+import java.util.Arrays;
+import java.util.function.IntConsumer;
+
+/**
+ * Roda de temporização hierárquica para prazos de ids inteiros (0, 1, 2...).
+ *
+ * <p>Quatro níveis de 64 posições: o nível 0 tem uma posição por tick, o
+ * nível 1 uma por 64 ticks e assim por diante, cobrendo 64⁴ ticks (~19 dias
+ * com ticks de 100 ms). Um prazo entra no nível mais baixo que ainda o
+ * comporta; quando o tempo chega ao início de uma posição de nível alto, os
+ * ids dela descem para os níveis de baixo. Agendar, cancelar e expirar são
+ * O(1) por id, e cada id desce no máximo três vezes.
+ *
+ * <p>As posições são listas duplamente encadeadas sobre arrays indexados
+ * pelo id, sem um objeto por agendamento. Prazos acima do alcance ficam na
+ * última posição do nível mais alto e são reagendados quando ela desce.
+ * Nunca expira antes do prazo; expira até um tick depois dele. Não é
+ * thread-safe.
+ */
+public class RodaTemporizacao {
+
+  private static final int BITS_NIVEL = 6;
+  private static final int POSICOES = 1 << BITS_NIVEL;
+  private static final int MASCARA = POSICOES - 1;
+  private static final int NIVEIS = 4;
+  private static final int NENHUM = -1;
+
+  private final long resolucao;
+  private final int[] cabecas = new int[NIVEIS * POSICOES];
+  private int[] proximo;
+  private int[] anterior;
+  private int[] posicao;
+  private long[] prazos;
+
+  // Próximo tick a expirar; os anteriores já foram processados
+  private long atual;
+  private int tamanho;
+
+  public RodaTemporizacao(
+    long resolucaoMillis,
+    long agoraMillis,
+    int capacidadeInicial
+  ) {
+    if (resolucaoMillis < 1) {
+      throw new IllegalArgumentException(
+        "Resolução inválida: " + resolucaoMillis
+      );
+    }
+    this.resolucao = resolucaoMillis;
+    this.atual = agoraMillis / resolucaoMillis;
+    Arrays.fill(cabecas, NENHUM);
+    int capacidade = Math.max(16, capacidadeInicial);
+    this.proximo = new int[capacidade];
+    this.anterior = new int[capacidade];
+    this.posicao = new int[capacidade];
+    this.prazos = new long[capacidade];
+    Arrays.fill(posicao, NENHUM);
+  }
+
+  /** Agenda o id para o prazo (epoch ms), trocando o prazo anterior. */
+  public void agendar(int id, long prazoMillis) {
+    if (id < 0) {
+      throw new IllegalArgumentException("Id inválido: " + id);
+    }
+    if (id >= posicao.length) {
+      crescer(id);
+    }
+    if (posicao[id] != NENHUM) {
+      desligar(id);
+    } else {
+      tamanho++;
+    }
+    // Arredonda para cima: nunca expira antes do prazo
+    prazos[id] = Math.floorDiv(prazoMillis - 1, resolucao) + 1;
+    colocar(id);
+  }
+
+  /** Tira o id da roda; false se ele não estava agendado. */
+  public boolean cancelar(int id) {
+    if (id < 0 || id >= posicao.length || posicao[id] == NENHUM) {
+      return false;
+    }
+    desligar(id);
+    posicao[id] = NENHUM;
+    tamanho--;
+    return true;
+  }
+
+  public boolean agendado(int id) {
+    return id >= 0 && id < posicao.length && posicao[id] != NENHUM;
+  }
+
+  /**
+   * Processa os ticks até {@code agoraMillis} e entrega cada id vencido, já
+   * fora da roda. O consumidor pode reagendar o próprio id, mas não deve
+   * mexer nos demais. Devolve quantos expiraram.
+   */
+  public int avancar(long agoraMillis, IntConsumer expirado) {
+    long alvo = agoraMillis / resolucao;
+    int expirados = 0;
+    while (atual <= alvo) {
+      if (tamanho == 0) {
+        // Nada agendado: pula direto, sem percorrer os ticks vazios
+        atual = alvo + 1;
+        break;
+      }
+
+      long tick = atual;
+      for (int nivel = NIVEIS - 1; nivel > 0; nivel--) {
+        if ((tick & ((1L << (BITS_NIVEL * nivel)) - 1)) == 0) {
+          descer(nivel, (int) (tick >>> (BITS_NIVEL * nivel)) & MASCARA);
+        }
+      }
+
+      atual = tick + 1;
+      int indice = (int) tick & MASCARA;
+      int id = cabecas[indice];
+      cabecas[indice] = NENHUM;
+      while (id != NENHUM) {
+        int seguinte = proximo[id];
+        posicao[id] = NENHUM;
+        tamanho--;
+        expirados++;
+        expirado.accept(id);
+        id = seguinte;
+      }
+    }
+    return expirados;
+  }
+
+  public int getTamanho() {
+    return tamanho;
+  }
+
+  /** Redistribui uma posição de nível alto cujo início chegou. */
+  private void descer(int nivel, int indice) {
+    int cabeca = nivel * POSICOES + indice;
+    int id = cabecas[cabeca];
+    cabecas[cabeca] = NENHUM;
+    while (id != NENHUM) {
+      int seguinte = proximo[id];
+      colocar(id);
+      id = seguinte;
+    }
+  }
+
+  private void colocar(int id) {
+    long prazo = Math.max(prazos[id], atual);
+    int nivel;
+    int indice;
+    if (prazo - atual >= 1L << (BITS_NIVEL * NIVEIS)) {
+      // Além do alcance: a posição do nível mais alto que desce por último
+      nivel = NIVEIS - 1;
+      indice = (int) ((atual >>> (BITS_NIVEL * nivel)) - 1) & MASCARA;
+    } else {
+      // Nível mais baixo em que prazo e tick atual coincidem acima dele; no
+      // mais alto, a posição pode estar na próxima volta
+      long diferenca = prazo ^ atual;
+      nivel = diferenca == 0
+        ? 0
+        : Math.min(
+          NIVEIS - 1,
+          (63 - Long.numberOfLeadingZeros(diferenca)) / BITS_NIVEL
+        );
+      indice = (int) (prazo >>> (BITS_NIVEL * nivel)) & MASCARA;
+    }
+
+    int cabeca = nivel * POSICOES + indice;
+    int primeiro = cabecas[cabeca];
+    proximo[id] = primeiro;
+    anterior[id] = NENHUM;
+    if (primeiro != NENHUM) {
+      anterior[primeiro] = id;
+    }
+    cabecas[cabeca] = id;
+    posicao[id] = cabeca;
+  }
+
+  private void desligar(int id) {
+    int antes = anterior[id];
+    int depois = proximo[id];
+    if (antes != NENHUM) {
+      proximo[antes] = depois;
+    } else {
+      cabecas[posicao[id]] = depois;
+    }
+    if (depois != NENHUM) {
+      anterior[depois] = antes;
+    }
+  }
+
+  private void crescer(int id) {
+    int capacidade = Math.max(id + 1, posicao.length * 2);
+    int anteriorTamanho = posicao.length;
+    proximo = Arrays.copyOf(proximo, capacidade);
+    anterior = Arrays.copyOf(anterior, capacidade);
+    prazos = Arrays.copyOf(prazos, capacidade);
+    posicao = Arrays.copyOf(posicao, capacidade);
+    Arrays.fill(posicao, anteriorTamanho, capacidade, NENHUM);
+  }
+}
@@ -0,0 +1,187 @@
+package com.arquitetura.estoque.reserva;
+
+import com.arquitetura.estoque.model.NivelEstoque;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.IntPredicate;
+import java.util.function.IntUnaryOperator;
+
+/**
+ * Índices secundários BAIXO/MEDIO/ALTO sobre os ids do {@link InventarioSku},
+ * mantidos a cada alteração de saldo em vez de varrer o inventário.
+ *
+ * <p>Uma alteração que não muda o nível custa duas comparações. Quando muda,
+ * o SKU é reclassificado sob um lock de listra: lê o saldo atual e acerta os
+ * bits. Como a reclassificação lê o saldo no momento em que roda, a última a
+ * rodar sempre vê o valor final, mesmo que alterações concorrentes do mesmo
+ * SKU cheguem fora de ordem. Leitores percorrem os bitmaps sem lock.
+ *
+ * <p>Sobre um {@link MotorReserva}, o nível é o do disponível real (saldo
+ * central mais as células de um SKU quente). Reservas de um SKU quente saem
+ * das células sem tocar no saldo central, então toda alteração do saldo dele
+ * (um reabastecimento) o reclassifica; entre dois reabastecimentos, o nível
+ * pode atrasar no máximo as unidades que estavam nas células.
+ */
+public class IndiceNivelEstoque implements InventarioSku.ObservadorSaldo {
+
+  private static final NivelEstoque[] NIVEIS = NivelEstoque.values();
+  private static final int LISTRAS = 64;
+
+  private final InventarioSku inventario;
+  private final IntUnaryOperator disponivel;
+  private final IntPredicate sempreReclassificar;
+  private final Bitmap[] bitmaps = new Bitmap[NIVEIS.length];
+  private final AtomicInteger[] contagens = new AtomicInteger[NIVEIS.length];
+  private final Object[] listras = new Object[LISTRAS];
+
+  /** Indexa o inventário atual e passa a acompanhar as alterações. */
+  public IndiceNivelEstoque(InventarioSku inventario) {
+    this(inventario, inventario::saldo, id -> false);
+  }
+
+  /** Como o do inventário, mas com o disponível real dos SKUs quentes. */
+  public IndiceNivelEstoque(MotorReserva motor) {
+    this(motor.getInventario(), motor::disponivel, motor::isQuente);
+  }
+
+  private IndiceNivelEstoque(
+    InventarioSku inventario,
+    IntUnaryOperator disponivel,
+    IntPredicate sempreReclassificar
+  ) {
+    this.inventario = inventario;
+    this.disponivel = disponivel;
+    this.sempreReclassificar = sempreReclassificar;
+    for (int i = 0; i < NIVEIS.length; i++) {
+      bitmaps[i] = new Bitmap();
+      contagens[i] = new AtomicInteger();
+    }
+    for (int i = 0; i < LISTRAS; i++) {
+      listras[i] = new Object();
+    }
+
+    // Observa antes de varrer: o que mudar durante a varredura é
+    // reclassificado pelo próprio observador
+    inventario.setObservador(this);
+    int total = inventario.getTotalSkus();
+    for (int id = 0; id < total; id++) {
+      reclassificar(id);
+    }
+  }
+
+  @Override
+  public void skuRegistrado(int id) {
+    reclassificar(id);
+  }
+
+  @Override
+  public void saldoAlterado(int id, int anterior, int atual) {
+    if (
+      NivelEstoque.de(anterior) != NivelEstoque.de(atual) ||
+      sempreReclassificar.test(id)
+    ) {
+      reclassificar(id);
+    }
+  }
+
+  /** Primeiro id no nível a partir de {@code desde}, ou -1 se não houver. */
+  public int proximo(NivelEstoque nivel, int desde) {
+    return bitmaps[nivel.ordinal()].proximo(
+      desde,
+      inventario.getTotalSkus()
+    );
+  }
+
+  public int contar(NivelEstoque nivel) {
+    return contagens[nivel.ordinal()].get();
+  }
+
+  private void reclassificar(int id) {
+    synchronized (listras[id & (LISTRAS - 1)]) {
+      int correto = NivelEstoque.de(disponivel.applyAsInt(id)).ordinal();
+      for (int i = 0; i < NIVEIS.length; i++) {
+        boolean mudou = i == correto
+          ? bitmaps[i].ligar(id)
+          : bitmaps[i].desligar(id);
+        if (mudou) {
+          contagens[i].addAndGet(i == correto ? 1 : -1);
+        }
+      }
+    }
+  }
+
+  /** Bitmap por blocos de 2^16 ids, alocados sob demanda como no inventário. */
+  private static final class Bitmap {
+
+    private static final int BITS_BLOCO = 16;
+    private static final int PALAVRAS_BLOCO = (1 << BITS_BLOCO) >>> 6;
+
+    private final AtomicReferenceArray<AtomicLongArray> blocos =
+      new AtomicReferenceArray<>(InventarioSku.MAXIMO_SKUS >>> BITS_BLOCO);
+
+    boolean ligar(int id) {
+      long mascara = 1L << id;
+      AtomicLongArray bloco = bloco(id);
+      int palavra = (id >>> 6) & (PALAVRAS_BLOCO - 1);
+      long anterior = bloco.getAndAccumulate(
+        palavra,
+        mascara,
+        (a, b) -> a | b
+      );
+      return (anterior & mascara) == 0;
+    }
+
+    boolean desligar(int id) {
+      AtomicLongArray bloco = blocos.get(id >>> BITS_BLOCO);
+      if (bloco == null) {
+        return false;
+      }
+      long mascara = 1L << id;
+      int palavra = (id >>> 6) & (PALAVRAS_BLOCO - 1);
+      long anterior = bloco.getAndAccumulate(
+        palavra,
+        ~mascara,
+        (a, b) -> a & b
+      );
+      return (anterior & mascara) != 0;
+    }
+
+    int proximo(int desde, int limite) {
+      int id = Math.max(desde, 0);
+      while (id < limite) {
+        AtomicLongArray bloco = blocos.get(id >>> BITS_BLOCO);
+        if (bloco == null) {
+          id = ((id >>> BITS_BLOCO) + 1) << BITS_BLOCO;
+          continue;
+        }
+
+        int palavra = (id >>> 6) & (PALAVRAS_BLOCO - 1);
+        long bits = bloco.get(palavra) & (-1L << id);
+        while (bits == 0) {
+          palavra++;
+          id = (id & ~63) + 64;
+          if (palavra == PALAVRAS_BLOCO || id >= limite) {
+            break;
+          }
+          bits = bloco.get(palavra);
+        }
+        if (bits != 0) {
+          int encontrado = (id & ~63) + Long.numberOfTrailingZeros(bits);
+          return encontrado < limite ? encontrado : -1;
+        }
+      }
+      return -1;
+    }
+
+    private AtomicLongArray bloco(int id) {
+      int indice = id >>> BITS_BLOCO;
+      AtomicLongArray bloco = blocos.get(indice);
+      if (bloco == null) {
+        blocos.compareAndSet(indice, null, new AtomicLongArray(PALAVRAS_BLOCO));
+        bloco = blocos.get(indice);
+      }
+      return bloco;
+    }
+  }
+}
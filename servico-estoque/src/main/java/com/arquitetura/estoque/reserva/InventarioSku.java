@@ -0,0 +1,435 @@
+package com.arquitetura.estoque.reserva;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.charset.StandardCharsets;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * Catálogo de SKUs com saldos em arrays primitivos.
+ *
+ * <p>Cada código é internado uma única vez para um id denso (0, 1, 2...). Os
+ * bytes do código ficam em blocos de 1 MiB, o índice é uma tabela de
+ * endereçamento aberto de {@code int} e os saldos ficam em blocos de
+ * {@code int[]} indexados pelo id, lidos e alterados por {@link VarHandle}.
+ * Um SKU ocupa cerca de 20 bytes mais o tamanho do código, contra mais de 100
+ * bytes de um {@code ConcurrentHashMap<String, Integer>}.
+ *
+ * <p>O registro de novos SKUs é serializado; consultas e alterações de saldo
+ * não usam lock. Um id só é publicado no índice depois que o código, o hash e
+ * o bloco de saldo já estão gravados.
+ */
+public class InventarioSku {
+
+  private static final VarHandle INTS = MethodHandles.arrayElementVarHandle(
+    int[].class
+  );
+
+  private static final int BITS_BLOCO_IDS = 16;
+  private static final int TAMANHO_BLOCO_IDS = 1 << BITS_BLOCO_IDS;
+  private static final int MASCARA_BLOCO_IDS = TAMANHO_BLOCO_IDS - 1;
+  private static final int MAXIMO_BLOCOS_IDS = 1 << 12;
+  public static final int MAXIMO_SKUS = MAXIMO_BLOCOS_IDS * TAMANHO_BLOCO_IDS;
+
+  private static final int BITS_BLOCO_CODIGOS = 20;
+  private static final int TAMANHO_BLOCO_CODIGOS = 1 << BITS_BLOCO_CODIGOS;
+  private static final int MAXIMO_BLOCOS_CODIGOS = 1 << 11;
+  private static final int MAXIMO_BYTES_CODIGO = 255;
+
+  private static final double CARGA_MAXIMA = 0.6;
+  private static final int SEMENTE_HASH = 0x9747b28c;
+  private static final int PRIMO_HASH = 0x01000193;
+
+  // Tabelas externas com tamanho fixo: só os blocos internos são alocados
+  private final int[][] saldos = new int[MAXIMO_BLOCOS_IDS][];
+  private final int[][] hashes = new int[MAXIMO_BLOCOS_IDS][];
+  private final int[][] posicoes = new int[MAXIMO_BLOCOS_IDS][];
+  private final byte[][] codigos = new byte[MAXIMO_BLOCOS_CODIGOS][];
+
+  private final Object escrita = new Object();
+
+  // Cada posição guarda id + 1 (0 = vazia)
+  private volatile int[] indice;
+  private volatile int total;
+
+  private int blocoCodigo = -1;
+  private int posicaoCodigo = TAMANHO_BLOCO_CODIGOS;
+  private volatile ObservadorSaldo observador;
+
+  public InventarioSku() {
+    this(1024);
+  }
+
+  public InventarioSku(int capacidadeInicial) {
+    int capacidade = Math.max(16, (int) (capacidadeInicial / CARGA_MAXIMA));
+    this.indice = new int[Integer.highestOneBit(capacidade - 1) << 1];
+  }
+
+  /** Id do SKU, registrando-o com saldo zero se ainda não existir. */
+  public int registrar(String sku) {
+    int id = idDe(sku);
+    if (id >= 0) {
+      return id;
+    }
+
+    byte[] bytes = sku.getBytes(StandardCharsets.UTF_8);
+    int hash = hash(bytes);
+
+    synchronized (escrita) {
+      id = buscar(indice, hash, bytes, null);
+      if (id >= 0) {
+        return id;
+      }
+      if (bytes.length > MAXIMO_BYTES_CODIGO) {
+        throw new IllegalArgumentException(
+          "Código de SKU com mais de " +
+          MAXIMO_BYTES_CODIGO +
+          " bytes: " +
+          sku
+        );
+      }
+
+      id = total;
+      if (id == MAXIMO_SKUS) {
+        throw new IllegalStateException("Capacidade de SKUs esgotada");
+      }
+
+      int bloco = id >>> BITS_BLOCO_IDS;
+      if (saldos[bloco] == null) {
+        saldos[bloco] = new int[TAMANHO_BLOCO_IDS];
+        hashes[bloco] = new int[TAMANHO_BLOCO_IDS];
+        posicoes[bloco] = new int[TAMANHO_BLOCO_IDS];
+      }
+      hashes[bloco][id & MASCARA_BLOCO_IDS] = hash;
+      posicoes[bloco][id & MASCARA_BLOCO_IDS] = gravarCodigo(bytes);
+
+      // total antes do índice: quem achar o id já pode ler o saldo
+      total = id + 1;
+
+      int[] tabela = indice;
+      if (id + 1 > tabela.length * CARGA_MAXIMA) {
+        tabela = redimensionar(tabela, id);
+      }
+      inserir(tabela, hash, id);
+
+      ObservadorSaldo o = observador;
+      if (o != null) {
+        o.skuRegistrado(id);
+      }
+      return id;
+    }
+  }
+
+  /** Id do SKU ou -1 se não estiver registrado. */
+  public int idDe(String sku) {
+    // Códigos ASCII (o caso comum) dispensam a conversão para UTF-8
+    if (ascii(sku)) {
+      return buscar(indice, hashAscii(sku), null, sku);
+    }
+    byte[] bytes = sku.getBytes(StandardCharsets.UTF_8);
+    return buscar(indice, hash(bytes), bytes, null);
+  }
+
+  public String codigoDe(int id) {
+    verificarId(id);
+    int posicao = posicoes[id >>> BITS_BLOCO_IDS][id & MASCARA_BLOCO_IDS];
+    byte[] bloco = codigos[posicao >>> BITS_BLOCO_CODIGOS];
+    int inicio = posicao & (TAMANHO_BLOCO_CODIGOS - 1);
+    return new String(
+      bloco,
+      inicio + 1,
+      bloco[inicio] & 0xFF,
+      StandardCharsets.UTF_8
+    );
+  }
+
+  public int saldo(int id) {
+    verificarId(id);
+    return (int) INTS.getVolatile(blocoSaldo(id), id & MASCARA_BLOCO_IDS);
+  }
+
+  public void definirSaldo(int id, int quantidade) {
+    verificarId(id);
+    int anterior = (int) INTS.getAndSet(
+      blocoSaldo(id),
+      id & MASCARA_BLOCO_IDS,
+      quantidade
+    );
+    notificar(id, anterior, quantidade);
+  }
+
+  /** Soma atômica; devolve o saldo resultante. */
+  public int somarSaldo(int id, int delta) {
+    verificarId(id);
+    int anterior = (int) INTS.getAndAdd(
+      blocoSaldo(id),
+      id & MASCARA_BLOCO_IDS,
+      delta
+    );
+    notificar(id, anterior, anterior + delta);
+    return anterior + delta;
+  }
+
+  /**
+   * Recebe cada registro e alteração de saldo, depois de aplicados, na thread
+   * que os fez. Só um observador por inventário.
+   */
+  public void setObservador(ObservadorSaldo observador) {
+    this.observador = observador;
+  }
+
+  /**
+   * Percorre os saldos na ordem dos ids sem materializar os códigos. Cada
+   * saldo é lido atomicamente, mas o conjunto não é um retrato consistente.
+   */
+  public void paraCada(VisitanteSaldo visitante) {
+    int quantidade = total;
+    for (int bloco = 0; bloco << BITS_BLOCO_IDS < quantidade; bloco++) {
+      int[] valores = saldos[bloco];
+      int base = bloco << BITS_BLOCO_IDS;
+      int fim = Math.min(TAMANHO_BLOCO_IDS, quantidade - base);
+      for (int i = 0; i < fim; i++) {
+        visitante.visitar(base + i, (int) INTS.getVolatile(valores, i));
+      }
+    }
+  }
+
+  /**
+   * Visão somente leitura dos saldos por código, sem cópia. Consultas vão
+   * direto ao índice; a iteração decodifica um código por vez.
+   */
+  public Map<String, Integer> comoMapa() {
+    return new VisaoSaldos();
+  }
+
+  public int getTotalSkus() {
+    return total;
+  }
+
+  public long getBytesOcupados() {
+    synchronized (escrita) {
+      long blocosIds = 0;
+      for (int[] bloco : saldos) {
+        if (bloco != null) {
+          blocosIds++;
+        }
+      }
+      return (
+        blocosIds * TAMANHO_BLOCO_IDS * 3L * Integer.BYTES +
+        (blocoCodigo + 1L) * TAMANHO_BLOCO_CODIGOS +
+        (long) indice.length * Integer.BYTES
+      );
+    }
+  }
+
+  private int buscar(int[] tabela, int hash, byte[] bytes, String ascii) {
+    int mascara = tabela.length - 1;
+    for (int i = hash & mascara;; i = (i + 1) & mascara) {
+      int valor = (int) INTS.getAcquire(tabela, i);
+      if (valor == 0) {
+        return -1;
+      }
+      int id = valor - 1;
+      if (
+        hashes[id >>> BITS_BLOCO_IDS][id & MASCARA_BLOCO_IDS] == hash &&
+        (ascii != null ? mesmoCodigo(id, ascii) : mesmoCodigo(id, bytes))
+      ) {
+        return id;
+      }
+    }
+  }
+
+  private boolean mesmoCodigo(int id, byte[] bytes) {
+    int posicao = posicoes[id >>> BITS_BLOCO_IDS][id & MASCARA_BLOCO_IDS];
+    byte[] bloco = codigos[posicao >>> BITS_BLOCO_CODIGOS];
+    int inicio = posicao & (TAMANHO_BLOCO_CODIGOS - 1);
+    if ((bloco[inicio] & 0xFF) != bytes.length) {
+      return false;
+    }
+    for (int i = 0; i < bytes.length; i++) {
+      if (bloco[inicio + 1 + i] != bytes[i]) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private boolean mesmoCodigo(int id, String ascii) {
+    int posicao = posicoes[id >>> BITS_BLOCO_IDS][id & MASCARA_BLOCO_IDS];
+    byte[] bloco = codigos[posicao >>> BITS_BLOCO_CODIGOS];
+    int inicio = posicao & (TAMANHO_BLOCO_CODIGOS - 1);
+    if ((bloco[inicio] & 0xFF) != ascii.length()) {
+      return false;
+    }
+    for (int i = 0; i < ascii.length(); i++) {
+      if (bloco[inicio + 1 + i] != (byte) ascii.charAt(i)) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private void inserir(int[] tabela, int hash, int id) {
+    int mascara = tabela.length - 1;
+    int i = hash & mascara;
+    while (tabela[i] != 0) {
+      i = (i + 1) & mascara;
+    }
+    INTS.setRelease(tabela, i, id + 1);
+  }
+
+  private int[] redimensionar(int[] atual, int quantidade) {
+    int[] nova = new int[atual.length << 1];
+    int mascara = nova.length - 1;
+    for (int id = 0; id < quantidade; id++) {
+      int i = hashes[id >>> BITS_BLOCO_IDS][id & MASCARA_BLOCO_IDS] & mascara;
+      while (nova[i] != 0) {
+        i = (i + 1) & mascara;
+      }
+      nova[i] = id + 1;
+    }
+    // Publicada pela escrita volátil: leitores veem a tabela já preenchida
+    indice = nova;
+    return nova;
+  }
+
+  private int gravarCodigo(byte[] bytes) {
+    int tamanho = bytes.length + 1;
+    if (posicaoCodigo + tamanho > TAMANHO_BLOCO_CODIGOS) {
+      if (blocoCodigo + 1 == MAXIMO_BLOCOS_CODIGOS) {
+        throw new IllegalStateException("Área de códigos de SKU esgotada");
+      }
+      codigos[++blocoCodigo] = new byte[TAMANHO_BLOCO_CODIGOS];
+      posicaoCodigo = 0;
+    }
+
+    byte[] bloco = codigos[blocoCodigo];
+    bloco[posicaoCodigo] = (byte) bytes.length;
+    System.arraycopy(bytes, 0, bloco, posicaoCodigo + 1, bytes.length);
+
+    int posicao = (blocoCodigo << BITS_BLOCO_CODIGOS) | posicaoCodigo;
+    posicaoCodigo += tamanho;
+    return posicao;
+  }
+
+  private int[] blocoSaldo(int id) {
+    return saldos[id >>> BITS_BLOCO_IDS];
+  }
+
+  private void verificarId(int id) {
+    if (id < 0 || id >= total) {
+      throw new IndexOutOfBoundsException("Id de SKU inválido: " + id);
+    }
+  }
+
+  private static boolean ascii(String sku) {
+    for (int i = 0; i < sku.length(); i++) {
+      if (sku.charAt(i) >= 0x80) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private static int hash(byte[] bytes) {
+    int h = SEMENTE_HASH;
+    for (byte b : bytes) {
+      h = (h ^ b) * PRIMO_HASH;
+    }
+    return misturar(h);
+  }
+
+  /** Mesmo resultado de {@link #hash(byte[])} sobre os bytes ASCII. */
+  private static int hashAscii(String sku) {
+    int h = SEMENTE_HASH;
+    for (int i = 0; i < sku.length(); i++) {
+      h = (h ^ (byte) sku.charAt(i)) * PRIMO_HASH;
+    }
+    return misturar(h);
+  }
+
+  private static int misturar(int h) {
+    h ^= h >>> 16;
+    h *= 0x85ebca6b;
+    h ^= h >>> 13;
+    return h;
+  }
+
+  private void notificar(int id, int anterior, int atual) {
+    ObservadorSaldo o = observador;
+    if (o != null) {
+      o.saldoAlterado(id, anterior, atual);
+    }
+  }
+
+  @FunctionalInterface
+  public interface VisitanteSaldo {
+    void visitar(int id, int saldo);
+  }
+
+  public interface ObservadorSaldo {
+    /** Novo id, com saldo zero. Chamado ainda dentro do lock de registro. */
+    void skuRegistrado(int id);
+
+    void saldoAlterado(int id, int anterior, int atual);
+  }
+
+  private class VisaoSaldos extends AbstractMap<String, Integer> {
+
+    @Override
+    public Integer get(Object chave) {
+      if (!(chave instanceof String sku)) {
+        return null;
+      }
+      int id = idDe(sku);
+      return id < 0 ? null : saldo(id);
+    }
+
+    @Override
+    public boolean containsKey(Object chave) {
+      return chave instanceof String sku && idDe(sku) >= 0;
+    }
+
+    @Override
+    public int size() {
+      return total;
+    }
+
+    @Override
+    public Set<Entry<String, Integer>> entrySet() {
+      return new AbstractSet<>() {
+        @Override
+        public int size() {
+          return total;
+        }
+
+        @Override
+        public Iterator<Entry<String, Integer>> iterator() {
+          int fim = total;
+          return new Iterator<>() {
+            private int proximo;
+
+            @Override
+            public boolean hasNext() {
+              return proximo < fim;
+            }
+
+            @Override
+            public Entry<String, Integer> next() {
+              if (proximo >= fim) {
+                throw new NoSuchElementException();
+              }
+              int id = proximo++;
+              return new SimpleImmutableEntry<>(codigoDe(id), saldo(id));
+            }
+          };
+        }
+      };
+    }
+  }
+}
@@ -0,0 +1,613 @@
+package com.arquitetura.estoque.reserva;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Reserva de estoque tudo-ou-nada para as linhas de um pedido.
+ *
+ * <p>Os saldos ficam em um {@link InventarioSku}; o id denso de cada SKU
+ * define a sua listra (lock). A reserva trava as listras dos SKUs do pedido
+ * sempre em ordem crescente de índice, confere todos os saldos e só então
+ * deduz. Como todos os pedidos adquirem os locks na mesma ordem, dois
+ * pedidos com os mesmos SKUs em ordens diferentes não entram em deadlock, e
+ * pedidos com SKUs em listras distintas avançam em paralelo.
+ *
+ * <p>Com um {@link ModoQuente}, uma listra disputada seguidas vezes promove o
+ * SKU que a disputava a quente: a partir daí as suas unidades saem de
+ * orçamentos por thread ({@link OrcamentoSkuQuente}) sem passar pela listra,
+ * que só é travada para reabastecer. É o caso de uma promoção relâmpago, em
+ * que um único SKU recebe quase todo o tráfego. No máximo
+ * {@link ModoQuente#maximo} SKUs ficam quentes ao mesmo tempo: promover mais
+ * um rebaixa o que menos reabasteceu desde a última promoção.
+ */
+public class MotorReserva {
+
+  private final InventarioSku inventario;
+  private final ReentrantLock[] listras;
+  private final int mascara;
+  private final ModoQuente modoQuente;
+  private final AtomicIntegerArray disputas;
+  // Copiados a cada promoção ou rebaixamento, que são raros: os quentes para
+  // percorrer e, indexado pelo id do SKU, para a busca de cada reserva
+  private volatile OrcamentoSkuQuente[] quentes = new OrcamentoSkuQuente[0];
+  private volatile OrcamentoSkuQuente[] quentePorId =
+    new OrcamentoSkuQuente[0];
+
+  public MotorReserva(int quantidadeListras) {
+    this(quantidadeListras, new InventarioSku());
+  }
+
+  public MotorReserva(int quantidadeListras, InventarioSku inventario) {
+    this(quantidadeListras, inventario, null);
+  }
+
+  /** Com {@code modoQuente} null, SKUs disputados continuam na listra. */
+  public MotorReserva(
+    int quantidadeListras,
+    InventarioSku inventario,
+    ModoQuente modoQuente
+  ) {
+    if (quantidadeListras < 1) {
+      throw new IllegalArgumentException(
+        "Quantidade de listras deve ser positiva: " + quantidadeListras
+      );
+    }
+
+    int tamanho = quantidadeListras == 1
+      ? 1
+      : Integer.highestOneBit(quantidadeListras - 1) << 1;
+    this.listras = new ReentrantLock[tamanho];
+    for (int i = 0; i < tamanho; i++) {
+      listras[i] = new ReentrantLock();
+    }
+    this.mascara = tamanho - 1;
+    this.inventario = inventario;
+    this.modoQuente = modoQuente;
+    this.disputas = new AtomicIntegerArray(tamanho);
+  }
+
+  public void definirEstoque(String sku, int quantidade) {
+    if (quantidade < 0) {
+      throw new IllegalArgumentException(
+        "Estoque negativo para " + sku + ": " + quantidade
+      );
+    }
+
+    int id = inventario.registrar(sku);
+    ReentrantLock lock = listras[id & mascara];
+    lock.lock();
+    try {
+      OrcamentoSkuQuente orcamento = quente(id);
+      if (orcamento != null) {
+        orcamento.drenar();
+      }
+      inventario.definirSaldo(id, quantidade);
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * Entrada de mercadoria. Só soma, então dispensa o lock: uma reserva que
+   * conferiu o saldo antes da soma continua válida depois dela.
+   */
+  public int repor(String sku, int quantidade) {
+    if (quantidade <= 0) {
+      throw new IllegalArgumentException(
+        "Quantidade inválida para " + sku + ": " + quantidade
+      );
+    }
+    return inventario.somarSaldo(inventario.registrar(sku), quantidade);
+  }
+
+  /**
+   * Reserva todas as quantidades ou nenhuma. SKUs desconhecidos têm saldo
+   * zero. O mapa não pode repetir SKU; some as linhas repetidas antes.
+   */
+  public Resultado reservar(Map<String, Integer> quantidadesPorSku) {
+    int linhas = quantidadesPorSku.size();
+    String[] skus = new String[linhas];
+    int[] ids = new int[linhas];
+    int[] quantidades = new int[linhas];
+    boolean desconhecido = false;
+
+    int n = 0;
+    for (Map.Entry<String, Integer> linha : quantidadesPorSku.entrySet()) {
+      validarQuantidade(linha.getKey(), linha.getValue());
+      skus[n] = linha.getKey();
+      ids[n] = inventario.idDe(linha.getKey());
+      quantidades[n] = linha.getValue();
+      desconhecido |= ids[n] < 0;
+      n++;
+    }
+
+    if (desconhecido) {
+      return recusar(skus, ids, quantidades);
+    }
+
+    // SKUs quentes saem do orçamento antes de travar as listras dos demais:
+    // o reabastecimento trava só a listra do próprio SKU, sem risco de
+    // inverter a ordem dos locks
+    OrcamentoSkuQuente[] orcamentos = orcamentos(ids);
+    if (orcamentos != null) {
+      for (int i = 0; i < linhas; i++) {
+        if (orcamentos[i] != null && !orcamentos[i].tomar(quantidades[i])) {
+          devolver(orcamentos, quantidades, i);
+          return recusar(skus, ids, quantidades);
+        }
+      }
+    }
+
+    int[] frios = naoQuentes(ids, orcamentos);
+    int[] indices = listrasOrdenadas(frios);
+    for (int indice : indices) {
+      travar(indice, frios);
+    }
+
+    try {
+      for (int i = 0; i < linhas; i++) {
+        boolean quente = orcamentos != null && orcamentos[i] != null;
+        if (!quente && inventario.saldo(ids[i]) < quantidades[i]) {
+          devolver(orcamentos, quantidades, linhas);
+          return recusar(skus, ids, quantidades);
+        }
+      }
+
+      Map<String, Integer> restantes = new HashMap<>(linhas * 2);
+      for (int i = 0; i < linhas; i++) {
+        if (orcamentos != null && orcamentos[i] != null) {
+          restantes.put(skus[i], orcamentos[i].disponivelAproximado());
+          continue;
+        }
+        // Soma atômica: reposições sem lock podem ocorrer em paralelo
+        restantes.put(skus[i], inventario.somarSaldo(ids[i], -quantidades[i]));
+      }
+
+      return new Resultado(true, restantes, List.of());
+    } finally {
+      for (int i = indices.length - 1; i >= 0; i--) {
+        listras[indices[i]].unlock();
+      }
+    }
+  }
+
+  /**
+   * Reserva um lote de pedidos com um único ciclo de locks. Cada pedido
+   * continua tudo-ou-nada e é decidido na ordem do lote contra o saldo já
+   * descontado dos pedidos anteriores; no fim, cada SKU recebe uma única
+   * dedução com o total aceito. Devolve um resultado por pedido, na mesma
+   * ordem.
+   */
+  public List<Resultado> reservarLote(List<Map<String, Integer>> pedidos) {
+    Map<Integer, Integer> posicoes = new HashMap<>();
+    List<int[]> idsPorPedido = new ArrayList<>(pedidos.size());
+    for (Map<String, Integer> pedido : pedidos) {
+      int[] ids = new int[pedido.size()];
+      int n = 0;
+      for (Map.Entry<String, Integer> linha : pedido.entrySet()) {
+        validarQuantidade(linha.getKey(), linha.getValue());
+        ids[n] = inventario.idDe(linha.getKey());
+        if (ids[n] >= 0) {
+          posicoes.putIfAbsent(ids[n], posicoes.size());
+        }
+        n++;
+      }
+      idsPorPedido.add(ids);
+    }
+
+    int[] idsDistintos = new int[posicoes.size()];
+    posicoes.forEach((id, posicao) -> idsDistintos[posicao] = id);
+    int[] indices = listrasOrdenadas(idsDistintos);
+    for (int indice : indices) {
+      listras[indice].lock();
+    }
+
+    try {
+      int[] disponiveis = new int[idsDistintos.length];
+      int[] deduzidos = new int[idsDistintos.length];
+      for (int i = 0; i < idsDistintos.length; i++) {
+        // Com a listra travada ninguém reabastece: as sobras das células de
+        // um SKU quente voltam ao saldo central e o lote decide sobre ele
+        OrcamentoSkuQuente orcamento = quente(idsDistintos[i]);
+        if (orcamento != null) {
+          orcamento.drenar();
+        }
+        disponiveis[i] = inventario.saldo(idsDistintos[i]);
+      }
+
+      List<Resultado> resultados = new ArrayList<>(pedidos.size());
+      for (int p = 0; p < pedidos.size(); p++) {
+        Map<String, Integer> pedido = pedidos.get(p);
+        int[] ids = idsPorPedido.get(p);
+        Resultado resultado = decidir(pedido, ids, posicoes, disponiveis);
+        if (resultado.reservado()) {
+          int n = 0;
+          for (int quantidade : pedido.values()) {
+            deduzidos[posicoes.get(ids[n++])] += quantidade;
+          }
+        }
+        resultados.add(resultado);
+      }
+
+      for (int i = 0; i < idsDistintos.length; i++) {
+        if (deduzidos[i] > 0) {
+          inventario.somarSaldo(idsDistintos[i], -deduzidos[i]);
+        }
+      }
+      return resultados;
+    } finally {
+      for (int i = indices.length - 1; i >= 0; i--) {
+        listras[indices[i]].unlock();
+      }
+    }
+  }
+
+  public int consultar(String sku) {
+    int id = inventario.idDe(sku);
+    return id < 0 ? 0 : disponivel(id);
+  }
+
+  /**
+   * Torna o SKU quente sem esperar a disputa, para uma promoção anunciada.
+   * Exige o modo quente. Com o limite de quentes cheio, rebaixa o menos usado.
+   */
+  public void marcarQuente(String sku) {
+    if (modoQuente == null) {
+      throw new IllegalStateException("Modo quente desabilitado");
+    }
+    promover(inventario.registrar(sku));
+  }
+
+  /**
+   * Devolve ao saldo central as unidades distribuídas nos orçamentos dos SKUs
+   * quentes, deixando o inventário com o disponível real. Usado antes de
+   * copiar os saldos para um snapshot.
+   */
+  public void devolverOrcamentos() {
+    for (OrcamentoSkuQuente orcamento : quentes) {
+      ReentrantLock lock = listras[orcamento.getId() & mascara];
+      lock.lock();
+      try {
+        orcamento.drenar();
+      } finally {
+        lock.unlock();
+      }
+    }
+  }
+
+  /**
+   * Troca todos os saldos de uma vez, pelos de um inventário reconstruído;
+   * SKUs fora do mapa ficam zerados. Trava todas as listras, então nenhuma
+   * reserva vê parte dos saldos antigos e parte dos novos.
+   */
+  public void substituirSaldos(Map<String, Integer> saldos) {
+    for (ReentrantLock listra : listras) {
+      listra.lock();
+    }
+    try {
+      for (OrcamentoSkuQuente orcamento : quentes) {
+        orcamento.drenar();
+      }
+      saldos.forEach((sku, quantidade) ->
+        inventario.definirSaldo(inventario.registrar(sku), quantidade)
+      );
+      // Depois dos novos: uma consulta sem lock nunca vê um SKU zerado à toa
+      inventario.paraCada((id, saldo) -> {
+        if (saldo != 0 && !saldos.containsKey(inventario.codigoDe(id))) {
+          inventario.definirSaldo(id, 0);
+        }
+      });
+    } finally {
+      for (int i = listras.length - 1; i >= 0; i--) {
+        listras[i].unlock();
+      }
+    }
+  }
+
+  /**
+   * Visão sem cópia dos saldos; cada SKU é consistente, o conjunto não. O
+   * saldo de um SKU quente não inclui o que está nos orçamentos das threads.
+   */
+  public Map<String, Integer> saldos() {
+    return inventario.comoMapa();
+  }
+
+  public InventarioSku getInventario() {
+    return inventario;
+  }
+
+  public int getQuantidadeListras() {
+    return listras.length;
+  }
+
+  public int getSkusQuentes() {
+    return quentes.length;
+  }
+
+  /**
+   * Saldo central mais, se o SKU é quente, o que está nas células: o
+   * disponível real, que consultas e índices devem usar.
+   */
+  public int disponivel(int id) {
+    OrcamentoSkuQuente orcamento = quente(id);
+    long distribuido = orcamento != null ? orcamento.distribuido() : 0;
+    return (int) (inventario.saldo(id) + distribuido);
+  }
+
+  /**
+   * Se o SKU está quente: parte do seu disponível pode mudar nas células sem
+   * alterar o saldo central.
+   */
+  public boolean isQuente(int id) {
+    return quente(id) != null;
+  }
+
+  private OrcamentoSkuQuente quente(int id) {
+    OrcamentoSkuQuente[] porId = quentePorId;
+    return id >= 0 && id < porId.length ? porId[id] : null;
+  }
+
+  /**
+   * Chamado também com listras travadas (na disputa), então a listra do SKU
+   * rebaixado só é tentada: se estiver ocupada, a promoção fica para a
+   * próxima disputa, e o limite de quentes nunca é ultrapassado.
+   */
+  private synchronized void promover(int id) {
+    if (quente(id) != null) {
+      return;
+    }
+    if (quentes.length >= modoQuente.maximo() && !rebaixarMenosUsado()) {
+      return;
+    }
+
+    OrcamentoSkuQuente novo = new OrcamentoSkuQuente(
+      id,
+      inventario,
+      listras[id & mascara],
+      modoQuente.celulas(),
+      modoQuente.lote()
+    );
+    OrcamentoSkuQuente[] atuais = quentes;
+    OrcamentoSkuQuente[] novos = Arrays.copyOf(atuais, atuais.length + 1);
+    novos[atuais.length] = novo;
+    OrcamentoSkuQuente[] porId = quentePorId;
+    if (id >= porId.length) {
+      porId = Arrays.copyOf(porId, Math.max(id + 1, porId.length * 2));
+    } else {
+      porId = porId.clone();
+    }
+    porId[id] = novo;
+    for (OrcamentoSkuQuente orcamento : novos) {
+      orcamento.zerarUso();
+    }
+    quentePorId = porId;
+    quentes = novos;
+  }
+
+  /** Sob o monitor do motor. False se a listra do escolhido estava ocupada. */
+  private boolean rebaixarMenosUsado() {
+    OrcamentoSkuQuente[] atuais = quentes;
+    int escolhido = 0;
+    for (int i = 1; i < atuais.length; i++) {
+      if (atuais[i].getUso() < atuais[escolhido].getUso()) {
+        escolhido = i;
+      }
+    }
+
+    OrcamentoSkuQuente rebaixado = atuais[escolhido];
+    ReentrantLock lock = listras[rebaixado.getId() & mascara];
+    if (!lock.tryLock()) {
+      return false;
+    }
+    try {
+      rebaixado.aposentar();
+      OrcamentoSkuQuente[] novos = new OrcamentoSkuQuente[atuais.length - 1];
+      System.arraycopy(atuais, 0, novos, 0, escolhido);
+      System.arraycopy(
+        atuais,
+        escolhido + 1,
+        novos,
+        escolhido,
+        novos.length - escolhido
+      );
+      OrcamentoSkuQuente[] porId = quentePorId.clone();
+      porId[rebaixado.getId()] = null;
+      quentePorId = porId;
+      quentes = novos;
+      return true;
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  private OrcamentoSkuQuente[] orcamentos(int[] ids) {
+    if (quentes.length == 0) {
+      return null;
+    }
+    OrcamentoSkuQuente[] orcamentos = null;
+    for (int i = 0; i < ids.length; i++) {
+      OrcamentoSkuQuente orcamento = quente(ids[i]);
+      if (orcamento != null) {
+        if (orcamentos == null) {
+          orcamentos = new OrcamentoSkuQuente[ids.length];
+        }
+        orcamentos[i] = orcamento;
+      }
+    }
+    return orcamentos;
+  }
+
+  /** Devolve o que as primeiras {@code ate} linhas quentes tiraram. */
+  private static void devolver(
+    OrcamentoSkuQuente[] orcamentos,
+    int[] quantidades,
+    int ate
+  ) {
+    if (orcamentos == null) {
+      return;
+    }
+    for (int i = 0; i < ate; i++) {
+      if (orcamentos[i] != null) {
+        orcamentos[i].devolver(quantidades[i]);
+      }
+    }
+  }
+
+  private static int[] naoQuentes(int[] ids, OrcamentoSkuQuente[] orcamentos) {
+    if (orcamentos == null) {
+      return ids;
+    }
+    int[] frios = new int[ids.length];
+    int n = 0;
+    for (int i = 0; i < ids.length; i++) {
+      if (orcamentos[i] == null) {
+        frios[n++] = ids[i];
+      }
+    }
+    return Arrays.copyOf(frios, n);
+  }
+
+  /**
+   * Trava a listra contando as vezes seguidas em que ela já estava ocupada;
+   * no limiar, o SKU do pedido que caiu nela passa a ser quente.
+   */
+  private void travar(int indice, int[] ids) {
+    ReentrantLock lock = listras[indice];
+    if (modoQuente == null) {
+      lock.lock();
+      return;
+    }
+    if (lock.tryLock()) {
+      if (disputas.get(indice) != 0) {
+        disputas.set(indice, 0);
+      }
+      return;
+    }
+
+    if (disputas.incrementAndGet(indice) >= modoQuente.limiarDisputa()) {
+      disputas.set(indice, 0);
+      for (int id : ids) {
+        if ((id & mascara) == indice) {
+          promover(id);
+          break;
+        }
+      }
+    }
+    lock.lock();
+  }
+
+  /** Decide um pedido do lote e, se aceito, desconta-o de disponiveis. */
+  private Resultado decidir(
+    Map<String, Integer> pedido,
+    int[] ids,
+    Map<Integer, Integer> posicoes,
+    int[] disponiveis
+  ) {
+    boolean suficiente = true;
+    int n = 0;
+    for (int quantidade : pedido.values()) {
+      int id = ids[n++];
+      if (id < 0 || disponiveis[posicoes.get(id)] < quantidade) {
+        suficiente = false;
+      }
+    }
+
+    Map<String, Integer> saldos = new HashMap<>(pedido.size() * 2);
+    List<String> insuficientes = new ArrayList<>();
+    n = 0;
+    for (Map.Entry<String, Integer> linha : pedido.entrySet()) {
+      int id = ids[n++];
+      int disponivel = id < 0 ? 0 : disponiveis[posicoes.get(id)];
+      if (suficiente) {
+        disponivel -= linha.getValue();
+        disponiveis[posicoes.get(id)] = disponivel;
+      } else if (disponivel < linha.getValue()) {
+        insuficientes.add(linha.getKey());
+      }
+      saldos.put(linha.getKey(), disponivel);
+    }
+    return new Resultado(suficiente, saldos, List.copyOf(insuficientes));
+  }
+
+  private static void validarQuantidade(String sku, Integer quantidade) {
+    if (quantidade == null || quantidade <= 0) {
+      throw new IllegalArgumentException(
+        "Quantidade inválida para " + sku + ": " + quantidade
+      );
+    }
+  }
+
+  private Resultado recusar(String[] skus, int[] ids, int[] quantidades) {
+    Map<String, Integer> atuais = new HashMap<>(skus.length * 2);
+    List<String> insuficientes = new ArrayList<>();
+    for (int i = 0; i < skus.length; i++) {
+      int saldo = ids[i] < 0 ? 0 : disponivel(ids[i]);
+      atuais.put(skus[i], saldo);
+      if (saldo < quantidades[i]) {
+        insuficientes.add(skus[i]);
+      }
+    }
+    return new Resultado(false, atuais, List.copyOf(insuficientes));
+  }
+
+  private int[] listrasOrdenadas(int[] ids) {
+    int[] indices = new int[ids.length];
+    for (int i = 0; i < ids.length; i++) {
+      indices[i] = ids[i] & mascara;
+    }
+    Arrays.sort(indices);
+
+    // SKUs diferentes podem cair na mesma listra; trava cada uma só uma vez
+    int unicos = 0;
+    for (int i = 0; i < indices.length; i++) {
+      if (unicos == 0 || indices[i] != indices[unicos - 1]) {
+        indices[unicos++] = indices[i];
+      }
+    }
+    return unicos == indices.length ? indices : Arrays.copyOf(indices, unicos);
+  }
+
+  /**
+   * Saldos dos SKUs do pedido após a reserva (ou os atuais, se recusada) e os
+   * SKUs sem saldo suficiente.
+   */
+  public record Resultado(
+    boolean reservado,
+    Map<String, Integer> saldos,
+    List<String> insuficientes
+  ) {}
+
+  /**
+   * Orçamentos para SKUs quentes: {@code celulas} por SKU, reabastecidas com
+   * a quantidade pedida mais {@code lote} unidades, depois de
+   * {@code limiarDisputa} travamentos seguidos de uma listra já ocupada; no
+   * máximo {@code maximo} SKUs quentes ao mesmo tempo.
+   */
+  public record ModoQuente(
+    int celulas,
+    int lote,
+    int limiarDisputa,
+    int maximo
+  ) {
+    public ModoQuente {
+      if (celulas < 1 || lote < 0 || limiarDisputa < 1 || maximo < 1) {
+        throw new IllegalArgumentException(
+          "Modo quente inválido: celulas=" +
+          celulas +
+          ", lote=" +
+          lote +
+          ", limiarDisputa=" +
+          limiarDisputa +
+          ", maximo=" +
+          maximo
+        );
+      }
+    }
+  }
+}
@@ -0,0 +1,178 @@
+package com.arquitetura.estoque.reserva;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Saldo de um SKU disputado, repartido em células por thread.
+ *
+ * <p>Cada célula é um orçamento de unidades já retiradas do saldo central do
+ * {@link InventarioSku}. Uma reserva tira da célula da sua thread com um CAS,
+ * sem lock e sem tocar na linha de cache das outras. Só quando a célula não
+ * basta ela trava a listra do SKU e reabastece com a quantidade pedida mais
+ * um lote. Se nem o saldo central basta, as sobras de todas as células
+ * voltam para ele e a decisão é tomada contra o total.
+ *
+ * <p>Cada unidade está sempre em um só lugar (saldo central, uma célula ou
+ * reservada) e as células nunca ficam negativas, então não há venda acima do
+ * estoque. O saldo central fica abaixo do disponível real, no máximo, pelo
+ * que está distribuído nas células.
+ *
+ * <p>Um orçamento rebaixado ({@link #aposentar}) devolve as células ao saldo
+ * central e deixa de reabastecê-las: quem ainda o tiver em mãos reserva
+ * direto do saldo central, sob a listra, como um SKU comum.
+ */
+final class OrcamentoSkuQuente {
+
+  // 16 longs (128 bytes) por célula: cada uma na sua linha de cache, com
+  // folga para o prefetch de pares de linhas
+  private static final int ESPACAMENTO = 16;
+
+  private final int id;
+  private final InventarioSku inventario;
+  private final ReentrantLock listra;
+  private final AtomicLongArray celulas;
+  private final int mascara;
+  private final int lote;
+  private volatile boolean aposentado;
+  // Só alterado com a listra travada; lido sem lock para escolher quem sai
+  private volatile long reabastecimentos;
+
+  OrcamentoSkuQuente(
+    int id,
+    InventarioSku inventario,
+    ReentrantLock listra,
+    int quantidadeCelulas,
+    int lote
+  ) {
+    int tamanho = quantidadeCelulas <= 1
+      ? 1
+      : Integer.highestOneBit(quantidadeCelulas - 1) << 1;
+    this.id = id;
+    this.inventario = inventario;
+    this.listra = listra;
+    this.celulas = new AtomicLongArray(tamanho * ESPACAMENTO);
+    this.mascara = tamanho - 1;
+    this.lote = lote;
+  }
+
+  /** Reserva a quantidade; false se não há estoque nem somando as células. */
+  boolean tomar(int quantidade) {
+    int celula = celulaDaThread();
+    if (tomarDaCelula(celula, quantidade)) {
+      return true;
+    }
+
+    listra.lock();
+    try {
+      // Outra thread da mesma célula pode ter reabastecido enquanto esperava
+      if (tomarDaCelula(celula, quantidade)) {
+        return true;
+      }
+
+      int central = inventario.saldo(id);
+      if (central >= quantidade) {
+        reabastecimentos++;
+        int movidos = aposentado
+          ? quantidade
+          : (int) Math.min(central, (long) quantidade + lote);
+        // Célula antes do central: quem observa a alteração do saldo central
+        // já vê as unidades na célula. O central só muda com a listra, então
+        // nenhuma reserva conta essas unidades duas vezes
+        celulas.getAndAdd(celula * ESPACAMENTO, movidos - quantidade);
+        inventario.somarSaldo(id, -movidos);
+        return true;
+      }
+
+      drenar();
+      if (inventario.saldo(id) >= quantidade) {
+        inventario.somarSaldo(id, -quantidade);
+        return true;
+      }
+      return false;
+    } finally {
+      listra.unlock();
+    }
+  }
+
+  /** Desfaz um {@link #tomar} cujo pedido foi recusado por outra linha. */
+  void devolver(int quantidade) {
+    celulas.getAndAdd(celulaDaThread() * ESPACAMENTO, quantidade);
+    // Aposentado depois da soma ou antes: em ambos os casos nada fica preso
+    if (aposentado) {
+      listra.lock();
+      try {
+        drenar();
+      } finally {
+        listra.unlock();
+      }
+    }
+  }
+
+  /** Rebaixa o SKU: células de volta ao saldo central. Com a listra travada. */
+  void aposentar() {
+    aposentado = true;
+    drenar();
+  }
+
+  /** Reabastecimentos desde o último {@link #zerarUso}: o uso do orçamento. */
+  long getUso() {
+    return reabastecimentos;
+  }
+
+  /** Sem lock: uma corrida com um reabastecimento só perde uma contagem. */
+  void zerarUso() {
+    reabastecimentos = 0;
+  }
+
+  /** Devolve as sobras das células ao saldo central. Com a listra travada. */
+  void drenar() {
+    long total = 0;
+    for (int c = 0; c <= mascara; c++) {
+      total += celulas.getAndSet(c * ESPACAMENTO, 0);
+    }
+    if (total > 0) {
+      inventario.somarSaldo(id, (int) total);
+    }
+  }
+
+  int getId() {
+    return id;
+  }
+
+  /**
+   * Saldo central mais a célula da thread. Não lê as outras células, para
+   * não disputar as linhas de cache delas a cada reserva.
+   */
+  int disponivelAproximado() {
+    return (int) (
+      inventario.saldo(id) + celulas.get(celulaDaThread() * ESPACAMENTO)
+    );
+  }
+
+  /** Unidades nas células, ainda não reservadas. */
+  long distribuido() {
+    long total = 0;
+    for (int c = 0; c <= mascara; c++) {
+      total += celulas.get(c * ESPACAMENTO);
+    }
+    return total;
+  }
+
+  private boolean tomarDaCelula(int celula, int quantidade) {
+    int i = celula * ESPACAMENTO;
+    long atual = celulas.get(i);
+    while (atual >= quantidade) {
+      long visto = celulas.compareAndExchange(i, atual, atual - quantidade);
+      if (visto == atual) {
+        return true;
+      }
+      atual = visto;
+    }
+    return false;
+  }
+
+  private int celulaDaThread() {
+    return (int) Thread.currentThread().getId() & mascara;
+  }
+}
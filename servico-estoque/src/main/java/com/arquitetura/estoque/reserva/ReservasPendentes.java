@@ -0,0 +1,207 @@
+package com.arquitetura.estoque.reserva;
+
+import com.arquitetura.estoque.processamento.RodaTemporizacao;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.LongSupplier;
+
+/**
+ * Reservas ainda não confirmadas, cada uma com um prazo. Quem registra,
+ * confirma ou cancela é quem mexe no saldo; aqui só se decide qual reserva
+ * sai e por quê.
+ *
+ * <p>As reservas são identificadas pela impressão do id do pedido (a mesma
+ * do deduplicador) e os prazos ficam numa {@link RodaTemporizacao}: registrar
+ * e expirar custam O(1) por reserva, sem uma tarefa agendada por pedido. Os
+ * prazos são em epoch ms, para valerem também depois de um restart.
+ */
+public class ReservasPendentes {
+
+  private final long ttl;
+  private final long resolucao;
+  private final LongSupplier relogio;
+  private final RodaTemporizacao roda;
+  private final Map<Long, Integer> porPedido = new HashMap<>();
+
+  private Pendente[] reservas = new Pendente[1024];
+  private int[] livres = new int[1024];
+  private int totalLivres;
+  private int proximaNova;
+
+  private long confirmadas;
+  private long canceladas;
+  private long expiradas;
+
+  public ReservasPendentes(Duration ttl, Duration resolucao) {
+    this(ttl, resolucao, System::currentTimeMillis);
+  }
+
+  ReservasPendentes(Duration ttl, Duration resolucao, LongSupplier relogio) {
+    if (ttl.isNegative() || ttl.isZero()) {
+      throw new IllegalArgumentException("Prazo de reserva inválido: " + ttl);
+    }
+    this.ttl = ttl.toMillis();
+    this.resolucao = resolucao.toMillis();
+    this.relogio = relogio;
+    this.roda = new RodaTemporizacao(
+      resolucao.toMillis(),
+      relogio.getAsLong(),
+      reservas.length
+    );
+  }
+
+  /**
+   * Conjunto vazio com o mesmo prazo e resolução, mas com outro relógio: a
+   * reconstrução usa o tempo dos eventos relidos.
+   */
+  public ReservasPendentes vazia(LongSupplier outroRelogio) {
+    return new ReservasPendentes(
+      Duration.ofMillis(ttl),
+      Duration.ofMillis(resolucao),
+      outroRelogio
+    );
+  }
+
+  /** Prazo de uma reserva feita agora. */
+  public long prazoNovo() {
+    return relogio.getAsLong() + ttl;
+  }
+
+  /**
+   * Registra a reserva do pedido com o prazo indicado; um pedido já pendente
+   * fica com as novas quantidades e o novo prazo.
+   */
+  public synchronized void registrar(
+    long pedido,
+    Map<String, Integer> quantidades,
+    long prazoMillis
+  ) {
+    Integer existente = porPedido.get(pedido);
+    int indice;
+    if (existente != null) {
+      indice = existente;
+    } else {
+      indice = totalLivres > 0 ? livres[--totalLivres] : proximaNova++;
+      if (indice == reservas.length) {
+        reservas = Arrays.copyOf(reservas, reservas.length * 2);
+      }
+      porPedido.put(pedido, indice);
+    }
+    reservas[indice] = new Pendente(pedido, quantidades, prazoMillis);
+    roda.agendar(indice, prazoMillis);
+  }
+
+  /** Pagamento confirmado: a reserva fica definitiva. Null se não pendente. */
+  public synchronized Pendente confirmar(long pedido) {
+    Pendente pendente = remover(pedido);
+    if (pendente != null) {
+      confirmadas++;
+    }
+    return pendente;
+  }
+
+  /** Pedido cancelado: as quantidades devem voltar ao estoque. */
+  public synchronized Pendente cancelar(long pedido) {
+    Pendente pendente = remover(pedido);
+    if (pendente != null) {
+      canceladas++;
+    }
+    return pendente;
+  }
+
+  /** Tira a reserva sem contá-la como confirmada ou cancelada (replay). */
+  public synchronized Pendente remover(long pedido) {
+    Integer indice = porPedido.remove(pedido);
+    if (indice == null) {
+      return null;
+    }
+    roda.cancelar(indice);
+    return liberar(indice);
+  }
+
+  /**
+   * Tira as reservas com prazo vencido e as devolve; as quantidades delas
+   * devem voltar ao estoque.
+   */
+  public synchronized List<Pendente> expirar() {
+    List<Pendente> vencidas = new ArrayList<>();
+    roda.avancar(
+      relogio.getAsLong(),
+      indice -> {
+        Pendente pendente = liberar(indice);
+        porPedido.remove(pendente.pedido());
+        vencidas.add(pendente);
+      }
+    );
+    expiradas += vencidas.size();
+    return vencidas;
+  }
+
+  /**
+   * Troca todas as reservas pendentes pelas indicadas (estado reconstruído),
+   * sem contá-las como confirmadas, canceladas ou expiradas.
+   */
+  public synchronized void substituir(List<Pendente> pendentes) {
+    for (int indice : porPedido.values()) {
+      roda.cancelar(indice);
+      liberar(indice);
+    }
+    porPedido.clear();
+    for (Pendente pendente : pendentes) {
+      registrar(
+        pendente.pedido(),
+        pendente.quantidades(),
+        pendente.prazoMillis()
+      );
+    }
+  }
+
+  /** Cópia das reservas pendentes, para o snapshot. */
+  public synchronized List<Pendente> getPendentes() {
+    List<Pendente> pendentes = new ArrayList<>(porPedido.size());
+    for (int indice : porPedido.values()) {
+      pendentes.add(reservas[indice]);
+    }
+    return pendentes;
+  }
+
+  public synchronized int getAtivas() {
+    return porPedido.size();
+  }
+
+  public synchronized long getConfirmadas() {
+    return confirmadas;
+  }
+
+  public synchronized long getCanceladas() {
+    return canceladas;
+  }
+
+  public synchronized long getExpiradas() {
+    return expiradas;
+  }
+
+  private Pendente liberar(int indice) {
+    Pendente pendente = reservas[indice];
+    reservas[indice] = null;
+    if (totalLivres == livres.length) {
+      livres = Arrays.copyOf(livres, livres.length * 2);
+    }
+    livres[totalLivres++] = indice;
+    return pendente;
+  }
+
+  /**
+   * Reserva do pedido (impressão do id) com as quantidades deduzidas, pelas
+   * chaves do inventário, e o prazo em epoch ms.
+   */
+  public record Pendente(
+    long pedido,
+    Map<String, Integer> quantidades,
+    long prazoMillis
+  ) {}
+}
@@ -0,0 +1,125 @@
+package com.arquitetura.estoque.service;
+
+import com.arquitetura.estoque.dto.ItemEstoqueDTO;
+import com.arquitetura.estoque.dto.PaginaEstoqueDTO;
+import com.arquitetura.estoque.model.NivelEstoque;
+import com.arquitetura.estoque.reserva.IndiceNivelEstoque;
+import com.arquitetura.estoque.reserva.InventarioSku;
+import com.arquitetura.estoque.reserva.MotorReserva;
+import jakarta.annotation.PostConstruct;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+/**
+ * Consultas do painel de reabastecimento. Lê direto dos arrays do inventário,
+ * sem lock e sem cópia, então uma consulta nunca segura uma reserva. Cada
+ * item da página é consistente (código, saldo e nível do mesmo instante), mas
+ * a página em si não é um retrato do inventário inteiro. O saldo é o
+ * disponível do {@link MotorReserva}, que soma as células dos SKUs quentes.
+ *
+ * <p>O cursor é o id denso do último SKU devolvido; ids nunca são reusados,
+ * então a paginação é estável mesmo com SKUs novos chegando.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class ConsultaEstoqueService {
+
+  private static final int LIMITE_MAXIMO_PAGINA = 100;
+
+  private final EstoqueService estoqueService;
+
+  private MotorReserva motor;
+  private InventarioSku inventario;
+  private IndiceNivelEstoque indiceNivel;
+
+  @PostConstruct
+  public void indexar() {
+    motor = estoqueService.getMotorReserva();
+    inventario = motor.getInventario();
+    indiceNivel = new IndiceNivelEstoque(motor);
+    log.info(
+      "etapa=estoque.indexado skus={} baixo={} medio={} alto={}",
+      inventario.getTotalSkus(),
+      indiceNivel.contar(NivelEstoque.BAIXO),
+      indiceNivel.contar(NivelEstoque.MEDIO),
+      indiceNivel.contar(NivelEstoque.ALTO)
+    );
+  }
+
+  public Optional<ItemEstoqueDTO> buscarPorCodigo(String codigo) {
+    int id = inventario.idDe(codigo);
+    if (id < 0) {
+      return Optional.empty();
+    }
+    return Optional.of(ItemEstoqueDTO.de(codigo, motor.disponivel(id)));
+  }
+
+  public PaginaEstoqueDTO listar(String cursor, int limite) {
+    int tamanho = tamanhoPagina(limite);
+    int total = inventario.getTotalSkus();
+    List<ItemEstoqueDTO> itens = new ArrayList<>(tamanho);
+
+    int id = inicio(cursor) + 1;
+    for (; id < total && itens.size() < tamanho; id++) {
+      itens.add(
+        ItemEstoqueDTO.de(inventario.codigoDe(id), motor.disponivel(id))
+      );
+    }
+
+    return PaginaEstoqueDTO.builder()
+      .total(total)
+      .itens(itens)
+      .proximoCursor(id < total ? String.valueOf(id - 1) : null)
+      .build();
+  }
+
+  /**
+   * SKUs de um nível, seguindo o índice em vez de varrer o inventário. Um SKU
+   * que mudou de nível entre o índice e a leitura do saldo é pulado.
+   */
+  public PaginaEstoqueDTO listarPorNivel(
+    NivelEstoque nivel,
+    String cursor,
+    int limite
+  ) {
+    int tamanho = tamanhoPagina(limite);
+    List<ItemEstoqueDTO> itens = new ArrayList<>(tamanho);
+
+    int id = indiceNivel.proximo(nivel, inicio(cursor) + 1);
+    int ultimo = -1;
+    while (id >= 0 && itens.size() < tamanho) {
+      int saldo = motor.disponivel(id);
+      if (NivelEstoque.de(saldo) == nivel) {
+        itens.add(ItemEstoqueDTO.de(inventario.codigoDe(id), saldo));
+      }
+      ultimo = id;
+      id = indiceNivel.proximo(nivel, id + 1);
+    }
+
+    return PaginaEstoqueDTO.builder()
+      .nivel(nivel)
+      .total(indiceNivel.contar(nivel))
+      .itens(itens)
+      .proximoCursor(id >= 0 ? String.valueOf(ultimo) : null)
+      .build();
+  }
+
+  private int inicio(String cursor) {
+    int inicio = cursor == null || cursor.isBlank()
+      ? -1
+      : Integer.parseInt(cursor);
+    if (inicio < -1) {
+      throw new IllegalArgumentException("Cursor inválido: " + cursor);
+    }
+    return inicio;
+  }
+
+  private static int tamanhoPagina(int limite) {
+    return Math.max(1, Math.min(limite, LIMITE_MAXIMO_PAGINA));
+  }
+}
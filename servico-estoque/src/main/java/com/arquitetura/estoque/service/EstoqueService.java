@@ -1,14 +1,32 @@
 package com.arquitetura.estoque.service;
 
+import com.arquitetura.estoque.armazem.Armazem;
+import com.arquitetura.estoque.armazem.RoteadorPedidos;
 import com.arquitetura.estoque.model.ItemPedido;
+import com.arquitetura.estoque.model.NivelEstoque;
 import com.arquitetura.estoque.model.Pedido;
+import com.arquitetura.estoque.model.StatusPedido;
+import com.arquitetura.estoque.persistencia.PersistenciaEstoque;
+import com.arquitetura.estoque.processamento.DeduplicadorPedidos;
+import com.arquitetura.estoque.reserva.InventarioSku;
+import com.arquitetura.estoque.reserva.MotorReserva;
+import com.arquitetura.estoque.reserva.ReservasPendentes;
 import io.micrometer.tracing.Tracer;
 import jakarta.annotation.PostConstruct;
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.EnumMap;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.Set;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
@@ -18,169 +36,791 @@ import org.springframework.stereotype.Service;
 public class EstoqueService {
 
   private final Tracer tracer;
+  private final ObjectProvider<PersistenciaEstoque> persistenciaProvider;
+  private final ObjectProvider<RoteadorPedidos> roteadorProvider;
+  private final ObjectProvider<ReservasPendentes> reservasProvider;
+  private final ObjectProvider<PublicadorStatus> publicadorProvider;
+  private final DeduplicadorPedidos deduplicador;
 
   @Value("${app.estoque.localizacao}")
   private String localizacaoEstoque;
 
-  private final Map<String, Integer> estoque = new ConcurrentHashMap<>();
+  @Value("${app.estoque.reserva.listras:64}")
+  private int listrasReserva;
+
+  @Value("${app.estoque.reserva.quente.habilitado:false}")
+  private boolean modoQuenteHabilitado;
+
+  @Value("${app.estoque.reserva.quente.celulas:16}")
+  private int celulasQuente;
+
+  @Value("${app.estoque.reserva.quente.lote:32}")
+  private int loteQuente;
+
+  @Value("${app.estoque.reserva.quente.limiar-disputa:64}")
+  private int limiarDisputa;
+
+  @Value("${app.estoque.reserva.quente.maximo:8}")
+  private int maximoQuentes;
+
+  @Value("${app.estoque.latencia-simulada:300ms}")
+  private Duration latenciaSimulada;
+
+  private MotorReserva motorReserva;
+  private PersistenciaEstoque persistencia;
+  private RoteadorPedidos roteador;
+  private ReservasPendentes reservas;
+  private PublicadorStatus publicador;
 
   @PostConstruct
   public void inicializarEstoque() {
-    estoque.put("PROD001", 100);
-    estoque.put("PROD002", 50);
-    estoque.put("PROD003", 200);
-    estoque.put("PROD004", 75);
-    estoque.put("PROD005", 150);
+    persistencia = persistenciaProvider.getIfAvailable();
+    roteador = roteadorProvider.getIfAvailable();
+    reservas = reservasProvider.getIfAvailable();
+    publicador = publicadorProvider.getIfAvailable();
+    MotorReserva.ModoQuente modoQuente = modoQuenteHabilitado
+      ? new MotorReserva.ModoQuente(
+        celulasQuente,
+        loteQuente,
+        limiarDisputa,
+        maximoQuentes
+      )
+      : null;
+    motorReserva = new MotorReserva(
+      listrasReserva,
+      persistencia != null ? persistencia.getInventario() : new InventarioSku(),
+      modoQuente
+    );
+    if (persistencia != null) {
+      persistencia.setAntesDoSnapshot(motorReserva::devolverOrcamentos);
+    }
+
+    // Estoque de exemplo só na primeira subida; depois vem do disco
+    if (motorReserva.getInventario().getTotalSkus() > 0) {
+      return;
+    }
+
+    if (persistencia != null) {
+      persistencia.definirEstoque(motorReserva, estoqueInicial());
+    } else {
+      estoqueInicial().forEach(motorReserva::definirEstoque);
+    }
+  }
+
+  /** Estoque de exemplo, também o ponto de partida de uma reconstrução. */
+  private Map<String, Integer> estoqueInicial() {
+    Map<String, Integer> estoqueInicial = new LinkedHashMap<>();
+    estoqueInicial.put("PROD001", 100);
+    estoqueInicial.put("PROD002", 50);
+    estoqueInicial.put("PROD003", 200);
+    estoqueInicial.put("PROD004", 75);
+    estoqueInicial.put("PROD005", 150);
+    if (roteador != null) {
+      // O mesmo estoque de exemplo em cada armazém desta instância
+      Map<String, Integer> porArmazem = new LinkedHashMap<>();
+      for (Armazem armazem : roteador.getProprios()) {
+        estoqueInicial.forEach((sku, quantidade) ->
+          porArmazem.put(armazem.chave(sku), quantidade)
+        );
+      }
+      estoqueInicial = porArmazem;
+    }
+    return estoqueInicial;
+  }
+
+  /**
+   * Próximo offset a consumir da partição segundo o inventário persistido, ou
+   * null quando não há persistência ou a partição nunca foi aplicada.
+   */
+  public Long proximoOffset(int particao) {
+    return persistencia != null ? persistencia.proximoOffset(particao) : null;
+  }
+
+  /** Posição onde o consumo de uma partição ainda desconhecida começou. */
+  public void iniciarParticao(int particao, long posicao) {
+    if (persistencia != null) {
+      persistencia.iniciarParticao(particao, posicao);
+    }
   }
 
-  public void processarPedido(Pedido pedido) {
-    var span = tracer.currentSpan();
-    var traceId = span != null ? span.context().traceId() : "no-trace";
+  /**
+   * Reserva o estoque do pedido. Eventos já refletidos no inventário (mesma
+   * partição/offset), pedidos já aplicados em outro offset (mesmo id) e, com
+   * armazéns, pedidos cuja origem é de outra instância são ignorados; pedidos
+   * inválidos são descartados sem retentativa.
+   */
+  public Desfecho processarPedido(Pedido pedido, int particao, long offset) {
+    if (persistencia != null && persistencia.jaAplicado(particao, offset)) {
+      return Desfecho.JA_APLICADO;
+    }
+    if (deOutraInstancia(particao)) {
+      descartar(particao, offset);
+      return Desfecho.OUTRA_INSTANCIA;
+    }
+    if (duplicado(pedido)) {
+      descartar(particao, offset);
+      return Desfecho.DUPLICADO;
+    }
+
+    if (log.isDebugEnabled()) {
+      var span = tracer.currentSpan();
+      var traceId = span != null ? span.context().traceId() : "no-trace";
+
+      log.debug("📦 [ESTOQUE] Processando atualização de estoque");
+      log.debug("   └─ Pedido ID: {}", pedido.getId());
+      log.debug("   └─ Localização: {}", localizacaoEstoque);
+      log.debug("   └─ Trace ID: {}", traceId);
+    }
 
-    log.info("📦 [ESTOQUE] Processando atualização de estoque");
-    log.info("   └─ Pedido ID: {}", pedido.getId());
-    log.info("   └─ Localização: {}", localizacaoEstoque);
-    log.info("   └─ Trace ID: {}", traceId);
+    Map<String, Integer> quantidades;
+    try {
+      quantidades = rotear(
+        pedido,
+        particao,
+        quantidadesPorSku(pedido),
+        motorReserva
+      );
+    } catch (IllegalArgumentException e) {
+      registrarInvalido(pedido, particao, offset, e);
+      descartar(particao, offset);
+      return publicar(pedido, Desfecho.INVALIDO);
+    }
 
     simularProcessamento();
 
-    Map<String, EstoqueInfo> disponibilidade = verificarDisponibilidade(pedido);
+    MotorReserva.Resultado resultado = persistencia != null
+      ? persistencia.reservar(
+        motorReserva,
+        new PersistenciaEstoque.Evento(
+          particao,
+          offset,
+          quantidades,
+          pedido.getId()
+        )
+      )
+      : motorReserva.reservar(quantidades);
 
-    boolean sucesso = atualizarEstoque(pedido, disponibilidade);
+    if (resultado == null) {
+      return Desfecho.JA_APLICADO;
+    }
+    registrarAplicado(pedido);
+    if (resultado.reservado()) {
+      registrarPendente(pedido, quantidades);
+      log.debug("✅ [ESTOQUE] Estoque atualizado com sucesso!");
+      if (log.isDebugEnabled()) {
+        exibirEstoqueAtualizado(pedido, resultado);
+      }
+      return publicar(pedido, Desfecho.RESERVADO);
+    }
 
-    if (sucesso) {
-      log.info("✅ [ESTOQUE] Estoque atualizado com sucesso!");
-      exibirEstoqueAtualizado(pedido);
-    } else {
-      log.warn("⚠️ [ESTOQUE] Alguns produtos com estoque insuficiente!");
+    log.debug(
+      "⚠️ [ESTOQUE] Estoque insuficiente, nada reservado: {}",
+      resultado.insuficientes()
+    );
+    return publicar(pedido, Desfecho.RECUSADO);
+  }
+
+  /**
+   * Reserva o estoque de todos os pedidos de um poll de uma vez: valida cada
+   * um, decide todos contra a mesma visão dos saldos e deduz cada SKU uma só
+   * vez. Pedidos inválidos ou duplicados (inclusive dentro do próprio lote)
+   * são isolados sem afetar os demais. Devolve um desfecho por evento, na
+   * mesma ordem. O roteamento entre armazéns vê os saldos de antes do lote.
+   */
+  public List<Desfecho> processarLote(List<EventoPedido> eventos) {
+    List<Desfecho> desfechos = new ArrayList<>(eventos.size());
+    List<PersistenciaEstoque.Evento> validos = new ArrayList<>(eventos.size());
+    List<Pedido> pedidosValidos = new ArrayList<>(eventos.size());
+    List<EventoPedido> descartados = new ArrayList<>();
+    Set<String> idsNoLote = new HashSet<>();
+    for (EventoPedido evento : eventos) {
+      Pedido pedido = evento.pedido();
+      if (
+        persistencia != null &&
+        persistencia.jaAplicado(evento.particao(), evento.offset())
+      ) {
+        desfechos.add(Desfecho.JA_APLICADO);
+        continue;
+      }
+      if (deOutraInstancia(evento.particao())) {
+        descartados.add(evento);
+        desfechos.add(Desfecho.OUTRA_INSTANCIA);
+        continue;
+      }
+      if (
+        duplicado(pedido) ||
+        (pedido.getId() != null && !idsNoLote.add(pedido.getId()))
+      ) {
+        descartados.add(evento);
+        desfechos.add(Desfecho.DUPLICADO);
+        continue;
+      }
+
+      try {
+        validos.add(
+          new PersistenciaEstoque.Evento(
+            evento.particao(),
+            evento.offset(),
+            rotear(
+              pedido,
+              evento.particao(),
+              quantidadesPorSku(pedido),
+              motorReserva
+            ),
+            pedido.getId()
+          )
+        );
+        pedidosValidos.add(pedido);
+        desfechos.add(null);
+      } catch (IllegalArgumentException e) {
+        registrarInvalido(pedido, evento.particao(), evento.offset(), e);
+        descartados.add(evento);
+        desfechos.add(Desfecho.INVALIDO);
+      }
+    }
+
+    // A latência simulada representa uma chamada externa por lote
+    simularProcessamento();
+
+    List<MotorReserva.Resultado> resultados = persistencia != null
+      ? persistencia.reservarLote(motorReserva, validos)
+      : motorReserva.reservarLote(
+        validos.stream().map(PersistenciaEstoque.Evento::quantidades).toList()
+      );
+    // Só depois do lote: descartar antes marcaria offsets à frente dos que
+    // ainda vão ser aplicados
+    for (EventoPedido evento : descartados) {
+      descartar(evento.particao(), evento.offset());
     }
+
+    int r = 0;
+    for (int i = 0; i < desfechos.size(); i++) {
+      if (desfechos.get(i) == null) {
+        Pedido pedido = pedidosValidos.get(r);
+        Map<String, Integer> quantidades = validos.get(r).quantidades();
+        MotorReserva.Resultado resultado = resultados.get(r++);
+        if (resultado == null) {
+          desfechos.set(i, Desfecho.JA_APLICADO);
+          continue;
+        }
+        registrarAplicado(pedido);
+        if (resultado.reservado()) {
+          registrarPendente(pedido, quantidades);
+        }
+        desfechos.set(
+          i,
+          resultado.reservado() ? Desfecho.RESERVADO : Desfecho.RECUSADO
+        );
+      }
+    }
+    for (int i = 0; i < desfechos.size(); i++) {
+      publicar(eventos.get(i).pedido(), desfechos.get(i));
+    }
+    return desfechos;
   }
 
-  private Map<String, EstoqueInfo> verificarDisponibilidade(Pedido pedido) {
-    Map<String, EstoqueInfo> resultado = new HashMap<>();
+  /** Status do pedido para o tópico de status, se o publicador existir. */
+  private Desfecho publicar(Pedido pedido, Desfecho desfecho) {
+    if (publicador != null) {
+      publicador.publicar(pedido, desfecho);
+    }
+    return desfecho;
+  }
 
-    log.info("🔍 [ESTOQUE] Verificando disponibilidade de produtos:");
+  /**
+   * Marca um evento que não chegou a virar pedido (payload ilegível) ou cujo
+   * processamento falhou de vez como tratado, para que a posição persistida
+   * da partição não pare nele.
+   */
+  public void descartar(int particao, long offset) {
+    if (persistencia != null) {
+      persistencia.descartar(particao, offset);
+    }
+  }
 
-    for (ItemPedido item : pedido.getProdutos()) {
-      int quantidadeDisponivel = estoque.getOrDefault(item.getCodigo(), 0);
-      boolean disponivel = quantidadeDisponivel >= item.getQuantidade();
-
-      resultado.put(
-        item.getCodigo(),
-        new EstoqueInfo(
-          item.getCodigo(),
-          item.getNome(),
-          quantidadeDisponivel,
-          item.getQuantidade(),
-          disponivel
-        )
+  /**
+   * Pagamento confirmado: a reserva do pedido fica definitiva. False se não
+   * há reserva pendente (já expirada, cancelada ou confirmada, ou pedido de
+   * outra instância).
+   */
+  public boolean confirmarReserva(String pedidoId) {
+    if (reservas == null) {
+      return false;
+    }
+    if (persistencia != null) {
+      return persistencia.confirmar(pedidoId);
+    }
+    return reservas.confirmar(DeduplicadorPedidos.impressao(pedidoId)) != null;
+  }
+
+  /** Pedido cancelado: a reserva pendente volta ao estoque. */
+  public boolean cancelarReserva(String pedidoId) {
+    if (reservas == null) {
+      return false;
+    }
+    if (persistencia != null) {
+      return persistencia.cancelar(motorReserva, pedidoId) != null;
+    }
+    // Sob o monitor das reservas: uma troca de estado não passa no meio
+    synchronized (reservas) {
+      ReservasPendentes.Pendente pendente = reservas.cancelar(
+        DeduplicadorPedidos.impressao(pedidoId)
       );
+      if (pendente == null) {
+        return false;
+      }
+      pendente.quantidades().forEach(motorReserva::repor);
+      return true;
+    }
+  }
+
+  /**
+   * Devolve ao estoque as reservas cujo prazo venceu sem confirmação.
+   * Devolve quantas expiraram.
+   */
+  public int expirarReservas() {
+    if (reservas == null) {
+      return 0;
+    }
+    if (persistencia != null) {
+      return persistencia.expirar(motorReserva).size();
+    }
+    synchronized (reservas) {
+      List<ReservasPendentes.Pendente> vencidas = reservas.expirar();
+      for (ReservasPendentes.Pendente pendente : vencidas) {
+        pendente.quantidades().forEach(motorReserva::repor);
+      }
+      return vencidas.size();
+    }
+  }
+
+  /** Se há reservas com prazo, que uma reconstrução também refaz. */
+  public boolean isComReservas() {
+    return reservas != null;
+  }
+
+  /**
+   * Começa a reconstruir o estado do zero: o estoque inicial menos as
+   * reservas dos pedidos entregues à {@link Reconstrucao}, sem tocar no
+   * estado em uso. {@code deduplicadorReconstrucao} deve estar vazio.
+   * {@code completa} diz se a leitura cobre o tópico inteiro desde o offset
+   * 0 de todas as partições; só assim o resultado pode substituir o estado.
+   */
+  public Reconstrucao iniciarReconstrucao(
+    DeduplicadorPedidos deduplicadorReconstrucao,
+    boolean completa
+  ) {
+    return new Reconstrucao(deduplicadorReconstrucao, completa);
+  }
 
-      String status = disponivel ? "✅ DISPONÍVEL" : "❌ INSUFICIENTE";
-      log.info(
-        "   └─ {} - {} (Disponível: {} | Necessário: {}) {}",
-        item.getCodigo(),
-        item.getNome(),
-        quantidadeDisponivel,
-        item.getQuantidade(),
-        status
+  /**
+   * Troca o estado em uso pelo reconstruído, de uma vez: nenhuma reserva vê
+   * parte de um e parte do outro, e as reservas pendentes são trocadas junto
+   * com os saldos. Com persistência, o estado novo vai para um snapshot antes
+   * de qualquer registro sobre ele, com a posição de cada partição logo após
+   * o último evento lido. Recusa uma reconstrução parcial: os saldos dela
+   * ignoram as partições e offsets que não foram lidos.
+   */
+  public void substituirEstado(Reconstrucao reconstrucao) throws IOException {
+    if (!reconstrucao.completa) {
+      throw new IllegalStateException(
+        "Reconstrução parcial não substitui o estado em uso"
       );
     }
+    Map<String, Integer> saldos = new HashMap<>(reconstrucao.motor.saldos());
+    List<ReservasPendentes.Pendente> pendentes = reconstrucao.pendentes();
+    long[] recentes = reconstrucao.deduplicador.getRecentes();
+    if (persistencia != null) {
+      persistencia.substituir(
+        motorReserva,
+        saldos,
+        pendentes,
+        reconstrucao.proximosOffsets,
+        recentes
+      );
+      return;
+    }
+    if (reservas != null) {
+      synchronized (reservas) {
+        motorReserva.substituirSaldos(saldos);
+        reservas.substituir(pendentes);
+      }
+    } else {
+      motorReserva.substituirSaldos(saldos);
+    }
+    for (long pedido : recentes) {
+      deduplicador.registrarImpressao(pedido);
+    }
+  }
 
-    return resultado;
+  /**
+   * Com armazéns, o grupo só entrega a esta instância as partições dos seus
+   * armazéns; a conferência fica para partições atribuídas de outro jeito,
+   * como num replay com {@code particoes} explícitas.
+   */
+  private boolean deOutraInstancia(int particao) {
+    return roteador != null && !roteador.atende(particao);
   }
 
-  private boolean atualizarEstoque(
+  /**
+   * Com armazéns, troca cada SKU pela chave do armazém escolhido. As partes
+   * de um pedido dividido são reservadas juntas, tudo ou nada.
+   */
+  private Map<String, Integer> rotear(
     Pedido pedido,
-    Map<String, EstoqueInfo> disponibilidade
+    int particao,
+    Map<String, Integer> quantidades,
+    MotorReserva motor
   ) {
-    log.info("📝 [ESTOQUE] Atualizando quantidades:");
-
-    boolean todosSuficientes = disponibilidade
-      .values()
-      .stream()
-      .allMatch(EstoqueInfo::disponivel);
-
-    if (todosSuficientes) {
-      for (ItemPedido item : pedido.getProdutos()) {
-        int quantidadeAtual = estoque.get(item.getCodigo());
-        int novaQuantidade = quantidadeAtual - item.getQuantidade();
-        estoque.put(item.getCodigo(), novaQuantidade);
-
-        log.info(
-          "   └─ {} - {} {} → {} (Deduzido: {})",
-          item.getCodigo(),
-          item.getNome(),
-          quantidadeAtual,
-          novaQuantidade,
-          item.getQuantidade()
+    if (roteador == null) {
+      return quantidades;
+    }
+
+    RoteadorPedidos.Divisao divisao = roteador.dividir(
+      particao,
+      quantidades,
+      (armazem, sku) -> motor.consultar(armazem.chave(sku))
+    );
+    if (log.isDebugEnabled() && divisao.partes().size() > 1) {
+      log.debug("🗺️ [ESTOQUE] Pedido dividido entre armazéns");
+      log.debug("   └─ Pedido ID: {}", pedido.getId());
+      log.debug("   └─ Origem: {}", divisao.origem().codigo());
+      log.debug("   └─ Armazéns: {}", divisao.armazens());
+    }
+    return divisao.quantidades();
+  }
+
+  private boolean duplicado(Pedido pedido) {
+    return pedido.getId() != null && deduplicador.contem(pedido.getId());
+  }
+
+  private void registrarAplicado(Pedido pedido) {
+    // Recusas também contam: a decisão já foi tomada para esse pedido. Com
+    // persistência, o registro é feito por ela, junto com o changelog
+    if (persistencia == null && pedido.getId() != null) {
+      deduplicador.registrar(pedido.getId());
+    }
+  }
+
+  private void registrarPendente(
+    Pedido pedido,
+    Map<String, Integer> quantidades
+  ) {
+    // Com persistência, o prazo é registrado por ela, junto com o changelog
+    if (persistencia == null && reservas != null && pedido.getId() != null) {
+      reservas.registrar(
+        DeduplicadorPedidos.impressao(pedido.getId()),
+        quantidades,
+        reservas.prazoNovo()
+      );
+    }
+  }
+
+  private void registrarInvalido(
+    Pedido pedido,
+    int particao,
+    long offset,
+    IllegalArgumentException e
+  ) {
+    log.warn(
+      "etapa=estoque.invalido pedidoId={} particao={} offset={} erro=\"{}\"",
+      pedido.getId(),
+      particao,
+      offset,
+      e.getMessage()
+    );
+  }
+
+  private Map<String, Integer> quantidadesPorSku(Pedido pedido) {
+    if (pedido.getProdutos() == null || pedido.getProdutos().isEmpty()) {
+      throw new IllegalArgumentException("Pedido sem produtos");
+    }
+
+    Map<String, Integer> quantidades = new LinkedHashMap<>();
+    for (ItemPedido item : pedido.getProdutos()) {
+      if (
+        item.getCodigo() == null ||
+        item.getQuantidade() == null ||
+        item.getQuantidade() <= 0
+      ) {
+        throw new IllegalArgumentException(
+          "Item inválido: " + item.getCodigo() + " x " + item.getQuantidade()
         );
       }
-      return true;
-    } else {
-      log.warn(
-        "   └─ Pedido não processado: estoque insuficiente para alguns itens"
-      );
-      return false;
+      quantidades.merge(item.getCodigo(), item.getQuantidade(), Integer::sum);
     }
+    return quantidades;
   }
 
-  private void exibirEstoqueAtualizado(Pedido pedido) {
-    log.info("📊 [ESTOQUE] Resumo da atualização:");
-    log.info("   ┌──────────────────────────────────────────────────────");
-    log.info("   │ Pedido: {}", pedido.getId());
-    log.info("   │ Cliente: {}", pedido.getClienteId());
-    log.info("   │ Localização: {}", localizacaoEstoque);
-    log.info(
+  private void exibirEstoqueAtualizado(
+    Pedido pedido,
+    MotorReserva.Resultado resultado
+  ) {
+    log.debug("📊 [ESTOQUE] Resumo da atualização:");
+    log.debug("   ┌──────────────────────────────────────────────────────");
+    log.debug("   │ Pedido: {}", pedido.getId());
+    log.debug("   │ Cliente: {}", pedido.getClienteId());
+    log.debug("   │ Localização: {}", localizacaoEstoque);
+    log.debug(
       "   │ Total de itens processados: {}",
       pedido.getProdutos().size()
     );
-    log.info("   │");
-    log.info("   │ Estoque atual dos produtos do pedido:");
+    log.debug("   │");
+    log.debug("   │ Estoque atual dos produtos do pedido:");
 
-    for (ItemPedido item : pedido.getProdutos()) {
-      int quantidadeAtual = estoque.get(item.getCodigo());
-      String nivelEstoque = getNivelEstoque(quantidadeAtual);
-      log.info(
-        "   │   • {} - {}: {} unidades {}",
-        item.getCodigo(),
-        item.getNome(),
-        quantidadeAtual,
-        nivelEstoque
+    // Com armazéns, a chave é sku@armazém
+    resultado
+      .saldos()
+      .forEach((chave, quantidadeAtual) ->
+        log.debug(
+          "   │   • {}: {} unidades {}",
+          chave,
+          quantidadeAtual,
+          getNivelEstoque(quantidadeAtual)
+        )
       );
-    }
 
-    log.info("   └──────────────────────────────────────────────────────");
+    log.debug("   └──────────────────────────────────────────────────────");
   }
 
   private String getNivelEstoque(int quantidade) {
-    if (quantidade < 20) {
-      return "🔴 (BAIXO - Reabastecer!)";
-    } else if (quantidade < 50) {
-      return "🟡 (MÉDIO)";
-    } else {
-      return "🟢 (ALTO)";
-    }
+    return switch (NivelEstoque.de(quantidade)) {
+      case BAIXO -> "🔴 (BAIXO - Reabastecer!)";
+      case MEDIO -> "🟡 (MÉDIO)";
+      case ALTO -> "🟢 (ALTO)";
+    };
   }
 
   private void simularProcessamento() {
+    if (latenciaSimulada.isZero()) {
+      return;
+    }
     try {
-      Thread.sleep(300);
+      Thread.sleep(latenciaSimulada.toMillis());
     } catch (InterruptedException e) {
       Thread.currentThread().interrupt();
       log.warn("⚠️ [ESTOQUE] Processamento interrompido");
     }
   }
 
+  public InventarioSku getInventario() {
+    return motorReserva.getInventario();
+  }
+
+  public MotorReserva getMotorReserva() {
+    return motorReserva;
+  }
+
+  /** Visão somente leitura, sem cópia, dos saldos atuais. */
   public Map<String, Integer> obterEstoqueAtual() {
-    return new HashMap<>(estoque);
+    return motorReserva.saldos();
   }
 
-  private record EstoqueInfo(
-    String codigo,
-    String nome,
-    int quantidadeDisponivel,
-    int quantidadeNecessaria,
-    boolean disponivel
+  /**
+   * Estado reconstruído a partir de um trecho do tópico, com as mesmas regras
+   * de {@link #processarLote} (armazém, id repetido, pedido inválido), mas
+   * sem latência simulada, persistência nem log por pedido. Os eventos de
+   * cada partição devem chegar em ordem de offset. Não é thread-safe.
+   *
+   * <p>Com reservas com prazo, as reservas pendentes também são refeitas: o
+   * relógio delas é o instante dos eventos relidos, os CONFIRMADO/CANCELADO
+   * do tópico de status (registrados antes) são aplicados quando o relógio
+   * passa por eles, e o que vence nesse meio tempo volta ao estoque.
+   */
+  public final class Reconstrucao {
+
+    private final MotorReserva motor;
+    private final DeduplicadorPedidos deduplicador;
+    private final boolean completa;
+    private final Map<Integer, Long> proximosOffsets = new HashMap<>();
+    private final Map<Desfecho, Long> contagem = new EnumMap<>(Desfecho.class);
+    private final List<StatusRelido> status = new ArrayList<>();
+    private int proximoStatus;
+    private ReservasPendentes pendentes;
+    private long instante;
+    private long eventos;
+
+    private Reconstrucao(DeduplicadorPedidos deduplicador, boolean completa) {
+      this.motor = new MotorReserva(listrasReserva);
+      this.deduplicador = deduplicador;
+      this.completa = completa;
+      estoqueInicial().forEach(motor::definirEstoque);
+    }
+
+    /**
+     * Guarda um CONFIRMADO ou CANCELADO relido, com o instante (epoch ms) em
+     * que foi publicado; os demais status são ignorados. Todos devem chegar
+     * antes do primeiro {@link #aplicar}.
+     */
+    public void registrarStatus(
+      String pedidoId,
+      StatusPedido novo,
+      long instanteMillis
+    ) {
+      if (
+        reservas == null ||
+        pedidoId == null ||
+        (novo != StatusPedido.CONFIRMADO && novo != StatusPedido.CANCELADO)
+      ) {
+        return;
+      }
+      status.add(
+        new StatusRelido(
+          DeduplicadorPedidos.impressao(pedidoId),
+          novo == StatusPedido.CANCELADO,
+          instanteMillis
+        )
+      );
+    }
+
+    /**
+     * Aplica os eventos de um poll de uma vez, como {@link #processarLote}.
+     * {@code instanteMillis} é o do evento mais antigo do poll: as reservas
+     * do lote contam o prazo a partir dele.
+     */
+    public void aplicar(List<EventoPedido> lote, long instanteMillis) {
+      avancarRelogio(instanteMillis);
+      List<Map<String, Integer>> validos = new ArrayList<>(lote.size());
+      List<String> ids = new ArrayList<>(lote.size());
+      Set<String> idsNoLote = new HashSet<>();
+      for (EventoPedido evento : lote) {
+        avancar(evento.particao(), evento.offset());
+        Pedido pedido = evento.pedido();
+        String id = pedido.getId();
+        if (deOutraInstancia(evento.particao())) {
+          contar(Desfecho.OUTRA_INSTANCIA);
+          continue;
+        }
+        if (id != null && (deduplicador.contem(id) || !idsNoLote.add(id))) {
+          contar(Desfecho.DUPLICADO);
+          continue;
+        }
+        try {
+          validos.add(
+            rotear(
+              pedido,
+              evento.particao(),
+              quantidadesPorSku(pedido),
+              motor
+            )
+          );
+          ids.add(id);
+        } catch (IllegalArgumentException e) {
+          contar(Desfecho.INVALIDO);
+        }
+      }
+
+      List<MotorReserva.Resultado> resultados = motor.reservarLote(validos);
+      for (int i = 0; i < resultados.size(); i++) {
+        String id = ids.get(i);
+        if (id != null) {
+          deduplicador.registrar(id);
+          if (pendentes != null && resultados.get(i).reservado()) {
+            pendentes.registrar(
+              DeduplicadorPedidos.impressao(id),
+              validos.get(i),
+              pendentes.prazoNovo()
+            );
+          }
+        }
+        contar(
+          resultados.get(i).reservado() ? Desfecho.RESERVADO : Desfecho.RECUSADO
+        );
+      }
+    }
+
+    /** Evento ilegível: só avança a posição da partição. */
+    public void descartar(int particao, long offset) {
+      avancar(particao, offset);
+      contar(Desfecho.INVALIDO);
+    }
+
+    public long getEventos() {
+      return eventos;
+    }
+
+    public long total(Desfecho desfecho) {
+      return contagem.getOrDefault(desfecho, 0L);
+    }
+
+    public int getTotalSkus() {
+      return motor.getInventario().getTotalSkus();
+    }
+
+    public Map<Integer, Long> getProximosOffsets() {
+      return proximosOffsets;
+    }
+
+    private void avancar(int particao, long offset) {
+      proximosOffsets.merge(particao, offset + 1, Math::max);
+      eventos++;
+    }
+
+    private void avancarRelogio(long instanteMillis) {
+      if (reservas == null) {
+        return;
+      }
+      if (pendentes == null) {
+        // A roda começa no primeiro evento, não em zero
+        status.sort(Comparator.comparingLong(StatusRelido::instanteMillis));
+        instante = instanteMillis;
+        pendentes = reservas.vazia(() -> instante);
+      }
+      instante = Math.max(instante, instanteMillis);
+      aplicarStatusAte(instante);
+      for (ReservasPendentes.Pendente vencida : pendentes.expirar()) {
+        vencida.quantidades().forEach(motor::repor);
+      }
+    }
+
+    private void aplicarStatusAte(long limiteMillis) {
+      while (
+        proximoStatus < status.size() &&
+        status.get(proximoStatus).instanteMillis() <= limiteMillis
+      ) {
+        StatusRelido relido = status.get(proximoStatus++);
+        ReservasPendentes.Pendente pendente = pendentes.remover(
+          relido.pedido()
+        );
+        if (pendente != null && relido.cancelado()) {
+          pendente.quantidades().forEach(motor::repor);
+        }
+      }
+    }
+
+    /**
+     * Reservas ainda pendentes ao fim da leitura, depois dos status
+     * posteriores ao último pedido. As já vencidas expiram no primeiro ciclo
+     * depois da troca.
+     */
+    private List<ReservasPendentes.Pendente> pendentes() {
+      if (pendentes == null) {
+        return List.of();
+      }
+      aplicarStatusAte(Long.MAX_VALUE);
+      return pendentes.getPendentes();
+    }
+
+    private void contar(Desfecho desfecho) {
+      contagem.merge(desfecho, 1L, Long::sum);
+    }
+  }
+
+  /** Pedido recebido com a sua posição no tópico. */
+  public record EventoPedido(Pedido pedido, int particao, long offset) {}
+
+  private record StatusRelido(
+    long pedido,
+    boolean cancelado,
+    long instanteMillis
   ) {}
+
+  public enum Desfecho {
+    RESERVADO,
+    RECUSADO,
+    JA_APLICADO,
+    DUPLICADO,
+    OUTRA_INSTANCIA,
+    INVALIDO
+  }
 }
@@ -0,0 +1,71 @@
+package com.arquitetura.estoque.service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import java.time.Duration;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+/**
+ * Avança a roda de prazos das reservas em intervalos fixos. Um único ciclo
+ * devolve ao estoque todas as reservas vencidas desde o anterior, sem uma
+ * tarefa agendada por pedido.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(
+  name = "app.estoque.reserva.expiracao.habilitada",
+  havingValue = "true"
+)
+public class ExpiracaoReservas {
+
+  private final EstoqueService estoqueService;
+
+  @Value("${app.estoque.reserva.expiracao.intervalo:1s}")
+  private Duration intervalo;
+
+  private ScheduledExecutorService executor;
+
+  @PostConstruct
+  public void iniciar() {
+    executor = Executors.newSingleThreadScheduledExecutor(tarefa -> {
+      Thread thread = new Thread(tarefa, "estoque-expiracao");
+      thread.setDaemon(true);
+      return thread;
+    });
+    executor.scheduleWithFixedDelay(
+      this::expirar,
+      intervalo.toMillis(),
+      intervalo.toMillis(),
+      TimeUnit.MILLISECONDS
+    );
+  }
+
+  @PreDestroy
+  public void parar() throws InterruptedException {
+    executor.shutdown();
+    executor.awaitTermination(10, TimeUnit.SECONDS);
+  }
+
+  void expirar() {
+    try {
+      int expiradas = estoqueService.expirarReservas();
+      if (expiradas > 0) {
+        log.info("etapa=estoque.expirado reservas={}", expiradas);
+      }
+    } catch (RuntimeException e) {
+      log.error(
+        "❌ [RESERVAS] Falha ao expirar reservas: {}",
+        e.getMessage(),
+        e
+      );
+    }
+  }
+}
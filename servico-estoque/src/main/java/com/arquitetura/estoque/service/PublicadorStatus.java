@@ -0,0 +1,70 @@
+package com.arquitetura.estoque.service;
+
+import com.arquitetura.estoque.model.EventoStatusPedido;
+import com.arquitetura.estoque.model.Pedido;
+import com.arquitetura.estoque.model.StatusPedido;
+import com.arquitetura.estoque.service.EstoqueService.Desfecho;
+import java.time.LocalDateTime;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.stereotype.Component;
+
+/**
+ * Publica no tópico de status o resultado da reserva de cada pedido:
+ * PROCESSANDO quando o estoque foi reservado e CANCELADO quando foi recusado
+ * (sem saldo ou pedido inválido). É o que alimenta o modelo de leitura do
+ * servico-pedidos; CONFIRMADO continua vindo de quem confirma o pagamento.
+ *
+ * <p>Envio sem espera, com chave no id do pedido: uma falha é só registrada,
+ * porque o status é informativo e a reserva já está aplicada.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(
+  name = "app.estoque.status.publicar",
+  havingValue = "true",
+  matchIfMissing = true
+)
+public class PublicadorStatus {
+
+  private static final String ORIGEM = "servico-estoque";
+
+  private final KafkaTemplate<String, EventoStatusPedido> statusKafkaTemplate;
+
+  @Value("${app.kafka.topic.status}")
+  private String topicStatus;
+
+  public void publicar(Pedido pedido, Desfecho desfecho) {
+    StatusPedido status = switch (desfecho) {
+      case RESERVADO -> StatusPedido.PROCESSANDO;
+      case RECUSADO, INVALIDO -> StatusPedido.CANCELADO;
+      default -> null;
+    };
+    if (status == null || pedido.getId() == null) {
+      return;
+    }
+
+    EventoStatusPedido evento = EventoStatusPedido.builder()
+      .pedidoId(pedido.getId())
+      .status(status)
+      .origem(ORIGEM)
+      .dataAtualizacao(LocalDateTime.now())
+      .build();
+    statusKafkaTemplate
+      .send(topicStatus, pedido.getId(), evento)
+      .whenComplete((resultado, erro) -> {
+        if (erro != null) {
+          log.warn(
+            "etapa=estoque.status pedidoId={} status={} publicado=false erro={}",
+            pedido.getId(),
+            status,
+            erro.getMessage()
+          );
+        }
+      });
+  }
+}
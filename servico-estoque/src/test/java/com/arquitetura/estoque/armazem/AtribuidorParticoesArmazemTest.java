@@ -0,0 +1,119 @@
+package com.arquitetura.estoque.armazem;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import org.apache.kafka.clients.consumer.ConsumerPartitionAssignor.GroupAssignment;
+import org.apache.kafka.clients.consumer.ConsumerPartitionAssignor.GroupSubscription;
+import org.apache.kafka.clients.consumer.ConsumerPartitionAssignor.Subscription;
+import org.apache.kafka.common.Cluster;
+import org.apache.kafka.common.Node;
+import org.apache.kafka.common.PartitionInfo;
+import org.apache.kafka.common.TopicPartition;
+import org.junit.jupiter.api.Test;
+
+class AtribuidorParticoesArmazemTest {
+
+  private static final List<Armazem> CATALOGO = List.of(
+    new Armazem("SP01", -23.55, -46.63),
+    new Armazem("RJ01", -22.91, -43.17),
+    new Armazem("MG01", -19.92, -43.94),
+    new Armazem("PR01", -25.43, -49.27)
+  );
+
+  @Test
+  void cadaInstanciaDeveReceberSoAsParticoesDosSeusArmazens() {
+    RoteadorPedidos sul = roteador("SP01", "PR01");
+    RoteadorPedidos norte = roteador("RJ01", "MG01");
+    Map<String, Subscription> membros = new HashMap<>();
+    // Três consumidores por instância, como o concurrency das fábricas
+    for (int i = 0; i < 3; i++) {
+      membros.put("sul-" + i, assinatura(sul));
+      membros.put("norte-" + i, assinatura(norte));
+    }
+
+    GroupAssignment resultado = atribuidor(sul).assign(
+      cluster(12),
+      new GroupSubscription(membros)
+    );
+
+    List<Integer> vistas = new ArrayList<>();
+    resultado
+      .groupAssignment()
+      .forEach((membro, atribuicao) -> {
+        RoteadorPedidos dono = membro.startsWith("sul") ? sul : norte;
+        // 12 partições, 2 armazéns por instância, 3 consumidores: 2 cada
+        assertThat(atribuicao.partitions()).hasSize(2);
+        for (TopicPartition particao : atribuicao.partitions()) {
+          assertThat(dono.atende(particao.partition())).isTrue();
+          vistas.add(particao.partition());
+        }
+      });
+    assertThat(vistas).hasSize(12).doesNotHaveDuplicates();
+  }
+
+  @Test
+  void armazemSemInstanciaDeveFicarSemConsumidor() {
+    RoteadorPedidos sul = roteador("SP01", "PR01");
+
+    GroupAssignment resultado = atribuidor(sul).assign(
+      cluster(8),
+      new GroupSubscription(Map.of("sul-0", assinatura(sul)))
+    );
+
+    assertThat(
+      resultado.groupAssignment().get("sul-0").partitions()
+    ).containsExactly(
+      new TopicPartition("pedidos", 0),
+      new TopicPartition("pedidos", 3),
+      new TopicPartition("pedidos", 4),
+      new TopicPartition("pedidos", 7)
+    );
+  }
+
+  private static RoteadorPedidos roteador(String... proprios) {
+    return new RoteadorPedidos(
+      CATALOGO,
+      List.of(proprios),
+      PoliticaRoteamento.ORIGEM
+    );
+  }
+
+  private static AtribuidorParticoesArmazem atribuidor(
+    RoteadorPedidos roteador
+  ) {
+    AtribuidorParticoesArmazem atribuidor = new AtribuidorParticoesArmazem();
+    atribuidor.configure(
+      AtribuidorParticoesArmazem.configuracao("pedidos", roteador)
+    );
+    return atribuidor;
+  }
+
+  private static Subscription assinatura(RoteadorPedidos roteador) {
+    return new Subscription(
+      List.of("pedidos"),
+      atribuidor(roteador).subscriptionUserData(Set.of("pedidos"))
+    );
+  }
+
+  private static Cluster cluster(int particoes) {
+    Node broker = new Node(0, "localhost", 9092);
+    List<PartitionInfo> info = new ArrayList<>();
+    for (int p = 0; p < particoes; p++) {
+      info.add(
+        new PartitionInfo(
+          "pedidos",
+          p,
+          broker,
+          new Node[] { broker },
+          new Node[] { broker }
+        )
+      );
+    }
+    return new Cluster("estoque", List.of(broker), info, Set.of(), Set.of());
+  }
+}
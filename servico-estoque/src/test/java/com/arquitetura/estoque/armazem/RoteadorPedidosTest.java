@@ -0,0 +1,166 @@
+package com.arquitetura.estoque.armazem;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import com.arquitetura.estoque.reserva.MotorReserva;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+class RoteadorPedidosTest {
+
+  private static final List<Armazem> CATALOGO = List.of(
+    new Armazem("SP01", -23.55, -46.63),
+    new Armazem("RJ01", -22.91, -43.17),
+    new Armazem("MG01", -19.92, -43.94),
+    new Armazem("PR01", -25.43, -49.27)
+  );
+
+  @Test
+  void origemDeveSerIgualEmTodasAsInstanciasEDistribuirAsParticoes() {
+    RoteadorPedidos todos = new RoteadorPedidos(
+      CATALOGO,
+      List.of(),
+      PoliticaRoteamento.ORIGEM
+    );
+    RoteadorPedidos sul = new RoteadorPedidos(
+      CATALOGO,
+      List.of("SP01", "PR01"),
+      PoliticaRoteamento.ORIGEM
+    );
+    RoteadorPedidos norte = new RoteadorPedidos(
+      CATALOGO,
+      List.of("RJ01", "MG01"),
+      PoliticaRoteamento.ORIGEM
+    );
+
+    Map<String, Integer> porOrigem = new HashMap<>();
+    for (int particao = 0; particao < 12; particao++) {
+      Armazem origem = todos.origemDa(particao);
+      assertThat(sul.origemDa(particao)).isEqualTo(origem);
+      // Exatamente um dono por partição
+      assertThat(sul.atende(particao)).isNotEqualTo(norte.atende(particao));
+      porOrigem.merge(origem.codigo(), 1, Integer::sum);
+    }
+
+    assertThat(porOrigem).containsOnly(
+      Map.entry("SP01", 3),
+      Map.entry("RJ01", 3),
+      Map.entry("MG01", 3),
+      Map.entry("PR01", 3)
+    );
+    assertThat(sul.indicesProprios()).containsExactly(0, 3);
+  }
+
+  @Test
+  void linhaDeveIrParaOArmazemMaisProximoQueTemAQuantidade() {
+    MotorReserva motor = new MotorReserva(8);
+    motor.definirEstoque("PROD001@SP01", 5);
+    motor.definirEstoque("PROD001@RJ01", 3);
+    motor.definirEstoque("PROD001@PR01", 50);
+    motor.definirEstoque("PROD002@SP01", 10);
+    RoteadorPedidos roteador = new RoteadorPedidos(
+      CATALOGO,
+      List.of("SP01", "RJ01", "PR01"),
+      new MaisProximoComEstoque(proprios("SP01", "RJ01", "PR01"))
+    );
+    // Partição 4 é de SP01 (4 % 4 = 0)
+    RoteadorPedidos.Divisao divisao = roteador.dividir(
+      4,
+      linhas("PROD001", 8, "PROD002", 2, "PROD003", 1),
+      (armazem, sku) -> motor.consultar(armazem.chave(sku))
+    );
+
+    // PR01 (~340 km) é o único com 8; PROD003 não existe e fica na origem
+    assertThat(divisao.armazens()).isEqualTo("PR01,SP01");
+    assertThat(divisao.quantidades()).containsExactly(
+      Map.entry("PROD001@PR01", 8),
+      Map.entry("PROD002@SP01", 2),
+      Map.entry("PROD003@SP01", 1)
+    );
+    assertThat(motor.reservar(divisao.quantidades()).reservado()).isFalse();
+    assertThatThrownBy(() ->
+      roteador.dividir(2, Map.of("PROD001", 1), null)
+    ).isInstanceOf(IllegalArgumentException.class);
+  }
+
+  @Test
+  void origemEscassaDeveDividirEAbastecidaNao() {
+    int skus = 2_000;
+    int pedidos = 20_000;
+    RoteadorPedidos roteador = new RoteadorPedidos(
+      CATALOGO,
+      List.of(),
+      new MaisProximoComEstoque(CATALOGO)
+    );
+
+    // Origem abastecida: quase tudo sai de um armazém só.
+    // Origem escassa: cada armazém tem só ~metade dos SKUs, então as linhas
+    // se espalham pelos vizinhos.
+    for (boolean escasso : new boolean[] { false, true }) {
+      MotorReserva motor = new MotorReserva(1024);
+      Random random = new Random(7);
+      for (Armazem armazem : CATALOGO) {
+        for (int i = 0; i < skus; i++) {
+          if (!escasso || random.nextBoolean()) {
+            motor.definirEstoque(armazem.chave("SKU" + i), 1_000_000);
+          }
+        }
+      }
+
+      List<Integer> particoes = new ArrayList<>(pedidos);
+      List<Map<String, Integer>> linhas = new ArrayList<>(pedidos);
+      for (int n = 0; n < pedidos; n++) {
+        particoes.add(random.nextInt(12));
+        Map<String, Integer> pedido = new LinkedHashMap<>();
+        int tamanho = 1 + random.nextInt(5);
+        while (pedido.size() < tamanho) {
+          pedido.put("SKU" + random.nextInt(skus), 1 + random.nextInt(3));
+        }
+        linhas.add(pedido);
+      }
+
+      PoliticaRoteamento.ConsultaSaldo saldos = (armazem, sku) ->
+        motor.consultar(armazem.chave(sku));
+      long divididos = 0;
+      long reservados = 0;
+      for (int n = 0; n < pedidos; n++) {
+        RoteadorPedidos.Divisao divisao = roteador.dividir(
+          particoes.get(n),
+          linhas.get(n),
+          saldos
+        );
+        divididos += divisao.partes().size() > 1 ? 1 : 0;
+        reservados += motor.reservar(divisao.quantidades()).reservado()
+          ? 1
+          : 0;
+      }
+      if (escasso) {
+        assertThat(divididos).isPositive();
+      } else {
+        assertThat(divididos).isZero();
+        assertThat(reservados).isEqualTo(pedidos);
+      }
+    }
+  }
+
+  private static List<Armazem> proprios(String... codigos) {
+    List<String> lista = List.of(codigos);
+    return CATALOGO.stream()
+      .filter(armazem -> lista.contains(armazem.codigo()))
+      .toList();
+  }
+
+  private static Map<String, Integer> linhas(Object... skuEQuantidade) {
+    Map<String, Integer> linhas = new LinkedHashMap<>();
+    for (int i = 0; i < skuEQuantidade.length; i += 2) {
+      linhas.put((String) skuEQuantidade[i], (Integer) skuEQuantidade[i + 1]);
+    }
+    return linhas;
+  }
+}
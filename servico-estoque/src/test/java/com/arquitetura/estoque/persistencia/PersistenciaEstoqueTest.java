@@ -0,0 +1,391 @@
+package com.arquitetura.estoque.persistencia;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.arquitetura.estoque.processamento.DeduplicadorPedidos;
+import com.arquitetura.estoque.reserva.MotorReserva;
+import com.arquitetura.estoque.reserva.ReservasPendentes;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class PersistenciaEstoqueTest {
+
+  @TempDir
+  Path diretorio;
+
+  private static String sku(int i) {
+    return String.format("SKU-%08d", i);
+  }
+
+  @Test
+  void deveRecuperarSaldosEOffsetsDoSnapshotMaisCauda() throws IOException {
+    try (
+      PersistenciaEstoque persistencia = new PersistenciaEstoque(diretorio)
+    ) {
+      MotorReserva motor = new MotorReserva(8, persistencia.getInventario());
+      persistencia.definirEstoque(motor, Map.of("PROD001", 100, "PROD002", 50));
+
+      persistencia.reservar(motor, 0, 10, Map.of("PROD001", 30));
+      persistencia.gravarSnapshot();
+      persistencia.reservar(motor, 0, 11, Map.of("PROD001", 5, "PROD002", 5));
+      persistencia.reservar(motor, 1, 3, Map.of("PROD002", 60));
+    }
+
+    try (
+      PersistenciaEstoque persistencia = new PersistenciaEstoque(diretorio)
+    ) {
+      MotorReserva motor = new MotorReserva(8, persistencia.getInventario());
+
+      assertThat(motor.consultar("PROD001")).isEqualTo(65);
+      assertThat(motor.consultar("PROD002")).isEqualTo(45);
+      assertThat(persistencia.proximoOffset(0)).isEqualTo(12L);
+      // A recusa também avança o offset: não é reprocessada no restart
+      assertThat(persistencia.proximoOffset(1)).isEqualTo(4L);
+      assertThat(persistencia.proximoOffset(2)).isNull();
+      assertThat(persistencia.getRecuperacao().geracaoSnapshot()).isPositive();
+    }
+  }
+
+  @Test
+  void deveIgnorarEventoJaAplicado() throws IOException {
+    try (
+      PersistenciaEstoque persistencia = new PersistenciaEstoque(diretorio)
+    ) {
+      MotorReserva motor = new MotorReserva(8, persistencia.getInventario());
+      persistencia.definirEstoque(motor, Map.of("PROD001", 10));
+
+      assertThat(
+        persistencia.reservar(motor, 0, 7, Map.of("PROD001", 4)).reservado()
+      ).isTrue();
+      assertThat(
+        persistencia.reservar(motor, 0, 7, Map.of("PROD001", 4))
+      ).isNull();
+      assertThat(
+        persistencia.reservar(motor, 0, 6, Map.of("PROD001", 4))
+      ).isNull();
+      assertThat(motor.consultar("PROD001")).isEqualTo(6);
+      assertThat(persistencia.jaAplicado(0, 7)).isTrue();
+      assertThat(persistencia.jaAplicado(0, 8)).isFalse();
+    }
+  }
+
+  @Test
+  void loteDevePularEventosJaAplicadosERegistrarUmPorEvento()
+    throws IOException {
+    try (
+      PersistenciaEstoque persistencia = new PersistenciaEstoque(diretorio)
+    ) {
+      MotorReserva motor = new MotorReserva(8, persistencia.getInventario());
+      persistencia.definirEstoque(motor, Map.of("PROD001", 10));
+      persistencia.reservar(motor, 0, 5, Map.of("PROD001", 1));
+
+      List<MotorReserva.Resultado> resultados = persistencia.reservarLote(
+        motor,
+        List.of(
+          new PersistenciaEstoque.Evento(0, 5, Map.of("PROD001", 1)),
+          new PersistenciaEstoque.Evento(0, 6, Map.of("PROD001", 2)),
+          new PersistenciaEstoque.Evento(1, 0, Map.of("PROD001", 20)),
+          new PersistenciaEstoque.Evento(1, 1, Map.of("PROD001", 3))
+        )
+      );
+
+      assertThat(resultados.get(0)).isNull();
+      assertThat(resultados.get(1).reservado()).isTrue();
+      assertThat(resultados.get(2).reservado()).isFalse();
+      assertThat(resultados.get(3).reservado()).isTrue();
+      assertThat(motor.consultar("PROD001")).isEqualTo(4);
+    }
+
+    try (
+      PersistenciaEstoque persistencia = new PersistenciaEstoque(diretorio)
+    ) {
+      MotorReserva motor = new MotorReserva(8, persistencia.getInventario());
+
+      assertThat(motor.consultar("PROD001")).isEqualTo(4);
+      assertThat(persistencia.proximoOffset(0)).isEqualTo(7L);
+      assertThat(persistencia.proximoOffset(1)).isEqualTo(2L);
+      assertThat(persistencia.getRecuperacao().registrosReaplicados())
+        .isEqualTo(5);
+    }
+  }
+
+  @Test
+  void deveLembrarOffsetsConcluidosForaDeOrdemAposRestart()
+    throws IOException {
+    try (
+      PersistenciaEstoque persistencia = new PersistenciaEstoque(diretorio)
+    ) {
+      MotorReserva motor = new MotorReserva(8, persistencia.getInventario());
+      persistencia.definirEstoque(motor, Map.of("PROD001", 100));
+      persistencia.iniciarParticao(0, 10);
+
+      persistencia.reservar(motor, 0, 12, Map.of("PROD001", 1));
+      persistencia.reservar(motor, 0, 10, Map.of("PROD001", 1));
+      persistencia.gravarSnapshot();
+      persistencia.reservar(motor, 0, 14, Map.of("PROD001", 1));
+
+      assertThat(persistencia.proximoOffset(0)).isEqualTo(11L);
+    }
+
+    try (
+      PersistenciaEstoque persistencia = new PersistenciaEstoque(diretorio)
+    ) {
+      MotorReserva motor = new MotorReserva(8, persistencia.getInventario());
+
+      // Retoma do 11, mas 12 e 14 já estão no saldo e não podem se repetir
+      assertThat(persistencia.proximoOffset(0)).isEqualTo(11L);
+      assertThat(persistencia.jaAplicado(0, 11)).isFalse();
+      assertThat(persistencia.jaAplicado(0, 12)).isTrue();
+      assertThat(persistencia.jaAplicado(0, 13)).isFalse();
+      assertThat(persistencia.jaAplicado(0, 14)).isTrue();
+      assertThat(
+        persistencia.reservar(motor, 0, 12, Map.of("PROD001", 1))
+      ).isNull();
+      assertThat(motor.consultar("PROD001")).isEqualTo(97);
+
+      persistencia.reservar(motor, 0, 11, Map.of("PROD001", 1));
+      persistencia.reservar(motor, 0, 13, Map.of("PROD001", 1));
+      assertThat(persistencia.proximoOffset(0)).isEqualTo(15L);
+    }
+  }
+
+  @Test
+  void deveDescartarRegistroIncompletoNoFimDoChangelog() throws IOException {
+    Path changelog;
+    try (
+      PersistenciaEstoque persistencia = new PersistenciaEstoque(diretorio)
+    ) {
+      MotorReserva motor = new MotorReserva(8, persistencia.getInventario());
+      persistencia.definirEstoque(motor, Map.of("PROD001", 10));
+      long geracao = persistencia.gravarSnapshot();
+      persistencia.reservar(motor, 0, 0, Map.of("PROD001", 1));
+      persistencia.reservar(motor, 0, 1, Map.of("PROD001", 1));
+      changelog = ChangelogEstoque.arquivo(diretorio, geracao);
+    }
+
+    // Simula queda no meio da escrita do último registro
+    long tamanho = Files.size(changelog);
+    try (
+      FileChannel canal = FileChannel.open(changelog, StandardOpenOption.WRITE)
+    ) {
+      canal.truncate(tamanho - 3);
+    }
+
+    try (
+      PersistenciaEstoque persistencia = new PersistenciaEstoque(diretorio)
+    ) {
+      MotorReserva motor = new MotorReserva(8, persistencia.getInventario());
+
+      assertThat(motor.consultar("PROD001")).isEqualTo(9);
+      assertThat(persistencia.proximoOffset(0)).isEqualTo(1L);
+      assertThat(persistencia.getRecuperacao().registrosReaplicados())
+        .isEqualTo(1);
+    }
+  }
+
+  @Test
+  void partidaPeloSnapshotDeveReaplicarSoACauda() throws IOException {
+    int skus = 10_000;
+    int eventos = 100_000;
+    int cauda = 1_000;
+    Path completo = Files.createDirectory(diretorio.resolve("completo"));
+    Path comSnapshot = Files.createDirectory(diretorio.resolve("snapshot"));
+
+    Map<String, Integer> estoqueInicial = new LinkedHashMap<>();
+    for (int i = 0; i < skus; i++) {
+      estoqueInicial.put(sku(i), 1_000_000);
+    }
+
+    // Histórico inteiro só no changelog: equivale a reler o tópico do início
+    try (ChangelogEstoque log = new ChangelogEstoque(completo, 0)) {
+      log.anexar(ChangelogEstoque.TIPO_DEFINICAO, -1, -1, estoqueInicial);
+      for (int i = 0; i < eventos; i++) {
+        log.anexar(
+          ChangelogEstoque.TIPO_RESERVA,
+          i % 3,
+          i / 3,
+          Map.of(sku(i % skus), 1)
+        );
+      }
+    }
+
+    try (
+      PersistenciaEstoque persistencia = new PersistenciaEstoque(comSnapshot)
+    ) {
+      MotorReserva motor = new MotorReserva(64, persistencia.getInventario());
+      persistencia.definirEstoque(motor, estoqueInicial);
+      for (int i = 0; i < eventos; i++) {
+        if (i == eventos - cauda) {
+          persistencia.gravarSnapshot();
+        }
+        persistencia.reservar(motor, i % 3, i / 3, Map.of(sku(i % skus), 1));
+      }
+    }
+
+    PersistenciaEstoque.Recuperacao replay;
+    try (PersistenciaEstoque persistencia = new PersistenciaEstoque(completo)) {
+      replay = persistencia.getRecuperacao();
+      assertThat(persistencia.proximoOffset(0)).isEqualTo(eventos / 3 + 1L);
+    }
+
+    PersistenciaEstoque.Recuperacao partida;
+    try (
+      PersistenciaEstoque persistencia = new PersistenciaEstoque(comSnapshot)
+    ) {
+      partida = persistencia.getRecuperacao();
+      MotorReserva motor = new MotorReserva(64, persistencia.getInventario());
+      assertThat(motor.consultar(sku(0))).isEqualTo(1_000_000 - eventos / skus);
+      assertThat(persistencia.proximoOffset(0)).isEqualTo(eventos / 3 + 1L);
+    }
+
+    assertThat(replay.registrosReaplicados()).isEqualTo(eventos + 1L);
+    assertThat(partida.registrosReaplicados()).isEqualTo(cauda);
+  }
+
+  @Test
+  void snapshotDeveIncluirOQueEstaNosOrcamentosDeSkusQuentes()
+    throws IOException {
+    try (
+      PersistenciaEstoque persistencia = new PersistenciaEstoque(diretorio)
+    ) {
+      MotorReserva motor = new MotorReserva(
+        8,
+        persistencia.getInventario(),
+        new MotorReserva.ModoQuente(4, 50, 64, 4)
+      );
+      persistencia.setAntesDoSnapshot(motor::devolverOrcamentos);
+      persistencia.definirEstoque(motor, Map.of("PROMO", 1_000));
+      motor.marcarQuente("PROMO");
+
+      for (long offset = 0; offset < 10; offset++) {
+        persistencia.reservar(motor, 0, offset, Map.of("PROMO", 3));
+      }
+      // O reabastecimento tirou um lote do saldo central
+      assertThat(motor.consultar("PROMO")).isEqualTo(970);
+      assertThat(
+        persistencia.getInventario().comoMapa().get("PROMO")
+      ).isLessThan(970);
+
+      persistencia.gravarSnapshot();
+      assertThat(
+        persistencia.getInventario().comoMapa().get("PROMO")
+      ).isEqualTo(970);
+      persistencia.reservar(motor, 0, 10, Map.of("PROMO", 5));
+    }
+
+    try (
+      PersistenciaEstoque persistencia = new PersistenciaEstoque(diretorio)
+    ) {
+      MotorReserva motor = new MotorReserva(8, persistencia.getInventario());
+      assertThat(motor.consultar("PROMO")).isEqualTo(965);
+    }
+  }
+
+  @Test
+  void reservasPendentesDevemSobreviverAoRestart() throws Exception {
+    try (
+      PersistenciaEstoque persistencia = new PersistenciaEstoque(
+        diretorio,
+        null,
+        reservas(Duration.ofHours(1))
+      )
+    ) {
+      MotorReserva motor = new MotorReserva(8, persistencia.getInventario());
+      persistencia.definirEstoque(motor, Map.of("PROD001", 100));
+      reservar(persistencia, motor, 0, "p1", 10);
+      reservar(persistencia, motor, 1, "p2", 20);
+      reservar(persistencia, motor, 2, "p3", 5);
+
+      assertThat(persistencia.confirmar("p1")).isTrue();
+      assertThat(persistencia.cancelar(motor, "p2")).isNotNull();
+      assertThat(persistencia.cancelar(motor, "p2")).isNull();
+      persistencia.gravarSnapshot();
+
+      // Depois do snapshot: só no changelog
+      reservar(persistencia, motor, 3, "p4", 7);
+      assertThat(persistencia.cancelar(motor, "p3")).isNotNull();
+      assertThat(motor.consultar("PROD001")).isEqualTo(83);
+    }
+
+    ReservasPendentes reservas = reservas(Duration.ofHours(1));
+    try (
+      PersistenciaEstoque persistencia = new PersistenciaEstoque(
+        diretorio,
+        null,
+        reservas
+      )
+    ) {
+      MotorReserva motor = new MotorReserva(8, persistencia.getInventario());
+      assertThat(motor.consultar("PROD001")).isEqualTo(83);
+      assertThat(reservas.getPendentes()).hasSize(1);
+      assertThat(reservas.getPendentes().get(0).pedido()).isEqualTo(
+        DeduplicadorPedidos.impressao("p4")
+      );
+      assertThat(persistencia.confirmar("p1")).isFalse();
+
+      // Agora a reserva pendente vai no snapshot
+      persistencia.gravarSnapshot();
+    }
+
+    // Prazo curto: vence enquanto o serviço está parado
+    try (
+      PersistenciaEstoque persistencia = new PersistenciaEstoque(
+        diretorio,
+        null,
+        reservas(Duration.ofMillis(1))
+      )
+    ) {
+      MotorReserva motor = new MotorReserva(8, persistencia.getInventario());
+      reservar(persistencia, motor, 4, "p5", 3);
+      assertThat(motor.consultar("PROD001")).isEqualTo(80);
+    }
+    Thread.sleep(20);
+
+    reservas = reservas(Duration.ofHours(1));
+    try (
+      PersistenciaEstoque persistencia = new PersistenciaEstoque(
+        diretorio,
+        null,
+        reservas
+      )
+    ) {
+      MotorReserva motor = new MotorReserva(8, persistencia.getInventario());
+      assertThat(reservas.getAtivas()).isEqualTo(2);
+      assertThat(persistencia.expirar(motor)).hasSize(1);
+      assertThat(motor.consultar("PROD001")).isEqualTo(83);
+      assertThat(persistencia.cancelar(motor, "p4")).isNotNull();
+      assertThat(motor.consultar("PROD001")).isEqualTo(90);
+    }
+  }
+
+  private static ReservasPendentes reservas(Duration ttl) {
+    return new ReservasPendentes(ttl, Duration.ofMillis(1));
+  }
+
+  private static void reservar(
+    PersistenciaEstoque persistencia,
+    MotorReserva motor,
+    long offset,
+    String pedidoId,
+    int quantidade
+  ) {
+    persistencia.reservar(
+      motor,
+      new PersistenciaEstoque.Evento(
+        0,
+        offset,
+        Map.of("PROD001", quantidade),
+        pedidoId
+      )
+    );
+  }
+}
@@ -0,0 +1,96 @@
+package com.arquitetura.estoque.processamento;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+import org.junit.jupiter.api.Test;
+
+class DeduplicadorPedidosTest {
+
+  private final AtomicLong agora = new AtomicLong();
+
+  private DeduplicadorPedidos deduplicador(int capacidade) {
+    return new DeduplicadorPedidos(
+      capacidade,
+      Duration.ofMinutes(10),
+      4,
+      agora::get
+    );
+  }
+
+  @Test
+  void deveReconhecerPedidoJaRegistrado() {
+    DeduplicadorPedidos deduplicador = deduplicador(1000);
+
+    assertThat(deduplicador.contem("pedido-1")).isFalse();
+    deduplicador.registrar("pedido-1");
+
+    assertThat(deduplicador.contem("pedido-1")).isTrue();
+    assertThat(deduplicador.contem("pedido-2")).isFalse();
+    assertThat(deduplicador.getDuplicados()).isEqualTo(1);
+  }
+
+  @Test
+  void deveEsquecerPedidosForaDaJanela() {
+    DeduplicadorPedidos deduplicador = deduplicador(1000);
+    deduplicador.registrar("pedido-1");
+
+    agora.addAndGet(Duration.ofMinutes(7).toNanos());
+    assertThat(deduplicador.contem("pedido-1")).isTrue();
+
+    agora.addAndGet(Duration.ofMinutes(4).toNanos());
+    assertThat(deduplicador.contem("pedido-1")).isFalse();
+  }
+
+  @Test
+  void deveManterSoOsUltimosPedidosDaCapacidade() {
+    DeduplicadorPedidos deduplicador = deduplicador(1000);
+    for (int i = 0; i < 5000; i++) {
+      deduplicador.registrar("pedido-" + i);
+    }
+
+    assertThat(deduplicador.getTamanho()).isEqualTo(1000);
+    assertThat(deduplicador.getRecentes()).hasSize(1000);
+    for (int i = 4000; i < 5000; i++) {
+      assertThat(deduplicador.contem("pedido-" + i)).isTrue();
+    }
+    for (int i = 0; i < 3000; i++) {
+      assertThat(deduplicador.contem("pedido-" + i)).isFalse();
+    }
+  }
+
+  @Test
+  void restaurarPelasImpressoesDeveReconhecerOsMesmosPedidos() {
+    DeduplicadorPedidos original = deduplicador(100);
+    for (int i = 0; i < 250; i++) {
+      original.registrar("pedido-" + i);
+    }
+
+    DeduplicadorPedidos restaurado = deduplicador(100);
+    for (long impressao : original.getRecentes()) {
+      restaurado.registrarImpressao(impressao);
+    }
+
+    assertThat(restaurado.contem("pedido-249")).isTrue();
+    assertThat(restaurado.contem("pedido-150")).isTrue();
+    assertThat(restaurado.contem("pedido-149")).isFalse();
+  }
+
+  @Test
+  void falsoPositivoDoFiltroNuncaDeveDescartarPedidoNovo() {
+    int capacidade = 65_536;
+    DeduplicadorPedidos deduplicador = deduplicador(capacidade);
+    for (int i = 0; i < capacidade; i++) {
+      deduplicador.registrar("antigo-" + i);
+    }
+
+    int novos = 100_000;
+    for (int i = 0; i < novos; i++) {
+      assertThat(deduplicador.contem("novo-" + i)).isFalse();
+    }
+
+    assertThat(deduplicador.getBytesOcupados()).isLessThan(2L << 20);
+    assertThat(deduplicador.getIncertos()).isLessThan(novos / 20);
+  }
+}
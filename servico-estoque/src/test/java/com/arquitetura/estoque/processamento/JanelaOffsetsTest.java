@@ -0,0 +1,57 @@
+package com.arquitetura.estoque.processamento;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+class JanelaOffsetsTest {
+
+  @Test
+  void baseDeveAvancarSoAteOMaiorOffsetContiguo() {
+    JanelaOffsets janela = new JanelaOffsets(100);
+
+    assertThat(janela.concluir(102)).isTrue();
+    assertThat(janela.concluir(103)).isTrue();
+    assertThat(janela.getBase()).isEqualTo(100);
+    assertThat(janela.concluido(102)).isTrue();
+    assertThat(janela.concluido(101)).isFalse();
+
+    janela.concluir(100);
+    assertThat(janela.getBase()).isEqualTo(101);
+    assertThat(janela.getConcluidosAcima()).containsExactly(102, 103);
+
+    janela.concluir(101);
+    assertThat(janela.getBase()).isEqualTo(104);
+    assertThat(janela.getConcluidosAcima()).isEmpty();
+    assertThat(janela.concluir(103)).isFalse();
+  }
+
+  @Test
+  void deveCompactarERestaurarComConclusoesEmbaralhadas() {
+    List<Long> offsets = new ArrayList<>();
+    for (long o = 0; o < 50_000; o++) {
+      offsets.add(o);
+    }
+    // Embaralha em blocos, como trilhas que terminam fora de ordem
+    for (int i = 0; i < offsets.size(); i += 64) {
+      Collections.shuffle(offsets.subList(i, Math.min(i + 64, offsets.size())));
+    }
+
+    JanelaOffsets janela = new JanelaOffsets(0);
+    for (int i = 0; i < offsets.size(); i++) {
+      janela.concluir(offsets.get(i));
+      if (i == 30_000) {
+        JanelaOffsets copia = janela.copiar();
+        assertThat(copia.getBase()).isEqualTo(janela.getBase());
+        assertThat(copia.getConcluidosAcima())
+          .containsExactly(janela.getConcluidosAcima());
+      }
+    }
+
+    assertThat(janela.getBase()).isEqualTo(50_000);
+    assertThat(janela.getConcluidosAcima()).isEmpty();
+  }
+}
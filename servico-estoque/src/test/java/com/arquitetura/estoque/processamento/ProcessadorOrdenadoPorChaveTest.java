@@ -0,0 +1,49 @@
+package com.arquitetura.estoque.processamento;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import org.junit.jupiter.api.Test;
+
+class ProcessadorOrdenadoPorChaveTest {
+
+  @Test
+  void tarefasDaMesmaChaveDevemRodarNaOrdemDeSubmissao() throws Exception {
+    int chaves = 500;
+    int porChave = 200;
+    AtomicIntegerArray ultimaSequencia = new AtomicIntegerArray(chaves);
+    AtomicInteger foraDeOrdem = new AtomicInteger();
+    CountDownLatch concluidas = new CountDownLatch(chaves * porChave);
+
+    try (
+      ProcessadorOrdenadoPorChave processador = new ProcessadorOrdenadoPorChave(
+        "teste",
+        16,
+        64
+      )
+    ) {
+      for (int sequencia = 1; sequencia <= porChave; sequencia++) {
+        for (int chave = 0; chave < chaves; chave++) {
+          int k = chave;
+          int s = sequencia;
+          processador.submeter("PED-" + k, () -> {
+            if (ultimaSequencia.getAndSet(k, s) != s - 1) {
+              foraDeOrdem.incrementAndGet();
+            }
+            concluidas.countDown();
+          });
+        }
+      }
+
+      assertThat(concluidas.await(60, TimeUnit.SECONDS)).isTrue();
+    }
+
+    assertThat(foraDeOrdem.get()).isZero();
+    for (int chave = 0; chave < chaves; chave++) {
+      assertThat(ultimaSequencia.get(chave)).isEqualTo(porChave);
+    }
+  }
+}
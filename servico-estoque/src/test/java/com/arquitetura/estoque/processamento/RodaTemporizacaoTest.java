@@ -0,0 +1,98 @@
+package com.arquitetura.estoque.processamento;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+class RodaTemporizacaoTest {
+
+  @Test
+  void deveExpirarCadaIdNoTickDoPrazoEmTodosOsNiveis() {
+    int ids = 200_000;
+    long resolucao = 10;
+    // Prazos até ~2x o alcance da roda (64^4 ticks), para passar também
+    // pela posição de estouro do nível mais alto
+    long alcance = resolucao * (1L << 24);
+    Random random = new Random(11);
+    long inicio = 1_700_000_000_000L;
+    RodaTemporizacao roda = new RodaTemporizacao(resolucao, inicio, 16);
+
+    long[] prazos = new long[ids];
+    boolean[] cancelados = new boolean[ids];
+    boolean[] expirados = new boolean[ids];
+    for (int id = 0; id < ids; id++) {
+      long distancia = switch (id % 4) {
+        case 0 -> 1 + random.nextInt(640);
+        case 1 -> 1 + random.nextInt(64 * 64 * 10);
+        case 2 -> 1 + (long) (random.nextDouble() * alcance);
+        default -> 1 + (long) (random.nextDouble() * 2 * alcance);
+      };
+      prazos[id] = inicio + distancia;
+      roda.agendar(id, prazos[id]);
+    }
+    // Reagendar troca o prazo; cancelar tira da roda
+    for (int id = 0; id < ids; id += 7) {
+      prazos[id] = inicio + 1 + random.nextInt(1_000_000);
+      roda.agendar(id, prazos[id]);
+    }
+    int cancelamentos = 0;
+    for (int id = 3; id < ids; id += 11) {
+      assertThat(roda.cancelar(id)).isTrue();
+      assertThat(roda.cancelar(id)).isFalse();
+      cancelados[id] = true;
+      cancelamentos++;
+    }
+    assertThat(roda.getTamanho()).isEqualTo(ids - cancelamentos);
+
+    long agora = inicio;
+    long anterior = inicio;
+    int total = 0;
+    while (roda.getTamanho() > 0) {
+      agora += 1 + random.nextInt((int) (alcance / 500));
+      long agoraFinal = agora;
+      long anteriorFinal = anterior;
+      total += roda.avancar(agora, id -> {
+        assertThat(cancelados[id]).isFalse();
+        assertThat(expirados[id]).isFalse();
+        expirados[id] = true;
+        // Nunca antes do prazo, nem depois do primeiro avanço que o alcança
+        assertThat(prazos[id]).isLessThanOrEqualTo(agoraFinal);
+        assertThat(prazos[id]).isGreaterThan(
+          anteriorFinal / resolucao * resolucao
+        );
+      });
+      anterior = agora;
+    }
+
+    assertThat(total).isEqualTo(ids - cancelamentos);
+    for (int id = 0; id < ids; id++) {
+      assertThat(expirados[id]).isNotEqualTo(cancelados[id]);
+    }
+  }
+
+  @Test
+  void prazosCanceladosNaoDevemExpirar() {
+    int ids = 100_000;
+    long resolucao = 100;
+    long agora = 1_700_000_000_000L;
+    long ttl = 15 * 60 * 1000;
+    RodaTemporizacao roda = new RodaTemporizacao(resolucao, agora, ids);
+    Random random = new Random(3);
+
+    for (int id = 0; id < ids; id++) {
+      roda.agendar(id, agora + ttl + random.nextInt(60_000));
+    }
+    for (int id = 0; id < ids; id += 2) {
+      roda.cancelar(id);
+    }
+
+    // Avança em passos de 1 s até o fim, como o ciclo de expiração
+    long expirados = 0;
+    for (long t = agora; roda.getTamanho() > 0; t += 1000) {
+      expirados += roda.avancar(t, id -> assertThat(id % 2).isEqualTo(1));
+    }
+
+    assertThat(expirados).isEqualTo(ids / 2);
+  }
+}
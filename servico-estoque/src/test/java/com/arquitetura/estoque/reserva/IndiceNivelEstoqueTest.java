@@ -0,0 +1,127 @@
+package com.arquitetura.estoque.reserva;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.arquitetura.estoque.model.NivelEstoque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.Test;
+
+class IndiceNivelEstoqueTest {
+
+  @Test
+  void deveMoverOSkuDeNivelQuandoOSaldoCruzaOLimite() {
+    MotorReserva motor = new MotorReserva(8);
+    motor.definirEstoque("PROD001", 60);
+    motor.definirEstoque("PROD002", 30);
+    IndiceNivelEstoque indice = new IndiceNivelEstoque(motor.getInventario());
+
+    assertThat(ids(indice, NivelEstoque.ALTO)).containsExactly(0);
+    assertThat(ids(indice, NivelEstoque.MEDIO)).containsExactly(1);
+
+    motor.reservar(Map.of("PROD001", 15));
+    motor.definirEstoque("PROD003", 5);
+
+    assertThat(ids(indice, NivelEstoque.ALTO)).isEmpty();
+    assertThat(ids(indice, NivelEstoque.MEDIO)).containsExactly(0, 1);
+    assertThat(ids(indice, NivelEstoque.BAIXO)).containsExactly(2);
+    assertThat(indice.contar(NivelEstoque.MEDIO)).isEqualTo(2);
+    assertThat(indice.contar(NivelEstoque.ALTO)).isZero();
+  }
+
+  @Test
+  void skuQuenteDeveSerClassificadoPeloDisponivelComAsCelulas() {
+    MotorReserva motor = new MotorReserva(
+      8,
+      new InventarioSku(),
+      new MotorReserva.ModoQuente(1, 10, 1, 4)
+    );
+    motor.definirEstoque("PROMO", 60);
+    motor.marcarQuente("PROMO");
+    IndiceNivelEstoque indice = new IndiceNivelEstoque(motor);
+
+    // Central 49 e 10 na célula: o disponível continua ALTO
+    motor.reservar(Map.of("PROMO", 1));
+    assertThat(ids(indice, NivelEstoque.ALTO)).containsExactly(0);
+
+    // Sai da célula e depois reabastece sem o central mudar de nível
+    motor.reservar(Map.of("PROMO", 10));
+    motor.reservar(Map.of("PROMO", 1));
+    assertThat(motor.consultar("PROMO")).isEqualTo(48);
+    assertThat(ids(indice, NivelEstoque.MEDIO)).containsExactly(0);
+    assertThat(ids(indice, NivelEstoque.ALTO)).isEmpty();
+  }
+
+  @Test
+  void alteracoesConcorrentesDevemTerminarIguaisAUmaVarredura()
+    throws Exception {
+    int skus = 200_000;
+    InventarioSku inventario = new InventarioSku(skus);
+    IndiceNivelEstoque indice = new IndiceNivelEstoque(inventario);
+    for (int i = 0; i < skus; i++) {
+      inventario.definirSaldo(inventario.registrar("SKU" + i), 20 + i % 40);
+    }
+
+    int threads = 8;
+    CountDownLatch largada = new CountDownLatch(1);
+    ExecutorService executor = Executors.newFixedThreadPool(threads);
+    try {
+      List<Future<?>> tarefas = new ArrayList<>();
+      for (int t = 0; t < threads; t++) {
+        tarefas.add(
+          executor.submit(() -> {
+            largada.await();
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            for (int n = 0; n < 500_000; n++) {
+              // Poucos SKUs quentes para forçar cruzamentos simultâneos
+              int id = random.nextInt(n % 2 == 0 ? 64 : skus);
+              inventario.somarSaldo(id, random.nextInt(-15, 16));
+            }
+            return null;
+          })
+        );
+      }
+      largada.countDown();
+      for (Future<?> tarefa : tarefas) {
+        tarefa.get(60, TimeUnit.SECONDS);
+      }
+    } finally {
+      executor.shutdownNow();
+    }
+
+    int[] esperado = new int[NivelEstoque.values().length];
+    for (int id = 0; id < skus; id++) {
+      NivelEstoque nivel = NivelEstoque.de(inventario.saldo(id));
+      esperado[nivel.ordinal()]++;
+      for (NivelEstoque outro : NivelEstoque.values()) {
+        boolean indexado = indice.proximo(outro, id) == id;
+        assertThat(indexado).isEqualTo(outro == nivel);
+      }
+    }
+    for (NivelEstoque nivel : NivelEstoque.values()) {
+      assertThat(indice.contar(nivel)).isEqualTo(esperado[nivel.ordinal()]);
+    }
+  }
+
+  private static List<Integer> ids(
+    IndiceNivelEstoque indice,
+    NivelEstoque nivel
+  ) {
+    List<Integer> ids = new ArrayList<>();
+    for (
+      int id = indice.proximo(nivel, 0);
+      id >= 0;
+      id = indice.proximo(nivel, id + 1)
+    ) {
+      ids.add(id);
+    }
+    return ids;
+  }
+}
@@ -0,0 +1,112 @@
+package com.arquitetura.estoque.reserva;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import org.junit.jupiter.api.Test;
+
+class InventarioSkuTest {
+
+  private static String sku(int i) {
+    return String.format("SKU-%08d", i);
+  }
+
+  @Test
+  void deveInternarCodigosEmIdsDensos() {
+    InventarioSku inventario = new InventarioSku(4);
+
+    int notebook = inventario.registrar("PROD001");
+    int mouse = inventario.registrar("PROD002");
+    inventario.definirSaldo(notebook, 100);
+
+    assertThat(notebook).isZero();
+    assertThat(mouse).isEqualTo(1);
+    assertThat(inventario.registrar("PROD001")).isEqualTo(notebook);
+    assertThat(inventario.idDe("PROD999")).isEqualTo(-1);
+    assertThat(inventario.codigoDe(mouse)).isEqualTo("PROD002");
+    assertThat(inventario.somarSaldo(notebook, -30)).isEqualTo(70);
+
+    Map<String, Integer> mapa = inventario.comoMapa();
+    assertThat(mapa).hasSize(2);
+    assertThat(mapa).containsEntry("PROD001", 70).containsEntry("PROD002", 0);
+    assertThat(mapa.get("PROD999")).isNull();
+  }
+
+  @Test
+  void deveEncontrarTodosOsSkusAposCrescerIndiceEBlocos() {
+    InventarioSku inventario = new InventarioSku(16);
+    int total = 200_000;
+    for (int i = 0; i < total; i++) {
+      inventario.definirSaldo(inventario.registrar(sku(i)), i);
+    }
+
+    assertThat(inventario.getTotalSkus()).isEqualTo(total);
+    for (int i = 0; i < total; i++) {
+      int id = inventario.idDe(sku(i));
+      assertThat(id).isEqualTo(i);
+      assertThat(inventario.saldo(id)).isEqualTo(i);
+    }
+
+    AtomicLong soma = new AtomicLong();
+    inventario.paraCada((id, saldo) -> soma.addAndGet(saldo));
+    assertThat(soma.get()).isEqualTo((long) total * (total - 1) / 2);
+  }
+
+  @Test
+  void registrosConcorrentesDevemGerarUmIdPorCodigo() throws Exception {
+    InventarioSku inventario = new InventarioSku(16);
+    int distintos = 50_000;
+    int threads = 4;
+    CountDownLatch largada = new CountDownLatch(1);
+    ExecutorService executor = Executors.newFixedThreadPool(threads);
+
+    try {
+      List<Future<int[]>> tarefas = new ArrayList<>();
+      for (int t = 0; t < threads; t++) {
+        tarefas.add(
+          executor.submit(() -> {
+            largada.await();
+            int[] ids = new int[distintos];
+            for (int i = 0; i < distintos; i++) {
+              ids[i] = inventario.registrar(sku(i));
+              inventario.somarSaldo(ids[i], 1);
+            }
+            return ids;
+          })
+        );
+      }
+
+      largada.countDown();
+      int[] referencia = tarefas.get(0).get(60, TimeUnit.SECONDS);
+      for (Future<int[]> tarefa : tarefas) {
+        assertThat(tarefa.get(60, TimeUnit.SECONDS)).isEqualTo(referencia);
+      }
+    } finally {
+      executor.shutdownNow();
+    }
+
+    assertThat(inventario.getTotalSkus()).isEqualTo(distintos);
+    inventario.paraCada((id, saldo) -> assertThat(saldo).isEqualTo(threads));
+  }
+
+  @Test
+  void deveOcuparPoucosBytesPorSku() {
+    int total = 100_000;
+    InventarioSku inventario = new InventarioSku(total);
+    for (int i = 0; i < total; i++) {
+      inventario.definirSaldo(inventario.registrar(sku(i)), 100);
+    }
+
+    // Um Map<String, Integer> passa de 100 bytes por entrada
+    assertThat(inventario.getTotalSkus()).isEqualTo(total);
+    assertThat(inventario.getBytesOcupados() / total).isLessThan(48);
+  }
+}
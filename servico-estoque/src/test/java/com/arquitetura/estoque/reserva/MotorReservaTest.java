@@ -0,0 +1,216 @@
+package com.arquitetura.estoque.reserva;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+import org.junit.jupiter.api.Test;
+
+class MotorReservaTest {
+
+  @Test
+  void deveReservarTodasAsLinhasOuNenhuma() {
+    MotorReserva motor = new MotorReserva(8);
+    motor.definirEstoque("PROD001", 10);
+    motor.definirEstoque("PROD002", 1);
+
+    MotorReserva.Resultado recusado = motor.reservar(
+      Map.of("PROD001", 5, "PROD002", 2)
+    );
+
+    assertThat(recusado.reservado()).isFalse();
+    assertThat(recusado.insuficientes()).containsExactly("PROD002");
+    assertThat(motor.consultar("PROD001")).isEqualTo(10);
+    assertThat(motor.consultar("PROD002")).isEqualTo(1);
+
+    MotorReserva.Resultado reservado = motor.reservar(
+      Map.of("PROD001", 5, "PROD002", 1)
+    );
+
+    assertThat(reservado.reservado()).isTrue();
+    assertThat(reservado.saldos()).containsEntry("PROD001", 5);
+    assertThat(reservado.saldos()).containsEntry("PROD002", 0);
+    assertThat(motor.reservar(Map.of("PROD999", 1)).reservado()).isFalse();
+  }
+
+  @Test
+  void loteDeveDecidirNaOrdemEDeduzirCadaSkuUmaVez() {
+    MotorReserva motor = new MotorReserva(8);
+    motor.definirEstoque("PROD001", 10);
+    motor.definirEstoque("PROD002", 3);
+
+    List<MotorReserva.Resultado> resultados = motor.reservarLote(
+      List.of(
+        Map.of("PROD001", 4, "PROD002", 2),
+        Map.of("PROD001", 4, "PROD002", 2),
+        Map.of("PROD001", 6),
+        Map.of("PROD999", 1),
+        Map.of("PROD002", 1)
+      )
+    );
+
+    assertThat(resultados)
+      .extracting(MotorReserva.Resultado::reservado)
+      .containsExactly(true, false, true, false, true);
+    assertThat(resultados.get(1).insuficientes()).containsExactly("PROD002");
+    assertThat(resultados.get(2).saldos()).containsEntry("PROD001", 0);
+    assertThat(motor.consultar("PROD001")).isZero();
+    assertThat(motor.consultar("PROD002")).isZero();
+  }
+
+  @Test
+  void naoDeveVenderAlemDoEstoqueSobConcorrencia() throws Exception {
+    int skus = 16;
+    int estoqueInicial = 500;
+    int threads = 8;
+    MotorReserva motor = new MotorReserva(4);
+    for (int i = 0; i < skus; i++) {
+      motor.definirEstoque("SKU" + i, estoqueInicial);
+    }
+
+    AtomicLongArray reservados = new AtomicLongArray(skus);
+    CountDownLatch largada = new CountDownLatch(1);
+    ExecutorService executor = Executors.newFixedThreadPool(threads);
+
+    try {
+      List<Future<?>> tarefas = new ArrayList<>();
+      for (int t = 0; t < threads; t++) {
+        tarefas.add(
+          executor.submit(() -> {
+            largada.await();
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            for (int n = 0; n < 20_000; n++) {
+              // SKUs em ordem aleatória para provocar travas cruzadas
+              Map<String, Integer> pedido = new LinkedHashMap<>();
+              int linhas = 1 + random.nextInt(4);
+              while (pedido.size() < linhas) {
+                pedido.put("SKU" + random.nextInt(skus), 1 + random.nextInt(3));
+              }
+
+              if (motor.reservar(pedido).reservado()) {
+                pedido.forEach((sku, quantidade) ->
+                  reservados.addAndGet(
+                    Integer.parseInt(sku.substring(3)),
+                    quantidade
+                  )
+                );
+              }
+            }
+            return null;
+          })
+        );
+      }
+
+      largada.countDown();
+      for (Future<?> tarefa : tarefas) {
+        tarefa.get(60, TimeUnit.SECONDS);
+      }
+    } finally {
+      executor.shutdownNow();
+    }
+
+    for (int i = 0; i < skus; i++) {
+      int saldo = motor.consultar("SKU" + i);
+      assertThat(saldo).isNotNegative();
+      assertThat(saldo + reservados.get(i)).isEqualTo(estoqueInicial);
+    }
+  }
+
+  @Test
+  void skuQuenteNaoDeveReservarAlemDoEstoque() throws Exception {
+    int estoque = 100_000;
+    MotorReserva motor = new MotorReserva(
+      64,
+      new InventarioSku(),
+      new MotorReserva.ModoQuente(8, 32, 1, 4)
+    );
+    motor.definirEstoque("PROMO", estoque);
+    motor.definirEstoque("BRINDE", 2_000);
+    motor.marcarQuente("PROMO");
+
+    int threads = 8;
+    CountDownLatch largada = new CountDownLatch(1);
+    ExecutorService executor = Executors.newFixedThreadPool(threads);
+    try {
+      List<Future<Long>> tarefas = new ArrayList<>();
+      for (int t = 0; t < threads; t++) {
+        tarefas.add(
+          executor.submit(() -> {
+            largada.await();
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            long reservados = 0;
+            // Demanda bem acima do estoque; parte dos pedidos leva um brinde
+            // que acaba antes, e a linha quente desses volta ao orçamento
+            for (int n = 0; n < 20_000; n++) {
+              int quantidade = 1 + random.nextInt(3);
+              Map<String, Integer> pedido = random.nextInt(4) == 0
+                ? Map.of("PROMO", quantidade, "BRINDE", 1)
+                : Map.of("PROMO", quantidade);
+              if (motor.reservar(pedido).reservado()) {
+                reservados += quantidade;
+              }
+            }
+            return reservados;
+          })
+        );
+      }
+      largada.countDown();
+      long reservados = 0;
+      for (Future<Long> tarefa : tarefas) {
+        reservados += tarefa.get(60, TimeUnit.SECONDS);
+      }
+
+      // Nada vendido além do estoque e nada preso nos orçamentos: depois de
+      // esgotar, pedidos de 1 unidade recolhem as sobras das células
+      assertThat(reservados + motor.consultar("PROMO")).isEqualTo(estoque);
+      assertThat(motor.consultar("PROMO")).isZero();
+      assertThat(motor.consultar("BRINDE")).isZero();
+
+      motor.devolverOrcamentos();
+      assertThat(motor.getInventario().comoMapa()).containsEntry("PROMO", 0);
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  @Test
+  void promoverAlemDoMaximoDeveRebaixarOMenosUsadoSemPerderEstoque() {
+    MotorReserva motor = new MotorReserva(
+      8,
+      new InventarioSku(),
+      new MotorReserva.ModoQuente(4, 10, 1, 2)
+    );
+    motor.definirEstoque("PROMO", 100);
+    motor.definirEstoque("OCIOSO", 100);
+    motor.definirEstoque("NOVO", 100);
+    motor.marcarQuente("PROMO");
+    motor.marcarQuente("OCIOSO");
+    // PROMO reabastece três vezes; OCIOSO, uma
+    for (int i = 0; i < 5; i++) {
+      motor.reservar(Map.of("PROMO", 11));
+    }
+    motor.reservar(Map.of("OCIOSO", 20));
+
+    motor.marcarQuente("NOVO");
+
+    InventarioSku inventario = motor.getInventario();
+    assertThat(motor.getSkusQuentes()).isEqualTo(2);
+    assertThat(motor.isQuente(inventario.idDe("NOVO"))).isTrue();
+    assertThat(motor.isQuente(inventario.idDe("OCIOSO"))).isFalse();
+    // As sobras das células do rebaixado voltam ao saldo central
+    assertThat(inventario.saldo(inventario.idDe("OCIOSO"))).isEqualTo(80);
+    assertThat(motor.consultar("PROMO")).isEqualTo(45);
+
+    assertThat(motor.reservar(Map.of("OCIOSO", 80)).reservado()).isTrue();
+    assertThat(motor.consultar("OCIOSO")).isZero();
+  }
+}
@@ -0,0 +1,589 @@
+package com.arquitetura.estoque.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import com.arquitetura.estoque.armazem.Armazem;
+import com.arquitetura.estoque.armazem.MaisProximoComEstoque;
+import com.arquitetura.estoque.armazem.RoteadorPedidos;
+import com.arquitetura.estoque.model.ItemPedido;
+import com.arquitetura.estoque.model.Pedido;
+import com.arquitetura.estoque.model.StatusPedido;
+import com.arquitetura.estoque.persistencia.ChangelogEstoque;
+import com.arquitetura.estoque.persistencia.PersistenciaEstoque;
+import com.arquitetura.estoque.processamento.DeduplicadorPedidos;
+import com.arquitetura.estoque.reserva.ReservasPendentes;
+import com.arquitetura.estoque.service.EstoqueService.Desfecho;
+import com.arquitetura.estoque.service.EstoqueService.EventoPedido;
+import io.micrometer.tracing.Tracer;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.stream.Stream;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.support.DefaultListableBeanFactory;
+import org.springframework.test.util.ReflectionTestUtils;
+
+/**
+ * Injeção de falhas: o consumidor "morre" no meio de um poll, antes do
+ * commit, e perde um pedaço não sincronizado do fim do changelog. Depois de
+ * cada restart ele volta do offset commitado ou do persistido (o menor), como
+ * o Kafka redistribuiria. O saldo final tem que ser o de aplicar cada pedido
+ * uma única vez, mesmo com pedidos republicados em outros offsets.
+ */
+class EstoqueServiceTest {
+
+  private static final String[] SKUS = {
+    "PROD001",
+    "PROD002",
+    "PROD003",
+    "PROD004",
+    "PROD005"
+  };
+  private static final int TAMANHO_POLL = 25;
+
+  @TempDir
+  Path diretorio;
+
+  @Test
+  void quedasNoMeioDoPollNaoDevemDeduzirDuasVezesNoModoIndividual()
+    throws IOException {
+    executarComQuedas(false, 17);
+  }
+
+  @Test
+  void quedasNoMeioDoPollNaoDevemDeduzirDuasVezesNoModoLote()
+    throws IOException {
+    executarComQuedas(true, 23);
+  }
+
+  private void executarComQuedas(boolean lote, long semente)
+    throws IOException {
+    Random random = new Random(semente);
+    List<Pedido> topico = gerarTopico(random, 400);
+
+    long commitado = 0;
+    int quedas = 0;
+    while (commitado < topico.size()) {
+      DeduplicadorPedidos deduplicador = new DeduplicadorPedidos(
+        65_536,
+        Duration.ofMinutes(10),
+        4
+      );
+      PersistenciaEstoque persistencia = new PersistenciaEstoque(
+        diretorio,
+        deduplicador
+      );
+      EstoqueService service = iniciar(persistencia, deduplicador);
+
+      Long persistido = service.proximoOffset(0);
+      long posicao = persistido == null
+        ? commitado
+        : Math.min(commitado, persistido);
+      if (persistido == null) {
+        service.iniciarParticao(0, posicao);
+      }
+
+      boolean caiu = false;
+      while (!caiu && posicao < topico.size()) {
+        int fim = (int) Math.min(topico.size(), posicao + TAMANHO_POLL);
+        // Uma queda a cada ~3 polls, em um ponto qualquer do poll
+        int quedaEm = random.nextInt(3) == 0
+          ? (int) posicao + random.nextInt(fim - (int) posicao + 1)
+          : -1;
+
+        if (lote) {
+          List<EventoPedido> eventos = new ArrayList<>();
+          for (long o = posicao; o < fim; o++) {
+            eventos.add(new EventoPedido(topico.get((int) o), 0, o));
+          }
+          if (quedaEm >= 0 && random.nextBoolean()) {
+            caiu = true; // antes de aplicar o lote
+          } else {
+            service.processarLote(eventos);
+            caiu = quedaEm >= 0; // depois de aplicar, antes do commit
+          }
+        } else {
+          for (long o = posicao; o < fim && !caiu; o++) {
+            if (o == quedaEm) {
+              caiu = true;
+            } else {
+              service.processarPedido(topico.get((int) o), 0, o);
+            }
+          }
+        }
+
+        if (!caiu) {
+          posicao = fim;
+          commitado = fim;
+          if (random.nextInt(8) == 0) {
+            persistencia.gravarSnapshot();
+          }
+        }
+      }
+
+      if (!caiu) {
+        persistencia.encerrar();
+        break;
+      }
+      persistencia.close();
+      perderFimDoChangelog(random.nextInt(80));
+      quedas++;
+    }
+
+    DeduplicadorPedidos deduplicador = new DeduplicadorPedidos(
+      65_536,
+      Duration.ofMinutes(10),
+      4
+    );
+    try (
+      PersistenciaEstoque persistencia = new PersistenciaEstoque(
+        diretorio,
+        deduplicador
+      )
+    ) {
+      Map<String, Integer> esperado = aplicarUmaVezCada(topico);
+      Map<String, Integer> atual = persistencia.getInventario().comoMapa();
+
+      assertThat(quedas).isPositive();
+      assertThat(new HashMap<>(atual)).isEqualTo(esperado);
+    }
+  }
+
+  @Test
+  void pedidoRepetidoNoMesmoLoteDeveSerDescartado() throws IOException {
+    DeduplicadorPedidos deduplicador = new DeduplicadorPedidos(
+      1024,
+      Duration.ofMinutes(10),
+      4
+    );
+    try (
+      PersistenciaEstoque persistencia = new PersistenciaEstoque(
+        diretorio,
+        deduplicador
+      )
+    ) {
+      EstoqueService service = iniciar(persistencia, deduplicador);
+      Pedido pedido = pedido("pedido-1", Map.of("PROD002", 10));
+
+      List<Desfecho> desfechos = service.processarLote(
+        List.of(
+          new EventoPedido(pedido, 0, 0),
+          new EventoPedido(pedido, 0, 1),
+          new EventoPedido(pedido("pedido-2", Map.of()), 0, 2)
+        )
+      );
+
+      assertThat(desfechos).containsExactly(
+        Desfecho.RESERVADO,
+        Desfecho.DUPLICADO,
+        Desfecho.INVALIDO
+      );
+      assertThat(service.processarPedido(pedido, 0, 3)).isEqualTo(
+        Desfecho.DUPLICADO
+      );
+      // Duplicados e inválidos também avançam a posição persistida
+      assertThat(service.proximoOffset(0)).isEqualTo(4L);
+      assertThat(service.obterEstoqueAtual()).containsEntry("PROD002", 40);
+    }
+  }
+
+  @Test
+  void pedidoDeveSerDivididoEntreOsArmazensDaInstancia() {
+    List<Armazem> catalogo = List.of(
+      new Armazem("SP01", -23.55, -46.63),
+      new Armazem("RJ01", -22.91, -43.17),
+      new Armazem("MG01", -19.92, -43.94)
+    );
+    RoteadorPedidos roteador = new RoteadorPedidos(
+      catalogo,
+      List.of("SP01", "RJ01"),
+      new MaisProximoComEstoque(catalogo.subList(0, 2))
+    );
+    DefaultListableBeanFactory beans = new DefaultListableBeanFactory();
+    beans.registerSingleton("roteadorPedidos", roteador);
+    EstoqueService service = iniciar(
+      beans,
+      new DeduplicadorPedidos(1024, Duration.ofMinutes(10), 4)
+    );
+
+    // Partição 0 é de SP01 e a 2, de MG01
+    Pedido p1 = pedido("p1", Map.of("PROD002", 40));
+    // SP01 fica com 10: as linhas seguintes vão para RJ01 ou se dividem
+    Pedido p2 = pedido("p2", Map.of("PROD002", 30, "PROD001", 10));
+    // Nenhum armazém tem 60 inteiros: recusado, nada muda
+    Pedido p3 = pedido("p3", Map.of("PROD002", 60, "PROD001", 1));
+    Pedido p4 = pedido("p4", Map.of("PROD001", 1));
+
+    assertThat(service.processarPedido(p1, 0, 0)).isEqualTo(
+      Desfecho.RESERVADO
+    );
+    assertThat(service.processarPedido(p2, 0, 1)).isEqualTo(
+      Desfecho.RESERVADO
+    );
+    assertThat(service.processarPedido(p3, 0, 2)).isEqualTo(
+      Desfecho.RECUSADO
+    );
+    assertThat(service.processarPedido(p4, 2, 0)).isEqualTo(
+      Desfecho.OUTRA_INSTANCIA
+    );
+
+    Map<String, Integer> saldos = service.obterEstoqueAtual();
+    assertThat(saldos).containsEntry("PROD002@SP01", 10);
+    assertThat(saldos).containsEntry("PROD002@RJ01", 20);
+    assertThat(saldos).containsEntry("PROD001@SP01", 90);
+    assertThat(saldos).containsEntry("PROD001@RJ01", 100);
+    assertThat(saldos).doesNotContainKey("PROD001@MG01");
+  }
+
+  @Test
+  void reservaNaoConfirmadaDeveVoltarAoEstoque() throws InterruptedException {
+    ReservasPendentes reservas = new ReservasPendentes(
+      Duration.ofMillis(1),
+      Duration.ofMillis(1)
+    );
+    DefaultListableBeanFactory beans = new DefaultListableBeanFactory();
+    beans.registerSingleton("reservasPendentes", reservas);
+    EstoqueService service = iniciar(
+      beans,
+      new DeduplicadorPedidos(1024, Duration.ofMinutes(10), 4)
+    );
+
+    service.processarPedido(pedido("p1", Map.of("PROD002", 10)), 0, 0);
+    service.processarPedido(pedido("p2", Map.of("PROD002", 5)), 0, 1);
+    service.processarLote(
+      List.of(
+        new EventoPedido(pedido("p3", Map.of("PROD001", 3)), 0, 2),
+        new EventoPedido(pedido("p4", Map.of("PROD001", 999)), 0, 3)
+      )
+    );
+    // Recusado não deduziu nada, então não fica pendente
+    assertThat(reservas.getAtivas()).isEqualTo(3);
+
+    assertThat(service.confirmarReserva("p1")).isTrue();
+    assertThat(service.cancelarReserva("p2")).isTrue();
+    assertThat(service.cancelarReserva("p4")).isFalse();
+    assertThat(service.obterEstoqueAtual()).containsEntry("PROD002", 40);
+    assertThat(service.obterEstoqueAtual()).containsEntry("PROD001", 97);
+
+    Thread.sleep(20);
+    assertThat(service.expirarReservas()).isEqualTo(1);
+    assertThat(service.obterEstoqueAtual()).containsEntry("PROD001", 100);
+    // Confirmada não expira; expirada não volta duas vezes
+    assertThat(service.obterEstoqueAtual()).containsEntry("PROD002", 40);
+    assertThat(service.cancelarReserva("p3")).isFalse();
+    assertThat(reservas.getConfirmadas()).isEqualTo(1);
+    assertThat(reservas.getCanceladas()).isEqualTo(1);
+    assertThat(reservas.getExpiradas()).isEqualTo(1);
+  }
+
+  @Test
+  void reconstrucaoDeveRefazerReservasPendentesComCancelamentosEExpiracoes()
+    throws IOException {
+    long t0 = 1_700_000_000_000L;
+    ReservasPendentes reservas = new ReservasPendentes(
+      Duration.ofMinutes(15),
+      Duration.ofMillis(100)
+    );
+    DefaultListableBeanFactory beans = new DefaultListableBeanFactory();
+    beans.registerSingleton("reservasPendentes", reservas);
+    EstoqueService service = iniciar(
+      beans,
+      new DeduplicadorPedidos(1024, Duration.ofMinutes(10), 4)
+    );
+    // Pendente do estado antigo, descartada pela troca
+    service.processarPedido(pedido("antigo", Map.of("PROD004", 7)), 0, 0);
+
+    EstoqueService.Reconstrucao replay = service.iniciarReconstrucao(
+      new DeduplicadorPedidos(1024, Duration.ofMinutes(10), 4),
+      true
+    );
+    replay.registrarStatus("cancelado", StatusPedido.CANCELADO, t0 + 1_000);
+    replay.registrarStatus("confirmado", StatusPedido.CONFIRMADO, t0 + 2_000);
+    replay.registrarStatus("pendente", StatusPedido.PROCESSANDO, t0 + 3_000);
+    replay.aplicar(
+      List.of(
+        new EventoPedido(pedido("expira", Map.of("PROD001", 10)), 0, 0),
+        new EventoPedido(pedido("cancelado", Map.of("PROD002", 5)), 0, 1),
+        new EventoPedido(pedido("confirmado", Map.of("PROD003", 4)), 0, 2)
+      ),
+      t0
+    );
+    // Vinte minutos depois: "expira" passou do prazo sem confirmação
+    replay.aplicar(
+      List.of(new EventoPedido(pedido("pendente", Map.of("PROD005", 3)), 0, 3)),
+      t0 + Duration.ofMinutes(20).toMillis()
+    );
+    service.substituirEstado(replay);
+
+    assertThat(service.obterEstoqueAtual())
+      .containsEntry("PROD001", 100)
+      .containsEntry("PROD002", 50)
+      .containsEntry("PROD003", 196)
+      .containsEntry("PROD004", 75)
+      .containsEntry("PROD005", 147);
+    assertThat(reservas.getAtivas()).isEqualTo(1);
+    assertThat(service.cancelarReserva("antigo")).isFalse();
+    assertThat(service.cancelarReserva("pendente")).isTrue();
+    assertThat(service.obterEstoqueAtual()).containsEntry("PROD005", 150);
+  }
+
+  @Test
+  void reconstrucaoParcialNaoDeveSubstituirOEstado() {
+    EstoqueService service = iniciar(
+      new DefaultListableBeanFactory(),
+      new DeduplicadorPedidos(1024, Duration.ofMinutes(10), 4)
+    );
+    EstoqueService.Reconstrucao parcial = service.iniciarReconstrucao(
+      new DeduplicadorPedidos(1024, Duration.ofMinutes(10), 4),
+      false
+    );
+    parcial.aplicar(
+      List.of(new EventoPedido(pedido("p1", Map.of("PROD001", 10)), 1, 500)),
+      0L
+    );
+
+    assertThatThrownBy(() -> service.substituirEstado(parcial)).isInstanceOf(
+      IllegalStateException.class
+    );
+    assertThat(service.obterEstoqueAtual()).containsEntry("PROD001", 100);
+  }
+
+  @Test
+  void reconstrucaoDeveChegarAoMesmoEstadoDoConsumoNormal()
+    throws IOException {
+    List<Pedido> topico = gerarTopico(new Random(21), 20_000);
+    Map<String, Integer> esperado = aplicarUmaVezCada(topico);
+
+    // Referência: o caminho normal em polls de TAMANHO_POLL, com changelog
+    DeduplicadorPedidos deduplicadorNormal = new DeduplicadorPedidos(
+      65_536,
+      Duration.ofMinutes(10),
+      4
+    );
+    try (
+      PersistenciaEstoque persistencia = new PersistenciaEstoque(
+        Files.createDirectory(diretorio.resolve("normal")),
+        deduplicadorNormal
+      )
+    ) {
+      EstoqueService normal = iniciar(persistencia, deduplicadorNormal);
+      for (int i = 0; i < topico.size(); i += TAMANHO_POLL) {
+        normal.processarLote(eventos(topico, i, TAMANHO_POLL));
+      }
+      assertThat(new HashMap<>(normal.obterEstoqueAtual())).isEqualTo(
+        esperado
+      );
+    }
+
+    DeduplicadorPedidos deduplicador = new DeduplicadorPedidos(
+      65_536,
+      Duration.ofMinutes(10),
+      4
+    );
+    try (
+      PersistenciaEstoque persistencia = new PersistenciaEstoque(
+        diretorio,
+        deduplicador
+      )
+    ) {
+      EstoqueService service = iniciar(persistencia, deduplicador);
+      // Estado anterior qualquer, descartado pela troca
+      service.processarPedido(pedido("antigo", Map.of("PROD001", 7)), 0, 0);
+
+      EstoqueService.Reconstrucao replay = service.iniciarReconstrucao(
+        new DeduplicadorPedidos(65_536, Duration.ofMinutes(10), 4),
+        true
+      );
+      for (int i = 0; i < topico.size(); i += 5000) {
+        replay.aplicar(eventos(topico, i, 5000), 0L);
+      }
+      service.substituirEstado(replay);
+
+      assertThat(new HashMap<>(service.obterEstoqueAtual())).isEqualTo(
+        esperado
+      );
+      assertThat(replay.getEventos()).isEqualTo(topico.size());
+      assertThat(replay.total(Desfecho.DUPLICADO)).isPositive();
+      assertThat(service.proximoOffset(0)).isEqualTo((long) topico.size());
+      // Os ids da reconstrução seguem valendo para o consumo que vem depois
+      Pedido ultimo = topico.get(topico.size() - 1);
+      assertThat(
+        service.processarPedido(ultimo, 0, topico.size())
+      ).isEqualTo(Desfecho.DUPLICADO);
+    }
+
+    // A troca foi para um snapshot: o restart volta ao estado reconstruído
+    DeduplicadorPedidos reaberto = new DeduplicadorPedidos(
+      65_536,
+      Duration.ofMinutes(10),
+      4
+    );
+    try (
+      PersistenciaEstoque persistencia = new PersistenciaEstoque(
+        diretorio,
+        reaberto
+      )
+    ) {
+      EstoqueService service = iniciar(persistencia, reaberto);
+      assertThat(new HashMap<>(service.obterEstoqueAtual())).isEqualTo(
+        esperado
+      );
+      assertThat(service.proximoOffset(0)).isEqualTo(topico.size() + 1L);
+      assertThat(
+        service.processarPedido(
+          topico.get(topico.size() - 1),
+          0,
+          topico.size() + 1
+        )
+      ).isEqualTo(Desfecho.DUPLICADO);
+    }
+  }
+
+  private EstoqueService iniciar(
+    PersistenciaEstoque persistencia,
+    DeduplicadorPedidos deduplicador
+  ) {
+    DefaultListableBeanFactory beans = new DefaultListableBeanFactory();
+    beans.registerSingleton("persistenciaEstoque", persistencia);
+    return iniciar(beans, deduplicador);
+  }
+
+  private EstoqueService iniciar(
+    DefaultListableBeanFactory beans,
+    DeduplicadorPedidos deduplicador
+  ) {
+
+    EstoqueService service = new EstoqueService(
+      Tracer.NOOP,
+      beans.getBeanProvider(PersistenciaEstoque.class),
+      beans.getBeanProvider(RoteadorPedidos.class),
+      beans.getBeanProvider(ReservasPendentes.class),
+      beans.getBeanProvider(PublicadorStatus.class),
+      deduplicador
+    );
+    ReflectionTestUtils.setField(service, "localizacaoEstoque", "Teste");
+    ReflectionTestUtils.setField(service, "listrasReserva", 8);
+    ReflectionTestUtils.setField(service, "latenciaSimulada", Duration.ZERO);
+    service.inicializarEstoque();
+    return service;
+  }
+
+  /** Pedidos aleatórios; ~15% são republicações de um pedido recente. */
+  private static List<Pedido> gerarTopico(Random random, int tamanho) {
+    List<Pedido> topico = new ArrayList<>(tamanho);
+    for (int i = 0; i < tamanho; i++) {
+      if (i > 0 && random.nextInt(100) < 15) {
+        int anterior = Math.max(0, i - 1 - random.nextInt(60));
+        topico.add(topico.get(anterior));
+        continue;
+      }
+
+      Map<String, Integer> quantidades = new LinkedHashMap<>();
+      int linhas = 1 + random.nextInt(3);
+      while (quantidades.size() < linhas) {
+        String sku = SKUS[random.nextInt(SKUS.length)];
+        quantidades.put(sku, 1 + random.nextInt(3));
+      }
+      topico.add(pedido("pedido-" + i, quantidades));
+    }
+    return topico;
+  }
+
+  private static List<EventoPedido> eventos(
+    List<Pedido> topico,
+    int inicio,
+    int tamanho
+  ) {
+    List<EventoPedido> eventos = new ArrayList<>(tamanho);
+    int fim = Math.min(topico.size(), inicio + tamanho);
+    for (int o = inicio; o < fim; o++) {
+      eventos.add(new EventoPedido(topico.get(o), 0, o));
+    }
+    return eventos;
+  }
+
+  /** Modelo de referência: cada id uma vez, na ordem, tudo ou nada. */
+  private static Map<String, Integer> aplicarUmaVezCada(List<Pedido> topico) {
+    Map<String, Integer> saldos = new HashMap<>(
+      Map.of(
+        "PROD001",
+        100,
+        "PROD002",
+        50,
+        "PROD003",
+        200,
+        "PROD004",
+        75,
+        "PROD005",
+        150
+      )
+    );
+    Set<String> vistos = new HashSet<>();
+    for (Pedido pedido : topico) {
+      if (!vistos.add(pedido.getId())) {
+        continue;
+      }
+      Map<String, Integer> quantidades = new HashMap<>();
+      pedido
+        .getProdutos()
+        .forEach(item ->
+          quantidades.merge(
+            item.getCodigo(),
+            item.getQuantidade(),
+            Integer::sum
+          )
+        );
+      boolean cabe = quantidades
+        .entrySet()
+        .stream()
+        .allMatch(linha -> saldos.get(linha.getKey()) >= linha.getValue());
+      if (cabe) {
+        quantidades.forEach((sku, q) -> saldos.merge(sku, -q, Integer::sum));
+      }
+    }
+    return saldos;
+  }
+
+  private static Pedido pedido(String id, Map<String, Integer> quantidades) {
+    List<ItemPedido> itens = new ArrayList<>();
+    quantidades.forEach((sku, quantidade) ->
+      itens.add(
+        ItemPedido.builder()
+          .codigo(sku)
+          .nome(sku)
+          .quantidade(quantidade)
+          .build()
+      )
+    );
+    return Pedido.builder().id(id).clienteId("cliente").produtos(itens).build();
+  }
+
+  /** Simula a perda do que ainda não tinha ido para o disco na queda. */
+  private void perderFimDoChangelog(int bytes) throws IOException {
+    Path ultimo;
+    try (Stream<Path> arquivos = Files.list(diretorio)) {
+      ultimo = arquivos
+        .filter(arquivo -> ChangelogEstoque.geracaoDe(arquivo) != null)
+        .max(Path::compareTo)
+        .orElseThrow();
+    }
+    try (
+      FileChannel canal = FileChannel.open(ultimo, StandardOpenOption.WRITE)
+    ) {
+      canal.truncate(Math.max(0, canal.size() - bytes));
+    }
+  }
+}
@@ -2,9 +2,7 @@ package com.arquitetura.notificacao;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
-import org.springframework.context.annotation.Bean;
 import org.springframework.kafka.annotation.EnableKafka;
-import org.springframework.web.client.RestTemplate;
 
 @SpringBootApplication
 @EnableKafka
@@ -24,9 +22,4 @@ public class NotificacaoApplication {
         "╚════════════════════════════════════════════════════════════╝\n"
     );
   }
-
-  @Bean
-  public RestTemplate restTemplate() {
-    return new RestTemplate();
-  }
 }
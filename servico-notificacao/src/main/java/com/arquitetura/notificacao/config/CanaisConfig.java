@@ -0,0 +1,62 @@
+package com.arquitetura.notificacao.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Threads que enviam os canais de um pedido (SMS, push, email) ao mesmo
+ * tempo. O pool e a fila são limitados; com os dois cheios, a própria thread
+ * do listener envia o canal, o que segura o consumo em vez de acumular
+ * tarefas.
+ */
+@Slf4j
+@Configuration
+public class CanaisConfig {
+
+  @Value("${app.notificacao.canais.threads:16}")
+  private int threads;
+
+  @Value("${app.notificacao.canais.capacidade:256}")
+  private int capacidade;
+
+  @Bean(destroyMethod = "shutdown")
+  public ExecutorService executorCanais(MeterRegistry registry) {
+    AtomicInteger contador = new AtomicInteger();
+    ThreadPoolExecutor executor = new ThreadPoolExecutor(
+      threads,
+      threads,
+      60,
+      TimeUnit.SECONDS,
+      new ArrayBlockingQueue<>(capacidade),
+      tarefa -> {
+        Thread thread = new Thread(
+          tarefa,
+          "notificacao-canal-" + contador.incrementAndGet()
+        );
+        thread.setDaemon(true);
+        return thread;
+      },
+      new ThreadPoolExecutor.CallerRunsPolicy()
+    );
+    executor.allowCoreThreadTimeOut(true);
+
+    log.debug("📡 [CANAIS] Envio concorrente dos canais de notificação");
+    log.debug("   └─ Threads: {} (fila de {})", threads, capacidade);
+    return ExecutorServiceMetrics.monitor(
+      registry,
+      executor,
+      "notificacao.canais",
+      Tags.empty()
+    );
+  }
+}
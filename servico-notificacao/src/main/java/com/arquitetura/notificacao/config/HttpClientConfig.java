@@ -0,0 +1,191 @@
+package com.arquitetura.notificacao.config;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.httpcomponents.hc5.PoolingHttpClientConnectionManagerMetricsBinder;
+import java.io.IOException;
+import java.net.Socket;
+import java.net.URI;
+import java.time.Duration;
+import java.util.concurrent.atomic.LongAdder;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.hc.client5.http.HttpRoute;
+import org.apache.hc.client5.http.config.ConnectionConfig;
+import org.apache.hc.client5.http.config.RequestConfig;
+import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
+import org.apache.hc.client5.http.impl.classic.HttpClients;
+import org.apache.hc.client5.http.impl.io.ManagedHttpClientConnectionFactory;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManager;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManagerBuilder;
+import org.apache.hc.client5.http.io.ManagedHttpClientConnection;
+import org.apache.hc.core5.http.HttpHost;
+import org.apache.hc.core5.http.io.HttpConnectionFactory;
+import org.apache.hc.core5.util.TimeValue;
+import org.apache.hc.core5.util.Timeout;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.web.client.RestTemplateBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
+import org.springframework.web.client.RestTemplate;
+
+/**
+ * Cliente HTTP das chamadas ao sidecar: conexões keep-alive num pool por
+ * rota, reaproveitadas entre pedidos, e timeouts de conexão, de resposta e de
+ * espera por uma conexão livre. Sidecar travado derruba a chamada no
+ * timeout, em vez de prender a thread do consumidor.
+ *
+ * <p>Métricas: as do pool ({@code httpcomponents.httpclient.pool.*}, tag
+ * {@code httpclient=sidecar-email}), as das requisições
+ * ({@code http.client.requests}, pelo {@link RestTemplateBuilder}) e
+ * {@code notificacao.sidecar.conexoes.abertas}. Conexões abertas bem abaixo
+ * do número de requisições indicam reaproveitamento.
+ *
+ * <p>Com o lote de emails habilitado, toda chamada ao sidecar é um lote, que
+ * só responde depois de enviar todos: o timeout de resposta vale por email e
+ * é multiplicado por {@code sidecar.email.lote.tamanho}.
+ */
+@Slf4j
+@Configuration
+public class HttpClientConfig {
+
+  public static final String NOME_POOL = "sidecar-email";
+
+  @Value("${sidecar.email.http.max-conexoes:50}")
+  private int maxConexoes;
+
+  @Value("${sidecar.email.http.max-por-rota:20}")
+  private int maxPorRota;
+
+  @Value("${sidecar.email.http.rotas:}")
+  private String[] rotas;
+
+  @Value("${sidecar.email.http.timeout-conexao:1s}")
+  private Duration timeoutConexao;
+
+  @Value("${sidecar.email.http.timeout-resposta:5s}")
+  private Duration timeoutResposta;
+
+  @Value("${sidecar.email.lote.habilitado:false}")
+  private boolean loteHabilitado;
+
+  @Value("${sidecar.email.lote.tamanho:50}")
+  private int tamanhoLote;
+
+  @Value("${sidecar.email.http.timeout-pool:500ms}")
+  private Duration timeoutPool;
+
+  @Value("${sidecar.email.http.validar-apos:2s}")
+  private Duration validarApos;
+
+  @Value("${sidecar.email.http.ociosa-max:30s}")
+  private Duration ociosaMax;
+
+  private final LongAdder conexoesAbertas = new LongAdder();
+
+  @Bean
+  public PoolingHttpClientConnectionManager sidecarConnectionManager(
+    MeterRegistry registry
+  ) {
+    PoolingHttpClientConnectionManager pool =
+      PoolingHttpClientConnectionManagerBuilder.create()
+        .setMaxConnTotal(maxConexoes)
+        .setMaxConnPerRoute(maxPorRota)
+        .setDefaultConnectionConfig(
+          ConnectionConfig.custom()
+            .setConnectTimeout(Timeout.of(timeoutConexao))
+            .setSocketTimeout(Timeout.of(timeoutRespostaEfetivo()))
+            .setValidateAfterInactivity(TimeValue.of(validarApos))
+            .build()
+        )
+        .setConnectionFactory(contarAbertas())
+        .build();
+
+    // Rota específica: url=limite (ex.: http://localhost:8084=20)
+    for (String rota : rotas) {
+      String[] partes = rota.trim().split("=");
+      if (partes.length != 2) {
+        throw new IllegalArgumentException(
+          "Rota inválida (esperado url=limite): " + rota
+        );
+      }
+      pool.setMaxPerRoute(
+        new HttpRoute(HttpHost.create(URI.create(partes[0].trim()))),
+        Integer.parseInt(partes[1].trim())
+      );
+    }
+
+    new PoolingHttpClientConnectionManagerMetricsBinder(
+      pool,
+      NOME_POOL
+    ).bindTo(registry);
+    FunctionCounter.builder(
+      "notificacao.sidecar.conexoes.abertas",
+      conexoesAbertas,
+      LongAdder::sum
+    )
+      .description("Conexões TCP abertas com o sidecar de email")
+      .register(registry);
+
+    log.debug("🔌 [HTTP] Pool de conexões com o sidecar");
+    log.debug("   └─ Máximo: {} ({} por rota)", maxConexoes, maxPorRota);
+    log.debug(
+      "   └─ Timeouts: conexão {}, resposta {}, pool {}",
+      timeoutConexao,
+      timeoutRespostaEfetivo(),
+      timeoutPool
+    );
+    return pool;
+  }
+
+  @Bean(destroyMethod = "close")
+  public CloseableHttpClient sidecarHttpClient(
+    PoolingHttpClientConnectionManager sidecarConnectionManager
+  ) {
+    return HttpClients.custom()
+      .setConnectionManager(sidecarConnectionManager)
+      .setDefaultRequestConfig(
+        RequestConfig.custom()
+          .setConnectionRequestTimeout(Timeout.of(timeoutPool))
+          .setResponseTimeout(Timeout.of(timeoutRespostaEfetivo()))
+          .build()
+      )
+      .evictIdleConnections(TimeValue.of(ociosaMax))
+      .evictExpiredConnections()
+      .build();
+  }
+
+  @Bean
+  public RestTemplate restTemplate(
+    RestTemplateBuilder builder,
+    CloseableHttpClient sidecarHttpClient
+  ) {
+    return builder
+      .requestFactory(() ->
+        new HttpComponentsClientHttpRequestFactory(sidecarHttpClient)
+      )
+      .build();
+  }
+
+  private Duration timeoutRespostaEfetivo() {
+    return loteHabilitado
+      ? timeoutResposta.multipliedBy(tamanhoLote)
+      : timeoutResposta;
+  }
+
+  /** Fábrica padrão de conexões, contando cada conexão nova. */
+  private HttpConnectionFactory<
+    ManagedHttpClientConnection
+  > contarAbertas() {
+    return new HttpConnectionFactory<>() {
+      @Override
+      public ManagedHttpClientConnection createConnection(Socket socket)
+        throws IOException {
+        conexoesAbertas.increment();
+        return ManagedHttpClientConnectionFactory.INSTANCE.createConnection(
+          socket
+        );
+      }
+    };
+  }
+}
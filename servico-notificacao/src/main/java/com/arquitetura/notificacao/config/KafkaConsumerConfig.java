@@ -3,6 +3,7 @@ package com.arquitetura.notificacao.config;
 import brave.Tracing;
 import brave.kafka.clients.KafkaTracing;
 import com.arquitetura.notificacao.model.Pedido;
+import com.arquitetura.notificacao.serializer.PedidoDeserializer;
 import java.util.HashMap;
 import java.util.Map;
 import org.apache.kafka.clients.consumer.ConsumerConfig;
@@ -38,7 +39,7 @@ public class KafkaConsumerConfig {
     );
     configProps.put(
       ConsumerConfig.VALUE_DESERIALIZER_CLASS_CONFIG,
-      JsonDeserializer.class
+      PedidoDeserializer.class
     );
     configProps.put(ConsumerConfig.AUTO_OFFSET_RESET_CONFIG, "earliest");
     configProps.put(ConsumerConfig.ENABLE_AUTO_COMMIT_CONFIG, true);
@@ -2,7 +2,10 @@ package com.arquitetura.notificacao.consumer;
 
 import com.arquitetura.notificacao.model.Pedido;
 import com.arquitetura.notificacao.service.NotificacaoService;
+import com.arquitetura.notificacao.service.NotificacaoService.Canal;
+import com.arquitetura.notificacao.service.NotificacaoService.DesfechoCanal;
 import io.micrometer.tracing.Tracer;
+import java.util.Map;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.kafka.annotation.KafkaListener;
@@ -32,24 +35,44 @@ public class PedidoConsumer {
     var span = tracer.currentSpan();
     var traceId = span != null ? span.context().traceId() : "no-trace";
 
-    log.info("═══════════════════════════════════════════════════════════");
-    log.info("📥 [CONSUMER] Evento de pedido recebido do Kafka");
-    log.info("   └─ Pedido ID: {}", pedido.getId());
-    log.info("   └─ Cliente ID: {}", pedido.getClienteId());
-    log.info("   └─ Valor Total: R$ {}", pedido.getValorTotal());
-    log.info("   └─ Partition: {}", partition);
-    log.info("   └─ Offset: {}", offset);
-    log.info("   └─ Trace ID: {}", traceId);
-    log.info("═══════════════════════════════════════════════════════════");
+    if (log.isDebugEnabled()) {
+      log.debug("═══════════════════════════════════════════════════════════");
+      log.debug("📥 [CONSUMER] Evento de pedido recebido do Kafka");
+      log.debug("   └─ Pedido ID: {}", pedido.getId());
+      log.debug("   └─ Cliente ID: {}", pedido.getClienteId());
+      log.debug("   └─ Valor Total: R$ {}", pedido.getValorTotal());
+      log.debug("   └─ Partition: {}", partition);
+      log.debug("   └─ Offset: {}", offset);
+      log.debug("   └─ Trace ID: {}", traceId);
+      log.debug("═══════════════════════════════════════════════════════════");
+    }
 
     try {
-      notificacaoService.processarNotificacao(pedido);
+      // Espera todos os canais; cada um termina no máximo no próprio prazo
+      long inicio = System.nanoTime();
+      Map<Canal, DesfechoCanal> desfechos = notificacaoService
+        .processarNotificacao(pedido)
+        .join();
 
-      log.info("═══════════════════════════════════════════════════════════");
-      log.info("✅ [CONSUMER] Evento processado com sucesso!");
-      log.info("   └─ Pedido ID: {}", pedido.getId());
-      log.info("   └─ Trace ID: {}", traceId);
-      log.info("═══════════════════════════════════════════════════════════\n");
+      log.info(
+        "etapa=notificacao.processada pedidoId={} particao={} offset={} sms={} push={} email={} duracaoMs={}",
+        pedido.getId(),
+        partition,
+        offset,
+        desfechos.get(Canal.SMS),
+        desfechos.get(Canal.PUSH),
+        desfechos.get(Canal.EMAIL),
+        (System.nanoTime() - inicio) / 1_000_000
+      );
+      if (log.isDebugEnabled()) {
+        log.debug("═══════════════════════════════════════════════════════════");
+        log.debug("✅ [CONSUMER] Evento processado com sucesso!");
+        log.debug("   └─ Pedido ID: {}", pedido.getId());
+        log.debug("   └─ Trace ID: {}", traceId);
+        log.debug(
+          "═══════════════════════════════════════════════════════════\n"
+        );
+      }
     } catch (Exception e) {
       log.error("═══════════════════════════════════════════════════════════");
       log.error("❌ [CONSUMER] Erro ao processar evento de pedido");
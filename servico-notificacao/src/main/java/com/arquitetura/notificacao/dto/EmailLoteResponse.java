@@ -0,0 +1,23 @@
+package com.arquitetura.notificacao.dto;
+
+import java.util.ArrayList;
+import java.util.List;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/** Resultado de um lote de emails: um item por pedido, na ordem do lote. */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class EmailLoteResponse {
+
+  @Builder.Default
+  private List<EmailResponse> resultados = new ArrayList<>();
+
+  private int enviados;
+
+  private int falhas;
+}
@@ -0,0 +1,71 @@
+package com.arquitetura.notificacao.model;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.Currency;
+
+/**
+ * Valor monetário em unidades mínimas da moeda (centavos, para o real). O
+ * modelo guarda só o {@code long} e o código ISO 4217 da moeda; a conversão
+ * de e para decimal acontece apenas na borda JSON/HTTP.
+ */
+public record Dinheiro(long centavos, Currency moeda) {
+  public static final String MOEDA_PADRAO = "BRL";
+  public static final Currency REAL = Currency.getInstance(MOEDA_PADRAO);
+  public static final RoundingMode ARREDONDAMENTO = RoundingMode.HALF_EVEN;
+
+  public Dinheiro {
+    if (moeda == null) {
+      throw new IllegalArgumentException("A moeda é obrigatória");
+    }
+  }
+
+  public static Dinheiro zero() {
+    return new Dinheiro(0L, REAL);
+  }
+
+  public static Dinheiro de(long centavos, String moeda) {
+    return new Dinheiro(centavos, Currency.getInstance(moedaOuPadrao(moeda)));
+  }
+
+  /** Decimal recebido na borda para unidades mínimas, com HALF_EVEN. */
+  public static long centavosDe(BigDecimal valor, String moeda) {
+    int casas = casas(moeda);
+    return valor
+      .setScale(casas, ARREDONDAMENTO)
+      .movePointRight(casas)
+      .longValueExact();
+  }
+
+  public static BigDecimal valorDe(long centavos, String moeda) {
+    return BigDecimal.valueOf(centavos, casas(moeda));
+  }
+
+  public static String moedaOuPadrao(String moeda) {
+    return moeda != null ? moeda : MOEDA_PADRAO;
+  }
+
+  private static int casas(String moeda) {
+    return Math.max(
+      0,
+      Currency.getInstance(moedaOuPadrao(moeda)).getDefaultFractionDigits()
+    );
+  }
+
+  public Dinheiro somar(Dinheiro outro) {
+    if (!moeda.equals(outro.moeda)) {
+      throw new IllegalArgumentException(
+        "Moedas diferentes: " + moeda + " e " + outro.moeda
+      );
+    }
+    return new Dinheiro(Math.addExact(centavos, outro.centavos), moeda);
+  }
+
+  public Dinheiro multiplicar(int quantidade) {
+    return new Dinheiro(Math.multiplyExact(centavos, (long) quantidade), moeda);
+  }
+
+  public BigDecimal paraBigDecimal() {
+    return valorDe(centavos, moeda.getCurrencyCode());
+  }
+}
@@ -1,5 +1,8 @@
 package com.arquitetura.notificacao.model;
 
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonProperty;
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.util.List;
@@ -17,18 +20,59 @@ public class Pedido {
   private String id;
   private String clienteId;
   private List<ItemPedido> produtos;
-  private BigDecimal valorTotal;
+
+  /** Total em unidades mínimas de {@link #moeda}. */
+  @JsonIgnore
+  private long valorTotalCentavos;
+
+  @Builder.Default
+  private String moeda = Dinheiro.MOEDA_PADRAO;
+
   private StatusPedido status;
   private LocalDateTime dataCriacao;
 
+  @JsonCreator
+  public static Pedido deJson(
+    @JsonProperty("id") String id,
+    @JsonProperty("clienteId") String clienteId,
+    @JsonProperty("produtos") List<ItemPedido> produtos,
+    @JsonProperty("valorTotal") BigDecimal valorTotal,
+    @JsonProperty("moeda") String moeda,
+    @JsonProperty("status") StatusPedido status,
+    @JsonProperty("dataCriacao") LocalDateTime dataCriacao
+  ) {
+    String codigoMoeda = Dinheiro.moedaOuPadrao(moeda);
+    return new Pedido(
+      id,
+      clienteId,
+      produtos,
+      valorTotal != null ? Dinheiro.centavosDe(valorTotal, codigoMoeda) : 0L,
+      codigoMoeda,
+      status,
+      dataCriacao
+    );
+  }
+
+  @JsonProperty("valorTotal")
+  public BigDecimal getValorTotal() {
+    return Dinheiro.valorDe(valorTotalCentavos, moeda);
+  }
+
   public void calcularValorTotal() {
-    if (produtos != null && !produtos.isEmpty()) {
-      this.valorTotal = produtos
-        .stream()
-        .map(ItemPedido::getSubtotal)
-        .reduce(BigDecimal.ZERO, BigDecimal::add);
-    } else {
-      this.valorTotal = BigDecimal.ZERO;
+    long totalCentavos = 0L;
+    if (produtos != null) {
+      for (ItemPedido item : produtos) {
+        if (!moeda.equals(item.getMoeda())) {
+          throw new IllegalArgumentException(
+            "Moedas diferentes: " + moeda + " e " + item.getMoeda()
+          );
+        }
+        totalCentavos = Math.addExact(
+          totalCentavos,
+          item.getSubtotalCentavos()
+        );
+      }
     }
+    this.valorTotalCentavos = totalCentavos;
   }
 }
@@ -0,0 +1,181 @@
+package com.arquitetura.notificacao.protecao;
+
+import java.time.Duration;
+import java.util.function.LongSupplier;
+
+/**
+ * Disjuntor das chamadas ao sidecar.
+ *
+ * <p>Fechado, guarda o resultado das últimas {@code janela} chamadas; uma
+ * chamada mais lenta que {@code limiteLenta} conta como falha. Com pelo menos
+ * {@code minimoChamadas} na janela e a taxa de falhas acima de
+ * {@code taxaFalha}, o circuito abre e recusa chamadas por {@code abertoPor}.
+ * Depois disso fica meio aberto: deixa passar {@code chamadasTeste} chamadas;
+ * se todas dão certo ele fecha com a janela zerada, e a primeira falha o abre
+ * de novo.
+ *
+ * <p>Cada mudança de estado começa uma geração nova, e a licença de uma
+ * chamada é a geração em que ela saiu. Resultado de uma geração anterior
+ * (uma chamada lenta que saiu com o circuito fechado e volta com ele já meio
+ * aberto, por exemplo) é ignorado.
+ */
+public class CircuitoSidecar {
+
+  /** Devolvido por {@link #permitir} quando a chamada não pode sair. */
+  public static final long RECUSADA = -1;
+
+  public enum Estado {
+    FECHADO,
+    MEIO_ABERTO,
+    ABERTO
+  }
+
+  private final boolean[] janela;
+  private final int minimoChamadas;
+  private final double taxaFalha;
+  private final long limiteLenta;
+  private final long abertoPor;
+  private final int chamadasTeste;
+  private final LongSupplier relogio;
+
+  private volatile Estado estado = Estado.FECHADO;
+  private int posicao;
+  private int registradas;
+  private int falhas;
+  private long abertoEm;
+  private int testesLiberados;
+  private int testesBemSucedidos;
+  private long aberturas;
+  private long geracao;
+
+  public CircuitoSidecar(
+    int janela,
+    int minimoChamadas,
+    double taxaFalha,
+    Duration limiteLenta,
+    Duration abertoPor,
+    int chamadasTeste
+  ) {
+    this(
+      janela,
+      minimoChamadas,
+      taxaFalha,
+      limiteLenta,
+      abertoPor,
+      chamadasTeste,
+      System::nanoTime
+    );
+  }
+
+  CircuitoSidecar(
+    int janela,
+    int minimoChamadas,
+    double taxaFalha,
+    Duration limiteLenta,
+    Duration abertoPor,
+    int chamadasTeste,
+    LongSupplier relogio
+  ) {
+    this.janela = new boolean[janela];
+    this.minimoChamadas = Math.min(minimoChamadas, janela);
+    this.taxaFalha = taxaFalha;
+    this.limiteLenta = limiteLenta.toNanos();
+    this.abertoPor = abertoPor.toNanos();
+    this.chamadasTeste = chamadasTeste;
+    this.relogio = relogio;
+  }
+
+  /**
+   * Licença para a chamada ir ao sidecar, ou {@link #RECUSADA}. Com licença,
+   * o resultado da chamada tem de voltar em {@link #registrar}.
+   */
+  public synchronized long permitir() {
+    if (estado == Estado.ABERTO) {
+      if (relogio.getAsLong() - abertoEm < abertoPor) {
+        return RECUSADA;
+      }
+      estado = Estado.MEIO_ABERTO;
+      geracao++;
+      testesLiberados = 0;
+      testesBemSucedidos = 0;
+    }
+    if (estado == Estado.MEIO_ABERTO) {
+      if (testesLiberados >= chamadasTeste) {
+        return RECUSADA;
+      }
+      testesLiberados++;
+    }
+    return geracao;
+  }
+
+  /** Resultado de uma chamada que saiu com a licença de {@link #permitir}. */
+  public synchronized void registrar(
+    long licenca,
+    boolean sucesso,
+    long duracaoNanos
+  ) {
+    if (licenca != geracao) {
+      // Saiu em outro estado do circuito: ele já decidiu sem ela
+      return;
+    }
+    boolean falha = !sucesso || duracaoNanos > limiteLenta;
+
+    switch (estado) {
+      case ABERTO -> {
+        // Não acontece: a geração muda ao abrir
+      }
+      case MEIO_ABERTO -> {
+        if (falha) {
+          abrir();
+        } else if (++testesBemSucedidos >= chamadasTeste) {
+          fechar();
+        }
+      }
+      case FECHADO -> {
+        if (registradas == janela.length && janela[posicao]) {
+          falhas--;
+        }
+        janela[posicao] = falha;
+        if (falha) {
+          falhas++;
+        }
+        posicao = (posicao + 1) % janela.length;
+        registradas = Math.min(registradas + 1, janela.length);
+
+        if (registradas >= minimoChamadas && falhas > taxaFalha * registradas) {
+          abrir();
+        }
+      }
+    }
+  }
+
+  /** Aberto e ainda dentro de {@code abertoPor}: nem adianta tentar. */
+  public synchronized boolean isAberto() {
+    return (
+      estado == Estado.ABERTO && relogio.getAsLong() - abertoEm < abertoPor
+    );
+  }
+
+  public Estado getEstado() {
+    return estado;
+  }
+
+  public synchronized long getAberturas() {
+    return aberturas;
+  }
+
+  private void abrir() {
+    estado = Estado.ABERTO;
+    geracao++;
+    abertoEm = relogio.getAsLong();
+    aberturas++;
+  }
+
+  private void fechar() {
+    estado = Estado.FECHADO;
+    geracao++;
+    posicao = 0;
+    registradas = 0;
+    falhas = 0;
+  }
+}
@@ -0,0 +1,51 @@
+package com.arquitetura.notificacao.serializer;
+
+import com.arquitetura.notificacao.model.Pedido;
+import java.util.Map;
+import org.apache.kafka.common.errors.SerializationException;
+import org.apache.kafka.common.header.Headers;
+import org.apache.kafka.common.serialization.Deserializer;
+import org.springframework.kafka.support.serializer.JsonDeserializer;
+
+public class PedidoDeserializer implements Deserializer<Pedido> {
+
+  private final JsonDeserializer<Pedido> jsonDeserializer =
+    new JsonDeserializer<>();
+
+  @Override
+  public void configure(Map<String, ?> configs, boolean isKey) {
+    jsonDeserializer.configure(configs, isKey);
+  }
+
+  @Override
+  public Pedido deserialize(String topic, byte[] data) {
+    if (PedidoCodec.isBinario(data)) {
+      return decodificar(topic, data);
+    }
+    return jsonDeserializer.deserialize(topic, data);
+  }
+
+  @Override
+  public Pedido deserialize(String topic, Headers headers, byte[] data) {
+    if (PedidoCodec.isBinario(data)) {
+      return decodificar(topic, data);
+    }
+    return jsonDeserializer.deserialize(topic, headers, data);
+  }
+
+  @Override
+  public void close() {
+    jsonDeserializer.close();
+  }
+
+  private Pedido decodificar(String topic, byte[] data) {
+    try {
+      return PedidoCodec.decodificar(data);
+    } catch (RuntimeException e) {
+      throw new SerializationException(
+        "Erro ao decodificar pedido binário do tópico " + topic,
+        e
+      );
+    }
+  }
+}
@@ -0,0 +1,215 @@
+package com.arquitetura.notificacao.service;
+
+import com.arquitetura.notificacao.dto.EmailLoteResponse;
+import com.arquitetura.notificacao.dto.EmailResponse;
+import com.arquitetura.notificacao.model.Pedido;
+import com.arquitetura.notificacao.protecao.CircuitoSidecar;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.RestClientException;
+import org.springframework.web.client.RestTemplate;
+
+/**
+ * Junta os emails de pedidos em lotes para o sidecar: uma requisição por
+ * lote, enviada quando ele chega a {@code tamanho} pedidos ou quando o
+ * primeiro pedido dele já esperou {@code espera}. O sidecar responde um
+ * resultado por pedido, na ordem do lote, e cada pedido recebe o seu; se a
+ * requisição inteira falha, todos os pedidos do lote ficam como não enviados.
+ *
+ * <p>A fila é limitada: cheia, quem enfileira espera, em vez de acumular
+ * pedidos sem fim quando o sidecar está lento. A resposta de um lote só
+ * volta depois de todos os envios dele; por isso o {@code HttpClientConfig}
+ * multiplica o timeout de resposta pelo tamanho do lote, e cada requisição
+ * conta uma vez no circuito do {@link ProtecaoSidecar}, com a duração dela
+ * por email.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(
+  name = "sidecar.email.lote.habilitado",
+  havingValue = "true"
+)
+public class AcumuladorEmail {
+
+  private final RestTemplate restTemplate;
+  private final ProtecaoSidecar protecaoSidecar;
+
+  @Value("${sidecar.email.url:http://localhost:8084}")
+  private String sidecarEmailUrl;
+
+  @Value("${sidecar.email.lote.tamanho:50}")
+  private int tamanho;
+
+  @Value("${sidecar.email.lote.espera:20ms}")
+  private Duration espera;
+
+  @Value("${sidecar.email.lote.capacidade:1000}")
+  private int capacidade;
+
+  private BlockingQueue<Pendente> fila;
+  private Thread despachante;
+  private volatile boolean ativo;
+
+  @PostConstruct
+  public void iniciar() {
+    fila = new ArrayBlockingQueue<>(capacidade);
+    ativo = true;
+    despachante = new Thread(this::despachar, "notificacao-email-lote");
+    despachante.setDaemon(true);
+    despachante.start();
+  }
+
+  /** Para de aceitar pedidos e envia o que ainda estava na fila. */
+  @PreDestroy
+  public void parar() throws InterruptedException {
+    ativo = false;
+    despachante.join(TimeUnit.SECONDS.toMillis(30));
+    // Enfileirado depois que o despachante saiu: não vai mais ser enviado
+    List<Pendente> restantes = new ArrayList<>();
+    fila.drainTo(restantes);
+    restantes.forEach(pendente -> pendente.resultado().complete(false));
+  }
+
+  /**
+   * Enfileira o email do pedido. O resultado diz se o sidecar o enviou; fica
+   * false se a fila foi interrompida ou o acumulador já parou.
+   */
+  public CompletableFuture<Boolean> enviar(Pedido pedido) {
+    Pendente pendente = new Pendente(pedido, new CompletableFuture<>());
+    try {
+      if (!ativo) {
+        pendente.resultado().complete(false);
+      } else {
+        fila.put(pendente);
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      pendente.resultado().complete(false);
+    }
+    return pendente.resultado();
+  }
+
+  private void despachar() {
+    List<Pendente> lote = new ArrayList<>(tamanho);
+    while (ativo || !fila.isEmpty()) {
+      try {
+        Pendente primeiro = fila.poll(100, TimeUnit.MILLISECONDS);
+        if (primeiro == null) {
+          continue;
+        }
+        lote.add(primeiro);
+        long limite = System.nanoTime() + espera.toNanos();
+        while (lote.size() < tamanho) {
+          long resta = limite - System.nanoTime();
+          Pendente proximo = resta > 0
+            ? fila.poll(resta, TimeUnit.NANOSECONDS)
+            : null;
+          if (proximo == null) {
+            // Espera esgotada: leva o que já chegou, sem passar do tamanho
+            fila.drainTo(lote, tamanho - lote.size());
+            break;
+          }
+          lote.add(proximo);
+        }
+        enviarLote(lote);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        lote.forEach(pendente -> pendente.resultado().complete(false));
+        return;
+      } catch (RuntimeException e) {
+        log.error("❌ [NOTIFICACAO] Erro ao despachar lote de emails", e);
+        lote.forEach(pendente -> pendente.resultado().complete(false));
+      } finally {
+        lote.clear();
+      }
+    }
+  }
+
+  private void enviarLote(List<Pendente> lote) {
+    long licenca = protecaoSidecar.permitirLote(lote.size());
+    if (licenca == CircuitoSidecar.RECUSADA) {
+      log.warn(
+        "etapa=notificacao.lote pedidos={} enviados=0 circuito=aberto",
+        lote.size()
+      );
+      lote.forEach(pendente -> pendente.resultado().complete(false));
+      return;
+    }
+    List<Pedido> pedidos = new ArrayList<>(lote.size());
+    lote.forEach(pendente -> pedidos.add(pendente.pedido()));
+
+    long inicio = System.nanoTime();
+    boolean respondeu = false;
+    List<EmailResponse> resultados;
+    try {
+      EmailLoteResponse resposta = restTemplate.postForObject(
+        sidecarEmailUrl + "/api/sidecar/email/pedidos/lote",
+        pedidos,
+        EmailLoteResponse.class
+      );
+      respondeu = true;
+      resultados = resposta != null ? resposta.getResultados() : List.of();
+    } catch (RestClientException e) {
+      log.warn(
+        "etapa=notificacao.lote pedidos={} enviados=0 erro=\"{}\"",
+        lote.size(),
+        e.getMessage()
+      );
+      lote.forEach(pendente -> pendente.resultado().complete(false));
+      return;
+    } finally {
+      // Uma vez por requisição, respondida ou não
+      protecaoSidecar.registrarLote(
+        licenca,
+        respondeu,
+        System.nanoTime() - inicio,
+        lote.size()
+      );
+    }
+
+    int enviados = 0;
+    for (int i = 0; i < lote.size(); i++) {
+      Pendente pendente = lote.get(i);
+      EmailResponse resultado = i < resultados.size()
+        ? resultados.get(i)
+        : null;
+      boolean enviado =
+        resultado != null && Boolean.TRUE.equals(resultado.getSucesso());
+      if (enviado) {
+        enviados++;
+      } else {
+        log.warn(
+          "etapa=notificacao.email pedidoId={} enviado=false motivo=\"{}\"",
+          pendente.pedido().getId(),
+          resultado != null ? resultado.getMensagem() : "Sem resultado"
+        );
+      }
+      pendente.resultado().complete(enviado);
+    }
+
+    log.info(
+      "etapa=notificacao.lote pedidos={} enviados={} duracaoMs={}",
+      lote.size(),
+      enviados,
+      (System.nanoTime() - inicio) / 1_000_000
+    );
+  }
+
+  private record Pendente(
+    Pedido pedido,
+    CompletableFuture<Boolean> resultado
+  ) {}
+}
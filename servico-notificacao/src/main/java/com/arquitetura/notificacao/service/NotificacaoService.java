@@ -3,12 +3,25 @@ package com.arquitetura.notificacao.service;
 import com.arquitetura.notificacao.dto.EmailRequest;
 import com.arquitetura.notificacao.dto.EmailResponse;
 import com.arquitetura.notificacao.model.Pedido;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.tracing.Span;
 import io.micrometer.tracing.Tracer;
 import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.function.Supplier;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
+import org.springframework.web.client.ResourceAccessException;
 import org.springframework.web.client.RestTemplate;
 
 @Slf4j
@@ -18,39 +31,144 @@ public class NotificacaoService {
 
   private final Tracer tracer;
   private final RestTemplate restTemplate;
+  private final ObjectProvider<AcumuladorEmail> acumuladorProvider;
+  private final ProtecaoSidecar protecaoSidecar;
+  private final Executor executorCanais;
+  private final MeterRegistry registry;
 
   @Value("${sidecar.email.url:http://localhost:8084}")
   private String sidecarEmailUrl;
 
-  public void processarNotificacao(Pedido pedido) {
-    var span = tracer.currentSpan();
-    var traceId = span != null ? span.context().traceId() : "no-trace";
+  @Value("${app.notificacao.canais.sms.prazo:1s}")
+  private Duration prazoSms;
 
-    log.info("═══════════════════════════════════════════════════════════");
-    log.info("📱 [NOTIFICACAO] Processando notificação de pedido");
-    log.info("   └─ Pedido ID: {}", pedido.getId());
-    log.info("   └─ Cliente ID: {}", pedido.getClienteId());
-    log.info("   └─ Trace ID: {}", traceId);
-    log.info("═══════════════════════════════════════════════════════════");
+  @Value("${app.notificacao.canais.sms.latencia-simulada:250ms}")
+  private Duration latenciaSms;
 
-    simularProcessamento();
+  @Value("${app.notificacao.canais.push.prazo:1s}")
+  private Duration prazoPush;
 
-    enviarSMS(pedido);
-    enviarPushNotification(pedido);
+  @Value("${app.notificacao.canais.push.latencia-simulada:250ms}")
+  private Duration latenciaPush;
 
-    enviarEmailViaSidecar(pedido);
+  @Value("${app.notificacao.canais.email.prazo:6s}")
+  private Duration prazoEmail;
 
-    log.info("✅ [NOTIFICACAO] Todas as notificações enviadas com sucesso!");
-    log.info("═══════════════════════════════════════════════════════════");
+  /**
+   * Dispara os canais do pedido ao mesmo tempo, cada um com o seu prazo. O
+   * resultado se completa quando todos terminam ou expiram, com o desfecho de
+   * cada canal; um canal lento ou com erro não atrasa nem derruba os outros.
+   */
+  public CompletableFuture<Map<Canal, DesfechoCanal>> processarNotificacao(
+    Pedido pedido
+  ) {
+    if (log.isDebugEnabled()) {
+      var span = tracer.currentSpan();
+      var traceId = span != null ? span.context().traceId() : "no-trace";
+
+      log.debug("═══════════════════════════════════════════════════════════");
+      log.debug("📱 [NOTIFICACAO] Processando notificação de pedido");
+      log.debug("   └─ Pedido ID: {}", pedido.getId());
+      log.debug("   └─ Cliente ID: {}", pedido.getClienteId());
+      log.debug("   └─ Trace ID: {}", traceId);
+      log.debug("═══════════════════════════════════════════════════════════");
+    }
+
+    AcumuladorEmail acumulador = acumuladorProvider.getIfAvailable();
+    Map<Canal, CompletableFuture<DesfechoCanal>> canais = new EnumMap<>(
+      Canal.class
+    );
+    canais.put(
+      Canal.SMS,
+      disparar(Canal.SMS, pedido, prazoSms, () -> {
+        enviarSMS(pedido);
+        return CompletableFuture.completedFuture(DesfechoCanal.ENVIADO);
+      })
+    );
+    canais.put(
+      Canal.PUSH,
+      disparar(Canal.PUSH, pedido, prazoPush, () -> {
+        enviarPushNotification(pedido);
+        return CompletableFuture.completedFuture(DesfechoCanal.ENVIADO);
+      })
+    );
+    canais.put(
+      Canal.EMAIL,
+      // Em lote, o email conta como resolvido ao entrar na fila do
+      // acumulador: a resposta do sidecar só chega depois do lote inteiro, e
+      // uma falha nela ainda passa pela fila de reenvio
+      disparar(Canal.EMAIL, pedido, prazoEmail, () ->
+        acumulador != null
+          ? protecaoSidecar.entregar(pedido, acumulador::enviar)
+          : protecaoSidecar.enviar(pedido, email ->
+            CompletableFuture.completedFuture(enviarEmailViaSidecar(email))
+          )
+      )
+    );
+
+    return CompletableFuture.allOf(
+      canais.values().toArray(CompletableFuture[]::new)
+    ).thenApply(concluido -> {
+      Map<Canal, DesfechoCanal> desfechos = new EnumMap<>(Canal.class);
+      canais.forEach((canal, envio) -> desfechos.put(canal, envio.join()));
+      log.debug("✅ [NOTIFICACAO] Canais do pedido concluídos: {}", desfechos);
+      return desfechos;
+    });
+  }
+
+  /**
+   * Envia um canal numa thread do pool, com o span do pedido. Passado o prazo,
+   * o canal conta como expirado, mesmo que o envio ainda termine depois.
+   */
+  private CompletableFuture<DesfechoCanal> disparar(
+    Canal canal,
+    Pedido pedido,
+    Duration prazo,
+    Supplier<CompletableFuture<DesfechoCanal>> envio
+  ) {
+    Span span = tracer.currentSpan();
+    long inicio = System.nanoTime();
+    return CompletableFuture.supplyAsync(
+      () -> {
+        try (Tracer.SpanInScope escopo = tracer.withSpan(span)) {
+          return envio.get();
+        }
+      },
+      executorCanais
+    )
+      .thenCompose(Function.identity())
+      .exceptionally(erro -> {
+        log.warn(
+          "etapa=notificacao.canal pedidoId={} canal={} desfecho=FALHOU erro=\"{}\"",
+          pedido.getId(),
+          canal,
+          erro.getMessage()
+        );
+        return DesfechoCanal.FALHOU;
+      })
+      .completeOnTimeout(
+        DesfechoCanal.EXPIRADO,
+        prazo.toMillis(),
+        TimeUnit.MILLISECONDS
+      )
+      .whenComplete((desfecho, erro) ->
+        Timer.builder("notificacao.canal")
+          .tag("canal", canal.name().toLowerCase())
+          .tag("desfecho", desfecho.name().toLowerCase())
+          .register(registry)
+          .record(System.nanoTime() - inicio, TimeUnit.NANOSECONDS)
+      );
   }
 
-  private void enviarEmailViaSidecar(Pedido pedido) {
-    log.info("═══════════════════════════════════════════════════════════");
-    log.info("📧 [NOTIFICACAO] Delegando envio de email ao SIDECAR");
-    log.info("   └─ URL do Sidecar: {}", sidecarEmailUrl);
-    log.info("   └─ Protocolo: HTTP/REST");
-    log.info("   └─ Padrão: Sidecar Pattern (localhost)");
-    log.info("═══════════════════════════════════════════════════════════");
+  private boolean enviarEmailViaSidecar(Pedido pedido) {
+    if (log.isDebugEnabled()) {
+      log.debug("═══════════════════════════════════════════════════════════");
+      log.debug("📧 [NOTIFICACAO] Delegando envio de email ao SIDECAR");
+      log.debug("   └─ URL do Sidecar: {}", sidecarEmailUrl);
+      log.debug("   └─ Protocolo: HTTP/REST");
+      log.debug("   └─ Padrão: Sidecar Pattern (localhost)");
+      log.debug("═══════════════════════════════════════════════════════════");
+    }
 
     try {
       EmailRequest emailRequest = EmailRequest.builder()
@@ -69,23 +187,33 @@ public class NotificacaoService {
       );
 
       if (response != null && response.getSucesso()) {
-        log.info("✅ [NOTIFICACAO] Email enviado via SIDECAR com sucesso!");
-        log.info("   └─ Destinatário: {}", response.getDestinatario());
-        log.info("   └─ Mensagem: {}", response.getMensagem());
-      } else {
-        log.warn("⚠️ [NOTIFICACAO] Falha ao enviar email via SIDECAR");
-        log.warn(
-          "   └─ Mensagem: {}",
-          response != null ? response.getMensagem() : "Sem resposta"
+        log.debug(
+          "✅ [NOTIFICACAO] Email enviado via SIDECAR para {}: {}",
+          response.getDestinatario(),
+          response.getMensagem()
         );
+        return true;
       }
+
+      log.warn(
+        "⚠️ [NOTIFICACAO] Falha ao enviar email via SIDECAR: {}",
+        response != null ? response.getMensagem() : "Sem resposta"
+      );
+    } catch (ResourceAccessException e) {
+      // Timeout ou conexão recusada: o sidecar não respondeu a tempo
+      log.warn(
+        "etapa=notificacao.sidecar pedidoId={} url={} erro=\"{}\"",
+        pedido.getId(),
+        sidecarEmailUrl,
+        e.getMessage()
+      );
     } catch (Exception e) {
       log.error("❌ [NOTIFICACAO] Erro ao chamar SIDECAR de email", e);
       log.error("   └─ URL: {}", sidecarEmailUrl);
       log.error("   └─ Erro: {}", e.getMessage());
     }
 
-    log.info("═══════════════════════════════════════════════════════════");
+    return false;
   }
 
   private String gerarCorpoEmail(Pedido pedido) {
@@ -130,12 +258,17 @@ public class NotificacaoService {
   }
 
   private void enviarSMS(Pedido pedido) {
-    log.info("📱 [SMS] Enviando SMS de confirmação");
-    log.info(
+    simularLatencia(latenciaSms);
+    if (!log.isDebugEnabled()) {
+      return;
+    }
+
+    log.debug("📱 [SMS] Enviando SMS de confirmação");
+    log.debug(
       "   └─ Para: +55 11 9999-{}",
       pedido.getClienteId().replace("CLI", "")
     );
-    log.info(
+    log.debug(
       "   └─ Mensagem: 'Pedido {} recebido! Valor: R$ {}. Acompanhe em nosso site.'",
       pedido.getId(),
       pedido.getValorTotal()
@@ -143,21 +276,42 @@ public class NotificacaoService {
   }
 
   private void enviarPushNotification(Pedido pedido) {
-    log.info("🔔 [PUSH] Enviando push notification");
-    log.info("   └─ Device ID: device-{}", pedido.getClienteId());
-    log.info("   └─ Título: 'Pedido Confirmado!'");
-    log.info(
+    simularLatencia(latenciaPush);
+    if (!log.isDebugEnabled()) {
+      return;
+    }
+
+    log.debug("🔔 [PUSH] Enviando push notification");
+    log.debug("   └─ Device ID: device-{}", pedido.getClienteId());
+    log.debug("   └─ Título: 'Pedido Confirmado!'");
+    log.debug(
       "   └─ Mensagem: 'Seu pedido {} está sendo processado'",
       pedido.getId()
     );
   }
 
-  private void simularProcessamento() {
+  private void simularLatencia(Duration latencia) {
     try {
-      Thread.sleep(500);
+      Thread.sleep(latencia.toMillis());
     } catch (InterruptedException e) {
       Thread.currentThread().interrupt();
       log.warn("⚠️ [NOTIFICACAO] Processamento interrompido");
     }
   }
+
+  public enum Canal {
+    SMS,
+    PUSH,
+    EMAIL
+  }
+
+  public enum DesfechoCanal {
+    ENVIADO,
+    FALHOU,
+    EXPIRADO,
+    /** Na fila de reenvio do sidecar de email. */
+    ADIADO,
+    /** Na fila do lote do sidecar de email; a resposta chega depois. */
+    ENFILEIRADO
+  }
 }
@@ -0,0 +1,429 @@
+package com.arquitetura.notificacao.service;
+
+import com.arquitetura.notificacao.model.Pedido;
+import com.arquitetura.notificacao.protecao.CircuitoSidecar;
+import com.arquitetura.notificacao.service.NotificacaoService.DesfechoCanal;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.BlockingDeque;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Protege o envio de emails ao sidecar com um limite de chamadas simultâneas
+ * (bulkhead) e um {@link CircuitoSidecar}. Email recusado por um dos dois, ou
+ * que falhou no sidecar, vai para uma fila local limitada; uma thread a
+ * reenvia, na ordem, sempre que o circuito deixa. Com a fila cheia ou as
+ * tentativas esgotadas o email é descartado e contado.
+ *
+ * <p>Assim um sidecar lento segura no máximo {@code max-concorrentes} threads
+ * de canal, e SMS e push seguem no ritmo normal.
+ *
+ * <p>Com o {@link AcumuladorEmail}, cada email segura a vaga do bulkhead
+ * enquanto espera o lote encher e o sidecar responder. Aí
+ * {@code max-concorrentes} conta requisições de lote, e o bulkhead tem
+ * {@code max-concorrentes} vezes {@code sidecar.email.lote.tamanho} vagas;
+ * senão ele nunca deixaria um lote passar de {@code max-concorrentes} emails.
+ * O circuito também passa a contar requisições: o acumulador pede a licença
+ * ({@link #permitirLote}) e registra o resultado ({@link #registrarLote}) de
+ * cada lote, com a duração da requisição dividida pelos emails dela. O tempo
+ * que o email esperou na fila do lote não entra na conta.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class ProtecaoSidecar {
+
+  /** Licença dos emails em modo lote: quem fala com o circuito é o lote. */
+  private static final long LICENCA_DO_LOTE = Long.MAX_VALUE;
+
+  private final MeterRegistry registry;
+
+  @Value("${sidecar.email.protecao.max-concorrentes:10}")
+  private int maxConcorrentes;
+
+  @Value("${sidecar.email.lote.habilitado:false}")
+  private boolean loteHabilitado;
+
+  @Value("${sidecar.email.lote.tamanho:50}")
+  private int tamanhoLote;
+
+  @Value("${sidecar.email.protecao.espera-bulkhead:50ms}")
+  private Duration esperaBulkhead;
+
+  @Value("${sidecar.email.protecao.janela:20}")
+  private int janela;
+
+  @Value("${sidecar.email.protecao.minimo-chamadas:10}")
+  private int minimoChamadas;
+
+  @Value("${sidecar.email.protecao.taxa-falha:0.5}")
+  private double taxaFalha;
+
+  @Value("${sidecar.email.protecao.limite-lenta:2s}")
+  private Duration limiteLenta;
+
+  @Value("${sidecar.email.protecao.aberto-por:10s}")
+  private Duration abertoPor;
+
+  @Value("${sidecar.email.protecao.chamadas-teste:3}")
+  private int chamadasTeste;
+
+  @Value("${sidecar.email.protecao.reenvio.capacidade:1000}")
+  private int capacidadeReenvio;
+
+  @Value("${sidecar.email.protecao.reenvio.tentativas:5}")
+  private int tentativas;
+
+  @Value("${sidecar.email.protecao.reenvio.intervalo:500ms}")
+  private Duration intervaloReenvio;
+
+  private final Map<Rejeicao, Counter> rejeicoes = new EnumMap<>(
+    Rejeicao.class
+  );
+
+  private CircuitoSidecar circuito;
+  private Semaphore bulkhead;
+  private BlockingDeque<Adiado> fila;
+  private Counter reenviados;
+  private Thread reenvio;
+  private volatile boolean ativo;
+
+  @PostConstruct
+  public void iniciar() {
+    circuito = new CircuitoSidecar(
+      janela,
+      minimoChamadas,
+      taxaFalha,
+      limiteLenta,
+      abertoPor,
+      chamadasTeste
+    );
+    int vagas = loteHabilitado
+      ? maxConcorrentes * tamanhoLote
+      : maxConcorrentes;
+    bulkhead = new Semaphore(vagas);
+    fila = new LinkedBlockingDeque<>(capacidadeReenvio);
+
+    for (var rejeicao : Rejeicao.values()) {
+      rejeicoes.put(
+        rejeicao,
+        Counter.builder("notificacao.sidecar.rejeicoes")
+          .tag("motivo", rejeicao.name().toLowerCase())
+          .register(registry)
+      );
+    }
+    reenviados = Counter.builder("notificacao.sidecar.reenviados").register(
+      registry
+    );
+    Gauge.builder(
+      "notificacao.sidecar.circuito.estado",
+      circuito,
+      c -> c.getEstado().ordinal()
+    ).register(registry);
+    FunctionCounter.builder(
+      "notificacao.sidecar.circuito.aberturas",
+      circuito,
+      CircuitoSidecar::getAberturas
+    ).register(registry);
+    Gauge.builder(
+      "notificacao.sidecar.bulkhead.livres",
+      bulkhead,
+      Semaphore::availablePermits
+    ).register(registry);
+    Gauge.builder(
+      "notificacao.sidecar.reenvio.fila",
+      fila,
+      BlockingDeque::size
+    ).register(registry);
+
+    ativo = true;
+    reenvio = new Thread(this::reenviar, "notificacao-email-reenvio");
+    reenvio.setDaemon(true);
+    reenvio.start();
+
+    log.debug("🛡️ [NOTIFICACAO] Proteção do sidecar de email ativa");
+    log.debug("   └─ Emails simultâneos: {}", vagas);
+    log.debug("   └─ Fila de reenvio: {}", capacidadeReenvio);
+  }
+
+  @PreDestroy
+  public void parar() throws InterruptedException {
+    ativo = false;
+    reenvio.interrupt();
+    reenvio.join(TimeUnit.SECONDS.toMillis(10));
+    if (!fila.isEmpty()) {
+      log.warn(
+        "etapa=notificacao.reenvio pendentes={} perdidos=true",
+        fila.size()
+      );
+    }
+  }
+
+  /**
+   * Envia o email se o bulkhead e o circuito deixarem. ADIADO quer dizer que
+   * ele ficou na fila de reenvio; FALHOU, que foi descartado.
+   */
+  public CompletableFuture<DesfechoCanal> enviar(
+    Pedido pedido,
+    Function<Pedido, CompletableFuture<Boolean>> envio
+  ) {
+    Adiado adiado = new Adiado(pedido, envio, 0);
+    long licenca = admitir();
+    if (licenca == CircuitoSidecar.RECUSADA) {
+      return CompletableFuture.completedFuture(adiar(adiado));
+    }
+    return chamar(adiado, licenca).thenApply(enviado ->
+      enviado ? DesfechoCanal.ENVIADO : adiar(adiado.novaTentativa())
+    );
+  }
+
+  /**
+   * Como {@link #enviar}, mas sem esperar a resposta do sidecar: aceito pelo
+   * envio (o {@link AcumuladorEmail} o enfileirou), o email fica ENFILEIRADO.
+   * Se a resposta vier depois com falha, ele vai para a fila de reenvio como
+   * em {@link #enviar}.
+   */
+  public CompletableFuture<DesfechoCanal> entregar(
+    Pedido pedido,
+    Function<Pedido, CompletableFuture<Boolean>> envio
+  ) {
+    Adiado adiado = new Adiado(pedido, envio, 0);
+    long licenca = admitir();
+    if (licenca == CircuitoSidecar.RECUSADA) {
+      return CompletableFuture.completedFuture(adiar(adiado));
+    }
+    CompletableFuture<DesfechoCanal> desfecho = chamar(
+      adiado,
+      licenca
+    ).thenApply(enviado ->
+      enviado ? DesfechoCanal.ENVIADO : adiar(adiado.novaTentativa())
+    );
+    // Já decidido na entrega (acumulador parado, por exemplo): vale esse
+    return CompletableFuture.completedFuture(
+      desfecho.getNow(DesfechoCanal.ENFILEIRADO)
+    );
+  }
+
+  /**
+   * Licença do circuito para uma requisição de lote do {@link AcumuladorEmail},
+   * ou {@link CircuitoSidecar#RECUSADA}; recusada, os emails dela falham e
+   * voltam pela fila de reenvio.
+   */
+  public long permitirLote(int emails) {
+    long licenca = permitir();
+    if (licenca == CircuitoSidecar.RECUSADA) {
+      rejeicoes.get(Rejeicao.CIRCUITO).increment(emails);
+    }
+    return licenca;
+  }
+
+  /**
+   * Resultado de uma requisição de lote: um registro no circuito, com a
+   * duração por email, comparável ao {@code limite-lenta} de um email só.
+   */
+  public void registrarLote(
+    long licenca,
+    boolean sucesso,
+    long duracaoNanos,
+    int emails
+  ) {
+    registrar(licenca, sucesso, duracaoNanos / Math.max(emails, 1));
+  }
+
+  public CircuitoSidecar.Estado getEstado() {
+    return circuito.getEstado();
+  }
+
+  public int getPendentes() {
+    return fila.size();
+  }
+
+  /**
+   * Pega o bulkhead e a licença do circuito; sem um dos dois, devolve
+   * {@link CircuitoSidecar#RECUSADA} e não fica com nenhum.
+   */
+  private long admitir() {
+    try {
+      if (
+        !bulkhead.tryAcquire(esperaBulkhead.toNanos(), TimeUnit.NANOSECONDS)
+      ) {
+        rejeicoes.get(Rejeicao.BULKHEAD).increment();
+        return CircuitoSidecar.RECUSADA;
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      return CircuitoSidecar.RECUSADA;
+    }
+    // Bulkhead antes do circuito: liberada pelo circuito, a chamada sempre
+    // volta com resultado (no meio aberto, é uma das chamadas de teste)
+    long licenca = licencaDoEmail();
+    if (licenca == CircuitoSidecar.RECUSADA) {
+      bulkhead.release();
+      rejeicoes.get(Rejeicao.CIRCUITO).increment();
+    }
+    return licenca;
+  }
+
+  /** Chamada liberada pelo bulkhead e pelo circuito; devolve o permit. */
+  private CompletableFuture<Boolean> chamar(Adiado adiado, long licenca) {
+    long inicio = System.nanoTime();
+    CompletableFuture<Boolean> resultado;
+    try {
+      resultado = adiado.envio().apply(adiado.pedido());
+    } catch (RuntimeException e) {
+      resultado = CompletableFuture.failedFuture(e);
+    }
+    return resultado
+      .handle((enviado, erro) -> erro == null && Boolean.TRUE.equals(enviado))
+      .whenComplete((enviado, erro) -> {
+        bulkhead.release();
+        if (licenca != LICENCA_DO_LOTE) {
+          registrar(licenca, enviado, System.nanoTime() - inicio);
+        }
+      });
+  }
+
+  private DesfechoCanal adiar(Adiado adiado) {
+    if (adiado.tentativa() >= tentativas) {
+      rejeicoes.get(Rejeicao.TENTATIVAS).increment();
+      log.warn(
+        "etapa=notificacao.reenvio pedidoId={} tentativas={} descartado=true",
+        adiado.pedido().getId(),
+        adiado.tentativa()
+      );
+      return DesfechoCanal.FALHOU;
+    }
+    if (!fila.offerLast(adiado)) {
+      rejeicoes.get(Rejeicao.FILA_CHEIA).increment();
+      log.warn(
+        "etapa=notificacao.reenvio pedidoId={} fila={} descartado=true",
+        adiado.pedido().getId(),
+        capacidadeReenvio
+      );
+      return DesfechoCanal.FALHOU;
+    }
+    return DesfechoCanal.ADIADO;
+  }
+
+  /**
+   * Só esta thread tira da fila: olha o primeiro, espera o circuito e o
+   * bulkhead deixarem e só então o remove. Uma falha devolve o email ao
+   * início da fila, para não furar a ordem.
+   */
+  private void reenviar() {
+    while (ativo) {
+      try {
+        Adiado adiado = fila.peekFirst();
+        if (adiado == null || circuito.isAberto()) {
+          Thread.sleep(intervaloReenvio.toMillis());
+          continue;
+        }
+        if (
+          !bulkhead.tryAcquire(
+            intervaloReenvio.toMillis(),
+            TimeUnit.MILLISECONDS
+          )
+        ) {
+          continue;
+        }
+        long licenca = licencaDoEmail();
+        if (licenca == CircuitoSidecar.RECUSADA) {
+          bulkhead.release();
+          Thread.sleep(intervaloReenvio.toMillis());
+          continue;
+        }
+        fila.pollFirst();
+
+        if (chamar(adiado, licenca).join()) {
+          reenviados.increment();
+          log.info(
+            "etapa=notificacao.reenvio pedidoId={} tentativa={} enviado=true",
+            adiado.pedido().getId(),
+            adiado.tentativa() + 1
+          );
+          continue;
+        }
+        Adiado proxima = adiado.novaTentativa();
+        if (proxima.tentativa() >= tentativas) {
+          adiar(proxima);
+        } else if (!fila.offerFirst(proxima)) {
+          rejeicoes.get(Rejeicao.FILA_CHEIA).increment();
+        }
+        Thread.sleep(intervaloReenvio.toMillis());
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        return;
+      } catch (RuntimeException e) {
+        log.error("❌ [NOTIFICACAO] Erro ao reenviar email", e);
+      }
+    }
+  }
+
+  /**
+   * Em modo lote o email só confere se o circuito está aberto; a licença de
+   * verdade sai por lote, em {@link #permitirLote}.
+   */
+  private long licencaDoEmail() {
+    if (!loteHabilitado) {
+      return permitir();
+    }
+    return circuito.isAberto() ? CircuitoSidecar.RECUSADA : LICENCA_DO_LOTE;
+  }
+
+  private long permitir() {
+    CircuitoSidecar.Estado antes = circuito.getEstado();
+    long licenca = circuito.permitir();
+    transicao(antes);
+    return licenca;
+  }
+
+  private void registrar(long licenca, boolean sucesso, long duracaoNanos) {
+    CircuitoSidecar.Estado antes = circuito.getEstado();
+    circuito.registrar(licenca, sucesso, duracaoNanos);
+    transicao(antes);
+  }
+
+  private void transicao(CircuitoSidecar.Estado antes) {
+    CircuitoSidecar.Estado depois = circuito.getEstado();
+    if (depois != antes) {
+      log.info(
+        "etapa=notificacao.circuito estado={} anterior={} reenvioPendentes={}",
+        depois,
+        antes,
+        fila.size()
+      );
+    }
+  }
+
+  private enum Rejeicao {
+    CIRCUITO,
+    BULKHEAD,
+    FILA_CHEIA,
+    TENTATIVAS
+  }
+
+  private record Adiado(
+    Pedido pedido,
+    Function<Pedido, CompletableFuture<Boolean>> envio,
+    int tentativa
+  ) {
+    Adiado novaTentativa() {
+      return new Adiado(pedido, envio, tentativa + 1);
+    }
+  }
+}
@@ -0,0 +1,180 @@
+package com.arquitetura.notificacao.config;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import com.arquitetura.notificacao.dto.EmailResponse;
+import com.sun.net.httpserver.HttpServer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManager;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.web.client.RestTemplateBuilder;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.client.ResourceAccessException;
+import org.springframework.web.client.RestTemplate;
+
+/**
+ * Sidecar de mentira (HttpServer do JDK) para checar o reaproveitamento de
+ * conexões do cliente com pool e o timeout de resposta.
+ */
+class HttpClientConfigTest {
+
+  private static final String RESPOSTA =
+    "{\"sucesso\":true,\"mensagem\":\"ok\",\"destinatario\":\"c@email.com\"}";
+  private static final Map<String, Object> PEDIDO = Map.of(
+    "id",
+    "pedido-1",
+    "clienteId",
+    "CLI001",
+    "valorTotal",
+    "199.90"
+  );
+
+  private HttpServer sidecar;
+  private ExecutorService threadsSidecar;
+  private String url;
+
+  private SimpleMeterRegistry registry;
+  private PoolingHttpClientConnectionManager pool;
+  private CloseableHttpClient httpClient;
+
+  @BeforeEach
+  void iniciarSidecar() throws IOException {
+    sidecar = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 256);
+    threadsSidecar = Executors.newFixedThreadPool(32);
+    sidecar.setExecutor(threadsSidecar);
+    sidecar.createContext(
+      "/api/sidecar/email/pedido",
+      troca -> {
+        byte[] resposta = RESPOSTA.getBytes(StandardCharsets.UTF_8);
+        troca.getRequestBody().readAllBytes();
+        troca.getResponseHeaders().add("Content-Type", "application/json");
+        troca.sendResponseHeaders(200, resposta.length);
+        try (OutputStream corpo = troca.getResponseBody()) {
+          corpo.write(resposta);
+        }
+      }
+    );
+    sidecar.createContext(
+      "/travado",
+      troca -> {
+        try {
+          Thread.sleep(3000);
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+        }
+        troca.sendResponseHeaders(500, -1);
+        troca.close();
+      }
+    );
+    sidecar.start();
+    url = "http://127.0.0.1:" + sidecar.getAddress().getPort();
+  }
+
+  @AfterEach
+  void pararSidecar() throws IOException {
+    if (httpClient != null) {
+      httpClient.close();
+    }
+    sidecar.stop(0);
+    threadsSidecar.shutdownNow();
+  }
+
+  @Test
+  void sidecarTravadoDeveEstourarOTimeoutDeResposta() {
+    RestTemplate restTemplate = clienteComPool(Duration.ofMillis(300));
+
+    long inicio = System.nanoTime();
+    assertThatThrownBy(() ->
+      restTemplate.postForObject(url + "/travado", PEDIDO, EmailResponse.class)
+    ).isInstanceOf(ResourceAccessException.class);
+    assertThat(Duration.ofNanos(System.nanoTime() - inicio)).isLessThan(
+      Duration.ofSeconds(2)
+    );
+  }
+
+  @Test
+  void poolDeveReaproveitarConexoesEntreChamadas() throws Exception {
+    int threads = 8;
+    int chamadasPorThread = 200;
+
+    chamar(clienteComPool(Duration.ofSeconds(5)), threads, chamadasPorThread);
+
+    // Uma conexão por thread, no máximo, e todas devolvidas ao pool
+    double abertas = registry
+      .get("notificacao.sidecar.conexoes.abertas")
+      .functionCounter()
+      .count();
+    assertThat(abertas).isLessThanOrEqualTo(threads);
+    assertThat(pool.totalStats().getLeased()).isZero();
+  }
+
+  private RestTemplate clienteComPool(Duration timeoutResposta) {
+    HttpClientConfig config = new HttpClientConfig();
+    ReflectionTestUtils.setField(config, "maxConexoes", 50);
+    ReflectionTestUtils.setField(config, "maxPorRota", 20);
+    ReflectionTestUtils.setField(
+      config,
+      "rotas",
+      new String[] { url + "=16" }
+    );
+    ReflectionTestUtils.setField(
+      config,
+      "timeoutConexao",
+      Duration.ofSeconds(1)
+    );
+    ReflectionTestUtils.setField(config, "timeoutResposta", timeoutResposta);
+    ReflectionTestUtils.setField(
+      config,
+      "timeoutPool",
+      Duration.ofMillis(500)
+    );
+    ReflectionTestUtils.setField(config, "validarApos", Duration.ofSeconds(2));
+    ReflectionTestUtils.setField(config, "ociosaMax", Duration.ofSeconds(30));
+
+    registry = new SimpleMeterRegistry();
+    pool = config.sidecarConnectionManager(registry);
+    httpClient = config.sidecarHttpClient(pool);
+    return config.restTemplate(new RestTemplateBuilder(), httpClient);
+  }
+
+  private void chamar(
+    RestTemplate restTemplate,
+    int threads,
+    int chamadasPorThread
+  ) throws Exception {
+    String endereco = url + "/api/sidecar/email/pedido";
+    ExecutorService executor = Executors.newFixedThreadPool(threads);
+    Future<?>[] tarefas = new Future<?>[threads];
+    for (int t = 0; t < threads; t++) {
+      tarefas[t] = executor.submit(() -> {
+        for (int i = 0; i < chamadasPorThread; i++) {
+          EmailResponse resposta = restTemplate.postForObject(
+            endereco,
+            PEDIDO,
+            EmailResponse.class
+          );
+          assertThat(resposta.getSucesso()).isTrue();
+        }
+      });
+    }
+    for (Future<?> tarefa : tarefas) {
+      tarefa.get();
+    }
+    executor.shutdown();
+    executor.awaitTermination(10, TimeUnit.SECONDS);
+  }
+}
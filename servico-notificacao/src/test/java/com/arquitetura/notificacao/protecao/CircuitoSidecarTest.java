@@ -0,0 +1,156 @@
+package com.arquitetura.notificacao.protecao;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.arquitetura.notificacao.protecao.CircuitoSidecar.Estado;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+import org.junit.jupiter.api.Test;
+
+class CircuitoSidecarTest {
+
+  private static final long MILLI = 1_000_000L;
+
+  private final AtomicLong relogio = new AtomicLong(1_000 * MILLI);
+
+  @Test
+  void deveAbrirSoDepoisDoMinimoDeChamadasComFalhasAcimaDaTaxa() {
+    CircuitoSidecar circuito = circuito(3);
+
+    for (int i = 0; i < 4; i++) {
+      circuito.registrar(licenca(circuito), false, 5 * MILLI);
+    }
+    // Quatro falhas, mas abaixo do mínimo de cinco chamadas
+    assertThat(circuito.getEstado()).isEqualTo(Estado.FECHADO);
+
+    circuito.registrar(licenca(circuito), true, 5 * MILLI);
+
+    assertThat(circuito.getEstado()).isEqualTo(Estado.ABERTO);
+    assertThat(circuito.permitir()).isEqualTo(CircuitoSidecar.RECUSADA);
+    assertThat(circuito.getAberturas()).isEqualTo(1);
+  }
+
+  @Test
+  void chamadasLentasDevemContarComoFalha() {
+    CircuitoSidecar circuito = circuito(3);
+
+    for (int i = 0; i < 10; i++) {
+      circuito.registrar(
+        licenca(circuito),
+        true,
+        i % 2 == 0 ? 5 * MILLI : 3_000 * MILLI
+      );
+    }
+    assertThat(circuito.getEstado()).isEqualTo(Estado.FECHADO);
+
+    circuito.registrar(licenca(circuito), true, 3_000 * MILLI);
+    assertThat(circuito.getEstado()).isEqualTo(Estado.ABERTO);
+  }
+
+  @Test
+  void falhasAntigasDevemSairDaJanela() {
+    CircuitoSidecar circuito = circuito(3);
+
+    for (int i = 0; i < 5; i++) {
+      circuito.registrar(licenca(circuito), i != 0, 5 * MILLI);
+    }
+    // Dez chamadas depois, a falha da primeira já não conta
+    for (int i = 0; i < 10; i++) {
+      circuito.registrar(licenca(circuito), i % 2 == 0, 5 * MILLI);
+    }
+    assertThat(circuito.getEstado()).isEqualTo(Estado.FECHADO);
+  }
+
+  @Test
+  void meioAbertoDeveFecharSoComTodasAsChamadasDeTesteBemSucedidas() {
+    CircuitoSidecar circuito = aberto(2);
+
+    relogio.addAndGet(999 * MILLI);
+    assertThat(circuito.isAberto()).isTrue();
+    assertThat(circuito.permitir()).isEqualTo(CircuitoSidecar.RECUSADA);
+
+    relogio.addAndGet(1 * MILLI);
+    long primeira = licenca(circuito);
+    assertThat(circuito.getEstado()).isEqualTo(Estado.MEIO_ABERTO);
+    long segunda = licenca(circuito);
+    // Só duas chamadas de teste por vez
+    assertThat(circuito.permitir()).isEqualTo(CircuitoSidecar.RECUSADA);
+
+    circuito.registrar(primeira, true, 5 * MILLI);
+    assertThat(circuito.getEstado()).isEqualTo(Estado.MEIO_ABERTO);
+    circuito.registrar(segunda, true, 5 * MILLI);
+    assertThat(circuito.getEstado()).isEqualTo(Estado.FECHADO);
+
+    // Janela zerada: uma falha isolada não reabre
+    circuito.registrar(licenca(circuito), false, 5 * MILLI);
+    assertThat(circuito.getEstado()).isEqualTo(Estado.FECHADO);
+  }
+
+  @Test
+  void falhaNoMeioAbertoDeveReabrir() {
+    CircuitoSidecar circuito = aberto(2);
+    relogio.addAndGet(1_000 * MILLI);
+
+    circuito.registrar(licenca(circuito), false, 5 * MILLI);
+
+    assertThat(circuito.getEstado()).isEqualTo(Estado.ABERTO);
+    assertThat(circuito.permitir()).isEqualTo(CircuitoSidecar.RECUSADA);
+    assertThat(circuito.getAberturas()).isEqualTo(2);
+  }
+
+  @Test
+  void resultadoDeOutroEstadoDoCircuitoDeveSerIgnorado() {
+    CircuitoSidecar circuito = circuito(1);
+    // Saiu com o circuito fechado e só volta depois que ele abriu
+    long lenta = licenca(circuito);
+    for (int i = 0; i < 5; i++) {
+      circuito.registrar(licenca(circuito), false, 5 * MILLI);
+    }
+    assertThat(circuito.getEstado()).isEqualTo(Estado.ABERTO);
+
+    relogio.addAndGet(1_000 * MILLI);
+    long teste = licenca(circuito);
+    assertThat(circuito.getEstado()).isEqualTo(Estado.MEIO_ABERTO);
+
+    // Sucesso atrasado não conta como chamada de teste
+    circuito.registrar(lenta, true, 5 * MILLI);
+    assertThat(circuito.getEstado()).isEqualTo(Estado.MEIO_ABERTO);
+
+    circuito.registrar(teste, true, 5 * MILLI);
+    assertThat(circuito.getEstado()).isEqualTo(Estado.FECHADO);
+
+    // E a falha atrasada de antes do meio aberto não suja a janela nova
+    circuito.registrar(lenta, false, 5 * MILLI);
+    for (int i = 0; i < 4; i++) {
+      circuito.registrar(licenca(circuito), i == 0, 5 * MILLI);
+    }
+    assertThat(circuito.getEstado()).isEqualTo(Estado.FECHADO);
+  }
+
+  private static long licenca(CircuitoSidecar circuito) {
+    long licenca = circuito.permitir();
+    assertThat(licenca).isNotEqualTo(CircuitoSidecar.RECUSADA);
+    return licenca;
+  }
+
+  private CircuitoSidecar circuito(int chamadasTeste) {
+    return new CircuitoSidecar(
+      10,
+      5,
+      0.5,
+      Duration.ofSeconds(2),
+      Duration.ofSeconds(1),
+      chamadasTeste,
+      relogio::get
+    );
+  }
+
+  private CircuitoSidecar aberto(int chamadasTeste) {
+    CircuitoSidecar circuito = circuito(chamadasTeste);
+    for (int i = 0; i < 5; i++) {
+      circuito.registrar(licenca(circuito), false, 5 * MILLI);
+    }
+    assertThat(circuito.getEstado()).isEqualTo(Estado.ABERTO);
+    return circuito;
+  }
+}
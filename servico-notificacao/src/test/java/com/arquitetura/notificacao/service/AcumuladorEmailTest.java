@@ -0,0 +1,270 @@
+package com.arquitetura.notificacao.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.arquitetura.notificacao.model.Pedido;
+import com.arquitetura.notificacao.protecao.CircuitoSidecar;
+import com.arquitetura.notificacao.service.NotificacaoService.DesfechoCanal;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.client.RestTemplate;
+
+/**
+ * Sidecar de mentira: o endpoint de lote falha os pedidos cujo id termina em
+ * "-falha", conta as requisições e, com {@code msPorPedido}, leva como o
+ * sidecar de verdade um tempo fixo mais um tanto por pedido do lote.
+ */
+class AcumuladorEmailTest {
+
+  private static final ObjectMapper JSON = new ObjectMapper();
+
+  private final AtomicInteger requisicoes = new AtomicInteger();
+  private final RestTemplate restTemplate = new RestTemplate();
+  private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+  private HttpServer sidecar;
+  private ExecutorService threadsSidecar;
+  private String url;
+  private volatile long msPorPedido;
+  private ProtecaoSidecar protecao;
+  private AcumuladorEmail acumulador;
+
+  @BeforeEach
+  void iniciarSidecar() throws IOException {
+    sidecar = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 256);
+    threadsSidecar = Executors.newFixedThreadPool(16);
+    sidecar.setExecutor(threadsSidecar);
+    sidecar.createContext(
+      "/api/sidecar/email/pedidos/lote",
+      troca -> {
+        requisicoes.incrementAndGet();
+        ArrayNode resultados = JSON.createArrayNode();
+        for (JsonNode pedido : JSON.readTree(troca.getRequestBody())) {
+          resultados.add(resultado(pedido.path("id").asText()));
+        }
+        if (msPorPedido > 0) {
+          try {
+            Thread.sleep(msPorPedido * (resultados.size() + 1));
+          } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+          }
+        }
+        ObjectNode lote = JSON.createObjectNode();
+        lote.set("resultados", resultados);
+        responder(troca, lote);
+      }
+    );
+    sidecar.start();
+    url = "http://127.0.0.1:" + sidecar.getAddress().getPort();
+    protecao = iniciarProtecao(Duration.ofSeconds(2));
+  }
+
+  @AfterEach
+  void pararSidecar() throws InterruptedException {
+    if (acumulador != null) {
+      acumulador.parar();
+    }
+    protecao.parar();
+    sidecar.stop(0);
+    threadsSidecar.shutdownNow();
+  }
+
+  @Test
+  void cadaPedidoDeveReceberOResultadoDoProprioItem() throws Exception {
+    int threads = 4;
+    int pedidosPorThread = 100;
+    int total = threads * pedidosPorThread;
+
+    acumulador = iniciarAcumulador(50, Duration.ofMillis(20));
+    List<List<CompletableFuture<Boolean>>> resultados = new ArrayList<>();
+    for (int t = 0; t < threads; t++) {
+      resultados.add(new ArrayList<>());
+    }
+    executar(threads, t -> {
+      for (int i = 0; i < pedidosPorThread; i++) {
+        resultados.get(t).add(acumulador.enviar(pedido(id(t, i))));
+      }
+    });
+    for (List<CompletableFuture<Boolean>> daThread : resultados) {
+      CompletableFuture.allOf(
+        daThread.toArray(CompletableFuture[]::new)
+      ).get(30, TimeUnit.SECONDS);
+    }
+    int requisicoesLote = requisicoes.get();
+
+    for (int t = 0; t < threads; t++) {
+      for (int i = 0; i < pedidosPorThread; i++) {
+        assertThat(resultados.get(t).get(i).get()).isEqualTo(
+          !id(t, i).endsWith("-falha")
+        );
+      }
+    }
+    assertThat(requisicoesLote).isLessThanOrEqualTo(total / 10);
+  }
+
+  @Test
+  void sidecarForaDoArDeveFalharOsPedidosDoLote() throws Exception {
+    // Porta sem ninguém escutando: conexão recusada
+    url = "http://127.0.0.1:1";
+    acumulador = iniciarAcumulador(50, Duration.ofMillis(5));
+
+    List<CompletableFuture<Boolean>> resultados = List.of(
+      acumulador.enviar(pedido("p1")),
+      acumulador.enviar(pedido("p2")),
+      acumulador.enviar(pedido("p3"))
+    );
+
+    for (CompletableFuture<Boolean> resultado : resultados) {
+      assertThat(resultado.get(10, TimeUnit.SECONDS)).isFalse();
+    }
+  }
+
+  @Test
+  void loteMaisLentoQueOLimiteDeUmEmailNaoDeveAbrirOCircuito()
+    throws Exception {
+    // Lote de 10: ~330 ms por requisição, ~33 ms por email
+    msPorPedido = 30;
+    protecao.parar();
+    protecao = iniciarProtecao(Duration.ofMillis(100));
+    acumulador = iniciarAcumulador(10, Duration.ofMillis(20));
+
+    List<CompletableFuture<DesfechoCanal>> desfechos = new ArrayList<>();
+    List<CompletableFuture<Boolean>> respostas = new ArrayList<>();
+    for (int i = 0; i < 40; i++) {
+      CompletableFuture<Boolean> resposta = new CompletableFuture<>();
+      respostas.add(resposta);
+      desfechos.add(
+        protecao.entregar(pedido("pedido-" + i), email ->
+          acumulador
+            .enviar(email)
+            .whenComplete((enviado, erro) -> resposta.complete(enviado))
+        )
+      );
+    }
+    CompletableFuture.allOf(respostas.toArray(CompletableFuture[]::new)).get(
+      30,
+      TimeUnit.SECONDS
+    );
+
+    for (CompletableFuture<DesfechoCanal> desfecho : desfechos) {
+      assertThat(desfecho.get()).isEqualTo(DesfechoCanal.ENFILEIRADO);
+    }
+    for (CompletableFuture<Boolean> resposta : respostas) {
+      assertThat(resposta.get()).isTrue();
+    }
+    assertThat(requisicoes.get()).isGreaterThanOrEqualTo(4);
+    assertThat(protecao.getEstado()).isEqualTo(CircuitoSidecar.Estado.FECHADO);
+    assertThat(protecao.getPendentes()).isZero();
+    assertThat(
+      registry
+        .get("notificacao.sidecar.rejeicoes")
+        .tag("motivo", "circuito")
+        .counter()
+        .count()
+    ).isZero();
+  }
+
+  private AcumuladorEmail iniciarAcumulador(int tamanho, Duration espera) {
+    AcumuladorEmail novo = new AcumuladorEmail(restTemplate, protecao);
+    ReflectionTestUtils.setField(novo, "sidecarEmailUrl", url);
+    ReflectionTestUtils.setField(novo, "tamanho", tamanho);
+    ReflectionTestUtils.setField(novo, "espera", espera);
+    ReflectionTestUtils.setField(novo, "capacidade", 1000);
+    novo.iniciar();
+    return novo;
+  }
+
+  private ProtecaoSidecar iniciarProtecao(Duration limiteLenta) {
+    ProtecaoSidecar nova = new ProtecaoSidecar(registry);
+    ReflectionTestUtils.setField(nova, "maxConcorrentes", 10);
+    ReflectionTestUtils.setField(nova, "loteHabilitado", true);
+    ReflectionTestUtils.setField(nova, "tamanhoLote", 50);
+    ReflectionTestUtils.setField(
+      nova,
+      "esperaBulkhead",
+      Duration.ofMillis(50)
+    );
+    ReflectionTestUtils.setField(nova, "janela", 4);
+    ReflectionTestUtils.setField(nova, "minimoChamadas", 4);
+    ReflectionTestUtils.setField(nova, "taxaFalha", 0.5);
+    ReflectionTestUtils.setField(nova, "limiteLenta", limiteLenta);
+    ReflectionTestUtils.setField(nova, "abertoPor", Duration.ofSeconds(10));
+    ReflectionTestUtils.setField(nova, "chamadasTeste", 1);
+    ReflectionTestUtils.setField(nova, "capacidadeReenvio", 100);
+    ReflectionTestUtils.setField(nova, "tentativas", 5);
+    ReflectionTestUtils.setField(
+      nova,
+      "intervaloReenvio",
+      Duration.ofMillis(500)
+    );
+    nova.iniciar();
+    return nova;
+  }
+
+  /** Um a cada sete pedidos falha no sidecar. */
+  private static String id(int thread, int indice) {
+    String id = "pedido-" + thread + "-" + indice;
+    return indice % 7 == 3 ? id + "-falha" : id;
+  }
+
+  private static Pedido pedido(String id) {
+    return Pedido.builder().id(id).clienteId("CLI001").build();
+  }
+
+  private static ObjectNode resultado(String pedidoId) {
+    boolean falha = pedidoId.endsWith("-falha");
+    ObjectNode resultado = JSON.createObjectNode();
+    resultado.put("sucesso", !falha);
+    resultado.put("pedidoId", pedidoId);
+    resultado.put("mensagem", falha ? "Caixa postal cheia" : "ok");
+    return resultado;
+  }
+
+  private static void responder(HttpExchange troca, JsonNode corpo)
+    throws IOException {
+    byte[] bytes = JSON.writeValueAsBytes(corpo);
+    troca.getResponseHeaders().add("Content-Type", "application/json");
+    troca.sendResponseHeaders(200, bytes.length);
+    try (OutputStream saida = troca.getResponseBody()) {
+      saida.write(bytes);
+    }
+  }
+
+  private static void executar(int threads, Tarefa tarefa) throws Exception {
+    ExecutorService executor = Executors.newFixedThreadPool(threads);
+    List<Future<?>> execucoes = new ArrayList<>();
+    for (int t = 0; t < threads; t++) {
+      int thread = t;
+      execucoes.add(executor.submit(() -> tarefa.executar(thread)));
+    }
+    for (Future<?> execucao : execucoes) {
+      execucao.get();
+    }
+    executor.shutdown();
+  }
+
+  private interface Tarefa {
+    void executar(int thread);
+  }
+}
@@ -0,0 +1,266 @@
+package com.arquitetura.notificacao.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.arquitetura.notificacao.model.Pedido;
+import com.arquitetura.notificacao.service.NotificacaoService.Canal;
+import com.arquitetura.notificacao.service.NotificacaoService.DesfechoCanal;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.micrometer.tracing.Tracer;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.support.DefaultListableBeanFactory;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.client.RestTemplate;
+
+/**
+ * Canais do pedido com latências simuladas (SMS e push de 250 ms, sidecar de
+ * 300 ms). O pedido "lento" e o endpoint de lote ficam presos até o fim do
+ * teste; as verificações olham o desfecho de cada canal e o que o sidecar já
+ * respondeu, não o relógio.
+ */
+class NotificacaoServiceTest {
+
+  private static final String RESPOSTA = "{\"sucesso\":true,\"mensagem\":\"ok\"}";
+
+  private final CountDownLatch sidecarLiberado = new CountDownLatch(1);
+  private final CountDownLatch lentoRespondido = new CountDownLatch(1);
+
+  private HttpServer sidecar;
+  private ExecutorService threadsSidecar;
+  private ExecutorService executorCanais;
+  private ProtecaoSidecar protecao;
+  private AcumuladorEmail acumulador;
+  private String url;
+
+  @BeforeEach
+  void iniciarSidecar() throws IOException {
+    sidecar = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 256);
+    threadsSidecar = Executors.newFixedThreadPool(16);
+    sidecar.setExecutor(threadsSidecar);
+    sidecar.createContext(
+      "/api/sidecar/email/pedido",
+      troca -> {
+        String corpo = new String(
+          troca.getRequestBody().readAllBytes(),
+          StandardCharsets.UTF_8
+        );
+        try {
+          // Pedido "lento": o sidecar trava bem além do prazo do email
+          if (corpo.contains("lento")) {
+            sidecarLiberado.await(5, TimeUnit.SECONDS);
+          } else {
+            Thread.sleep(300);
+          }
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+        }
+        responder(troca, RESPOSTA);
+        if (corpo.contains("lento")) {
+          lentoRespondido.countDown();
+        }
+      }
+    );
+    sidecar.createContext(
+      "/api/sidecar/email/pedidos/lote",
+      troca -> {
+        troca.getRequestBody().readAllBytes();
+        try {
+          sidecarLiberado.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+        }
+        responder(troca, "{\"resultados\":[]}");
+      }
+    );
+    sidecar.start();
+    url = "http://127.0.0.1:" + sidecar.getAddress().getPort();
+    executorCanais = Executors.newFixedThreadPool(16);
+    protecao = iniciarProtecao();
+  }
+
+  @AfterEach
+  void pararSidecar() throws InterruptedException {
+    sidecarLiberado.countDown();
+    if (acumulador != null) {
+      acumulador.parar();
+    }
+    protecao.parar();
+    sidecar.stop(0);
+    threadsSidecar.shutdownNow();
+    executorCanais.shutdownNow();
+  }
+
+  @Test
+  void canalAlemDoPrazoDeveExpirarSemAtrasarOsOutros() {
+    NotificacaoService service = iniciar(
+      executorCanais,
+      Duration.ofMillis(500)
+    );
+
+    Map<Canal, DesfechoCanal> desfechos = service
+      .processarNotificacao(pedido("pedido-lento"))
+      .join();
+
+    assertThat(desfechos).containsEntry(Canal.SMS, DesfechoCanal.ENVIADO);
+    assertThat(desfechos).containsEntry(Canal.PUSH, DesfechoCanal.ENVIADO);
+    assertThat(desfechos).containsEntry(Canal.EMAIL, DesfechoCanal.EXPIRADO);
+    // O pedido terminou com o sidecar ainda preso no email
+    assertThat(lentoRespondido.getCount()).isEqualTo(1);
+  }
+
+  @Test
+  void canaisDoPedidoDevemSairAoMesmoTempo() {
+    // Cada canal só começa quando os três já estão em threads do pool: em
+    // sequência, o primeiro esperaria pelos outros até desistir
+    CountDownLatch iniciados = new CountDownLatch(Canal.values().length);
+    AtomicBoolean juntos = new AtomicBoolean(true);
+    Executor emConjunto = tarefa ->
+      executorCanais.execute(() -> {
+        iniciados.countDown();
+        try {
+          if (!iniciados.await(1, TimeUnit.SECONDS)) {
+            juntos.set(false);
+          }
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+        }
+        tarefa.run();
+      });
+    NotificacaoService service = iniciar(emConjunto, Duration.ofSeconds(2));
+
+    Map<Canal, DesfechoCanal> desfechos = service
+      .processarNotificacao(pedido("pedido-1"))
+      .join();
+
+    assertThat(desfechos.values()).containsOnly(DesfechoCanal.ENVIADO);
+    assertThat(juntos).isTrue();
+  }
+
+  @Test
+  void emailEmLoteDeveContarAoEntrarNaFilaSemEsperarOSidecar() {
+    acumulador = new AcumuladorEmail(new RestTemplate(), protecao);
+    ReflectionTestUtils.setField(acumulador, "sidecarEmailUrl", url);
+    ReflectionTestUtils.setField(acumulador, "tamanho", 50);
+    ReflectionTestUtils.setField(acumulador, "espera", Duration.ofMillis(20));
+    ReflectionTestUtils.setField(acumulador, "capacidade", 100);
+    acumulador.iniciar();
+    DefaultListableBeanFactory beans = new DefaultListableBeanFactory();
+    beans.registerSingleton("acumuladorEmail", acumulador);
+    NotificacaoService service = iniciar(
+      executorCanais,
+      Duration.ofMillis(500),
+      beans.getBeanProvider(AcumuladorEmail.class)
+    );
+
+    // O endpoint de lote só responde no fim do teste, além do prazo do email
+    Map<Canal, DesfechoCanal> desfechos = service
+      .processarNotificacao(pedido("pedido-lote"))
+      .join();
+
+    assertThat(desfechos).containsEntry(
+      Canal.EMAIL,
+      DesfechoCanal.ENFILEIRADO
+    );
+    assertThat(desfechos).containsEntry(Canal.SMS, DesfechoCanal.ENVIADO);
+    assertThat(desfechos).containsEntry(Canal.PUSH, DesfechoCanal.ENVIADO);
+  }
+
+  private NotificacaoService iniciar(Executor executor, Duration prazoEmail) {
+    return iniciar(
+      executor,
+      prazoEmail,
+      new DefaultListableBeanFactory().getBeanProvider(AcumuladorEmail.class)
+    );
+  }
+
+  private NotificacaoService iniciar(
+    Executor executor,
+    Duration prazoEmail,
+    ObjectProvider<AcumuladorEmail> acumuladores
+  ) {
+    NotificacaoService service = new NotificacaoService(
+      Tracer.NOOP,
+      new RestTemplate(),
+      acumuladores,
+      protecao,
+      executor,
+      new SimpleMeterRegistry()
+    );
+    ReflectionTestUtils.setField(service, "sidecarEmailUrl", url);
+    ReflectionTestUtils.setField(service, "prazoSms", Duration.ofSeconds(1));
+    ReflectionTestUtils.setField(service, "prazoPush", Duration.ofSeconds(1));
+    ReflectionTestUtils.setField(service, "prazoEmail", prazoEmail);
+    ReflectionTestUtils.setField(
+      service,
+      "latenciaSms",
+      Duration.ofMillis(250)
+    );
+    ReflectionTestUtils.setField(
+      service,
+      "latenciaPush",
+      Duration.ofMillis(250)
+    );
+    return service;
+  }
+
+  private ProtecaoSidecar iniciarProtecao() {
+    ProtecaoSidecar nova = new ProtecaoSidecar(new SimpleMeterRegistry());
+    ReflectionTestUtils.setField(nova, "maxConcorrentes", 16);
+    ReflectionTestUtils.setField(
+      nova,
+      "esperaBulkhead",
+      Duration.ofMillis(50)
+    );
+    ReflectionTestUtils.setField(nova, "janela", 20);
+    ReflectionTestUtils.setField(nova, "minimoChamadas", 10);
+    ReflectionTestUtils.setField(nova, "taxaFalha", 0.5);
+    ReflectionTestUtils.setField(nova, "limiteLenta", Duration.ofSeconds(2));
+    ReflectionTestUtils.setField(nova, "abertoPor", Duration.ofSeconds(10));
+    ReflectionTestUtils.setField(nova, "chamadasTeste", 3);
+    ReflectionTestUtils.setField(nova, "capacidadeReenvio", 100);
+    ReflectionTestUtils.setField(nova, "tentativas", 5);
+    ReflectionTestUtils.setField(
+      nova,
+      "intervaloReenvio",
+      Duration.ofMillis(500)
+    );
+    nova.iniciar();
+    return nova;
+  }
+
+  private static void responder(HttpExchange troca, String resposta)
+    throws IOException {
+    byte[] bytes = resposta.getBytes(StandardCharsets.UTF_8);
+    troca.getResponseHeaders().add("Content-Type", "application/json");
+    troca.sendResponseHeaders(200, bytes.length);
+    try (OutputStream saida = troca.getResponseBody()) {
+      saida.write(bytes);
+    }
+  }
+
+  private static Pedido pedido(String id) {
+    return Pedido.builder()
+      .id(id)
+      .clienteId("CLI001")
+      .produtos(new ArrayList<>())
+      .build();
+  }
+}
@@ -0,0 +1,190 @@
+package com.arquitetura.notificacao.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.arquitetura.notificacao.model.Pedido;
+import com.arquitetura.notificacao.protecao.CircuitoSidecar;
+import com.arquitetura.notificacao.service.NotificacaoService.DesfechoCanal;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+class ProtecaoSidecarTest {
+
+  private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+  private ProtecaoSidecar protecao;
+
+  @AfterEach
+  void parar() throws InterruptedException {
+    if (protecao != null) {
+      protecao.parar();
+    }
+  }
+
+  @Test
+  void emailsDoSidecarForaDoArDevemSerReenviadosQuandoOCircuitoFechar()
+    throws Exception {
+    protecao = iniciar(10, Duration.ofMillis(200));
+    AtomicBoolean noAr = new AtomicBoolean(false);
+    Set<String> entregues = ConcurrentHashMap.newKeySet();
+
+    List<DesfechoCanal> desfechos = new ArrayList<>();
+    for (int i = 0; i < 10; i++) {
+      desfechos.add(
+        protecao
+          .enviar(pedido("pedido-" + i), email -> {
+            if (!noAr.get()) {
+              return CompletableFuture.completedFuture(false);
+            }
+            entregues.add(email.getId());
+            return CompletableFuture.completedFuture(true);
+          })
+          .get(5, TimeUnit.SECONDS)
+      );
+    }
+
+    // Quatro falhas abrem o circuito; os outros nem chegam ao sidecar
+    assertThat(desfechos).containsOnly(DesfechoCanal.ADIADO);
+    assertThat(protecao.getEstado()).isEqualTo(CircuitoSidecar.Estado.ABERTO);
+    assertThat(rejeicoes("circuito")).isGreaterThan(0);
+
+    noAr.set(true);
+    aguardar(() -> protecao.getPendentes() == 0 && entregues.size() == 10);
+
+    assertThat(entregues).hasSize(10);
+    assertThat(protecao.getEstado()).isEqualTo(CircuitoSidecar.Estado.FECHADO);
+    assertThat(
+      registry.get("notificacao.sidecar.reenviados").counter().count()
+    ).isEqualTo(10);
+    assertThat(
+      registry.get("notificacao.sidecar.reenvio.fila").gauge().value()
+    ).isZero();
+  }
+
+  @Test
+  void bulkheadCheioDeveAdiarSemSegurarAThreadDoCanal() throws Exception {
+    protecao = iniciar(2, Duration.ofSeconds(10));
+    List<CompletableFuture<Boolean>> presas = List.of(
+      new CompletableFuture<>(),
+      new CompletableFuture<>()
+    );
+    AtomicInteger chamadas = new AtomicInteger();
+
+    List<CompletableFuture<DesfechoCanal>> emAndamento = new ArrayList<>();
+    for (int i = 0; i < 2; i++) {
+      emAndamento.add(
+        protecao.enviar(pedido("lento-" + i), email -> {
+          int chamada = chamadas.getAndIncrement();
+          return chamada < presas.size()
+            ? presas.get(chamada)
+            : CompletableFuture.completedFuture(true);
+        })
+      );
+    }
+
+    long inicio = System.nanoTime();
+    DesfechoCanal terceiro = protecao
+      .enviar(pedido("terceiro"), email ->
+        CompletableFuture.completedFuture(true)
+      )
+      .get(1, TimeUnit.SECONDS);
+
+    assertThat(terceiro).isEqualTo(DesfechoCanal.ADIADO);
+    assertThat(Duration.ofNanos(System.nanoTime() - inicio)).isLessThan(
+      Duration.ofMillis(500)
+    );
+    assertThat(rejeicoes("bulkhead")).isEqualTo(1);
+
+    presas.forEach(presa -> presa.complete(true));
+    for (CompletableFuture<DesfechoCanal> desfecho : emAndamento) {
+      assertThat(desfecho.get(1, TimeUnit.SECONDS)).isEqualTo(
+        DesfechoCanal.ENVIADO
+      );
+    }
+    aguardar(() -> protecao.getPendentes() == 0);
+  }
+
+  @Test
+  void entregaDeveResolverAoEnfileirarEReenviarSeOLoteFalhar()
+    throws Exception {
+    protecao = iniciar(10, Duration.ofSeconds(10));
+    CompletableFuture<Boolean> lote = new CompletableFuture<>();
+    AtomicInteger chamadas = new AtomicInteger();
+
+    DesfechoCanal desfecho = protecao
+      .entregar(pedido("lote"), email ->
+        chamadas.getAndIncrement() == 0
+          ? lote
+          : CompletableFuture.completedFuture(true)
+      )
+      .get(1, TimeUnit.SECONDS);
+
+    assertThat(desfecho).isEqualTo(DesfechoCanal.ENFILEIRADO);
+    assertThat(protecao.getPendentes()).isZero();
+
+    // A resposta do lote chega depois, com falha: o email vai para o reenvio
+    lote.complete(false);
+    aguardar(() ->
+      registry.get("notificacao.sidecar.reenviados").counter().count() == 1
+    );
+    assertThat(chamadas).hasValue(2);
+    assertThat(protecao.getPendentes()).isZero();
+  }
+
+  private ProtecaoSidecar iniciar(int maxConcorrentes, Duration abertoPor) {
+    ProtecaoSidecar nova = new ProtecaoSidecar(registry);
+    ReflectionTestUtils.setField(nova, "maxConcorrentes", maxConcorrentes);
+    ReflectionTestUtils.setField(
+      nova,
+      "esperaBulkhead",
+      Duration.ofMillis(10)
+    );
+    ReflectionTestUtils.setField(nova, "janela", 4);
+    ReflectionTestUtils.setField(nova, "minimoChamadas", 4);
+    ReflectionTestUtils.setField(nova, "taxaFalha", 0.5);
+    ReflectionTestUtils.setField(nova, "limiteLenta", Duration.ofSeconds(2));
+    ReflectionTestUtils.setField(nova, "abertoPor", abertoPor);
+    ReflectionTestUtils.setField(nova, "chamadasTeste", 1);
+    ReflectionTestUtils.setField(nova, "capacidadeReenvio", 100);
+    ReflectionTestUtils.setField(nova, "tentativas", 20);
+    ReflectionTestUtils.setField(
+      nova,
+      "intervaloReenvio",
+      Duration.ofMillis(20)
+    );
+    nova.iniciar();
+    return nova;
+  }
+
+  private double rejeicoes(String motivo) {
+    return registry
+      .get("notificacao.sidecar.rejeicoes")
+      .tag("motivo", motivo)
+      .counter()
+      .count();
+  }
+
+  private static void aguardar(BooleanSupplier condicao)
+    throws InterruptedException {
+    long limite = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+    while (!condicao.getAsBoolean() && System.nanoTime() < limite) {
+      Thread.sleep(10);
+    }
+    assertThat(condicao.getAsBoolean()).isTrue();
+  }
+
+  private static Pedido pedido(String id) {
+    return Pedido.builder().id(id).clienteId("CLI001").build();
+  }
+}
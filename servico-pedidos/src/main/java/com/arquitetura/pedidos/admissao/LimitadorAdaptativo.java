@@ -0,0 +1,175 @@
+package com.arquitetura.pedidos.admissao;
+
+import com.arquitetura.pedidos.exception.SobrecargaException;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.LongSupplier;
+
+/**
+ * Limite de envios simultâneos ajustado por AIMD.
+ *
+ * <p>Cada envio concluído alimenta uma média móvel (EWMA) da latência do ack.
+ * Enquanto a média fica abaixo de {@code tolerancia × latência base} e o
+ * limite está sendo usado, ele cresce um envio a cada "limite" sucessos; uma
+ * falha, latência alta ou buffer do produtor saturado reduzem o limite de forma
+ * multiplicativa (no máximo uma vez por janela de latência). Acima do limite a
+ * requisição é rejeitada na hora, sem enfileirar.
+ */
+public class LimitadorAdaptativo {
+
+  private static final double PESO_EWMA = 0.1;
+  private static final double DERIVA_BASE = 0.001;
+  private static final double FATOR_REDUCAO = 0.8;
+  private static final long JANELA_MINIMA_REDUCAO = 50_000_000L;
+
+  private final int limiteMinimo;
+  private final int limiteMaximo;
+  private final double tolerancia;
+  private final LongSupplier relogio;
+
+  private final AtomicInteger emVoo = new AtomicInteger();
+  private volatile int limite;
+  private volatile boolean bufferSaturado;
+  private volatile double latenciaMedia;
+  private volatile double latenciaBase;
+
+  private int sucessosDesdeAumento;
+  private long ultimaReducao;
+
+  public LimitadorAdaptativo(
+    int limiteInicial,
+    int limiteMinimo,
+    int limiteMaximo,
+    double tolerancia
+  ) {
+    this(
+      limiteInicial,
+      limiteMinimo,
+      limiteMaximo,
+      tolerancia,
+      System::nanoTime
+    );
+  }
+
+  LimitadorAdaptativo(
+    int limiteInicial,
+    int limiteMinimo,
+    int limiteMaximo,
+    double tolerancia,
+    LongSupplier relogio
+  ) {
+    if (
+      limiteMinimo < 1 ||
+      limiteMinimo > limiteMaximo ||
+      limiteInicial < limiteMinimo ||
+      limiteInicial > limiteMaximo
+    ) {
+      throw new IllegalArgumentException(
+        "Limites inválidos: inicial=" +
+        limiteInicial +
+        ", mínimo=" +
+        limiteMinimo +
+        ", máximo=" +
+        limiteMaximo
+      );
+    }
+    this.limite = limiteInicial;
+    this.limiteMinimo = limiteMinimo;
+    this.limiteMaximo = limiteMaximo;
+    this.tolerancia = tolerancia;
+    this.relogio = relogio;
+    this.ultimaReducao = relogio.getAsLong() - JANELA_MINIMA_REDUCAO;
+  }
+
+  /**
+   * Reserva uma vaga para um envio e devolve o instante de início, que deve
+   * ser repassado a {@link #liberar(long, boolean)} quando o ack chegar.
+   */
+  public long adquirir() {
+    if (bufferSaturado) {
+      throw new SobrecargaException(
+        SobrecargaException.Motivo.BUFFER_SATURADO,
+        tentarNovamenteEm()
+      );
+    }
+
+    int atual;
+    do {
+      atual = emVoo.get();
+      if (atual >= limite) {
+        throw new SobrecargaException(
+          SobrecargaException.Motivo.LIMITE_CONCORRENCIA,
+          tentarNovamenteEm()
+        );
+      }
+    } while (!emVoo.compareAndSet(atual, atual + 1));
+
+    return relogio.getAsLong();
+  }
+
+  public void liberar(long inicio, boolean sucesso) {
+    long agora = relogio.getAsLong();
+    int emVooAntes = emVoo.getAndDecrement();
+
+    synchronized (this) {
+      double amostra = agora - inicio;
+      if (latenciaMedia == 0) {
+        latenciaMedia = amostra;
+        latenciaBase = amostra;
+      } else {
+        latenciaMedia += (amostra - latenciaMedia) * PESO_EWMA;
+        latenciaBase = Math.min(latenciaBase, amostra);
+        latenciaBase += (latenciaMedia - latenciaBase) * DERIVA_BASE;
+      }
+
+      if (!sucesso || latenciaMedia > latenciaBase * tolerancia) {
+        reduzir(agora);
+      } else if (emVooAntes * 2 >= limite) {
+        if (++sucessosDesdeAumento >= limite) {
+          limite = Math.min(limiteMaximo, limite + 1);
+          sucessosDesdeAumento = 0;
+        }
+      }
+    }
+  }
+
+  public void atualizarBuffer(boolean saturado) {
+    if (saturado && !bufferSaturado) {
+      synchronized (this) {
+        reduzir(relogio.getAsLong());
+      }
+    }
+    bufferSaturado = saturado;
+  }
+
+  public Duration tentarNovamenteEm() {
+    long nanos = (long) Math.max(latenciaMedia * 4, 1_000_000_000L);
+    return Duration.ofSeconds((nanos + 999_999_999L) / 1_000_000_000L);
+  }
+
+  public int getLimite() {
+    return limite;
+  }
+
+  public int getEmVoo() {
+    return emVoo.get();
+  }
+
+  public boolean isBufferSaturado() {
+    return bufferSaturado;
+  }
+
+  public double getLatenciaMediaMillis() {
+    return latenciaMedia / 1_000_000.0;
+  }
+
+  private void reduzir(long agora) {
+    long janela = Math.max(JANELA_MINIMA_REDUCAO, (long) latenciaMedia);
+    if (agora - ultimaReducao < janela) {
+      return;
+    }
+    limite = Math.max(limiteMinimo, (int) (limite * FATOR_REDUCAO));
+    sucessosDesdeAumento = 0;
+    ultimaReducao = agora;
+  }
+}
@@ -0,0 +1,51 @@
+package com.arquitetura.pedidos.config;
+
+import com.arquitetura.pedidos.id.GeradorIdAleatorio;
+import com.arquitetura.pedidos.id.GeradorIdOrdenado;
+import com.arquitetura.pedidos.id.GeradorIdPedido;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Slf4j
+@Configuration
+public class GeradorIdConfig {
+
+  @Value("${app.pedidos.id.prefixo:PED-}")
+  private String prefixo;
+
+  @Value("${app.pedidos.id.no:-1}")
+  private int no;
+
+  @Bean
+  @ConditionalOnProperty(
+    name = "app.pedidos.id.estrategia",
+    havingValue = "ordenado",
+    matchIfMissing = true
+  )
+  public GeradorIdPedido geradorIdOrdenado() {
+    // Sem nó derivado do host: hashes de hostnames diferentes colidem nos 10
+    // bits, e duas instâncias com o mesmo nó geram IDs repetidos
+    if (no < 0) {
+      throw new IllegalStateException(
+        "app.pedidos.id.no (PEDIDOS_NODE_ID) é obrigatório com o gerador " +
+        "ordenado: defina um nó único por instância, entre 0 e " +
+        GeradorIdOrdenado.MAXIMO_NO
+      );
+    }
+    log.info("🆔 [ID] Gerador de IDs ordenado pelo tempo (nó {})", no);
+    return new GeradorIdOrdenado(prefixo, no);
+  }
+
+  @Bean
+  @ConditionalOnProperty(
+    name = "app.pedidos.id.estrategia",
+    havingValue = "aleatorio"
+  )
+  public GeradorIdPedido geradorIdAleatorio() {
+    log.info("🆔 [ID] Gerador de IDs aleatório (UUID)");
+    return new GeradorIdAleatorio(prefixo);
+  }
+}
@@ -0,0 +1,124 @@
+package com.arquitetura.pedidos.config;
+
+import com.arquitetura.pedidos.model.EventoStatusPedido;
+import com.arquitetura.pedidos.model.Pedido;
+import com.arquitetura.pedidos.serializer.PedidoDeserializer;
+import java.util.HashMap;
+import java.util.Map;
+import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.common.serialization.StringDeserializer;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.kafka.config.ConcurrentKafkaListenerContainerFactory;
+import org.springframework.kafka.core.ConsumerFactory;
+import org.springframework.kafka.core.DefaultKafkaConsumerFactory;
+import org.springframework.kafka.listener.ContainerProperties.AckMode;
+import org.springframework.kafka.support.serializer.ErrorHandlingDeserializer;
+import org.springframework.kafka.support.serializer.JsonDeserializer;
+
+/**
+ * Consumidores do modelo de leitura. O group-id é único por instância e não há
+ * commit de offsets (ack manual nunca confirmado), então cada instância relê os
+ * tópicos desde o início ao subir e reconstrói o modelo em memória. Registros
+ * que não desserializam chegam como null ao listener, em vez de fazer todo
+ * poll falhar e congelar o modelo.
+ */
+@Configuration
+public class KafkaConsumerConfig {
+
+  @Value("${spring.kafka.bootstrap-servers}")
+  private String bootstrapServers;
+
+  @Value("${app.pedidos.consulta.grupo}")
+  private String groupId;
+
+  @Bean
+  public ConsumerFactory<String, Pedido> consultaPedidoConsumerFactory() {
+    Map<String, Object> configProps = propriedadesBase();
+
+    configProps.put(
+      ErrorHandlingDeserializer.VALUE_DESERIALIZER_CLASS,
+      PedidoDeserializer.class
+    );
+    configProps.put(
+      JsonDeserializer.VALUE_DEFAULT_TYPE,
+      "com.arquitetura.pedidos.model.Pedido"
+    );
+
+    return new DefaultKafkaConsumerFactory<>(configProps);
+  }
+
+  @Bean
+  public ConsumerFactory<
+    String,
+    EventoStatusPedido
+  > consultaStatusConsumerFactory() {
+    Map<String, Object> configProps = propriedadesBase();
+
+    configProps.put(
+      ErrorHandlingDeserializer.VALUE_DESERIALIZER_CLASS,
+      JsonDeserializer.class
+    );
+    configProps.put(
+      JsonDeserializer.VALUE_DEFAULT_TYPE,
+      "com.arquitetura.pedidos.model.EventoStatusPedido"
+    );
+
+    return new DefaultKafkaConsumerFactory<>(configProps);
+  }
+
+  @Bean
+  public ConcurrentKafkaListenerContainerFactory<
+    String,
+    Pedido
+  > kafkaListenerContainerFactory() {
+    ConcurrentKafkaListenerContainerFactory<String, Pedido> factory =
+      new ConcurrentKafkaListenerContainerFactory<>();
+
+    factory.setConsumerFactory(consultaPedidoConsumerFactory());
+    factory.setConcurrency(1);
+    factory.getContainerProperties().setAckMode(AckMode.MANUAL);
+
+    return factory;
+  }
+
+  @Bean
+  public ConcurrentKafkaListenerContainerFactory<
+    String,
+    EventoStatusPedido
+  > consultaStatusListenerContainerFactory() {
+    ConcurrentKafkaListenerContainerFactory<
+      String,
+      EventoStatusPedido
+    > factory = new ConcurrentKafkaListenerContainerFactory<>();
+
+    factory.setConsumerFactory(consultaStatusConsumerFactory());
+    factory.setConcurrency(1);
+    factory.getContainerProperties().setAckMode(AckMode.MANUAL);
+
+    return factory;
+  }
+
+  private Map<String, Object> propriedadesBase() {
+    Map<String, Object> configProps = new HashMap<>();
+
+    configProps.put(ConsumerConfig.BOOTSTRAP_SERVERS_CONFIG, bootstrapServers);
+    configProps.put(ConsumerConfig.GROUP_ID_CONFIG, groupId);
+    configProps.put(
+      ConsumerConfig.KEY_DESERIALIZER_CLASS_CONFIG,
+      StringDeserializer.class
+    );
+    configProps.put(
+      ConsumerConfig.VALUE_DESERIALIZER_CLASS_CONFIG,
+      ErrorHandlingDeserializer.class
+    );
+    configProps.put(ConsumerConfig.AUTO_OFFSET_RESET_CONFIG, "earliest");
+    configProps.put(ConsumerConfig.ENABLE_AUTO_COMMIT_CONFIG, false);
+    configProps.put(ConsumerConfig.MAX_POLL_RECORDS_CONFIG, 2000);
+    configProps.put(JsonDeserializer.TRUSTED_PACKAGES, "*");
+    configProps.put(JsonDeserializer.USE_TYPE_INFO_HEADERS, false);
+
+    return configProps;
+  }
+}
@@ -3,6 +3,9 @@ package com.arquitetura.pedidos.config;
 import brave.Tracing;
 import brave.kafka.clients.KafkaTracing;
 import com.arquitetura.pedidos.model.Pedido;
+import com.arquitetura.pedidos.serializer.PedidoSerializer;
+import java.time.Duration;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.Map;
 import org.apache.kafka.clients.producer.ProducerConfig;
@@ -13,7 +16,6 @@ import org.springframework.context.annotation.Configuration;
 import org.springframework.kafka.core.DefaultKafkaProducerFactory;
 import org.springframework.kafka.core.KafkaTemplate;
 import org.springframework.kafka.core.ProducerFactory;
-import org.springframework.kafka.support.serializer.JsonSerializer;
 
 @Configuration
 public class KafkaProducerConfig {
@@ -21,19 +23,17 @@ public class KafkaProducerConfig {
   @Value("${spring.kafka.bootstrap-servers}")
   private String bootstrapServers;
 
+  @Value("${app.kafka.producer.max-block:2s}")
+  private Duration maxBlock;
+
+  @Value("${app.kafka.codec.topicos-binarios:}")
+  private String[] topicosBinarios;
+
   @Bean
   public ProducerFactory<String, Pedido> producerFactory() {
     Map<String, Object> configProps = new HashMap<>();
 
     configProps.put(ProducerConfig.BOOTSTRAP_SERVERS_CONFIG, bootstrapServers);
-    configProps.put(
-      ProducerConfig.KEY_SERIALIZER_CLASS_CONFIG,
-      StringSerializer.class
-    );
-    configProps.put(
-      ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG,
-      JsonSerializer.class
-    );
     configProps.put(ProducerConfig.ACKS_CONFIG, "all");
     configProps.put(ProducerConfig.RETRIES_CONFIG, 3);
     configProps.put(ProducerConfig.ENABLE_IDEMPOTENCE_CONFIG, true);
@@ -41,8 +41,13 @@ public class KafkaProducerConfig {
     configProps.put(ProducerConfig.LINGER_MS_CONFIG, 10);
     configProps.put(ProducerConfig.BUFFER_MEMORY_CONFIG, 33554432);
     configProps.put(ProducerConfig.COMPRESSION_TYPE_CONFIG, "gzip");
+    configProps.put(ProducerConfig.MAX_BLOCK_MS_CONFIG, maxBlock.toMillis());
 
-    return new DefaultKafkaProducerFactory<>(configProps);
+    return new DefaultKafkaProducerFactory<>(
+      configProps,
+      new StringSerializer(),
+      new PedidoSerializer(Arrays.asList(topicosBinarios))
+    );
   }
 
   @Bean
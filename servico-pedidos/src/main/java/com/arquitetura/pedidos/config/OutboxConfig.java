@@ -0,0 +1,42 @@
+package com.arquitetura.pedidos.config;
+
+import com.arquitetura.pedidos.outbox.OutboxLog;
+import java.io.IOException;
+import java.nio.file.Path;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.util.unit.DataSize;
+
+@Slf4j
+@Configuration
+@ConditionalOnProperty(name = "app.outbox.habilitado", havingValue = "true")
+public class OutboxConfig {
+
+  @Value("${app.outbox.diretorio:./data/outbox}")
+  private Path diretorio;
+
+  @Value("${app.outbox.tamanho-segmento:64MB}")
+  private DataSize tamanhoSegmento;
+
+  @Bean(destroyMethod = "close")
+  public OutboxLog outboxLog() throws IOException {
+    OutboxLog outboxLog = new OutboxLog(
+      diretorio,
+      Math.toIntExact(tamanhoSegmento.toBytes())
+    );
+
+    log.info("📮 [OUTBOX] Log local de eventos aberto");
+    log.info("   └─ Diretório: {}", diretorio.toAbsolutePath());
+    log.info("   └─ Segmento: {}", tamanhoSegmento);
+    log.info("   └─ Posição durável: {}", outboxLog.getPosicaoDuravel());
+    log.info(
+      "   └─ Posição retransmitida: {}",
+      outboxLog.getPosicaoRetransmitida()
+    );
+
+    return outboxLog;
+  }
+}
@@ -0,0 +1,14 @@
+package com.arquitetura.pedidos.consulta;
+
+import com.arquitetura.pedidos.model.StatusPedido;
+import java.time.LocalDateTime;
+
+public record PedidoResumo(
+  String id,
+  String clienteId,
+  StatusPedido status,
+  long valorTotalCentavos,
+  String moeda,
+  int quantidadeItens,
+  LocalDateTime dataCriacao
+) {}
@@ -0,0 +1,373 @@
+package com.arquitetura.pedidos.consulta;
+
+import com.arquitetura.pedidos.model.Dinheiro;
+import com.arquitetura.pedidos.model.Pedido;
+import com.arquitetura.pedidos.model.StatusPedido;
+import java.nio.ByteBuffer;
+import java.nio.LongBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.locks.StampedLock;
+
+/**
+ * Modelo de leitura de pedidos guardado fora do heap.
+ *
+ * <p>Cada pedido ocupa um registro fixo de 64 bytes em blocos diretos
+ * ({@code status, id, índice da moeda, índice do cliente, valor em centavos,
+ * data, itens, registro anterior do mesmo cliente}). O índice por ID é uma
+ * tabela de endereçamento aberto de {@code long} também fora do heap, onde
+ * cada posição guarda o hash do ID e o número do registro; colisões são
+ * resolvidas comparando o ID gravado. Os pedidos de cada cliente formam uma lista ligada
+ * do mais novo para o mais antigo, usada na paginação por cursor.
+ *
+ * <p>Há um único escritor (o consumidor do tópico) e leitores concorrentes:
+ * buscas por ID usam leitura otimista do {@link StampedLock}.
+ */
+public class RepositorioPedidos {
+
+  public static final int TAMANHO_MAXIMO_ID = 32;
+
+  private static final int TAMANHO_REGISTRO = 64;
+  private static final int BITS_POR_BLOCO = 16;
+  private static final int REGISTROS_POR_BLOCO = 1 << BITS_POR_BLOCO;
+  private static final int CAPACIDADE_INICIAL_TABELA = 1 << 16;
+  private static final int CAPACIDADE_MAXIMA_TABELA = 1 << 28;
+  private static final int SEM_REGISTRO = -1;
+  private static final long SEM_DATA = Long.MIN_VALUE;
+
+  private static final int POS_STATUS = 0;
+  private static final int POS_TAMANHO_ID = 1;
+  private static final int POS_ID = 2;
+  private static final int POS_MOEDA = 34;
+  private static final int POS_CLIENTE = 36;
+  private static final int POS_VALOR = 40;
+  private static final int POS_DATA = 48;
+  private static final int POS_ITENS = 56;
+  private static final int POS_ANTERIOR = 60;
+
+  private static final StatusPedido[] STATUS = StatusPedido.values();
+
+  private final StampedLock lock = new StampedLock();
+
+  private ByteBuffer[] blocos = new ByteBuffer[0];
+  private int totalRegistros;
+
+  private LongBuffer tabela;
+  private int mascara;
+
+  private final Map<String, Integer> indiceClientes = new HashMap<>();
+  private String[] clientes = new String[1024];
+  private int[] ultimoDoCliente = new int[1024];
+  private final List<String> moedas = new ArrayList<>();
+
+  public RepositorioPedidos() {
+    tabela = novaTabela(CAPACIDADE_INICIAL_TABELA);
+    mascara = CAPACIDADE_INICIAL_TABELA - 1;
+  }
+
+  public boolean registrar(Pedido pedido) {
+    byte[] id = pedido.getId().getBytes(StandardCharsets.UTF_8);
+    if (id.length > TAMANHO_MAXIMO_ID) {
+      throw new IllegalArgumentException(
+        "ID de pedido excede " + TAMANHO_MAXIMO_ID + " bytes: " + pedido.getId()
+      );
+    }
+    int hash = hash(pedido.getId());
+
+    long stamp = lock.writeLock();
+    try {
+      if (localizar(id, hash) != SEM_REGISTRO) {
+        return false;
+      }
+
+      int registro = totalRegistros;
+      if (registro >> BITS_POR_BLOCO == blocos.length) {
+        blocos = Arrays.copyOf(blocos, blocos.length + 1);
+        blocos[blocos.length - 1] = ByteBuffer.allocateDirect(
+          REGISTROS_POR_BLOCO * TAMANHO_REGISTRO
+        );
+      }
+
+      int cliente = indiceCliente(pedido.getClienteId());
+      ByteBuffer bloco = bloco(registro);
+      int base = posicao(registro);
+
+      bloco.put(base + POS_STATUS, codigoStatus(pedido.getStatus()));
+      bloco.put(base + POS_TAMANHO_ID, (byte) id.length);
+      bloco.put(base + POS_ID, id);
+      bloco.putShort(base + POS_MOEDA, indiceMoeda(pedido.getMoeda()));
+      bloco.putInt(base + POS_CLIENTE, cliente);
+      bloco.putLong(base + POS_VALOR, pedido.getValorTotalCentavos());
+      bloco.putLong(base + POS_DATA, paraMillis(pedido.getDataCriacao()));
+      bloco.putInt(
+        base + POS_ITENS,
+        pedido.getProdutos() != null ? pedido.getProdutos().size() : 0
+      );
+      bloco.putInt(base + POS_ANTERIOR, ultimoDoCliente[cliente]);
+
+      ultimoDoCliente[cliente] = registro;
+      totalRegistros = registro + 1;
+
+      if ((long) totalRegistros * 10 > (long) (mascara + 1) * 6) {
+        redimensionar();
+      }
+      inserirNaTabela(hash, registro);
+      return true;
+    } finally {
+      lock.unlockWrite(stamp);
+    }
+  }
+
+  public boolean atualizarStatus(String pedidoId, StatusPedido status) {
+    byte[] id = pedidoId.getBytes(StandardCharsets.UTF_8);
+    int hash = hash(pedidoId);
+
+    long stamp = lock.writeLock();
+    try {
+      int registro = localizar(id, hash);
+      if (registro == SEM_REGISTRO) {
+        return false;
+      }
+      bloco(registro).put(posicao(registro) + POS_STATUS, codigoStatus(status));
+      return true;
+    } finally {
+      lock.unlockWrite(stamp);
+    }
+  }
+
+  public Optional<PedidoResumo> buscar(String pedidoId) {
+    byte[] id = pedidoId.getBytes(StandardCharsets.UTF_8);
+    int hash = hash(pedidoId);
+
+    long stamp = lock.tryOptimisticRead();
+    PedidoResumo resumo = null;
+    try {
+      resumo = buscarSemLock(id, hash);
+    } catch (RuntimeException e) {
+      // Leitura cruzou com uma escrita; será refeita sob o lock
+    }
+
+    if (!lock.validate(stamp)) {
+      stamp = lock.readLock();
+      try {
+        resumo = buscarSemLock(id, hash);
+      } finally {
+        lock.unlockRead(stamp);
+      }
+    }
+
+    return Optional.ofNullable(resumo);
+  }
+
+  /**
+   * Lista os pedidos do cliente do mais recente para o mais antigo. O cursor
+   * é o número do próximo registro devolvido em {@link Pagina#proximoCursor()}
+   * ou negativo para começar do pedido mais recente.
+   */
+  public Pagina listarPorCliente(String clienteId, int cursor, int limite) {
+    long stamp = lock.readLock();
+    try {
+      Integer cliente = indiceClientes.get(clienteId);
+      if (cliente == null) {
+        return new Pagina(List.of(), null);
+      }
+
+      int registro = cursor < 0 ? ultimoDoCliente[cliente] : cursor;
+      if (
+        registro != SEM_REGISTRO &&
+        (registro >= totalRegistros ||
+          bloco(registro).getInt(posicao(registro) + POS_CLIENTE) != cliente)
+      ) {
+        throw new IllegalArgumentException("Cursor inválido: " + cursor);
+      }
+
+      List<PedidoResumo> pedidos = new ArrayList<>(Math.min(limite, 256));
+      while (registro != SEM_REGISTRO && pedidos.size() < limite) {
+        pedidos.add(ler(registro));
+        registro = bloco(registro).getInt(posicao(registro) + POS_ANTERIOR);
+      }
+
+      return new Pagina(pedidos, registro != SEM_REGISTRO ? registro : null);
+    } finally {
+      lock.unlockRead(stamp);
+    }
+  }
+
+  public int getTotalPedidos() {
+    return totalRegistros;
+  }
+
+  public long getBytesForaDoHeap() {
+    return (
+      (long) blocos.length * REGISTROS_POR_BLOCO * TAMANHO_REGISTRO +
+      (long) (mascara + 1) * Long.BYTES
+    );
+  }
+
+  private PedidoResumo buscarSemLock(byte[] id, int hash) {
+    int registro = localizar(id, hash);
+    return registro != SEM_REGISTRO ? ler(registro) : null;
+  }
+
+  private int localizar(byte[] id, int hash) {
+    LongBuffer tabela = this.tabela;
+    int mascara = this.mascara;
+
+    int i = hash & mascara;
+    for (int tentativas = 0; tentativas <= mascara; tentativas++) {
+      long entrada = tabela.get(i);
+      if (entrada == 0) {
+        return SEM_REGISTRO;
+      }
+      if ((int) (entrada >>> 32) == hash) {
+        int registro = (int) entrada - 1;
+        if (mesmoId(registro, id)) {
+          return registro;
+        }
+      }
+      i = (i + 1) & mascara;
+    }
+    return SEM_REGISTRO;
+  }
+
+  private boolean mesmoId(int registro, byte[] id) {
+    ByteBuffer bloco = bloco(registro);
+    int base = posicao(registro);
+    if (bloco.get(base + POS_TAMANHO_ID) != id.length) {
+      return false;
+    }
+    for (int i = 0; i < id.length; i++) {
+      if (bloco.get(base + POS_ID + i) != id[i]) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private PedidoResumo ler(int registro) {
+    ByteBuffer bloco = bloco(registro);
+    int base = posicao(registro);
+
+    byte[] id = new byte[bloco.get(base + POS_TAMANHO_ID)];
+    bloco.get(base + POS_ID, id);
+    int status = bloco.get(base + POS_STATUS);
+    long data = bloco.getLong(base + POS_DATA);
+
+    return new PedidoResumo(
+      new String(id, StandardCharsets.UTF_8),
+      clientes[bloco.getInt(base + POS_CLIENTE)],
+      status > 0 ? STATUS[status - 1] : null,
+      bloco.getLong(base + POS_VALOR),
+      moedas.get(bloco.getShort(base + POS_MOEDA)),
+      bloco.getInt(base + POS_ITENS),
+      data != SEM_DATA ? deMillis(data) : null
+    );
+  }
+
+  private void inserirNaTabela(int hash, int registro) {
+    long entrada = ((long) hash << 32) | (registro + 1L);
+    int i = hash & mascara;
+    while (tabela.get(i) != 0) {
+      i = (i + 1) & mascara;
+    }
+    tabela.put(i, entrada);
+  }
+
+  private void redimensionar() {
+    int capacidade = (mascara + 1) << 1;
+    if (capacidade > CAPACIDADE_MAXIMA_TABELA) {
+      throw new IllegalStateException(
+        "Modelo de leitura atingiu a capacidade máxima do índice"
+      );
+    }
+
+    LongBuffer antiga = tabela;
+    LongBuffer nova = novaTabela(capacidade);
+    int novaMascara = capacidade - 1;
+
+    for (int i = 0; i <= mascara; i++) {
+      long entrada = antiga.get(i);
+      if (entrada != 0) {
+        int j = (int) (entrada >>> 32) & novaMascara;
+        while (nova.get(j) != 0) {
+          j = (j + 1) & novaMascara;
+        }
+        nova.put(j, entrada);
+      }
+    }
+
+    tabela = nova;
+    mascara = novaMascara;
+  }
+
+  private int indiceCliente(String clienteId) {
+    Integer existente = indiceClientes.get(clienteId);
+    if (existente != null) {
+      return existente;
+    }
+
+    int indice = indiceClientes.size();
+    if (indice == clientes.length) {
+      clientes = Arrays.copyOf(clientes, indice * 2);
+      ultimoDoCliente = Arrays.copyOf(ultimoDoCliente, indice * 2);
+    }
+    clientes[indice] = clienteId;
+    ultimoDoCliente[indice] = SEM_REGISTRO;
+    indiceClientes.put(clienteId, indice);
+    return indice;
+  }
+
+  private short indiceMoeda(String moeda) {
+    String codigo = Dinheiro.moedaOuPadrao(moeda);
+    int indice = moedas.indexOf(codigo);
+    if (indice < 0) {
+      indice = moedas.size();
+      moedas.add(codigo);
+    }
+    return (short) indice;
+  }
+
+  private ByteBuffer bloco(int registro) {
+    return blocos[registro >>> BITS_POR_BLOCO];
+  }
+
+  private static int posicao(int registro) {
+    return (registro & (REGISTROS_POR_BLOCO - 1)) * TAMANHO_REGISTRO;
+  }
+
+  private static LongBuffer novaTabela(int capacidade) {
+    return ByteBuffer.allocateDirect(capacidade * Long.BYTES).asLongBuffer();
+  }
+
+  private static int hash(String id) {
+    int h = id.hashCode() * 0x9E3779B9;
+    return h ^ (h >>> 16);
+  }
+
+  private static byte codigoStatus(StatusPedido status) {
+    return (byte) (status != null ? status.ordinal() + 1 : 0);
+  }
+
+  private static long paraMillis(LocalDateTime data) {
+    return data != null
+      ? data.toInstant(ZoneOffset.UTC).toEpochMilli()
+      : SEM_DATA;
+  }
+
+  private static LocalDateTime deMillis(long millis) {
+    return LocalDateTime.ofEpochSecond(
+      Math.floorDiv(millis, 1000),
+      (int) Math.floorMod(millis, 1000) * 1_000_000,
+      ZoneOffset.UTC
+    );
+  }
+
+  public record Pagina(List<PedidoResumo> pedidos, Integer proximoCursor) {}
+}
@@ -1,15 +1,26 @@
 package com.arquitetura.pedidos.controller;
 
+import com.arquitetura.pedidos.dto.PaginaPedidosDTO;
 import com.arquitetura.pedidos.dto.PedidoRequestDTO;
 import com.arquitetura.pedidos.dto.PedidoResponseDTO;
+import com.arquitetura.pedidos.dto.PedidoResumoDTO;
+import com.arquitetura.pedidos.model.ModoConfirmacao;
+import com.arquitetura.pedidos.service.ConsultaPedidoService;
+import com.arquitetura.pedidos.service.IdempotenciaService;
+import com.arquitetura.pedidos.service.PedidoLoteService;
 import com.arquitetura.pedidos.service.PedidoService;
 import io.micrometer.tracing.Tracer;
+import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
+import java.util.concurrent.CompletableFuture;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 @Slf4j
 @RestController
@@ -17,32 +28,149 @@ import org.springframework.web.bind.annotation.*;
 @RequiredArgsConstructor
 public class PedidoController {
 
+  private static final String HEADER_IDEMPOTENCIA = "Idempotency-Key";
+  private static final String HEADER_REPETIDA = "Idempotent-Replayed";
+
   private final PedidoService pedidoService;
+  private final PedidoLoteService pedidoLoteService;
+  private final IdempotenciaService idempotenciaService;
+  private final ConsultaPedidoService consultaPedidoService;
   private final Tracer tracer;
 
+  @Value("${app.pedidos.modo-confirmacao:FIRE_AND_FORGET}")
+  private ModoConfirmacao modoConfirmacaoPadrao;
+
   @PostMapping
-  public ResponseEntity<PedidoResponseDTO> criarPedido(
-    @Valid @RequestBody PedidoRequestDTO request
+  public CompletableFuture<ResponseEntity<PedidoResponseDTO>> criarPedido(
+    @Valid @RequestBody PedidoRequestDTO request,
+    @RequestParam(name = "confirmacao", required = false)
+    ModoConfirmacao confirmacao,
+    @RequestHeader(name = HEADER_IDEMPOTENCIA, required = false)
+    String chaveIdempotencia
   ) {
     var span = tracer.currentSpan();
     var traceId = span != null ? span.context().traceId() : "no-trace";
+    ModoConfirmacao modo = confirmacao != null
+      ? confirmacao
+      : modoConfirmacaoPadrao;
+
+    if (log.isDebugEnabled()) {
+      log.debug("═══════════════════════════════════════════════════════════");
+      log.debug("🎯 [CONTROLLER] Nova requisição para criar pedido");
+      log.debug("   └─ Trace ID: {}", traceId);
+      log.debug("   └─ Cliente: {}", request.getClienteId());
+      log.debug("   └─ Modo de confirmação: {}", modo);
+      if (chaveIdempotencia != null) {
+        log.debug("   └─ Idempotency-Key: {}", chaveIdempotencia);
+      }
+      log.debug("═══════════════════════════════════════════════════════════");
+    }
+
+    CompletableFuture<PedidoResponseDTO> resposta;
+    boolean repetida = false;
+
+    if (chaveIdempotencia == null || chaveIdempotencia.isBlank()) {
+      resposta = criarConforme(modo, request);
+    } else {
+      IdempotenciaService.Execucao execucao = idempotenciaService.executar(
+        chaveIdempotencia,
+        request,
+        () -> criarConforme(modo, request)
+      );
+      resposta = execucao.resposta();
+      repetida = execucao.repetida();
+    }
+
+    boolean respostaRepetida = repetida;
+    return resposta.thenApply(response -> {
+      if (log.isDebugEnabled()) {
+        log.debug("═══════════════════════════════════════════════════════════");
+        log.debug("✅ [CONTROLLER] Pedido processado com sucesso!");
+        log.debug("   └─ Pedido ID: {}", response.getId());
+        log.debug("   └─ Trace ID: {}", traceId);
+        log.debug("   └─ Status: {}", response.getStatus());
+        log.debug("═══════════════════════════════════════════════════════════");
+      }
+      log.info(
+        "etapa=pedido.aceito pedidoId={} clienteId={} modo={} repetida={}",
+        response.getId(),
+        response.getClienteId(),
+        modo,
+        respostaRepetida
+      );
 
-    log.info("═══════════════════════════════════════════════════════════");
-    log.info("🎯 [CONTROLLER] Nova requisição para criar pedido");
-    log.info("   └─ Trace ID: {}", traceId);
-    log.info("   └─ Cliente: {}", request.getClienteId());
-    log.info("═══════════════════════════════════════════════════════════");
+      return ResponseEntity.status(HttpStatus.CREATED)
+        .header(HEADER_REPETIDA, String.valueOf(respostaRepetida))
+        .body(response);
+    });
+  }
 
-    PedidoResponseDTO response = pedidoService.criarPedido(request);
+  private CompletableFuture<PedidoResponseDTO> criarConforme(
+    ModoConfirmacao modo,
+    PedidoRequestDTO request
+  ) {
+    return switch (modo) {
+      case FIRE_AND_FORGET -> CompletableFuture.completedFuture(
+        pedidoService.criarPedido(request)
+      );
+      case SINCRONO -> CompletableFuture.completedFuture(
+        pedidoService.criarPedidoSincrono(request)
+      );
+      case ASSINCRONO -> pedidoService.criarPedidoComConfirmacao(request);
+    };
+  }
 
-    log.info("═══════════════════════════════════════════════════════════");
-    log.info("✅ [CONTROLLER] Pedido processado com sucesso!");
-    log.info("   └─ Pedido ID: {}", response.getId());
-    log.info("   └─ Trace ID: {}", traceId);
-    log.info("   └─ Status: {}", response.getStatus());
-    log.info("═══════════════════════════════════════════════════════════");
+  @PostMapping(
+    value = "/lote",
+    consumes = MediaType.APPLICATION_NDJSON_VALUE,
+    produces = MediaType.APPLICATION_NDJSON_VALUE
+  )
+  public ResponseEntity<StreamingResponseBody> criarPedidosEmLote(
+    HttpServletRequest httpRequest
+  ) {
+    var span = tracer.currentSpan();
+    var traceId = span != null ? span.context().traceId() : "no-trace";
 
-    return ResponseEntity.status(HttpStatus.CREATED).body(response);
+    if (log.isDebugEnabled()) {
+      log.debug("═══════════════════════════════════════════════════════════");
+      log.debug("🎯 [CONTROLLER] Nova requisição de pedidos em lote (NDJSON)");
+      log.debug("   └─ Trace ID: {}", traceId);
+      log.debug("═══════════════════════════════════════════════════════════");
+    }
+
+    StreamingResponseBody corpo = saida ->
+      pedidoLoteService.processarLote(httpRequest.getInputStream(), saida);
+
+    return ResponseEntity.ok()
+      .contentType(MediaType.APPLICATION_NDJSON)
+      .body(corpo);
+  }
+
+  @GetMapping("/{id}")
+  public ResponseEntity<PedidoResumoDTO> buscarPedido(@PathVariable String id) {
+    log.debug("🔎 [CONTROLLER] Consulta do pedido {}", id);
+
+    return consultaPedidoService
+      .buscarPorId(id)
+      .map(ResponseEntity::ok)
+      .orElseGet(() -> ResponseEntity.notFound().build());
+  }
+
+  @GetMapping(params = "clienteId")
+  public ResponseEntity<PaginaPedidosDTO> listarPedidosDoCliente(
+    @RequestParam String clienteId,
+    @RequestParam(required = false) String cursor,
+    @RequestParam(defaultValue = "20") int limite
+  ) {
+    log.debug(
+      "🔎 [CONTROLLER] Consulta dos pedidos do cliente {} (cursor={})",
+      clienteId,
+      cursor
+    );
+
+    return ResponseEntity.ok(
+      consultaPedidoService.listarPorCliente(clienteId, cursor, limite)
+    );
   }
 
   @GetMapping("/health")
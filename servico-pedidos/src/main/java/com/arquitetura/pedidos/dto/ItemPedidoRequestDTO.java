@@ -0,0 +1,59 @@
+package com.arquitetura.pedidos.dto;
+
+import com.arquitetura.pedidos.model.Dinheiro;
+import com.arquitetura.pedidos.model.ItemPedido;
+import com.arquitetura.pedidos.model.MoedaConhecida;
+import jakarta.validation.constraints.DecimalMax;
+import jakarta.validation.constraints.DecimalMin;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotNull;
+import java.math.BigDecimal;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Item como chega no POST: o preço é decimal e só vira centavos, em
+ * {@link #paraItem()}, depois da validação.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ItemPedidoRequestDTO {
+
+  @NotBlank(message = "O código do produto é obrigatório")
+  private String codigo;
+
+  @NotBlank(message = "O nome do produto é obrigatório")
+  private String nome;
+
+  @NotNull(message = "A quantidade é obrigatória")
+  @Min(value = 1, message = "A quantidade deve ser no mínimo 1")
+  private Integer quantidade;
+
+  @NotNull(message = "O preço é obrigatório")
+  @DecimalMin(value = "0.01", message = "O preço deve ser maior que zero")
+  // Cabe em long mesmo em moedas com três casas decimais
+  @DecimalMax(
+    value = "999999999999999.99",
+    message = "O preço excede o máximo suportado"
+  )
+  private BigDecimal preco;
+
+  @MoedaConhecida
+  private String moeda;
+
+  public ItemPedido paraItem() {
+    String codigoMoeda = Dinheiro.moedaOuPadrao(moeda);
+    return ItemPedido.builder()
+      .codigo(codigo)
+      .nome(nome)
+      .quantidade(quantidade)
+      .precoCentavos(Dinheiro.centavosDe(preco, codigoMoeda))
+      .moeda(codigoMoeda)
+      .build();
+  }
+}
@@ -0,0 +1,20 @@
+package com.arquitetura.pedidos.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import java.util.List;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class PaginaPedidosDTO {
+
+  private String clienteId;
+  private List<PedidoResumoDTO> pedidos;
+  private String proximoCursor;
+}
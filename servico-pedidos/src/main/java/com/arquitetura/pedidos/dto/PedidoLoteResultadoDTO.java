@@ -0,0 +1,26 @@
+package com.arquitetura.pedidos.dto;
+
+import com.arquitetura.pedidos.model.StatusPedido;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import java.math.BigDecimal;
+import java.util.Map;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class PedidoLoteResultadoDTO {
+
+  private Long linha;
+  private Boolean sucesso;
+  private String id;
+  private StatusPedido status;
+  private BigDecimal valorTotal;
+  private String mensagem;
+  private Map<String, String> validationErrors;
+}
@@ -1,6 +1,5 @@
 package com.arquitetura.pedidos.dto;
 
-import com.arquitetura.pedidos.model.ItemPedido;
 import jakarta.validation.Valid;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotEmpty;
@@ -21,5 +20,5 @@ public class PedidoRequestDTO {
 
   @NotEmpty(message = "O pedido deve conter ao menos um produto")
   @Valid
-  private List<ItemPedido> produtos;
+  private List<ItemPedidoRequestDTO> produtos;
 }
@@ -21,6 +21,7 @@ public class PedidoResponseDTO {
   private String clienteId;
   private List<ItemPedido> produtos;
   private BigDecimal valorTotal;
+  private String moeda;
   private StatusPedido status;
   private LocalDateTime dataCriacao;
   private String mensagem;
@@ -85,12 +86,7 @@ public class PedidoResponseDTO {
           .append(" | Preço Unit: R$ ")
           .append(String.format("%.2f", item.getPreco()))
           .append(" | Subtotal: R$ ")
-          .append(
-            String.format(
-              "%.2f",
-              item.getPreco().multiply(BigDecimal.valueOf(item.getQuantidade()))
-            )
-          )
+          .append(String.format("%.2f", item.getSubtotal()))
           .append("\n");
       }
       sb.append("\n");
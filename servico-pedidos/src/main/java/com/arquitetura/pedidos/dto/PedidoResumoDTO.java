@@ -0,0 +1,42 @@
+package com.arquitetura.pedidos.dto;
+
+import com.arquitetura.pedidos.consulta.PedidoResumo;
+import com.arquitetura.pedidos.model.Dinheiro;
+import com.arquitetura.pedidos.model.StatusPedido;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class PedidoResumoDTO {
+
+  private String id;
+  private String clienteId;
+  private StatusPedido status;
+  private String descricaoStatus;
+  private BigDecimal valorTotal;
+  private String moeda;
+  private Integer quantidadeItens;
+  private LocalDateTime dataCriacao;
+
+  public static PedidoResumoDTO de(PedidoResumo resumo) {
+    return PedidoResumoDTO.builder()
+      .id(resumo.id())
+      .clienteId(resumo.clienteId())
+      .status(resumo.status())
+      .descricaoStatus(
+        resumo.status() != null ? resumo.status().getDescricao() : null
+      )
+      .valorTotal(Dinheiro.valorDe(resumo.valorTotalCentavos(), resumo.moeda()))
+      .moeda(resumo.moeda())
+      .quantidadeItens(resumo.quantidadeItens())
+      .dataCriacao(resumo.dataCriacao())
+      .build();
+  }
+}
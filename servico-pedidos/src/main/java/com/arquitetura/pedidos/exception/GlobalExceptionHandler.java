@@ -4,6 +4,7 @@ import java.time.LocalDateTime;
 import java.util.HashMap;
 import java.util.Map;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.FieldError;
@@ -83,4 +84,74 @@ public class GlobalExceptionHandler {
 
     return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(errorResponse);
   }
+
+  @ExceptionHandler(PublicacaoPedidoException.class)
+  public ResponseEntity<ErrorResponse> handlePublicacaoPedidoException(
+    PublicacaoPedidoException ex,
+    WebRequest request
+  ) {
+    log.error(
+      "❌ [EXCEPTION] Falha na publicação do evento: {}",
+      ex.getMessage(),
+      ex.getCause()
+    );
+
+    ErrorResponse errorResponse = ErrorResponse.builder()
+      .timestamp(LocalDateTime.now())
+      .status(HttpStatus.SERVICE_UNAVAILABLE.value())
+      .error("Serviço Indisponível")
+      .message(ex.getMessage())
+      .path(request.getDescription(false).replace("uri=", ""))
+      .build();
+
+    return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(
+      errorResponse
+    );
+  }
+
+  @ExceptionHandler(IdempotenciaConflitoException.class)
+  public ResponseEntity<ErrorResponse> handleIdempotenciaConflitoException(
+    IdempotenciaConflitoException ex,
+    WebRequest request
+  ) {
+    log.error("❌ [EXCEPTION] Conflito de idempotência: {}", ex.getMessage());
+
+    ErrorResponse errorResponse = ErrorResponse.builder()
+      .timestamp(LocalDateTime.now())
+      .status(HttpStatus.UNPROCESSABLE_ENTITY.value())
+      .error("Conflito de Idempotência")
+      .message(ex.getMessage())
+      .path(request.getDescription(false).replace("uri=", ""))
+      .build();
+
+    return ResponseEntity.status(HttpStatus.UNPROCESSABLE_ENTITY).body(
+      errorResponse
+    );
+  }
+
+  @ExceptionHandler(SobrecargaException.class)
+  public ResponseEntity<ErrorResponse> handleSobrecargaException(
+    SobrecargaException ex,
+    WebRequest request
+  ) {
+    HttpStatus status = ex.getMotivo() ==
+      SobrecargaException.Motivo.BUFFER_SATURADO
+      ? HttpStatus.SERVICE_UNAVAILABLE
+      : HttpStatus.TOO_MANY_REQUESTS;
+
+    ErrorResponse errorResponse = ErrorResponse.builder()
+      .timestamp(LocalDateTime.now())
+      .status(status.value())
+      .error("Serviço Sobrecarregado")
+      .message(ex.getMessage())
+      .path(request.getDescription(false).replace("uri=", ""))
+      .build();
+
+    return ResponseEntity.status(status)
+      .header(
+        HttpHeaders.RETRY_AFTER,
+        String.valueOf(ex.getTentarNovamenteEm().toSeconds())
+      )
+      .body(errorResponse);
+  }
 }
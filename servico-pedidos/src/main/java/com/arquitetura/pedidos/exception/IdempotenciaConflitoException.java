@@ -0,0 +1,8 @@
+package com.arquitetura.pedidos.exception;
+
+public class IdempotenciaConflitoException extends RuntimeException {
+
+  public IdempotenciaConflitoException(String message) {
+    super(message);
+  }
+}
@@ -0,0 +1,8 @@
+package com.arquitetura.pedidos.exception;
+
+public class PublicacaoPedidoException extends RuntimeException {
+
+  public PublicacaoPedidoException(String message, Throwable cause) {
+    super(message, cause);
+  }
+}
@@ -0,0 +1,38 @@
+package com.arquitetura.pedidos.exception;
+
+import java.time.Duration;
+
+public class SobrecargaException extends RuntimeException {
+
+  private final Motivo motivo;
+  private final Duration tentarNovamenteEm;
+
+  public SobrecargaException(Motivo motivo, Duration tentarNovamenteEm) {
+    super(motivo.getDescricao());
+    this.motivo = motivo;
+    this.tentarNovamenteEm = tentarNovamenteEm;
+  }
+
+  public Motivo getMotivo() {
+    return motivo;
+  }
+
+  public Duration getTentarNovamenteEm() {
+    return tentarNovamenteEm;
+  }
+
+  public enum Motivo {
+    LIMITE_CONCORRENCIA("Limite de publicações simultâneas atingido"),
+    BUFFER_SATURADO("Buffer do produtor Kafka saturado");
+
+    private final String descricao;
+
+    Motivo(String descricao) {
+      this.descricao = descricao;
+    }
+
+    public String getDescricao() {
+      return descricao;
+    }
+  }
+}
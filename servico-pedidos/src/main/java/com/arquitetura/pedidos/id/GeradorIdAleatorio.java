@@ -0,0 +1,17 @@
+package com.arquitetura.pedidos.id;
+
+import java.util.UUID;
+
+public class GeradorIdAleatorio implements GeradorIdPedido {
+
+  private final String prefixo;
+
+  public GeradorIdAleatorio(String prefixo) {
+    this.prefixo = prefixo;
+  }
+
+  @Override
+  public String gerar() {
+    return prefixo + UUID.randomUUID().toString().substring(0, 8).toUpperCase();
+  }
+}
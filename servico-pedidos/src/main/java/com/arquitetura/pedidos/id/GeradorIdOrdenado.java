@@ -0,0 +1,78 @@
+package com.arquitetura.pedidos.id;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * Gera IDs de 64 bits ordenáveis pelo tempo: 41 bits de milissegundos desde
+ * {@link #EPOCA}, 10 bits de nó e 12 bits de sequência. O par
+ * (timestamp, sequência) fica num único {@link AtomicLong} atualizado por CAS,
+ * então não há locks; quando a sequência do milissegundo se esgota ou o
+ * relógio volta, o gerador avança o timestamp lógico em vez de esperar.
+ *
+ * <p>O texto usa Base32 de Crockford com largura fixa, preservando a ordem
+ * numérica na comparação lexicográfica.
+ */
+public class GeradorIdOrdenado implements GeradorIdPedido {
+
+  public static final long EPOCA = 1704067200000L; // 2024-01-01T00:00:00Z
+
+  static final int BITS_NO = 10;
+  static final int BITS_SEQUENCIA = 12;
+  public static final int MAXIMO_NO = (1 << BITS_NO) - 1;
+
+  private static final char[] ALFABETO =
+    "0123456789ABCDEFGHJKMNPQRSTVWXYZ".toCharArray();
+  private static final int TAMANHO_TEXTO = 13;
+
+  private final String prefixo;
+  private final long no;
+  private final LongSupplier relogio;
+  private final AtomicLong estado = new AtomicLong();
+
+  public GeradorIdOrdenado(String prefixo, int no) {
+    this(prefixo, no, System::currentTimeMillis);
+  }
+
+  GeradorIdOrdenado(String prefixo, int no, LongSupplier relogio) {
+    if (no < 0 || no > MAXIMO_NO) {
+      throw new IllegalArgumentException(
+        "ID do nó deve estar entre 0 e " + MAXIMO_NO + ": " + no
+      );
+    }
+    this.prefixo = prefixo;
+    this.no = no;
+    this.relogio = relogio;
+  }
+
+  @Override
+  public String gerar() {
+    return prefixo + codificar(proximoNumero());
+  }
+
+  public long proximoNumero() {
+    while (true) {
+      long atual = estado.get();
+      long agora = (relogio.getAsLong() - EPOCA) << BITS_SEQUENCIA;
+      long proximo = Math.max(atual + 1, agora);
+      if (estado.compareAndSet(atual, proximo)) {
+        long timestamp = proximo >>> BITS_SEQUENCIA;
+        long sequencia = proximo & ((1L << BITS_SEQUENCIA) - 1);
+        return (
+          (timestamp << (BITS_NO + BITS_SEQUENCIA)) |
+          (no << BITS_SEQUENCIA) |
+          sequencia
+        );
+      }
+    }
+  }
+
+  public static String codificar(long numero) {
+    char[] texto = new char[TAMANHO_TEXTO];
+    for (int i = TAMANHO_TEXTO - 1; i >= 0; i--) {
+      texto[i] = ALFABETO[(int) (numero & 0x1F)];
+      numero >>>= 5;
+    }
+    return new String(texto);
+  }
+}
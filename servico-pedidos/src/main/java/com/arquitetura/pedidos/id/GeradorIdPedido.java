@@ -0,0 +1,5 @@
+package com.arquitetura.pedidos.id;
+
+public interface GeradorIdPedido {
+  String gerar();
+}
@@ -0,0 +1,19 @@
+package com.arquitetura.pedidos.model;
+
+import java.time.LocalDateTime;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class EventoStatusPedido {
+
+  private String pedidoId;
+  private StatusPedido status;
+  private String origem;
+  private LocalDateTime dataAtualizacao;
+}
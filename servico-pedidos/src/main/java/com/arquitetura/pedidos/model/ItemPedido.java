@@ -1,9 +1,8 @@
 package com.arquitetura.pedidos.model;
 
-import jakarta.validation.constraints.DecimalMin;
-import jakarta.validation.constraints.Min;
-import jakarta.validation.constraints.NotBlank;
-import jakarta.validation.constraints.NotNull;
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonProperty;
 import java.math.BigDecimal;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
@@ -16,24 +15,53 @@ import lombok.NoArgsConstructor;
 @AllArgsConstructor
 public class ItemPedido {
 
-  @NotBlank(message = "O código do produto é obrigatório")
   private String codigo;
-
-  @NotBlank(message = "O nome do produto é obrigatório")
   private String nome;
-
-  @NotNull(message = "A quantidade é obrigatória")
-  @Min(value = 1, message = "A quantidade deve ser no mínimo 1")
   private Integer quantidade;
 
-  @NotNull(message = "O preço é obrigatório")
-  @DecimalMin(value = "0.01", message = "O preço deve ser maior que zero")
-  private BigDecimal preco;
+  /** Preço unitário em unidades mínimas da moeda. */
+  @JsonIgnore
+  private long precoCentavos;
 
-  public BigDecimal getSubtotal() {
-    if (quantidade != null && preco != null) {
-      return preco.multiply(BigDecimal.valueOf(quantidade));
+  @Builder.Default
+  private String moeda = Dinheiro.MOEDA_PADRAO;
+
+  /**
+   * Leitura do item já emitido pelo serviço. Pedidos recebidos no POST
+   * passam por {@code ItemPedidoRequestDTO}, que valida antes de converter.
+   */
+  @JsonCreator
+  public static ItemPedido deJson(
+    @JsonProperty("codigo") String codigo,
+    @JsonProperty("nome") String nome,
+    @JsonProperty("quantidade") Integer quantidade,
+    @JsonProperty("preco") BigDecimal preco,
+    @JsonProperty("moeda") String moeda
+  ) {
+    String codigoMoeda = Dinheiro.moedaOuPadrao(moeda);
+    return new ItemPedido(
+      codigo,
+      nome,
+      quantidade,
+      preco != null ? Dinheiro.centavosDe(preco, codigoMoeda) : 0L,
+      codigoMoeda
+    );
+  }
+
+  @JsonProperty("preco")
+  public BigDecimal getPreco() {
+    return Dinheiro.valorDe(precoCentavos, moeda);
+  }
+
+  @JsonIgnore
+  public long getSubtotalCentavos() {
+    if (quantidade == null) {
+      return 0L;
     }
-    return BigDecimal.ZERO;
+    return Math.multiplyExact(precoCentavos, quantidade.longValue());
+  }
+
+  public BigDecimal getSubtotal() {
+    return Dinheiro.valorDe(getSubtotalCentavos(), moeda);
   }
 }
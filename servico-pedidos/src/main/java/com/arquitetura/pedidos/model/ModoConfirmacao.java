@@ -0,0 +1,17 @@
+package com.arquitetura.pedidos.model;
+
+public enum ModoConfirmacao {
+  FIRE_AND_FORGET("Responde assim que o evento é entregue ao producer"),
+  SINCRONO("Aguarda o ack do broker bloqueando a thread da requisição"),
+  ASSINCRONO("Aguarda o ack do broker sem bloquear a thread da requisição");
+
+  private final String descricao;
+
+  ModoConfirmacao(String descricao) {
+    this.descricao = descricao;
+  }
+
+  public String getDescricao() {
+    return descricao;
+  }
+}
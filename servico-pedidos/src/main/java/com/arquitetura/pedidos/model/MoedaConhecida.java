@@ -0,0 +1,39 @@
+package com.arquitetura.pedidos.model;
+
+import jakarta.validation.Constraint;
+import jakarta.validation.ConstraintValidator;
+import jakarta.validation.ConstraintValidatorContext;
+import jakarta.validation.Payload;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+import java.util.Currency;
+
+/** Código ISO 4217 conhecido pela JVM; null vale a moeda padrão. */
+@Target(ElementType.FIELD)
+@Retention(RetentionPolicy.RUNTIME)
+@Constraint(validatedBy = MoedaConhecida.Validador.class)
+public @interface MoedaConhecida {
+  String message() default "Moeda desconhecida";
+
+  Class<?>[] groups() default {};
+
+  Class<? extends Payload>[] payload() default {};
+
+  class Validador implements ConstraintValidator<MoedaConhecida, String> {
+
+    @Override
+    public boolean isValid(String moeda, ConstraintValidatorContext contexto) {
+      if (moeda == null) {
+        return true;
+      }
+      try {
+        Currency.getInstance(moeda);
+        return true;
+      } catch (IllegalArgumentException e) {
+        return false;
+      }
+    }
+  }
+}
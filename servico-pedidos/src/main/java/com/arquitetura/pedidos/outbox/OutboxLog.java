@@ -0,0 +1,320 @@
+package com.arquitetura.pedidos.outbox;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Stream;
+import java.util.zip.CRC32C;
+
+/**
+ * Log local de eventos em segmentos mapeados em memória.
+ *
+ * <p>Cada registro é {@code [int tamanho][int crc32c][payload]}. Posições são
+ * globais ({@code base do segmento + deslocamento}) e o segmento seguinte
+ * começa em {@code base + tamanhoSegmento}. Escritores concorrentes fazem
+ * group commit: um deles executa o {@code force()} por todos que já escreveram
+ * e os demais aguardam a posição durável alcançar o fim do seu registro.
+ */
+public class OutboxLog implements Closeable {
+
+  private static final int CABECALHO = 8;
+  private static final int FIM_SEGMENTO = -1;
+  private static final String EXTENSAO = ".log";
+  private static final String ARQUIVO_CHECKPOINT = "retransmitido.offset";
+
+  private final Path diretorio;
+  private final int tamanhoSegmento;
+  private final NavigableMap<Long, Segmento> segmentos =
+    new ConcurrentSkipListMap<>();
+  private final FileChannel checkpoint;
+
+  private final ReentrantLock lock = new ReentrantLock();
+  private final Condition persistido = lock.newCondition();
+
+  private Segmento ativo;
+  private long posicaoEscrita;
+  private boolean sincronizando;
+  private volatile long posicaoDuravel;
+  private volatile long posicaoRetransmitida;
+
+  public OutboxLog(Path diretorio, int tamanhoSegmento) throws IOException {
+    if (tamanhoSegmento <= CABECALHO) {
+      throw new IllegalArgumentException(
+        "Tamanho de segmento inválido: " + tamanhoSegmento
+      );
+    }
+    this.diretorio = Files.createDirectories(diretorio);
+    this.tamanhoSegmento = tamanhoSegmento;
+    this.checkpoint = FileChannel.open(
+      diretorio.resolve(ARQUIVO_CHECKPOINT),
+      StandardOpenOption.CREATE,
+      StandardOpenOption.READ,
+      StandardOpenOption.WRITE
+    );
+    recuperar();
+  }
+
+  public long anexar(byte[] payload) {
+    int necessario = CABECALHO + payload.length;
+    if (necessario > tamanhoSegmento) {
+      throw new IllegalArgumentException(
+        "Registro de " + payload.length + " bytes excede o segmento"
+      );
+    }
+
+    CRC32C crc = new CRC32C();
+    crc.update(payload);
+
+    lock.lock();
+    try {
+      int local = (int) (posicaoEscrita - ativo.base());
+      if (local + necessario > tamanhoSegmento) {
+        rolarSegmento(local);
+        local = 0;
+      }
+
+      MappedByteBuffer buffer = ativo.buffer();
+      buffer.putInt(local + 4, (int) crc.getValue());
+      buffer.put(local + CABECALHO, payload);
+      buffer.putInt(local, payload.length);
+
+      posicaoEscrita += necessario;
+      long fim = posicaoEscrita;
+      aguardarDurabilidade(fim);
+      return fim;
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  public List<Registro> ler(long desde, int maximo) {
+    List<Registro> registros = new ArrayList<>(Math.min(maximo, 1024));
+    long posicao = desde;
+    long limite = posicaoDuravel;
+
+    while (registros.size() < maximo && posicao < limite) {
+      Map.Entry<Long, Segmento> entrada = segmentos.floorEntry(posicao);
+      if (entrada == null) {
+        posicao = segmentos.isEmpty() ? limite : segmentos.firstKey();
+        continue;
+      }
+
+      Segmento segmento = entrada.getValue();
+      int local = (int) (posicao - segmento.base());
+      int tamanho = local + 4 <= tamanhoSegmento
+        ? segmento.buffer().getInt(local)
+        : FIM_SEGMENTO;
+
+      if (tamanho <= 0) {
+        posicao = segmento.base() + tamanhoSegmento;
+        continue;
+      }
+
+      byte[] payload = new byte[tamanho];
+      segmento.buffer().get(local + CABECALHO, payload);
+      posicao += CABECALHO + tamanho;
+      registros.add(new Registro(posicao, payload));
+    }
+
+    return registros;
+  }
+
+  public boolean aguardarNovosRegistros(long desde, Duration espera)
+    throws InterruptedException {
+    long restante = espera.toNanos();
+    lock.lock();
+    try {
+      while (posicaoDuravel <= desde && restante > 0) {
+        restante = persistido.awaitNanos(restante);
+      }
+      return posicaoDuravel > desde;
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  public void confirmarRetransmissao(long posicao) throws IOException {
+    checkpoint.write(ByteBuffer.allocate(Long.BYTES).putLong(0, posicao), 0);
+    checkpoint.force(false);
+    posicaoRetransmitida = posicao;
+
+    Map.Entry<Long, Segmento> maisAntigo;
+    while (
+      (maisAntigo = segmentos.firstEntry()) != null &&
+      maisAntigo.getKey() + tamanhoSegmento <= posicao &&
+      maisAntigo.getValue() != ativo
+    ) {
+      Segmento segmento = maisAntigo.getValue();
+      segmentos.remove(maisAntigo.getKey());
+      segmento.canal().close();
+      Files.deleteIfExists(segmento.arquivo());
+    }
+  }
+
+  public long getPosicaoRetransmitida() {
+    return posicaoRetransmitida;
+  }
+
+  public long getPosicaoDuravel() {
+    return posicaoDuravel;
+  }
+
+  public long getBytesPendentes() {
+    return Math.max(0, posicaoDuravel - posicaoRetransmitida);
+  }
+
+  @Override
+  public void close() throws IOException {
+    lock.lock();
+    try {
+      for (Segmento segmento : segmentos.values()) {
+        segmento.buffer().force();
+        segmento.canal().close();
+      }
+      segmentos.clear();
+      checkpoint.close();
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  private void aguardarDurabilidade(long alvo) {
+    while (posicaoDuravel < alvo) {
+      if (sincronizando) {
+        persistido.awaitUninterruptibly();
+        continue;
+      }
+
+      sincronizando = true;
+      long limite = posicaoEscrita;
+      Segmento segmento = ativo;
+      lock.unlock();
+      try {
+        segmento.buffer().force();
+      } finally {
+        lock.lock();
+        sincronizando = false;
+      }
+      posicaoDuravel = Math.max(posicaoDuravel, limite);
+      persistido.signalAll();
+    }
+  }
+
+  private void rolarSegmento(int local) {
+    MappedByteBuffer buffer = ativo.buffer();
+    if (local + 4 <= tamanhoSegmento) {
+      buffer.putInt(local, FIM_SEGMENTO);
+    }
+    buffer.force();
+    posicaoDuravel = Math.max(posicaoDuravel, posicaoEscrita);
+
+    long novaBase = ativo.base() + tamanhoSegmento;
+    ativo = abrirSegmento(novaBase);
+    segmentos.put(novaBase, ativo);
+    posicaoEscrita = novaBase;
+    persistido.signalAll();
+  }
+
+  private void recuperar() throws IOException {
+    ByteBuffer valor = ByteBuffer.allocate(Long.BYTES);
+    long retransmitido = checkpoint.read(valor, 0) == Long.BYTES
+      ? valor.getLong(0)
+      : 0L;
+
+    try (Stream<Path> arquivos = Files.list(diretorio)) {
+      arquivos
+        .filter(arquivo -> arquivo.getFileName().toString().endsWith(EXTENSAO))
+        .forEach(arquivo -> {
+          String nome = arquivo.getFileName().toString();
+          long base = Long.parseLong(nome.substring(0, nome.length() - 4));
+          segmentos.put(base, abrirSegmento(base));
+        });
+    }
+
+    if (segmentos.isEmpty()) {
+      long base = (retransmitido / tamanhoSegmento) * tamanhoSegmento;
+      segmentos.put(base, abrirSegmento(base));
+    }
+
+    ativo = segmentos.lastEntry().getValue();
+    posicaoEscrita = ativo.base() + localizarFim(ativo);
+    posicaoDuravel = posicaoEscrita;
+    posicaoRetransmitida = Math.max(retransmitido, segmentos.firstKey());
+  }
+
+  private int localizarFim(Segmento segmento) {
+    MappedByteBuffer buffer = segmento.buffer();
+    int local = 0;
+
+    while (local + CABECALHO <= tamanhoSegmento) {
+      int tamanho = buffer.getInt(local);
+      if (tamanho <= 0 || local + CABECALHO + tamanho > tamanhoSegmento) {
+        break;
+      }
+
+      byte[] payload = new byte[tamanho];
+      buffer.get(local + CABECALHO, payload);
+      CRC32C crc = new CRC32C();
+      crc.update(payload);
+      if ((int) crc.getValue() != buffer.getInt(local + 4)) {
+        break;
+      }
+      local += CABECALHO + tamanho;
+    }
+
+    // Descarta uma escrita parcial deixada por uma queda no meio do append
+    for (int i = local; i < tamanhoSegmento; i++) {
+      if (buffer.get(i) != 0) {
+        buffer.put(i, (byte) 0);
+      }
+    }
+    buffer.force();
+    return local;
+  }
+
+  private Segmento abrirSegmento(long base) {
+    Path arquivo = diretorio.resolve(String.format("%020d%s", base, EXTENSAO));
+    try {
+      FileChannel canal = FileChannel.open(
+        arquivo,
+        StandardOpenOption.CREATE,
+        StandardOpenOption.READ,
+        StandardOpenOption.WRITE
+      );
+      MappedByteBuffer buffer = canal.map(
+        FileChannel.MapMode.READ_WRITE,
+        0,
+        tamanhoSegmento
+      );
+      return new Segmento(base, arquivo, canal, buffer);
+    } catch (IOException e) {
+      throw new UncheckedIOException(
+        "Não foi possível abrir o segmento " + arquivo,
+        e
+      );
+    }
+  }
+
+  public record Registro(long fim, byte[] payload) {}
+
+  private record Segmento(
+    long base,
+    Path arquivo,
+    FileChannel canal,
+    MappedByteBuffer buffer
+  ) {}
+}
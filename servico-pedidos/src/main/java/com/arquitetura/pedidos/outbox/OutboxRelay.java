@@ -0,0 +1,162 @@
+package com.arquitetura.pedidos.outbox;
+
+import com.arquitetura.pedidos.model.Pedido;
+import com.arquitetura.pedidos.serializer.PedidoCodec;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.stereotype.Component;
+
+@Slf4j
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "app.outbox.habilitado", havingValue = "true")
+public class OutboxRelay {
+
+  private static final Duration ESPERA_OCIOSA = Duration.ofMillis(200);
+  private static final Duration ESPERA_MAXIMA = Duration.ofSeconds(30);
+
+  private final OutboxLog outboxLog;
+  private final KafkaTemplate<String, Pedido> kafkaTemplate;
+  private final MeterRegistry meterRegistry;
+
+  @Value("${app.kafka.topic.pedidos}")
+  private String topicPedidos;
+
+  @Value("${app.outbox.relay.tamanho-lote:500}")
+  private int tamanhoLote;
+
+  @Value("${app.outbox.relay.timeout-lote:30s}")
+  private Duration timeoutLote;
+
+  private Counter retransmitidos;
+  private Counter descartados;
+  private Counter falhas;
+
+  private volatile boolean executando;
+  private Thread thread;
+
+  @PostConstruct
+  public void iniciar() {
+    retransmitidos = Counter.builder("pedidos.outbox.retransmitidos").register(
+      meterRegistry
+    );
+    descartados = Counter.builder("pedidos.outbox.descartados").register(
+      meterRegistry
+    );
+    falhas = Counter.builder("pedidos.outbox.falhas").register(meterRegistry);
+    Gauge.builder(
+      "pedidos.outbox.pendente.bytes",
+      outboxLog,
+      OutboxLog::getBytesPendentes
+    ).register(meterRegistry);
+
+    log.info("📮 [OUTBOX] Iniciando retransmissão para o Kafka");
+    log.info("   └─ Tópico: {}", topicPedidos);
+    log.info("   └─ Bytes pendentes: {}", outboxLog.getBytesPendentes());
+
+    executando = true;
+    thread = new Thread(this::executar, "outbox-relay");
+    thread.setDaemon(true);
+    thread.start();
+  }
+
+  @PreDestroy
+  public void parar() throws InterruptedException {
+    executando = false;
+    thread.interrupt();
+    thread.join(timeoutLote.toMillis());
+    log.info(
+      "🛑 [OUTBOX] Retransmissão encerrada ({} bytes pendentes)",
+      outboxLog.getBytesPendentes()
+    );
+  }
+
+  private void executar() {
+    Duration espera = Duration.ofMillis(100);
+
+    while (executando) {
+      try {
+        long desde = outboxLog.getPosicaoRetransmitida();
+        List<OutboxLog.Registro> lote = outboxLog.ler(desde, tamanhoLote);
+
+        if (lote.isEmpty()) {
+          outboxLog.aguardarNovosRegistros(desde, ESPERA_OCIOSA);
+          continue;
+        }
+
+        int enviados = retransmitir(lote);
+        outboxLog.confirmarRetransmissao(lote.get(lote.size() - 1).fim());
+        retransmitidos.increment(enviados);
+        espera = Duration.ofMillis(100);
+
+        log.debug(
+          "📮 [OUTBOX] Lote de {} eventos retransmitido ({} bytes pendentes)",
+          enviados,
+          outboxLog.getBytesPendentes()
+        );
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        return;
+      } catch (Exception e) {
+        falhas.increment();
+        log.warn(
+          "⚠️ [OUTBOX] Falha ao retransmitir lote, nova tentativa em {} ms: {}",
+          espera.toMillis(),
+          e.getMessage()
+        );
+        try {
+          Thread.sleep(espera.toMillis());
+        } catch (InterruptedException ie) {
+          Thread.currentThread().interrupt();
+          return;
+        }
+        espera = espera.multipliedBy(2);
+        if (espera.compareTo(ESPERA_MAXIMA) > 0) {
+          espera = ESPERA_MAXIMA;
+        }
+      }
+    }
+  }
+
+  private int retransmitir(List<OutboxLog.Registro> lote) throws Exception {
+    List<CompletableFuture<?>> envios = new ArrayList<>(lote.size());
+
+    for (OutboxLog.Registro registro : lote) {
+      Pedido pedido;
+      try {
+        pedido = PedidoCodec.decodificar(registro.payload());
+      } catch (RuntimeException e) {
+        // Passou no CRC mas não decodifica (status, data, inteiro fora da
+        // faixa): reenviar não muda o conteúdo, então só trava o outbox
+        descartados.increment();
+        log.error(
+          "❌ [OUTBOX] Registro ilegível descartado (posição {}): {}",
+          registro.fim(),
+          e.getMessage()
+        );
+        continue;
+      }
+      envios.add(kafkaTemplate.send(topicPedidos, pedido.getId(), pedido));
+    }
+
+    kafkaTemplate.flush();
+    CompletableFuture.allOf(envios.toArray(CompletableFuture[]::new)).get(
+      timeoutLote.toMillis(),
+      TimeUnit.MILLISECONDS
+    );
+    return envios.size();
+  }
+}
@@ -0,0 +1,51 @@
+package com.arquitetura.pedidos.serializer;
+
+import com.arquitetura.pedidos.model.Pedido;
+import java.util.Collection;
+import java.util.Map;
+import java.util.Set;
+import org.apache.kafka.common.header.Headers;
+import org.apache.kafka.common.serialization.Serializer;
+import org.springframework.kafka.support.serializer.JsonSerializer;
+
+public class PedidoSerializer implements Serializer<Pedido> {
+
+  private final Set<String> topicosBinarios;
+  private final JsonSerializer<Pedido> jsonSerializer = new JsonSerializer<>();
+
+  public PedidoSerializer(Collection<String> topicosBinarios) {
+    this.topicosBinarios = Set.copyOf(topicosBinarios);
+  }
+
+  @Override
+  public void configure(Map<String, ?> configs, boolean isKey) {
+    jsonSerializer.configure(configs, isKey);
+  }
+
+  @Override
+  public byte[] serialize(String topic, Pedido data) {
+    if (data == null) {
+      return null;
+    }
+    if (topicosBinarios.contains(topic)) {
+      return PedidoCodec.codificar(data);
+    }
+    return jsonSerializer.serialize(topic, data);
+  }
+
+  @Override
+  public byte[] serialize(String topic, Headers headers, Pedido data) {
+    if (data == null) {
+      return null;
+    }
+    if (topicosBinarios.contains(topic)) {
+      return PedidoCodec.codificar(data);
+    }
+    return jsonSerializer.serialize(topic, headers, data);
+  }
+
+  @Override
+  public void close() {
+    jsonSerializer.close();
+  }
+}
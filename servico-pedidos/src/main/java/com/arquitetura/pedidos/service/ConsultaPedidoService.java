@@ -0,0 +1,167 @@
+package com.arquitetura.pedidos.service;
+
+import com.arquitetura.pedidos.consulta.RepositorioPedidos;
+import com.arquitetura.pedidos.dto.PaginaPedidosDTO;
+import com.arquitetura.pedidos.dto.PedidoResumoDTO;
+import com.arquitetura.pedidos.model.EventoStatusPedido;
+import com.arquitetura.pedidos.model.Pedido;
+import com.arquitetura.pedidos.model.StatusPedido;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.messaging.handler.annotation.Payload;
+import org.springframework.stereotype.Service;
+
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class ConsultaPedidoService {
+
+  private static final int LIMITE_MAXIMO_PAGINA = 100;
+
+  private final MeterRegistry meterRegistry;
+  private final RepositorioPedidos repositorio = new RepositorioPedidos();
+
+  @Value("${app.pedidos.consulta.status-pendentes:100000}")
+  private int capacidadeStatusPendentes;
+
+  // Status que chegaram antes do evento de criação (tópicos diferentes).
+  // Registrar + drenar e atualizar + estacionar rodam inteiros sob o monitor
+  // deste mapa: do contrário um status que falha em atualizar pode ser
+  // estacionado logo depois de o pedido ser registrado e drenado, e se perde
+  private Map<String, StatusPedido> statusPendentes;
+
+  @PostConstruct
+  public void registrarMetricas() {
+    statusPendentes = new LinkedHashMap<>() {
+      @Override
+      protected boolean removeEldestEntry(
+        Map.Entry<String, StatusPedido> maisAntigo
+      ) {
+        return size() > capacidadeStatusPendentes;
+      }
+    };
+
+    Gauge.builder(
+      "pedidos.consulta.total",
+      repositorio,
+      RepositorioPedidos::getTotalPedidos
+    ).register(meterRegistry);
+    Gauge.builder(
+      "pedidos.consulta.memoria.fora.heap",
+      repositorio,
+      RepositorioPedidos::getBytesForaDoHeap
+    )
+      .baseUnit("bytes")
+      .register(meterRegistry);
+  }
+
+  @KafkaListener(
+    topics = "${app.kafka.topic.pedidos}",
+    groupId = "${app.pedidos.consulta.grupo}",
+    containerFactory = "kafkaListenerContainerFactory"
+  )
+  public void registrarPedido(@Payload(required = false) Pedido pedido) {
+    if (pedido == null || pedido.getId() == null) {
+      log.warn("⚠️ [CONSULTA] Registro de pedido ilegível ignorado");
+      return;
+    }
+
+    synchronized (statusPendentes) {
+      try {
+        if (!repositorio.registrar(pedido)) {
+          return;
+        }
+      } catch (IllegalArgumentException e) {
+        log.warn("⚠️ [CONSULTA] Pedido ignorado: {}", e.getMessage());
+        return;
+      }
+
+      StatusPedido pendente = statusPendentes.remove(pedido.getId());
+      if (pendente != null) {
+        repositorio.atualizarStatus(pedido.getId(), pendente);
+      }
+    }
+
+    log.debug(
+      "🗂️ [CONSULTA] Pedido {} indexado ({} no total)",
+      pedido.getId(),
+      repositorio.getTotalPedidos()
+    );
+  }
+
+  @KafkaListener(
+    topics = "${app.kafka.topic.status}",
+    groupId = "${app.pedidos.consulta.grupo}",
+    containerFactory = "consultaStatusListenerContainerFactory"
+  )
+  public void atualizarStatus(
+    @Payload(required = false) EventoStatusPedido evento
+  ) {
+    if (
+      evento == null ||
+      evento.getPedidoId() == null ||
+      evento.getStatus() == null
+    ) {
+      log.warn("⚠️ [CONSULTA] Evento de status ilegível ignorado");
+      return;
+    }
+
+    synchronized (statusPendentes) {
+      boolean atualizado = repositorio.atualizarStatus(
+        evento.getPedidoId(),
+        evento.getStatus()
+      );
+      if (!atualizado) {
+        statusPendentes.put(evento.getPedidoId(), evento.getStatus());
+      }
+    }
+
+    log.debug(
+      "🗂️ [CONSULTA] Pedido {} agora está {} (origem: {})",
+      evento.getPedidoId(),
+      evento.getStatus(),
+      evento.getOrigem()
+    );
+  }
+
+  public Optional<PedidoResumoDTO> buscarPorId(String id) {
+    return repositorio.buscar(id).map(PedidoResumoDTO::de);
+  }
+
+  public PaginaPedidosDTO listarPorCliente(
+    String clienteId,
+    String cursor,
+    int limite
+  ) {
+    int inicio = cursor == null || cursor.isBlank()
+      ? -1
+      : Integer.parseInt(cursor);
+    if (inicio < -1) {
+      throw new IllegalArgumentException("Cursor inválido: " + cursor);
+    }
+
+    RepositorioPedidos.Pagina pagina = repositorio.listarPorCliente(
+      clienteId,
+      inicio,
+      Math.max(1, Math.min(limite, LIMITE_MAXIMO_PAGINA))
+    );
+
+    return PaginaPedidosDTO.builder()
+      .clienteId(clienteId)
+      .pedidos(pagina.pedidos().stream().map(PedidoResumoDTO::de).toList())
+      .proximoCursor(
+        pagina.proximoCursor() != null
+          ? String.valueOf(pagina.proximoCursor())
+          : null
+      )
+      .build();
+  }
+}
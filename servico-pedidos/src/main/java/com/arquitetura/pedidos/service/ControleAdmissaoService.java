@@ -0,0 +1,214 @@
+package com.arquitetura.pedidos.service;
+
+import com.arquitetura.pedidos.admissao.LimitadorAdaptativo;
+import com.arquitetura.pedidos.exception.SobrecargaException;
+import com.arquitetura.pedidos.model.Pedido;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.common.Metric;
+import org.apache.kafka.common.MetricName;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.stereotype.Service;
+
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class ControleAdmissaoService {
+
+  private static final String GRUPO_METRICAS_PRODUCER = "producer-metrics";
+
+  private final KafkaTemplate<String, Pedido> kafkaTemplate;
+  private final MeterRegistry meterRegistry;
+
+  @Value("${app.pedidos.admissao.limite-inicial:200}")
+  private int limiteInicial;
+
+  @Value("${app.pedidos.admissao.limite-minimo:10}")
+  private int limiteMinimo;
+
+  @Value("${app.pedidos.admissao.limite-maximo:2000}")
+  private int limiteMaximo;
+
+  @Value("${app.pedidos.admissao.tolerancia-latencia:2.0}")
+  private double toleranciaLatencia;
+
+  @Value("${app.pedidos.admissao.buffer-minimo-livre:0.1}")
+  private double bufferMinimoLivre;
+
+  @Value("${app.pedidos.admissao.intervalo-amostragem:100ms}")
+  private Duration intervaloAmostragem;
+
+  private final Map<SobrecargaException.Motivo, Counter> rejeicoes =
+    new EnumMap<>(SobrecargaException.Motivo.class);
+
+  private LimitadorAdaptativo limitador;
+  private ScheduledExecutorService amostrador;
+  private volatile double fracaoBufferLivre = 1.0;
+
+  @PostConstruct
+  public void iniciar() {
+    limitador = new LimitadorAdaptativo(
+      limiteInicial,
+      limiteMinimo,
+      limiteMaximo,
+      toleranciaLatencia
+    );
+
+    for (var motivo : SobrecargaException.Motivo.values()) {
+      rejeicoes.put(
+        motivo,
+        Counter.builder("pedidos.admissao.rejeicoes")
+          .tag("motivo", motivo.name())
+          .register(meterRegistry)
+      );
+    }
+    Gauge.builder(
+      "pedidos.admissao.limite",
+      limitador,
+      LimitadorAdaptativo::getLimite
+    ).register(meterRegistry);
+    Gauge.builder(
+      "pedidos.admissao.envios.pendentes",
+      limitador,
+      LimitadorAdaptativo::getEmVoo
+    ).register(meterRegistry);
+    Gauge.builder(
+      "pedidos.admissao.latencia.media",
+      limitador,
+      LimitadorAdaptativo::getLatenciaMediaMillis
+    )
+      .baseUnit("milliseconds")
+      .register(meterRegistry);
+    Gauge.builder(
+      "pedidos.admissao.buffer.livre",
+      this,
+      servico -> servico.fracaoBufferLivre
+    ).register(meterRegistry);
+
+    amostrador = Executors.newSingleThreadScheduledExecutor(tarefa -> {
+      Thread thread = new Thread(tarefa, "admissao-amostrador");
+      thread.setDaemon(true);
+      return thread;
+    });
+    amostrador.scheduleWithFixedDelay(
+      this::amostrarBufferProducer,
+      intervaloAmostragem.toMillis(),
+      intervaloAmostragem.toMillis(),
+      TimeUnit.MILLISECONDS
+    );
+
+    log.info("🚦 [ADMISSÃO] Controle de admissão ativo");
+    log.info("   └─ Limite inicial: {}", limiteInicial);
+    log.info("   └─ Faixa: {}-{}", limiteMinimo, limiteMaximo);
+    log.info("   └─ Buffer mínimo livre: {}%", bufferMinimoLivre * 100);
+  }
+
+  @PreDestroy
+  public void parar() {
+    amostrador.shutdownNow();
+  }
+
+  public <T> CompletableFuture<T> admitir(
+    Supplier<CompletableFuture<T>> envio
+  ) {
+    long inicio = adquirir();
+
+    CompletableFuture<T> resultado;
+    try {
+      resultado = envio.get();
+    } catch (RuntimeException e) {
+      limitador.liberar(inicio, false);
+      throw e;
+    }
+
+    return resultado.whenComplete((valor, ex) ->
+      limitador.liberar(inicio, ex == null)
+    );
+  }
+
+  public void admitirSincrono(EnvioSincrono envio) throws Exception {
+    long inicio = adquirir();
+    boolean sucesso = false;
+    try {
+      envio.executar();
+      sucesso = true;
+    } finally {
+      limitador.liberar(inicio, sucesso);
+    }
+  }
+
+  private long adquirir() {
+    try {
+      return limitador.adquirir();
+    } catch (SobrecargaException e) {
+      rejeicoes.get(e.getMotivo()).increment();
+      log.warn(
+        "🚦 [ADMISSÃO] Requisição rejeitada: {} (limite={}, pendentes={})",
+        e.getMotivo(),
+        limitador.getLimite(),
+        limitador.getEmVoo()
+      );
+      throw e;
+    }
+  }
+
+  private void amostrarBufferProducer() {
+    try {
+      double disponivel = Double.NaN;
+      double total = Double.NaN;
+
+      for (var metrica : kafkaTemplate.metrics().entrySet()) {
+        MetricName nome = metrica.getKey();
+        if (!GRUPO_METRICAS_PRODUCER.equals(nome.group())) {
+          continue;
+        }
+        if ("buffer-available-bytes".equals(nome.name())) {
+          disponivel = valorNumerico(metrica.getValue());
+        } else if ("buffer-total-bytes".equals(nome.name())) {
+          total = valorNumerico(metrica.getValue());
+        }
+      }
+
+      if (Double.isNaN(disponivel) || Double.isNaN(total) || total <= 0) {
+        return;
+      }
+
+      fracaoBufferLivre = disponivel / total;
+      boolean saturado = fracaoBufferLivre < bufferMinimoLivre;
+      if (saturado != limitador.isBufferSaturado()) {
+        log.warn(
+          "🚦 [ADMISSÃO] Buffer do producer {} ({}% livre)",
+          saturado ? "saturado" : "normalizado",
+          Math.round(fracaoBufferLivre * 100)
+        );
+      }
+      limitador.atualizarBuffer(saturado);
+    } catch (RuntimeException e) {
+      log.debug("Falha ao amostrar métricas do producer: {}", e.getMessage());
+    }
+  }
+
+  private static double valorNumerico(Metric metrica) {
+    Object valor = metrica.metricValue();
+    return valor instanceof Number numero ? numero.doubleValue() : Double.NaN;
+  }
+
+  @FunctionalInterface
+  public interface EnvioSincrono {
+    void executar() throws Exception;
+  }
+}
@@ -0,0 +1,233 @@
+package com.arquitetura.pedidos.service;
+
+import com.arquitetura.pedidos.dto.ItemPedidoRequestDTO;
+import com.arquitetura.pedidos.dto.PedidoRequestDTO;
+import com.arquitetura.pedidos.dto.PedidoResponseDTO;
+import com.arquitetura.pedidos.exception.IdempotenciaConflitoException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class IdempotenciaService {
+
+  private final MeterRegistry meterRegistry;
+
+  @Value("${app.pedidos.idempotencia.capacidade:100000}")
+  private int capacidade;
+
+  @Value("${app.pedidos.idempotencia.ttl:24h}")
+  private Duration ttl;
+
+  /**
+   * Uma estrutura só, em ordem de criação (a do TTL): despejo e expiração
+   * olham a cabeça, e remover uma chave é O(1). Guardada pelo próprio
+   * monitor; a operação do pedido roda fora dele.
+   */
+  private final Map<String, Entrada> entradas = new LinkedHashMap<>();
+
+  private Counter acertos;
+  private Counter faltas;
+  private Counter despejos;
+
+  @PostConstruct
+  public void registrarMetricas() {
+    acertos = Counter.builder("pedidos.idempotencia.requisicoes")
+      .tag("resultado", "acerto")
+      .register(meterRegistry);
+    faltas = Counter.builder("pedidos.idempotencia.requisicoes")
+      .tag("resultado", "falta")
+      .register(meterRegistry);
+    despejos = Counter.builder("pedidos.idempotencia.despejos").register(
+      meterRegistry
+    );
+    Gauge.builder("pedidos.idempotencia.tamanho", this, s -> s.tamanho())
+      .register(meterRegistry);
+  }
+
+  public Execucao executar(
+    String chave,
+    PedidoRequestDTO request,
+    Supplier<CompletableFuture<PedidoResponseDTO>> operacao
+  ) {
+    long agora = System.nanoTime();
+    Entrada nova = new Entrada(chave, impressao(request), agora);
+    Entrada existente;
+
+    synchronized (entradas) {
+      existente = entradas.get(chave);
+      if (existente != null && existente.expirada(agora, ttl)) {
+        entradas.remove(chave);
+        despejos.increment();
+        existente = null;
+      }
+      if (existente == null) {
+        entradas.put(chave, nova);
+        despejarExcedentes(agora);
+      }
+    }
+
+    if (existente == null) {
+      faltas.increment();
+      return new Execucao(iniciar(nova, operacao), false);
+    }
+
+    if (!MessageDigest.isEqual(existente.impressao(), nova.impressao())) {
+      throw new IdempotenciaConflitoException(
+        "Idempotency-Key '" +
+        chave +
+        "' já foi usada com um corpo de requisição diferente"
+      );
+    }
+
+    acertos.increment();
+    log.debug(
+      "♻️ [IDEMPOTENCIA] Requisição repetida detectada: {} ({})",
+      chave,
+      existente.resposta().isDone() ? "concluída" : "em andamento"
+    );
+    return new Execucao(existente.resposta(), true);
+  }
+
+  private CompletableFuture<PedidoResponseDTO> iniciar(
+    Entrada entrada,
+    Supplier<CompletableFuture<PedidoResponseDTO>> operacao
+  ) {
+    CompletableFuture<PedidoResponseDTO> resultado;
+    try {
+      resultado = operacao.get();
+    } catch (RuntimeException e) {
+      descartar(entrada, e);
+      throw e;
+    }
+
+    resultado.whenComplete((response, ex) -> {
+      if (ex != null) {
+        descartar(entrada, ex);
+      } else {
+        entrada.resposta().complete(response);
+      }
+    });
+
+    return entrada.resposta();
+  }
+
+  private void descartar(Entrada entrada, Throwable causa) {
+    // Falhas não são memorizadas: uma nova tentativa executa de novo
+    synchronized (entradas) {
+      entradas.remove(entrada.chave(), entrada);
+    }
+    entrada.resposta().completeExceptionally(causa);
+  }
+
+  /** Chamado sob o monitor de {@code entradas}. */
+  private void despejarExcedentes(long agora) {
+    Iterator<Entrada> maisAntigas = entradas.values().iterator();
+    while (maisAntigas.hasNext()) {
+      Entrada maisAntiga = maisAntigas.next();
+      if (entradas.size() <= capacidade && !maisAntiga.expirada(agora, ttl)) {
+        return;
+      }
+      maisAntigas.remove();
+      despejos.increment();
+    }
+  }
+
+  private int tamanho() {
+    synchronized (entradas) {
+      return entradas.size();
+    }
+  }
+
+  /**
+   * SHA-256 do conteúdo da requisição, campo a campo e com o tamanho de cada
+   * texto: corpos diferentes não colidem como no {@code hashCode()}.
+   */
+  static byte[] impressao(PedidoRequestDTO request) {
+    MessageDigest digest;
+    try {
+      digest = MessageDigest.getInstance("SHA-256");
+    } catch (NoSuchAlgorithmException e) {
+      throw new IllegalStateException("SHA-256 indisponível", e);
+    }
+    atualizar(digest, request.getClienteId());
+    if (request.getProdutos() == null) {
+      digest.update(ByteBuffer.allocate(4).putInt(-1).array());
+      return digest.digest();
+    }
+    digest.update(
+      ByteBuffer.allocate(4).putInt(request.getProdutos().size()).array()
+    );
+    for (ItemPedidoRequestDTO item : request.getProdutos()) {
+      if (item == null) {
+        digest.update((byte) 0);
+        continue;
+      }
+      digest.update((byte) 1);
+      atualizar(digest, item.getCodigo());
+      atualizar(digest, item.getNome());
+      digest.update(
+        ByteBuffer.allocate(5)
+          .put((byte) (item.getQuantidade() != null ? 1 : 0))
+          .putInt(item.getQuantidade() != null ? item.getQuantidade() : 0)
+          .array()
+      );
+      // 10.5 e 10.50 são o mesmo preço
+      atualizar(
+        digest,
+        item.getPreco() != null
+          ? item.getPreco().stripTrailingZeros().toPlainString()
+          : null
+      );
+      atualizar(digest, item.getMoeda());
+    }
+    return digest.digest();
+  }
+
+  private static void atualizar(MessageDigest digest, String texto) {
+    if (texto == null) {
+      digest.update(ByteBuffer.allocate(4).putInt(-1).array());
+      return;
+    }
+    byte[] bytes = texto.getBytes(StandardCharsets.UTF_8);
+    digest.update(ByteBuffer.allocate(4).putInt(bytes.length).array());
+    digest.update(bytes);
+  }
+
+  public record Execucao(
+    CompletableFuture<PedidoResponseDTO> resposta,
+    boolean repetida
+  ) {}
+
+  private record Entrada(
+    String chave,
+    byte[] impressao,
+    long criadaEmNanos,
+    CompletableFuture<PedidoResponseDTO> resposta
+  ) {
+    Entrada(String chave, byte[] impressao, long criadaEmNanos) {
+      this(chave, impressao, criadaEmNanos, new CompletableFuture<>());
+    }
+
+    boolean expirada(long agora, Duration ttl) {
+      return agora - criadaEmNanos > ttl.toNanos();
+    }
+  }
+}
@@ -0,0 +1,238 @@
+package com.arquitetura.pedidos.service;
+
+import com.arquitetura.pedidos.dto.PedidoLoteResultadoDTO;
+import com.arquitetura.pedidos.dto.PedidoRequestDTO;
+import com.arquitetura.pedidos.dto.PedidoResponseDTO;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class PedidoLoteService {
+
+  private static final int LINHAS_POR_FLUSH = 100;
+
+  /** Maior linha NDJSON aceita, em caracteres; o excedente nem vai ao heap. */
+  static final int TAMANHO_MAXIMO_LINHA = 256 * 1024;
+
+  private final PedidoService pedidoService;
+  private final ObjectMapper objectMapper;
+  private final Validator validator;
+
+  public ResumoLote processarLote(InputStream entrada, OutputStream saida)
+    throws IOException {
+    log.debug("📦 [LOTE] Iniciando processamento de pedidos em lote (NDJSON)");
+
+    LeitorLinhas leitor = new LeitorLinhas(
+      new InputStreamReader(entrada, StandardCharsets.UTF_8),
+      TAMANHO_MAXIMO_LINHA
+    );
+
+    long numeroLinha = 0;
+    long sucessos = 0;
+    long falhas = 0;
+    String linha;
+
+    while ((linha = leitor.proxima()) != null) {
+      numeroLinha++;
+      PedidoLoteResultadoDTO resultado;
+      if (leitor.excedeu()) {
+        resultado = linhaLonga(numeroLinha);
+      } else if (linha.isBlank()) {
+        continue;
+      } else {
+        resultado = processarLinha(numeroLinha, linha);
+      }
+      if (Boolean.TRUE.equals(resultado.getSucesso())) {
+        sucessos++;
+      } else {
+        falhas++;
+      }
+
+      saida.write(objectMapper.writeValueAsBytes(resultado));
+      saida.write('\n');
+
+      if ((sucessos + falhas) % LINHAS_POR_FLUSH == 0) {
+        saida.flush();
+      }
+    }
+
+    saida.flush();
+
+    ResumoLote resumo = new ResumoLote(numeroLinha, sucessos, falhas);
+    if (log.isDebugEnabled()) {
+      log.debug("✅ [LOTE] Processamento em lote concluído");
+      log.debug("   └─ Linhas lidas: {}", resumo.linhas());
+      log.debug("   └─ Pedidos criados: {}", resumo.sucessos());
+      log.debug("   └─ Pedidos rejeitados: {}", resumo.falhas());
+    }
+    log.info(
+      "etapa=lote.concluido linhas={} sucessos={} falhas={}",
+      resumo.linhas(),
+      resumo.sucessos(),
+      resumo.falhas()
+    );
+
+    return resumo;
+  }
+
+  private PedidoLoteResultadoDTO processarLinha(long numeroLinha, String linha) {
+    PedidoRequestDTO request;
+    try {
+      request = objectMapper.readValue(linha, PedidoRequestDTO.class);
+    } catch (JsonProcessingException e) {
+      log.warn(
+        "⚠️ [LOTE] Linha {} ignorada: JSON inválido ({})",
+        numeroLinha,
+        e.getOriginalMessage()
+      );
+      return PedidoLoteResultadoDTO.builder()
+        .linha(numeroLinha)
+        .sucesso(false)
+        .mensagem("JSON inválido: " + e.getOriginalMessage())
+        .build();
+    }
+
+    Set<ConstraintViolation<PedidoRequestDTO>> violacoes = validator.validate(
+      request
+    );
+    if (!violacoes.isEmpty()) {
+      Map<String, String> erros = new HashMap<>();
+      violacoes.forEach(violacao ->
+        erros.put(violacao.getPropertyPath().toString(), violacao.getMessage())
+      );
+      log.warn("⚠️ [LOTE] Linha {} rejeitada: {}", numeroLinha, erros);
+      return PedidoLoteResultadoDTO.builder()
+        .linha(numeroLinha)
+        .sucesso(false)
+        .mensagem("Os dados fornecidos são inválidos")
+        .validationErrors(erros)
+        .build();
+    }
+
+    try {
+      PedidoResponseDTO response = pedidoService.criarPedido(request);
+      return PedidoLoteResultadoDTO.builder()
+        .linha(numeroLinha)
+        .sucesso(true)
+        .id(response.getId())
+        .status(response.getStatus())
+        .valorTotal(response.getValorTotal())
+        .build();
+    } catch (RuntimeException e) {
+      log.error(
+        "❌ [LOTE] Erro ao criar pedido da linha {}: {}",
+        numeroLinha,
+        e.getMessage(),
+        e
+      );
+      return PedidoLoteResultadoDTO.builder()
+        .linha(numeroLinha)
+        .sucesso(false)
+        .mensagem(e.getMessage())
+        .build();
+    }
+  }
+
+  private static PedidoLoteResultadoDTO linhaLonga(long numeroLinha) {
+    log.warn(
+      "⚠️ [LOTE] Linha {} ignorada: mais de {} caracteres",
+      numeroLinha,
+      TAMANHO_MAXIMO_LINHA
+    );
+    return PedidoLoteResultadoDTO.builder()
+      .linha(numeroLinha)
+      .sucesso(false)
+      .mensagem(
+        "Linha excede o tamanho máximo de " +
+        TAMANHO_MAXIMO_LINHA +
+        " caracteres"
+      )
+      .build();
+  }
+
+  public record ResumoLote(long linhas, long sucessos, long falhas) {}
+
+  /**
+   * Leitor de linhas com limite: guarda no máximo {@code limite} caracteres
+   * de cada linha e descarta o resto até o fim dela, marcando que excedeu.
+   * Ao contrário do {@code BufferedReader.readLine()}, uma linha sem fim não
+   * esgota o heap.
+   */
+  static final class LeitorLinhas {
+
+    private final Reader origem;
+    private final int limite;
+    private final char[] buffer = new char[8192];
+    private final StringBuilder linha = new StringBuilder();
+    private int posicao;
+    private int fim;
+    private boolean excedeu;
+
+    LeitorLinhas(Reader origem, int limite) {
+      this.origem = origem;
+      this.limite = limite;
+    }
+
+    /** Próxima linha sem o terminador, ou null no fim da entrada. */
+    String proxima() throws IOException {
+      linha.setLength(0);
+      excedeu = false;
+      boolean leuAlgo = false;
+      while (true) {
+        if (posicao == fim) {
+          fim = Math.max(origem.read(buffer, 0, buffer.length), 0);
+          posicao = 0;
+          if (fim == 0) {
+            return leuAlgo ? concluir() : null;
+          }
+        }
+        leuAlgo = true;
+        int inicio = posicao;
+        while (posicao < fim && buffer[posicao] != '\n') {
+          posicao++;
+        }
+        acumular(inicio, posicao);
+        if (posicao < fim) {
+          posicao++;
+          return concluir();
+        }
+      }
+    }
+
+    boolean excedeu() {
+      return excedeu;
+    }
+
+    private void acumular(int inicio, int ate) {
+      // Um caractere além do limite para o '\r' do CRLF não contar como excesso
+      int cabe = Math.min(ate - inicio, limite + 1 - linha.length());
+      linha.append(buffer, inicio, cabe);
+      excedeu |= cabe < ate - inicio;
+    }
+
+    private String concluir() {
+      int tamanho = linha.length();
+      if (tamanho > 0 && linha.charAt(tamanho - 1) == '\r') {
+        linha.setLength(--tamanho);
+      }
+      excedeu |= tamanho > limite;
+      return linha.toString();
+    }
+  }
+}
@@ -1,10 +1,15 @@
 package com.arquitetura.pedidos.service;
 
+import com.arquitetura.pedidos.exception.PublicacaoPedidoException;
 import com.arquitetura.pedidos.model.Pedido;
+import com.arquitetura.pedidos.outbox.OutboxLog;
+import com.arquitetura.pedidos.serializer.PedidoCodec;
 import io.micrometer.tracing.Tracer;
+import java.io.UncheckedIOException;
 import java.util.concurrent.CompletableFuture;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.kafka.core.KafkaTemplate;
 import org.springframework.kafka.support.SendResult;
@@ -17,20 +22,29 @@ public class PedidoProducerService {
 
   private final KafkaTemplate<String, Pedido> kafkaTemplate;
   private final Tracer tracer;
+  private final ObjectProvider<OutboxLog> outboxLog;
 
   @Value("${app.kafka.topic.pedidos}")
   private String topicPedidos;
 
-  public void publicarEventoPedido(Pedido pedido) {
-    var span = tracer.currentSpan();
-    var traceId = span != null ? span.context().traceId() : "no-trace";
+  public CompletableFuture<SendResult<String, Pedido>> publicarEventoPedido(
+    Pedido pedido
+  ) {
+    if (log.isDebugEnabled()) {
+      var span = tracer.currentSpan();
+      var traceId = span != null ? span.context().traceId() : "no-trace";
 
-    log.info("📤 [PRODUCER] Publicando evento de pedido no Kafka");
-    log.info("   └─ Pedido ID: {}", pedido.getId());
-    log.info("   └─ Cliente ID: {}", pedido.getClienteId());
-    log.info("   └─ Valor Total: R$ {}", pedido.getValorTotal());
-    log.info("   └─ Tópico: {}", topicPedidos);
-    log.info("   └─ Trace ID: {}", traceId);
+      log.debug("📤 [PRODUCER] Publicando evento de pedido no Kafka");
+      log.debug("   └─ Pedido ID: {}", pedido.getId());
+      log.debug("   └─ Cliente ID: {}", pedido.getClienteId());
+      log.debug("   └─ Valor Total: R$ {}", pedido.getValorTotal());
+      log.debug("   └─ Tópico: {}", topicPedidos);
+      log.debug("   └─ Trace ID: {}", traceId);
+    }
+
+    if (anexarNoOutbox(pedido)) {
+      return CompletableFuture.completedFuture(null);
+    }
 
     CompletableFuture<SendResult<String, Pedido>> future = kafkaTemplate.send(
       topicPedidos,
@@ -40,10 +54,7 @@ public class PedidoProducerService {
 
     future.whenComplete((result, ex) -> {
       if (ex == null) {
-        log.info("✅ [PRODUCER] Evento publicado com sucesso!");
-        log.info("   └─ Partition: {}", result.getRecordMetadata().partition());
-        log.info("   └─ Offset: {}", result.getRecordMetadata().offset());
-        log.info("   └─ Timestamp: {}", result.getRecordMetadata().timestamp());
+        registrarPublicacao(pedido, result);
       } else {
         log.error(
           "❌ [PRODUCER] Erro ao publicar evento: {}",
@@ -52,20 +63,56 @@ public class PedidoProducerService {
         );
       }
     });
+
+    return future;
+  }
+
+  public CompletableFuture<Void> publicarEventoPedidoComConfirmacao(
+    Pedido pedido
+  ) {
+    log.debug(
+      "📤 [PRODUCER ASSÍNCRONO] Publicando evento aguardando ack: {}",
+      pedido.getId()
+    );
+
+    try {
+      if (anexarNoOutbox(pedido)) {
+        return CompletableFuture.completedFuture(null);
+      }
+    } catch (PublicacaoPedidoException e) {
+      return CompletableFuture.failedFuture(e);
+    }
+
+    return kafkaTemplate
+      .send(topicPedidos, pedido.getId(), pedido)
+      .whenComplete((result, ex) -> {
+        if (ex != null) {
+          log.error(
+            "❌ [PRODUCER ASSÍNCRONO] Erro ao publicar evento: {}",
+            ex.getMessage(),
+            ex
+          );
+        }
+      })
+      .thenAccept(result -> registrarPublicacao(pedido, result));
   }
 
   public void publicarEventoPedidoSincrono(Pedido pedido) throws Exception {
-    log.info("📤 [PRODUCER SÍNCRONO] Publicando evento de pedido no Kafka");
-    log.info("   └─ Pedido ID: {}", pedido.getId());
+    log.debug(
+      "📤 [PRODUCER SÍNCRONO] Publicando evento de pedido no Kafka: {}",
+      pedido.getId()
+    );
+
+    if (anexarNoOutbox(pedido)) {
+      return;
+    }
 
     try {
       SendResult<String, Pedido> result = kafkaTemplate
         .send(topicPedidos, pedido.getId(), pedido)
         .get();
 
-      log.info("✅ [PRODUCER SÍNCRONO] Evento publicado com sucesso!");
-      log.info("   └─ Partition: {}", result.getRecordMetadata().partition());
-      log.info("   └─ Offset: {}", result.getRecordMetadata().offset());
+      registrarPublicacao(pedido, result);
     } catch (Exception e) {
       log.error(
         "❌ [PRODUCER SÍNCRONO] Erro ao publicar evento: {}",
@@ -75,4 +122,52 @@ public class PedidoProducerService {
       throw e;
     }
   }
+
+  private void registrarPublicacao(
+    Pedido pedido,
+    SendResult<String, Pedido> result
+  ) {
+    var metadata = result.getRecordMetadata();
+
+    if (log.isDebugEnabled()) {
+      log.debug("✅ [PRODUCER] Evento publicado com sucesso!");
+      log.debug("   └─ Pedido ID: {}", pedido.getId());
+      log.debug("   └─ Partition: {}", metadata.partition());
+      log.debug("   └─ Offset: {}", metadata.offset());
+      log.debug("   └─ Timestamp: {}", metadata.timestamp());
+    }
+    log.info(
+      "etapa=pedido.publicado pedidoId={} particao={} offset={}",
+      pedido.getId(),
+      metadata.partition(),
+      metadata.offset()
+    );
+  }
+
+  private boolean anexarNoOutbox(Pedido pedido) {
+    OutboxLog outbox = outboxLog.getIfAvailable();
+    if (outbox == null) {
+      return false;
+    }
+
+    try {
+      long posicao = outbox.anexar(PedidoCodec.codificar(pedido));
+      log.info(
+        "etapa=pedido.outbox pedidoId={} posicao={}",
+        pedido.getId(),
+        posicao
+      );
+      return true;
+    } catch (UncheckedIOException e) {
+      log.error(
+        "❌ [PRODUCER] Erro ao gravar evento no outbox: {}",
+        e.getMessage(),
+        e
+      );
+      throw new PublicacaoPedidoException(
+        "Falha ao gravar o pedido " + pedido.getId() + " no outbox local",
+        e
+      );
+    }
+  }
 }
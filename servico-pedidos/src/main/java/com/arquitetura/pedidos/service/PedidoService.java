@@ -1,13 +1,23 @@
 package com.arquitetura.pedidos.service;
 
+import com.arquitetura.pedidos.dto.ItemPedidoRequestDTO;
 import com.arquitetura.pedidos.dto.PedidoRequestDTO;
 import com.arquitetura.pedidos.dto.PedidoResponseDTO;
+import com.arquitetura.pedidos.exception.PublicacaoPedidoException;
+import com.arquitetura.pedidos.exception.SobrecargaException;
+import com.arquitetura.pedidos.id.GeradorIdPedido;
+import com.arquitetura.pedidos.model.Dinheiro;
+import com.arquitetura.pedidos.model.ItemPedido;
 import com.arquitetura.pedidos.model.Pedido;
 import com.arquitetura.pedidos.model.StatusPedido;
+import java.time.Duration;
 import java.time.LocalDateTime;
-import java.util.UUID;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 @Slf4j
@@ -16,44 +26,143 @@ import org.springframework.stereotype.Service;
 public class PedidoService {
 
   private final PedidoProducerService producerService;
+  private final GeradorIdPedido geradorIdPedido;
+  private final ControleAdmissaoService controleAdmissao;
+
+  @Value("${app.kafka.producer.timeout-confirmacao:10s}")
+  private Duration timeoutConfirmacao;
 
   public PedidoResponseDTO criarPedido(PedidoRequestDTO request) {
-    log.info("🆕 [SERVICE] Iniciando criação de pedido");
-    log.info("   └─ Cliente: {}", request.getClienteId());
-    log.info("   └─ Quantidade de produtos: {}", request.getProdutos().size());
+    Pedido pedido = montarPedido(request);
+
+    log.debug("📨 [SERVICE] Publicando evento no Kafka...");
+    controleAdmissao.admitir(() ->
+      producerService.publicarEventoPedido(pedido)
+    );
+
+    log.debug("✅ [SERVICE] Pedido criado com sucesso! ID: {}", pedido.getId());
+
+    return montarResposta(
+      pedido,
+      "Pedido criado com sucesso e enviado para processamento!"
+    );
+  }
 
+  public PedidoResponseDTO criarPedidoSincrono(PedidoRequestDTO request) {
+    Pedido pedido = montarPedido(request);
+
+    log.debug("📨 [SERVICE] Publicando evento no Kafka (aguardando ack)...");
+    try {
+      controleAdmissao.admitirSincrono(() ->
+        producerService.publicarEventoPedidoSincrono(pedido)
+      );
+    } catch (SobrecargaException e) {
+      throw e;
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new PublicacaoPedidoException(
+        "Publicação do pedido " + pedido.getId() + " interrompida",
+        e
+      );
+    } catch (Exception e) {
+      throw new PublicacaoPedidoException(
+        "Falha ao publicar o pedido " + pedido.getId() + " no Kafka",
+        e
+      );
+    }
+
+    log.debug(
+      "✅ [SERVICE] Pedido confirmado pelo broker! ID: {}",
+      pedido.getId()
+    );
+
+    return montarResposta(
+      pedido,
+      "Pedido criado e confirmado pelo broker de eventos!"
+    );
+  }
+
+  public CompletableFuture<PedidoResponseDTO> criarPedidoComConfirmacao(
+    PedidoRequestDTO request
+  ) {
+    Pedido pedido = montarPedido(request);
+
+    log.debug("📨 [SERVICE] Publicando evento no Kafka (ack assíncrono)...");
+
+    return controleAdmissao
+      .admitir(() -> producerService.publicarEventoPedidoComConfirmacao(pedido))
+      .orTimeout(timeoutConfirmacao.toMillis(), TimeUnit.MILLISECONDS)
+      .handle((ignorado, ex) -> {
+        if (ex != null) {
+          throw new PublicacaoPedidoException(
+            "Falha ao publicar o pedido " + pedido.getId() + " no Kafka",
+            ex
+          );
+        }
+
+        log.debug(
+          "✅ [SERVICE] Pedido confirmado pelo broker! ID: {}",
+          pedido.getId()
+        );
+
+        return montarResposta(
+          pedido,
+          "Pedido criado e confirmado pelo broker de eventos!"
+        );
+      });
+  }
+
+  private Pedido montarPedido(PedidoRequestDTO request) {
+    if (log.isDebugEnabled()) {
+      log.debug("🆕 [SERVICE] Iniciando criação de pedido");
+      log.debug("   └─ Cliente: {}", request.getClienteId());
+      log.debug(
+        "   └─ Quantidade de produtos: {}",
+        request.getProdutos().size()
+      );
+    }
+
+    List<ItemPedido> produtos = request
+      .getProdutos()
+      .stream()
+      .map(ItemPedidoRequestDTO::paraItem)
+      .toList();
     Pedido pedido = Pedido.builder()
-      .id(gerarIdPedido())
+      .id(geradorIdPedido.gerar())
       .clienteId(request.getClienteId())
-      .produtos(request.getProdutos())
+      .produtos(produtos)
+      .moeda(moedaDo(produtos))
       .status(StatusPedido.CRIADO)
       .dataCriacao(LocalDateTime.now())
       .build();
 
     pedido.calcularValorTotal();
 
-    log.info(
+    log.debug(
       "💰 [SERVICE] Valor total calculado: R$ {}",
       pedido.getValorTotal()
     );
 
-    log.info("📨 [SERVICE] Publicando evento no Kafka...");
-    producerService.publicarEventoPedido(pedido);
+    return pedido;
+  }
 
-    log.info("✅ [SERVICE] Pedido criado com sucesso! ID: {}", pedido.getId());
+  /** O pedido fica na moeda do primeiro item; os demais têm de bater. */
+  private static String moedaDo(List<ItemPedido> produtos) {
+    return produtos.isEmpty()
+      ? Dinheiro.MOEDA_PADRAO
+      : produtos.get(0).getMoeda();
+  }
 
+  private PedidoResponseDTO montarResposta(Pedido pedido, String mensagem) {
     return PedidoResponseDTO.builder()
       .id(pedido.getId())
       .clienteId(pedido.getClienteId())
       .produtos(pedido.getProdutos())
       .valorTotal(pedido.getValorTotal())
+      .moeda(pedido.getMoeda())
       .status(pedido.getStatus())
       .dataCriacao(pedido.getDataCriacao())
-      .mensagem("Pedido criado com sucesso e enviado para processamento!")
+      .mensagem(mensagem)
       .build();
   }
-
-  private String gerarIdPedido() {
-    return "PED-" + UUID.randomUUID().toString().substring(0, 8).toUpperCase();
-  }
 }
@@ -0,0 +1,120 @@
+package com.arquitetura.pedidos.admissao;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import com.arquitetura.pedidos.exception.SobrecargaException;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+import org.junit.jupiter.api.Test;
+
+class LimitadorAdaptativoTest {
+
+  private static final long MILLI = 1_000_000L;
+
+  private final AtomicLong relogio = new AtomicLong(1_000 * MILLI);
+
+  @Test
+  void deveRejeitarAcimaDoLimiteSemEnfileirar() {
+    LimitadorAdaptativo limitador = new LimitadorAdaptativo(
+      2,
+      1,
+      10,
+      2.0,
+      relogio::get
+    );
+
+    long primeiro = limitador.adquirir();
+    limitador.adquirir();
+
+    assertThatThrownBy(limitador::adquirir)
+      .isInstanceOf(SobrecargaException.class)
+      .extracting(e -> ((SobrecargaException) e).getMotivo())
+      .isEqualTo(SobrecargaException.Motivo.LIMITE_CONCORRENCIA);
+
+    relogio.addAndGet(5 * MILLI);
+    limitador.liberar(primeiro, true);
+
+    limitador.adquirir();
+    assertThat(limitador.getEmVoo()).isEqualTo(2);
+  }
+
+  @Test
+  void deveAumentarOLimiteEnquantoALatenciaSeMantemEstavel() {
+    LimitadorAdaptativo limitador = new LimitadorAdaptativo(
+      4,
+      1,
+      100,
+      2.0,
+      relogio::get
+    );
+
+    for (int rodada = 0; rodada < 50; rodada++) {
+      int limite = limitador.getLimite();
+      long[] inicios = new long[limite];
+      for (int i = 0; i < limite; i++) {
+        inicios[i] = limitador.adquirir();
+      }
+      relogio.addAndGet(5 * MILLI);
+      for (long inicio : inicios) {
+        limitador.liberar(inicio, true);
+      }
+    }
+
+    assertThat(limitador.getLimite()).isGreaterThan(4);
+    assertThat(limitador.getEmVoo()).isZero();
+  }
+
+  @Test
+  void deveReduzirOLimiteQuandoALatenciaDoAckDispara() {
+    LimitadorAdaptativo limitador = new LimitadorAdaptativo(
+      50,
+      5,
+      100,
+      2.0,
+      relogio::get
+    );
+
+    for (int i = 0; i < 20; i++) {
+      long inicio = limitador.adquirir();
+      relogio.addAndGet(5 * MILLI);
+      limitador.liberar(inicio, true);
+    }
+    int limiteEstavel = limitador.getLimite();
+
+    for (int i = 0; i < 20; i++) {
+      long inicio = limitador.adquirir();
+      relogio.addAndGet(200 * MILLI);
+      limitador.liberar(inicio, true);
+    }
+
+    assertThat(limitador.getLimite()).isLessThan(limiteEstavel);
+    assertThat(limitador.getLimite()).isGreaterThanOrEqualTo(5);
+    assertThat(limitador.tentarNovamenteEm()).isGreaterThanOrEqualTo(
+      Duration.ofSeconds(1)
+    );
+  }
+
+  @Test
+  void deveRejeitarComBufferSaturadoAteONivelNormalizar() {
+    LimitadorAdaptativo limitador = new LimitadorAdaptativo(
+      10,
+      1,
+      10,
+      2.0,
+      relogio::get
+    );
+
+    limitador.atualizarBuffer(true);
+
+    assertThatThrownBy(limitador::adquirir)
+      .isInstanceOf(SobrecargaException.class)
+      .extracting(e -> ((SobrecargaException) e).getMotivo())
+      .isEqualTo(SobrecargaException.Motivo.BUFFER_SATURADO);
+    assertThat(limitador.getLimite()).isLessThan(10);
+
+    limitador.atualizarBuffer(false);
+    limitador.adquirir();
+    assertThat(limitador.getEmVoo()).isEqualTo(1);
+  }
+}
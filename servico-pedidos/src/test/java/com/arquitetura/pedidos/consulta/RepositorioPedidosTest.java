@@ -0,0 +1,163 @@
+package com.arquitetura.pedidos.consulta;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import com.arquitetura.pedidos.model.ItemPedido;
+import com.arquitetura.pedidos.model.Pedido;
+import com.arquitetura.pedidos.model.StatusPedido;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import org.junit.jupiter.api.Test;
+
+class RepositorioPedidosTest {
+
+  private final RepositorioPedidos repositorio = new RepositorioPedidos();
+
+  private Pedido pedido(String id, String clienteId) {
+    return Pedido.builder()
+      .id(id)
+      .clienteId(clienteId)
+      .produtos(
+        List.of(
+          ItemPedido.builder()
+            .codigo("PROD001")
+            .nome("Notebook")
+            .quantidade(2)
+            .precoCentavos(150_025)
+            .build()
+        )
+      )
+      .valorTotalCentavos(300_050)
+      .status(StatusPedido.CRIADO)
+      .dataCriacao(LocalDateTime.of(2024, 5, 10, 14, 30, 15, 123_000_000))
+      .build();
+  }
+
+  @Test
+  void deveBuscarPedidoPeloId() {
+    repositorio.registrar(pedido("PED-01HZX3K9M2Q7A", "CLI001"));
+
+    PedidoResumo resumo = repositorio.buscar("PED-01HZX3K9M2Q7A").orElseThrow();
+
+    assertThat(resumo.clienteId()).isEqualTo("CLI001");
+    assertThat(resumo.status()).isEqualTo(StatusPedido.CRIADO);
+    assertThat(resumo.valorTotalCentavos()).isEqualTo(300_050);
+    assertThat(resumo.moeda()).isEqualTo("BRL");
+    assertThat(resumo.quantidadeItens()).isEqualTo(1);
+    assertThat(resumo.dataCriacao()).isEqualTo(
+      LocalDateTime.of(2024, 5, 10, 14, 30, 15, 123_000_000)
+    );
+    assertThat(repositorio.buscar("PED-INEXISTENTE")).isEmpty();
+  }
+
+  @Test
+  void deveIgnorarEventoRepetidoEAtualizarStatus() {
+    assertThat(repositorio.registrar(pedido("PED-1", "CLI001"))).isTrue();
+    assertThat(repositorio.registrar(pedido("PED-1", "CLI001"))).isFalse();
+
+    assertThat(
+      repositorio.atualizarStatus("PED-1", StatusPedido.CONFIRMADO)
+    ).isTrue();
+    assertThat(
+      repositorio.atualizarStatus("PED-2", StatusPedido.CONFIRMADO)
+    ).isFalse();
+
+    assertThat(repositorio.buscar("PED-1").orElseThrow().status()).isEqualTo(
+      StatusPedido.CONFIRMADO
+    );
+    assertThat(repositorio.getTotalPedidos()).isEqualTo(1);
+  }
+
+  @Test
+  void devePaginarPedidosDoClienteDoMaisRecenteParaOMaisAntigo() {
+    for (int i = 0; i < 25; i++) {
+      repositorio.registrar(pedido("PED-A" + i, "CLI001"));
+      repositorio.registrar(pedido("PED-B" + i, "CLI002"));
+    }
+
+    List<String> ids = new ArrayList<>();
+    int cursor = -1;
+    int paginas = 0;
+    do {
+      RepositorioPedidos.Pagina pagina = repositorio.listarPorCliente(
+        "CLI001",
+        cursor,
+        10
+      );
+      pagina.pedidos().forEach(resumo -> ids.add(resumo.id()));
+      cursor = pagina.proximoCursor() != null ? pagina.proximoCursor() : -1;
+      paginas++;
+    } while (cursor >= 0);
+
+    assertThat(paginas).isEqualTo(3);
+    assertThat(ids).hasSize(25).allMatch(id -> id.startsWith("PED-A"));
+    assertThat(ids.get(0)).isEqualTo("PED-A24");
+    assertThat(ids.get(24)).isEqualTo("PED-A0");
+    assertThat(
+      repositorio.listarPorCliente("CLI999", -1, 10).pedidos()
+    ).isEmpty();
+  }
+
+  @Test
+  void deveRejeitarCursorDeOutroCliente() {
+    repositorio.registrar(pedido("PED-A", "CLI001"));
+    repositorio.registrar(pedido("PED-B", "CLI002"));
+
+    assertThatThrownBy(() ->
+      repositorio.listarPorCliente("CLI001", 1, 10)
+    ).isInstanceOf(IllegalArgumentException.class);
+  }
+
+  @Test
+  void deveManterBuscasCorretasDuranteCrescimentoDoIndice() throws Exception {
+    int total = 300_000;
+    AtomicBoolean escrevendo = new AtomicBoolean(true);
+    ExecutorService leitores = Executors.newFixedThreadPool(4);
+
+    try {
+      repositorio.registrar(pedido("PED-FIXO", "CLI000"));
+      List<Future<Long>> buscas = new ArrayList<>();
+      for (int t = 0; t < 4; t++) {
+        buscas.add(
+          leitores.submit(() -> {
+            long encontrados = 0;
+            while (escrevendo.get()) {
+              if (repositorio.buscar("PED-FIXO").isPresent()) {
+                encontrados++;
+              } else {
+                throw new AssertionError("Pedido fixo não encontrado");
+              }
+            }
+            return encontrados;
+          })
+        );
+      }
+
+      for (int i = 0; i < total; i++) {
+        repositorio.registrar(pedido("PED-" + i, "CLI" + (i % 1000)));
+      }
+      escrevendo.set(false);
+
+      for (Future<Long> busca : buscas) {
+        assertThat(busca.get(30, TimeUnit.SECONDS)).isPositive();
+      }
+    } finally {
+      leitores.shutdownNow();
+    }
+
+    assertThat(repositorio.getTotalPedidos()).isEqualTo(total + 1);
+    for (int i = 0; i < total; i += 997) {
+      assertThat(repositorio.buscar("PED-" + i)).isPresent();
+    }
+    assertThat(repositorio.getBytesForaDoHeap()).isGreaterThan(
+      (long) total * 64
+    );
+  }
+}
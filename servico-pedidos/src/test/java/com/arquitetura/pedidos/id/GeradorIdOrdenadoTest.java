@@ -0,0 +1,94 @@
+package com.arquitetura.pedidos.id;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import org.junit.jupiter.api.Test;
+
+class GeradorIdOrdenadoTest {
+
+  private static final int THREADS = 8;
+  private static final int IDS_POR_THREAD = 25_000;
+
+  @Test
+  void deveGerarIdsUnicosEOrdenadosSobConcorrencia() throws Exception {
+    GeradorIdOrdenado gerador = new GeradorIdOrdenado("PED-", 7);
+    Set<String> ids = ConcurrentHashMap.newKeySet(THREADS * IDS_POR_THREAD);
+    CountDownLatch largada = new CountDownLatch(1);
+    ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+
+    try {
+      List<Future<Boolean>> resultados = new ArrayList<>();
+      for (int t = 0; t < THREADS; t++) {
+        resultados.add(
+          executor.submit(() -> {
+            largada.await();
+            String anterior = "";
+            boolean ordenado = true;
+            for (int i = 0; i < IDS_POR_THREAD; i++) {
+              String id = gerador.gerar();
+              ordenado &= id.compareTo(anterior) > 0;
+              ids.add(id);
+              anterior = id;
+            }
+            return ordenado;
+          })
+        );
+      }
+
+      largada.countDown();
+      for (Future<Boolean> resultado : resultados) {
+        assertThat(resultado.get(60, TimeUnit.SECONDS)).isTrue();
+      }
+
+      assertThat(ids).hasSize(THREADS * IDS_POR_THREAD);
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  @Test
+  void deveContinuarCrescenteQuandoORelogioVoltaOuSequenciaEsgota() {
+    AtomicLong agora = new AtomicLong(GeradorIdOrdenado.EPOCA + 10_000);
+    GeradorIdOrdenado gerador = new GeradorIdOrdenado("PED-", 1, agora::get);
+
+    long anterior = -1;
+    for (int i = 0; i < 10_000; i++) {
+      if (i == 5_000) {
+        agora.addAndGet(-2_000);
+      }
+      long atual = gerador.proximoNumero();
+      assertThat(atual).isGreaterThan(anterior);
+      anterior = atual;
+    }
+  }
+
+  @Test
+  void deveCodificarNoNosBitsCentrais() {
+    GeradorIdOrdenado gerador = new GeradorIdOrdenado("PED-", 513);
+
+    long numero = gerador.proximoNumero();
+
+    assertThat((numero >>> GeradorIdOrdenado.BITS_SEQUENCIA) & 0x3FF).isEqualTo(
+      513
+    );
+    assertThat(gerador.gerar()).startsWith("PED-").hasSize(4 + 13);
+  }
+
+  @Test
+  void deveRejeitarNoForaDoIntervalo() {
+    assertThatThrownBy(() -> new GeradorIdOrdenado("PED-", 1024)).isInstanceOf(
+      IllegalArgumentException.class
+    );
+  }
+}
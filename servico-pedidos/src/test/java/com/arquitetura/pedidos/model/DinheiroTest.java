@@ -0,0 +1,172 @@
+package com.arquitetura.pedidos.model;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import com.arquitetura.pedidos.dto.ItemPedidoRequestDTO;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validation;
+import jakarta.validation.Validator;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Currency;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.stream.Collectors;
+import org.junit.jupiter.api.Test;
+
+class DinheiroTest {
+
+  @Test
+  void deveArredondarParaCentavosComHalfEven() {
+    assertThat(centavos("10.005", "BRL")).isEqualTo(1000);
+    assertThat(centavos("10.015", "BRL")).isEqualTo(1002);
+    assertThat(centavos("89.9", "BRL")).isEqualTo(8990);
+    assertThat(Dinheiro.valorDe(8990, "BRL")).isEqualByComparingTo("89.90");
+  }
+
+  @Test
+  void deveUsarAsCasasDecimaisDaMoeda() {
+    assertThat(centavos("1500.4", "JPY")).isEqualTo(1500);
+    assertThat(centavos("1.2345", "KWD")).isEqualTo(1234);
+    assertThat(Dinheiro.valorDe(1500, "JPY")).isEqualByComparingTo("1500");
+    assertThat(Dinheiro.valorDe(1500, null)).isEqualByComparingTo("15.00");
+  }
+
+  @Test
+  void itemRecebidoNaBordaDeveGuardarCentavosNaMoedaDele() {
+    ItemPedido item = itemDoPost("19.99", "USD").paraItem();
+
+    assertThat(item.getPrecoCentavos()).isEqualTo(1999);
+    assertThat(item.getMoeda()).isEqualTo("USD");
+    assertThat(item.getSubtotalCentavos()).isEqualTo(5997);
+    assertThat(item.getSubtotal()).isEqualByComparingTo("59.97");
+  }
+
+  @Test
+  void itemDoPostInvalidoDeveApontarPrecoOuMoeda() {
+    Validator validator = Validation.buildDefaultValidatorFactory()
+      .getValidator();
+
+    assertThat(violacoes(validator, itemDoPost(null, null))).containsEntry(
+      "preco",
+      "O preço é obrigatório"
+    );
+    assertThat(violacoes(validator, itemDoPost("0", null))).containsEntry(
+      "preco",
+      "O preço deve ser maior que zero"
+    );
+    assertThat(
+      violacoes(validator, itemDoPost("1e20", null))
+    ).containsOnlyKeys("preco");
+    assertThat(violacoes(validator, itemDoPost("10", "XYZ"))).containsEntry(
+      "moeda",
+      "Moeda desconhecida"
+    );
+    assertThat(violacoes(validator, itemDoPost("10", null))).isEmpty();
+    assertThat(itemDoPost("10", null).paraItem().getMoeda()).isEqualTo("BRL");
+  }
+
+  @Test
+  void deveDetectarEstouro() {
+    Dinheiro maximo = new Dinheiro(Long.MAX_VALUE, Dinheiro.REAL);
+
+    assertThatThrownBy(() -> maximo.somar(Dinheiro.de(1, "BRL")))
+      .isInstanceOf(ArithmeticException.class);
+    assertThatThrownBy(() -> maximo.multiplicar(2))
+      .isInstanceOf(ArithmeticException.class);
+    assertThatThrownBy(() ->
+      ItemPedido.builder()
+        .precoCentavos(Long.MAX_VALUE)
+        .quantidade(2)
+        .build()
+        .getSubtotalCentavos()
+    ).isInstanceOf(ArithmeticException.class);
+  }
+
+  @Test
+  void deveRejeitarSomaDeMoedasDiferentes() {
+    Dinheiro dolar = new Dinheiro(100, Currency.getInstance("USD"));
+
+    assertThatThrownBy(() -> Dinheiro.zero().somar(dolar))
+      .isInstanceOf(IllegalArgumentException.class);
+  }
+
+  @Test
+  void pedidoDeveRejeitarItensEmOutraMoeda() {
+    Pedido pedido = Pedido.builder()
+      .produtos(
+        List.of(
+          ItemPedido.builder().precoCentavos(100).quantidade(1).build(),
+          ItemPedido.builder()
+            .precoCentavos(100)
+            .quantidade(1)
+            .moeda("USD")
+            .build()
+        )
+      )
+      .build();
+
+    assertThatThrownBy(pedido::calcularValorTotal)
+      .isInstanceOf(IllegalArgumentException.class)
+      .hasMessageContaining("USD");
+  }
+
+  @Test
+  void deveCalcularOMesmoTotalQueBigDecimal() {
+    Random random = new Random(42);
+
+    for (int pedidoIdx = 0; pedidoIdx < 500; pedidoIdx++) {
+      List<ItemPedido> itens = new ArrayList<>();
+      BigDecimal esperado = BigDecimal.ZERO;
+      for (int i = 0; i < 2_000; i++) {
+        long centavos = random.nextInt(10_000_000);
+        BigDecimal preco = BigDecimal.valueOf(centavos, 2);
+        int quantidade = 1 + random.nextInt(500);
+        itens.add(
+          ItemPedido.builder()
+            .precoCentavos(centavos)
+            .quantidade(quantidade)
+            .build()
+        );
+        esperado = esperado.add(preco.multiply(BigDecimal.valueOf(quantidade)));
+      }
+
+      Pedido pedido = Pedido.builder().produtos(itens).build();
+      pedido.calcularValorTotal();
+
+      assertThat(pedido.getValorTotal()).isEqualByComparingTo(esperado);
+      assertThat(pedido.getValorTotal().scale()).isEqualTo(2);
+    }
+  }
+
+  private static ItemPedidoRequestDTO itemDoPost(String preco, String moeda) {
+    return ItemPedidoRequestDTO.builder()
+      .codigo("PROD001")
+      .nome("Notebook")
+      .quantidade(3)
+      .preco(preco != null ? new BigDecimal(preco) : null)
+      .moeda(moeda)
+      .build();
+  }
+
+  private static Map<String, String> violacoes(
+    Validator validator,
+    ItemPedidoRequestDTO item
+  ) {
+    return validator
+      .validate(item)
+      .stream()
+      .collect(
+        Collectors.toMap(
+          violacao -> violacao.getPropertyPath().toString(),
+          ConstraintViolation::getMessage
+        )
+      );
+  }
+
+  private static long centavos(String valor, String moeda) {
+    return Dinheiro.centavosDe(new BigDecimal(valor), moeda);
+  }
+}
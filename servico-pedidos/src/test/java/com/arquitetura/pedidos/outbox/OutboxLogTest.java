@@ -0,0 +1,185 @@
+package com.arquitetura.pedidos.outbox;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class OutboxLogTest {
+
+  private static final int SEGMENTO = 4096;
+
+  @TempDir
+  Path diretorio;
+
+  @Test
+  void deveLerRegistrosNaOrdemDeGravacaoAtravesDosSegmentos()
+    throws Exception {
+    try (OutboxLog outbox = new OutboxLog(diretorio, SEGMENTO)) {
+      for (int i = 0; i < 500; i++) {
+        outbox.anexar(bytes("pedido-" + i));
+      }
+
+      List<String> lidos = lerTudo(outbox, outbox.getPosicaoRetransmitida());
+
+      assertThat(lidos).hasSize(500);
+      assertThat(lidos.get(0)).isEqualTo("pedido-0");
+      assertThat(lidos.get(499)).isEqualTo("pedido-499");
+      assertThat(segmentos()).isGreaterThan(1);
+    }
+  }
+
+  @Test
+  void deveRetomarDoCheckpointAposReabrir() throws Exception {
+    long confirmado;
+    try (OutboxLog outbox = new OutboxLog(diretorio, SEGMENTO)) {
+      for (int i = 0; i < 300; i++) {
+        outbox.anexar(bytes("pedido-" + i));
+      }
+      List<OutboxLog.Registro> lote = outbox.ler(0, 200);
+      confirmado = lote.get(lote.size() - 1).fim();
+      outbox.confirmarRetransmissao(confirmado);
+    }
+
+    try (OutboxLog outbox = new OutboxLog(diretorio, SEGMENTO)) {
+      assertThat(outbox.getPosicaoRetransmitida()).isEqualTo(confirmado);
+
+      outbox.anexar(bytes("pedido-300"));
+      List<String> pendentes = lerTudo(outbox, confirmado);
+
+      assertThat(pendentes).hasSize(101);
+      assertThat(pendentes.get(0)).isEqualTo("pedido-200");
+      assertThat(pendentes.get(100)).isEqualTo("pedido-300");
+    }
+  }
+
+  @Test
+  void deveRemoverSegmentosJaRetransmitidos() throws Exception {
+    try (OutboxLog outbox = new OutboxLog(diretorio, SEGMENTO)) {
+      long fim = 0;
+      for (int i = 0; i < 500; i++) {
+        fim = outbox.anexar(bytes("pedido-" + i));
+      }
+      long antes = segmentos();
+
+      outbox.confirmarRetransmissao(fim);
+
+      assertThat(segmentos()).isLessThan(antes);
+      assertThat(outbox.getBytesPendentes()).isZero();
+    }
+  }
+
+  @Test
+  void deveDescartarEscritaParcialNaRecuperacao() throws Exception {
+    long fimValido;
+    try (OutboxLog outbox = new OutboxLog(diretorio, SEGMENTO)) {
+      outbox.anexar(bytes("pedido-0"));
+      fimValido = outbox.anexar(bytes("pedido-1"));
+    }
+
+    Path segmento = diretorio.resolve(String.format("%020d.log", 0));
+    try (
+      FileChannel canal = FileChannel.open(segmento, StandardOpenOption.WRITE)
+    ) {
+      ByteBuffer registroCortado = ByteBuffer.allocate(12)
+        .putInt(0, 40)
+        .putInt(4, 0xCAFE)
+        .putInt(8, 0x7072);
+      canal.write(registroCortado, fimValido);
+    }
+
+    try (OutboxLog outbox = new OutboxLog(diretorio, SEGMENTO)) {
+      assertThat(outbox.getPosicaoDuravel()).isEqualTo(fimValido);
+
+      outbox.anexar(bytes("pedido-2"));
+
+      assertThat(lerTudo(outbox, 0)).containsExactly(
+        "pedido-0",
+        "pedido-1",
+        "pedido-2"
+      );
+    }
+  }
+
+  @Test
+  void deveConfirmarGravacoesConcorrentesComFsyncEmGrupo() throws Exception {
+    int threads = 8;
+    int porThread = 500;
+    Set<String> gravados = ConcurrentHashMap.newKeySet();
+    CountDownLatch largada = new CountDownLatch(1);
+    ExecutorService executor = Executors.newFixedThreadPool(threads);
+
+    try (OutboxLog outbox = new OutboxLog(diretorio, 1 << 20)) {
+      List<Future<?>> resultados = new ArrayList<>();
+      for (int t = 0; t < threads; t++) {
+        int thread = t;
+        resultados.add(
+          executor.submit(() -> {
+            largada.await();
+            for (int i = 0; i < porThread; i++) {
+              String valor = thread + "-" + i;
+              long fim = outbox.anexar(bytes(valor));
+              assertThat(outbox.getPosicaoDuravel()).isGreaterThanOrEqualTo(
+                fim
+              );
+              gravados.add(valor);
+            }
+            return null;
+          })
+        );
+      }
+
+      largada.countDown();
+      for (Future<?> resultado : resultados) {
+        resultado.get(120, TimeUnit.SECONDS);
+      }
+
+      assertThat(lerTudo(outbox, 0)).hasSize(threads * porThread).allMatch(
+        gravados::contains
+      );
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  private List<String> lerTudo(OutboxLog outbox, long desde) {
+    List<String> lidos = new ArrayList<>();
+    long posicao = desde;
+    List<OutboxLog.Registro> lote;
+    while (!(lote = outbox.ler(posicao, 64)).isEmpty()) {
+      for (OutboxLog.Registro registro : lote) {
+        lidos.add(new String(registro.payload(), StandardCharsets.UTF_8));
+      }
+      posicao = lote.get(lote.size() - 1).fim();
+    }
+    return lidos;
+  }
+
+  private long segmentos() throws Exception {
+    try (Stream<Path> arquivos = Files.list(diretorio)) {
+      return arquivos
+        .filter(arquivo -> arquivo.toString().endsWith(".log"))
+        .count();
+    }
+  }
+
+  private static byte[] bytes(String valor) {
+    return valor.getBytes(StandardCharsets.UTF_8);
+  }
+}
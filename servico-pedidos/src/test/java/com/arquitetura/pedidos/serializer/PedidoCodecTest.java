@@ -0,0 +1,147 @@
+package com.arquitetura.pedidos.serializer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import com.arquitetura.pedidos.model.ItemPedido;
+import com.arquitetura.pedidos.model.Pedido;
+import com.arquitetura.pedidos.model.StatusPedido;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+class PedidoCodecTest {
+
+  private Pedido pedidoExemplo() {
+    Pedido pedido = Pedido.builder()
+      .id("PED-1A2B3C4D")
+      .clienteId("CLI001")
+      .produtos(
+        List.of(
+          ItemPedido.builder()
+            .codigo("PROD001")
+            .nome("Notebook Dell")
+            .quantidade(2)
+            .precoCentavos(350_000)
+            .build(),
+          ItemPedido.builder()
+            .codigo("PROD002")
+            .nome("Mouse sem fio – edição especial")
+            .quantidade(1)
+            .precoCentavos(8_990)
+            .build()
+        )
+      )
+      .status(StatusPedido.CRIADO)
+      .dataCriacao(LocalDateTime.of(2024, 5, 17, 14, 30, 15, 123456789))
+      .build();
+    pedido.calcularValorTotal();
+    return pedido;
+  }
+
+  @Test
+  void deveCodificarEDecodificarSemPerda() {
+    Pedido original = pedidoExemplo();
+
+    Pedido decodificado = PedidoCodec.decodificar(
+      PedidoCodec.codificar(original)
+    );
+
+    assertThat(decodificado).isEqualTo(original);
+    assertThat(decodificado.getValorTotalCentavos()).isEqualTo(708_990);
+    assertThat(decodificado.getMoeda()).isEqualTo("BRL");
+  }
+
+  @Test
+  void devePreservarMoedaValoresExtremosECamposNulos() {
+    Pedido original = Pedido.builder()
+      .id("PED-X")
+      .moeda("JPY")
+      .valorTotalCentavos(Long.MAX_VALUE)
+      .produtos(
+        Arrays.asList(
+          ItemPedido.builder().codigo("PROD009").moeda("JPY").build(),
+          ItemPedido.builder()
+            .precoCentavos(Long.MIN_VALUE)
+            .quantidade(Integer.MIN_VALUE)
+            .moeda("JPY")
+            .build()
+        )
+      )
+      .build();
+
+    assertThat(PedidoCodec.decodificar(PedidoCodec.codificar(original)))
+      .isEqualTo(original);
+  }
+
+  @Test
+  void deveRejeitarItemEmOutraMoeda() {
+    Pedido pedido = Pedido.builder()
+      .id("PED-X")
+      .produtos(List.of(ItemPedido.builder().moeda("USD").build()))
+      .build();
+
+    assertThatThrownBy(() -> PedidoCodec.codificar(pedido)).isInstanceOf(
+      IllegalArgumentException.class
+    );
+  }
+
+  @Test
+  void deveSerMenorQueOJson() throws Exception {
+    ObjectMapper objectMapper = new ObjectMapper()
+      .registerModule(new JavaTimeModule());
+    Pedido pedido = pedidoExemplo();
+
+    byte[] binario = PedidoCodec.codificar(pedido);
+    byte[] json = objectMapper.writeValueAsBytes(pedido);
+
+    assertThat(PedidoCodec.isBinario(binario)).isTrue();
+    assertThat(PedidoCodec.isBinario(json)).isFalse();
+    assertThat(binario.length).isLessThan(json.length / 2);
+  }
+
+  @Test
+  void deveRejeitarConteudoTruncado() {
+    byte[] binario = PedidoCodec.codificar(pedidoExemplo());
+
+    assertThatThrownBy(() ->
+      PedidoCodec.decodificar(Arrays.copyOf(binario, binario.length - 3))
+    ).isInstanceOf(IllegalArgumentException.class);
+  }
+
+  @Test
+  void deveRejeitarQuantidadeDeProdutosAlemDoConteudo() {
+    Pedido pedido = pedidoExemplo();
+    pedido.setProdutos(List.of());
+    byte[] binario = PedidoCodec.codificar(pedido);
+    // Troca a contagem de produtos (último byte) por ~2 bilhões
+    byte[] forjado = Arrays.copyOf(binario, binario.length + 4);
+    int fim = binario.length - 1;
+    for (int i = 0; i < 4; i++) {
+      forjado[fim + i] = (byte) 0xFF;
+    }
+    forjado[fim + 4] = 7;
+
+    assertThatThrownBy(() -> PedidoCodec.decodificar(forjado))
+      .isInstanceOf(IllegalArgumentException.class)
+      .hasMessageContaining("Quantidade de produtos inválida");
+  }
+
+  @Test
+  void deveRejeitarStatusForaDaFaixa() {
+    Pedido pedido = pedidoExemplo();
+    byte[] binario = PedidoCodec.codificar(pedido);
+    pedido.setStatus(null);
+    byte[] semStatus = PedidoCodec.codificar(pedido);
+    // O único byte que muda sem o status é o do próprio status
+    int posicao = Arrays.mismatch(binario, semStatus);
+    binario[posicao] = (byte) (StatusPedido.values().length + 1);
+
+    assertThatThrownBy(() -> PedidoCodec.decodificar(binario))
+      .isInstanceOf(IllegalArgumentException.class)
+      .hasMessageContaining("Status inválido");
+  }
+}
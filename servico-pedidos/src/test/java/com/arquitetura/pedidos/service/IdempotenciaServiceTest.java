@@ -0,0 +1,180 @@
+package com.arquitetura.pedidos.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import com.arquitetura.pedidos.dto.ItemPedidoRequestDTO;
+import com.arquitetura.pedidos.dto.PedidoRequestDTO;
+import com.arquitetura.pedidos.dto.PedidoResponseDTO;
+import com.arquitetura.pedidos.exception.IdempotenciaConflitoException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+class IdempotenciaServiceTest {
+
+  private SimpleMeterRegistry meterRegistry;
+  private IdempotenciaService service;
+
+  @BeforeEach
+  void setUp() {
+    meterRegistry = new SimpleMeterRegistry();
+    service = new IdempotenciaService(meterRegistry);
+    ReflectionTestUtils.setField(service, "capacidade", 2);
+    ReflectionTestUtils.setField(service, "ttl", Duration.ofMinutes(5));
+    service.registrarMetricas();
+  }
+
+  private PedidoRequestDTO request(String clienteId) {
+    return PedidoRequestDTO.builder().clienteId(clienteId).build();
+  }
+
+  @Test
+  void duplicatasConcorrentesDevemAguardarAPrimeiraExecucao()
+    throws Exception {
+    AtomicInteger execucoes = new AtomicInteger();
+    CompletableFuture<PedidoResponseDTO> emAndamento = new CompletableFuture<>();
+    CountDownLatch largada = new CountDownLatch(1);
+    ExecutorService executor = Executors.newFixedThreadPool(8);
+
+    try {
+      List<Future<CompletableFuture<PedidoResponseDTO>>> chamadas =
+        new ArrayList<>();
+      for (int i = 0; i < 8; i++) {
+        chamadas.add(
+          executor.submit(() -> {
+            largada.await();
+            return service
+              .executar("chave-1", request("CLI001"), () -> {
+                execucoes.incrementAndGet();
+                return emAndamento;
+              })
+              .resposta();
+          })
+        );
+      }
+      largada.countDown();
+
+      List<CompletableFuture<PedidoResponseDTO>> respostas = new ArrayList<>();
+      for (Future<CompletableFuture<PedidoResponseDTO>> chamada : chamadas) {
+        respostas.add(chamada.get(5, TimeUnit.SECONDS));
+      }
+      assertThat(respostas).noneMatch(CompletableFuture::isDone);
+
+      emAndamento.complete(PedidoResponseDTO.builder().id("PED-1").build());
+
+      assertThat(execucoes).hasValue(1);
+      for (CompletableFuture<PedidoResponseDTO> resposta : respostas) {
+        assertThat(resposta.get(5, TimeUnit.SECONDS).getId()).isEqualTo(
+          "PED-1"
+        );
+      }
+      assertThat(
+        meterRegistry
+          .get("pedidos.idempotencia.requisicoes")
+          .tag("resultado", "acerto")
+          .counter()
+          .count()
+      ).isEqualTo(7.0);
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  @Test
+  void falhasNaoDevemSerMemorizadas() {
+    service.executar("chave-2", request("CLI001"), () ->
+      CompletableFuture.failedFuture(new IllegalStateException("broker fora"))
+    );
+
+    IdempotenciaService.Execucao novaTentativa = service.executar(
+      "chave-2",
+      request("CLI001"),
+      () ->
+        CompletableFuture.completedFuture(
+          PedidoResponseDTO.builder().id("PED-2").build()
+        )
+    );
+
+    assertThat(novaTentativa.repetida()).isFalse();
+    assertThat(novaTentativa.resposta().join().getId()).isEqualTo("PED-2");
+  }
+
+  @Test
+  void deveRejeitarMesmaChaveComCorpoDiferente() {
+    service.executar("chave-3", request("CLI001"), CompletableFuture::new);
+
+    assertThatThrownBy(() ->
+      service.executar("chave-3", request("CLI999"), CompletableFuture::new)
+    ).isInstanceOf(IdempotenciaConflitoException.class);
+  }
+
+  @Test
+  void deveDespejarEntradasMaisAntigasAoExcederACapacidade() {
+    for (int i = 0; i < 5; i++) {
+      service.executar("chave-" + i, request("CLI001"), CompletableFuture::new);
+    }
+
+    assertThat(meterRegistry.get("pedidos.idempotencia.tamanho").gauge().value())
+      .isEqualTo(2.0);
+    assertThat(
+      meterRegistry.get("pedidos.idempotencia.despejos").counter().count()
+    ).isEqualTo(3.0);
+  }
+
+  @Test
+  void falhasNaoDevemDeixarEntradasParaTras() {
+    for (int i = 0; i < 5; i++) {
+      service.executar("falha-" + i, request("CLI001"), () ->
+        CompletableFuture.failedFuture(new IllegalStateException("fora"))
+      );
+    }
+
+    assertThat(meterRegistry.get("pedidos.idempotencia.tamanho").gauge().value())
+      .isZero();
+    assertThat(
+      meterRegistry.get("pedidos.idempotencia.despejos").counter().count()
+    ).isZero();
+  }
+
+  @Test
+  void impressaoDeveDistinguirQualquerCampoDoCorpo() {
+    byte[] original = impressao("P001", 2, "10.00");
+
+    assertThat(original).isEqualTo(impressao("P001", 2, "10.0"));
+    assertThat(original)
+      .isNotEqualTo(impressao("P001", 2, "10.01"))
+      .isNotEqualTo(impressao("P001", 3, "10.00"))
+      .isNotEqualTo(impressao("P0012", 2, "10.00"));
+  }
+
+  private byte[] impressao(String codigo, int quantidade, String preco) {
+    return IdempotenciaService.impressao(
+      PedidoRequestDTO.builder()
+        .clienteId("CLI001")
+        .produtos(
+          List.of(
+            ItemPedidoRequestDTO.builder()
+              .codigo(codigo)
+              .nome("Produto")
+              .quantidade(quantidade)
+              .preco(new BigDecimal(preco))
+              .build()
+          )
+        )
+        .build()
+    );
+  }
+}
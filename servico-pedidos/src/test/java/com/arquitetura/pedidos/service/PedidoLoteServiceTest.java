@@ -0,0 +1,69 @@
+package com.arquitetura.pedidos.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.arquitetura.pedidos.dto.PedidoLoteResultadoDTO;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.validation.Validation;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+class PedidoLoteServiceTest {
+
+  private final ObjectMapper objectMapper = new ObjectMapper();
+
+  @Test
+  void linhaLongaDeveVirarErroDaLinhaSemInterromperOLote() throws IOException {
+    // Sem PedidoService: nenhuma das linhas chega a criar pedido
+    PedidoLoteService service = new PedidoLoteService(
+      null,
+      objectMapper,
+      Validation.buildDefaultValidatorFactory().getValidator()
+    );
+    String entrada =
+      "x".repeat(PedidoLoteService.TAMANHO_MAXIMO_LINHA * 3) + "\n\n{ruim\n";
+    ByteArrayOutputStream saida = new ByteArrayOutputStream();
+
+    PedidoLoteService.ResumoLote resumo = service.processarLote(
+      new ByteArrayInputStream(entrada.getBytes(StandardCharsets.UTF_8)),
+      saida
+    );
+
+    assertThat(resumo).isEqualTo(new PedidoLoteService.ResumoLote(3, 0, 2));
+    List<PedidoLoteResultadoDTO> resultados = new ArrayList<>();
+    for (String linha : saida.toString(StandardCharsets.UTF_8).split("\n")) {
+      resultados.add(objectMapper.readValue(linha, PedidoLoteResultadoDTO.class));
+    }
+    assertThat(resultados).hasSize(2);
+    assertThat(resultados.get(0).getLinha()).isEqualTo(1);
+    assertThat(resultados.get(0).getMensagem()).startsWith(
+      "Linha excede o tamanho máximo"
+    );
+    assertThat(resultados.get(1).getLinha()).isEqualTo(3);
+    assertThat(resultados.get(1).getMensagem()).startsWith("JSON inválido");
+  }
+
+  @Test
+  void leitorDeveRespeitarOLimiteSemContarOCrlf() throws IOException {
+    PedidoLoteService.LeitorLinhas leitor = new PedidoLoteService.LeitorLinhas(
+      new StringReader("abcd\r\nabcde\nab\r\n\nfim"),
+      4
+    );
+
+    assertThat(leitor.proxima()).isEqualTo("abcd");
+    assertThat(leitor.excedeu()).isFalse();
+    assertThat(leitor.proxima()).isEqualTo("abcde");
+    assertThat(leitor.excedeu()).isTrue();
+    assertThat(leitor.proxima()).isEqualTo("ab");
+    assertThat(leitor.excedeu()).isFalse();
+    assertThat(leitor.proxima()).isEmpty();
+    assertThat(leitor.proxima()).isEqualTo("fim");
+    assertThat(leitor.proxima()).isNull();
+  }
+}
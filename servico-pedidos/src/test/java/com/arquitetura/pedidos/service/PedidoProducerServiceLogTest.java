@@ -0,0 +1,182 @@
+package com.arquitetura.pedidos.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import ch.qos.logback.classic.AsyncAppender;
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.classic.encoder.PatternLayoutEncoder;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.OutputStreamAppender;
+import com.arquitetura.pedidos.model.ItemPedido;
+import com.arquitetura.pedidos.model.Pedido;
+import com.arquitetura.pedidos.model.StatusPedido;
+import com.arquitetura.pedidos.outbox.OutboxLog;
+import io.micrometer.tracing.Tracer;
+import java.io.OutputStream;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicLong;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.clients.producer.RecordMetadata;
+import org.apache.kafka.common.TopicPartition;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.support.SendResult;
+import org.springframework.test.util.ReflectionTestUtils;
+
+/**
+ * Compara o volume de log da publicação com os banners detalhados (DEBUG) e
+ * com a linha estruturada (INFO), ambos passando pelo AsyncAppender como em
+ * produção. Os bytes vão para um stream que só conta o volume escrito.
+ */
+class PedidoProducerServiceLogTest {
+
+  private static final int PEDIDOS = 5_000;
+
+  private Logger logger;
+  private Level nivelOriginal;
+  private AsyncAppender async;
+  private PedidoProducerService service;
+
+  @BeforeEach
+  @SuppressWarnings("unchecked")
+  void setUp() {
+    KafkaTemplate<String, Pedido> kafkaTemplate = mock(KafkaTemplate.class);
+    when(kafkaTemplate.send(anyString(), anyString(), any())).thenAnswer(
+      chamada -> {
+        ProducerRecord<String, Pedido> record = new ProducerRecord<>(
+          chamada.getArgument(0),
+          chamada.getArgument(1),
+          chamada.getArgument(2)
+        );
+        RecordMetadata metadata = new RecordMetadata(
+          new TopicPartition(record.topic(), 0),
+          0,
+          0,
+          System.currentTimeMillis(),
+          0,
+          0
+        );
+        return CompletableFuture.completedFuture(
+          new SendResult<>(record, metadata)
+        );
+      }
+    );
+
+    service = new PedidoProducerService(
+      kafkaTemplate,
+      Tracer.NOOP,
+      new StaticListableBeanFactory().getBeanProvider(OutboxLog.class)
+    );
+    ReflectionTestUtils.setField(service, "topicPedidos", "pedidos-topic");
+
+    LoggerContext contexto = (LoggerContext) LoggerFactory.getILoggerFactory();
+    logger = contexto.getLogger(PedidoProducerService.class);
+    nivelOriginal = logger.getLevel();
+    logger.setAdditive(false);
+  }
+
+  @AfterEach
+  void tearDown() {
+    if (async != null) {
+      logger.detachAppender(async);
+      async.stop();
+    }
+    logger.setAdditive(true);
+    logger.setLevel(nivelOriginal);
+  }
+
+  /**
+   * Publica {@link #PEDIDOS} pedidos no nível dado e devolve os bytes
+   * escritos. Cada contagem tem seu próprio AsyncAppender, parado antes de
+   * ler o total: o stop escoa a fila e espera o último evento ser escrito.
+   */
+  private long contarBytes(Level nivel) {
+    LoggerContext contexto = logger.getLoggerContext();
+    PatternLayoutEncoder encoder = new PatternLayoutEncoder();
+    encoder.setContext(contexto);
+    encoder.setPattern("%d %5p [%t] %logger{36} - %msg%n");
+    encoder.start();
+
+    AtomicLong bytesEscritos = new AtomicLong();
+    OutputStreamAppender<ILoggingEvent> saida = new OutputStreamAppender<>();
+    saida.setContext(contexto);
+    saida.setEncoder(encoder);
+    saida.setOutputStream(
+      new OutputStream() {
+        @Override
+        public void write(int b) {
+          bytesEscritos.incrementAndGet();
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+          bytesEscritos.addAndGet(len);
+        }
+      }
+    );
+    saida.start();
+
+    // Bloqueia com a fila cheia para que a contagem de bytes seja exata
+    async = new AsyncAppender();
+    async.setContext(contexto);
+    async.setQueueSize(8192);
+    async.setDiscardingThreshold(0);
+    async.setNeverBlock(false);
+    async.setMaxFlushTime(10_000);
+    async.addAppender(saida);
+    async.start();
+    logger.addAppender(async);
+    logger.setLevel(nivel);
+
+    for (int i = 0; i < PEDIDOS; i++) {
+      service.publicarEventoPedido(pedido(i));
+    }
+
+    logger.detachAppender(async);
+    async.stop();
+    async = null;
+    saida.stop();
+    return bytesEscritos.get();
+  }
+
+  private Pedido pedido(int i) {
+    return Pedido.builder()
+      .id("PED-" + i)
+      .clienteId("CLI" + (i % 1000))
+      .produtos(
+        List.of(
+          ItemPedido.builder()
+            .codigo("PROD001")
+            .nome("Notebook")
+            .quantidade(1)
+            .precoCentavos(150_000)
+            .build()
+        )
+      )
+      .valorTotalCentavos(150_000)
+      .status(StatusPedido.CRIADO)
+      .dataCriacao(LocalDateTime.now())
+      .build();
+  }
+
+  @Test
+  void modoEstruturadoDeveEscreverMenosQueOModoVerboso() {
+    long verboso = contarBytes(Level.DEBUG);
+    long estruturado = contarBytes(Level.INFO);
+
+    assertThat(estruturado).isPositive();
+    assertThat(estruturado * 3).isLessThan(verboso);
+  }
+}
@@ -4,7 +4,10 @@ import com.arquitetura.pedidos.PedidosApplication;
 import org.junit.jupiter.api.Test;
 import org.springframework.boot.test.context.SpringBootTest;
 
-@SpringBootTest(classes = PedidosApplication.class)
+@SpringBootTest(
+	classes = PedidosApplication.class,
+	properties = "app.pedidos.id.no=0"
+)
 class ServicoPedidosApplicationTests {
 
 	@Test
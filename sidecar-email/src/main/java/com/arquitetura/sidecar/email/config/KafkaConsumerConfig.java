@@ -1,6 +1,7 @@
 package com.arquitetura.sidecar.email.config;
 
 import com.arquitetura.sidecar.email.model.Pedido;
+import com.arquitetura.sidecar.email.serializer.PedidoDeserializer;
 import java.util.HashMap;
 import java.util.Map;
 import org.apache.kafka.clients.consumer.ConsumerConfig;
@@ -36,7 +37,7 @@ public class KafkaConsumerConfig {
     );
     configProps.put(
       ConsumerConfig.VALUE_DESERIALIZER_CLASS_CONFIG,
-      JsonDeserializer.class
+      PedidoDeserializer.class
     );
     configProps.put(ConsumerConfig.AUTO_OFFSET_RESET_CONFIG, "earliest");
     configProps.put(ConsumerConfig.ENABLE_AUTO_COMMIT_CONFIG, true);
@@ -26,28 +26,34 @@ public class EmailConsumer {
     containerFactory = "kafkaListenerContainerFactory"
   )
   public void consumirPedido(Pedido pedido) {
-    StringBuilder eventLog = new StringBuilder("\n");
-    eventLog.append(
-      "╔═══════════════════════════════════════════════════════════╗\n"
-    );
-    eventLog.append(
-      "║  📧 [EMAIL-SIDECAR] Evento recebido do Kafka              ║\n"
-    );
-    eventLog.append(
-      "╚═══════════════════════════════════════════════════════════╝\n"
-    );
-    eventLog.append(String.format("   └─ Pedido ID: %s%n", pedido.getId()));
-    eventLog.append(
-      String.format("   └─ Cliente ID: %s%n", pedido.getClienteId())
-    );
-    eventLog.append("   └─ Consumer Group: email-sidecar-group (SIDECAR)\n");
-
-    log.info(eventLog.toString());
+    if (log.isDebugEnabled()) {
+      StringBuilder eventLog = new StringBuilder("\n");
+      eventLog.append(
+        "╔═══════════════════════════════════════════════════════════╗\n"
+      );
+      eventLog.append(
+        "║  📧 [EMAIL-SIDECAR] Evento recebido do Kafka              ║\n"
+      );
+      eventLog.append(
+        "╚═══════════════════════════════════════════════════════════╝\n"
+      );
+      eventLog.append(String.format("   └─ Pedido ID: %s%n", pedido.getId()));
+      eventLog.append(
+        String.format("   └─ Cliente ID: %s%n", pedido.getClienteId())
+      );
+      eventLog.append("   └─ Consumer Group: email-sidecar-group (SIDECAR)\n");
+
+      log.debug(eventLog.toString());
+    }
 
     try {
       emailService.enviarEmailConfirmacao(pedido);
 
-      log.info("✅ [EMAIL-SIDECAR] Email processado com sucesso!\n");
+      log.info(
+        "etapa=email.enviado pedidoId={} clienteId={} canal=kafka",
+        pedido.getId(),
+        pedido.getClienteId()
+      );
     } catch (Exception e) {
       log.error(
         "❌ [EMAIL-SIDECAR] Erro ao processar email: {}",
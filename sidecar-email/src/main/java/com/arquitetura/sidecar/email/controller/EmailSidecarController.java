@@ -1,10 +1,12 @@
 package com.arquitetura.sidecar.email.controller;
 
+import com.arquitetura.sidecar.email.dto.EmailLoteResponse;
 import com.arquitetura.sidecar.email.dto.EmailRequest;
 import com.arquitetura.sidecar.email.dto.EmailResponse;
 import com.arquitetura.sidecar.email.model.Pedido;
 import com.arquitetura.sidecar.email.service.EmailService;
 import jakarta.validation.Valid;
+import java.util.List;
 import lombok.RequiredArgsConstructor;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -27,12 +29,14 @@ public class EmailSidecarController {
   public ResponseEntity<EmailResponse> enviarEmail(
     @Valid @RequestBody EmailRequest request
   ) {
-    log.info("═══════════════════════════════════════════════════════════");
-    log.info("📧 [SIDECAR] Requisição recebida para enviar email");
-    log.info("   └─ Chamado por: Serviço de Notificação (localhost)");
-    log.info("   └─ Destinatário: {}", request.getDestinatario());
-    log.info("   └─ Assunto: {}", request.getAssunto());
-    log.info("═══════════════════════════════════════════════════════════");
+    if (log.isDebugEnabled()) {
+      log.debug("═══════════════════════════════════════════════════════════");
+      log.debug("📧 [SIDECAR] Requisição recebida para enviar email");
+      log.debug("   └─ Chamado por: Serviço de Notificação (localhost)");
+      log.debug("   └─ Destinatário: {}", request.getDestinatario());
+      log.debug("   └─ Assunto: {}", request.getAssunto());
+      log.debug("═══════════════════════════════════════════════════════════");
+    }
 
     try {
       emailService.enviarEmailDireto(
@@ -48,8 +52,10 @@ public class EmailSidecarController {
         .destinatario(request.getDestinatario())
         .build();
 
-      log.info("✅ [SIDECAR] Email enviado com sucesso!");
-      log.info("═══════════════════════════════════════════════════════════");
+      log.info(
+        "etapa=email.enviado destinatario={} canal=http",
+        request.getDestinatario()
+      );
 
       return ResponseEntity.ok(response);
     } catch (Exception e) {
@@ -71,11 +77,13 @@ public class EmailSidecarController {
   public ResponseEntity<EmailResponse> enviarEmailPedido(
     @Valid @RequestBody Pedido pedido
   ) {
-    log.info("═══════════════════════════════════════════════════════════");
-    log.info("📧 [SIDECAR] Requisição para enviar email de pedido");
-    log.info("   └─ Pedido ID: {}", pedido.getId());
-    log.info("   └─ Cliente ID: {}", pedido.getClienteId());
-    log.info("═══════════════════════════════════════════════════════════");
+    if (log.isDebugEnabled()) {
+      log.debug("═══════════════════════════════════════════════════════════");
+      log.debug("📧 [SIDECAR] Requisição para enviar email de pedido");
+      log.debug("   └─ Pedido ID: {}", pedido.getId());
+      log.debug("   └─ Cliente ID: {}", pedido.getClienteId());
+      log.debug("═══════════════════════════════════════════════════════════");
+    }
 
     try {
       emailService.enviarEmailConfirmacao(pedido);
@@ -87,8 +95,11 @@ public class EmailSidecarController {
         .pedidoId(pedido.getId())
         .build();
 
-      log.info("✅ [SIDECAR] Email de pedido enviado com sucesso!");
-      log.info("═══════════════════════════════════════════════════════════");
+      log.info(
+        "etapa=email.enviado pedidoId={} clienteId={} canal=http",
+        pedido.getId(),
+        pedido.getClienteId()
+      );
 
       return ResponseEntity.ok(response);
     } catch (Exception e) {
@@ -106,6 +117,63 @@ public class EmailSidecarController {
     }
   }
 
+  /**
+   * Lote de pedidos numa requisição só. Responde 200 com um resultado por
+   * pedido, na ordem recebida: a falha de um pedido não derruba os outros.
+   */
+  @PostMapping("/pedidos/lote")
+  public ResponseEntity<EmailLoteResponse> enviarEmailsPedidos(
+    @RequestBody List<Pedido> pedidos
+  ) {
+    long inicio = System.nanoTime();
+    List<String> falhas = emailService.enviarEmailsConfirmacao(pedidos);
+
+    EmailLoteResponse lote = new EmailLoteResponse();
+    for (int i = 0; i < pedidos.size(); i++) {
+      Pedido pedido = pedidos.get(i);
+      String falha = falhas.get(i);
+      String pedidoId = pedido != null ? pedido.getId() : null;
+      if (falha == null) {
+        lote.setEnviados(lote.getEnviados() + 1);
+        lote
+          .getResultados()
+          .add(
+            EmailResponse.builder()
+              .sucesso(true)
+              .mensagem("Email de confirmação de pedido enviado!")
+              .destinatario(pedido.getClienteId() + "@email.com")
+              .pedidoId(pedidoId)
+              .build()
+          );
+      } else {
+        lote.setFalhas(lote.getFalhas() + 1);
+        log.warn(
+          "etapa=email.falha pedidoId={} canal=http-lote motivo=\"{}\"",
+          pedidoId,
+          falha
+        );
+        lote
+          .getResultados()
+          .add(
+            EmailResponse.builder()
+              .sucesso(false)
+              .mensagem("Erro ao enviar email: " + falha)
+              .pedidoId(pedidoId)
+              .build()
+          );
+      }
+    }
+
+    log.info(
+      "etapa=email.lote pedidos={} enviados={} falhas={} canal=http duracaoMs={}",
+      pedidos.size(),
+      lote.getEnviados(),
+      lote.getFalhas(),
+      (System.nanoTime() - inicio) / 1_000_000
+    );
+    return ResponseEntity.ok(lote);
+  }
+
   @GetMapping("/health")
   public ResponseEntity<String> health() {
     log.debug("💚 [SIDECAR] Health check requisitado");
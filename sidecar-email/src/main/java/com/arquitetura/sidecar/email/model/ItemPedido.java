@@ -1,5 +1,8 @@
 package com.arquitetura.sidecar.email.model;
 
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonProperty;
 import java.math.BigDecimal;
 
 public class ItemPedido {
@@ -7,27 +10,56 @@ public class ItemPedido {
   private String codigo;
   private String nome;
   private Integer quantidade;
-  private BigDecimal preco;
+  private long precoCentavos;
+  private String moeda;
 
-  public ItemPedido() {}
+  public ItemPedido() {
+    this.moeda = Dinheiro.MOEDA_PADRAO;
+  }
 
   public ItemPedido(
     String codigo,
     String nome,
     Integer quantidade,
-    BigDecimal preco
+    long precoCentavos,
+    String moeda
   ) {
     this.codigo = codigo;
     this.nome = nome;
     this.quantidade = quantidade;
-    this.preco = preco;
+    this.precoCentavos = precoCentavos;
+    this.moeda = Dinheiro.moedaOuPadrao(moeda);
   }
 
-  public BigDecimal getSubtotal() {
-    if (quantidade != null && preco != null) {
-      return preco.multiply(BigDecimal.valueOf(quantidade));
+  /** Borda JSON: o preço chega em decimal e vira centavos uma única vez. */
+  @JsonCreator
+  public static ItemPedido deJson(
+    @JsonProperty("codigo") String codigo,
+    @JsonProperty("nome") String nome,
+    @JsonProperty("quantidade") Integer quantidade,
+    @JsonProperty("preco") BigDecimal preco,
+    @JsonProperty("moeda") String moeda
+  ) {
+    String codigoMoeda = Dinheiro.moedaOuPadrao(moeda);
+    return new ItemPedido(
+      codigo,
+      nome,
+      quantidade,
+      preco != null ? Dinheiro.centavosDe(preco, codigoMoeda) : 0L,
+      codigoMoeda
+    );
+  }
+
+  @JsonIgnore
+  public long getSubtotalCentavos() {
+    if (quantidade == null) {
+      return 0L;
     }
-    return BigDecimal.ZERO;
+    return Math.multiplyExact(precoCentavos, quantidade.longValue());
+  }
+
+  public BigDecimal getSubtotal() {
+    return Dinheiro.valorDe(getSubtotalCentavos(), moeda);
   }
 
   public String getCodigo() {
@@ -54,12 +86,26 @@ public class ItemPedido {
     this.quantidade = quantidade;
   }
 
+  @JsonIgnore
+  public long getPrecoCentavos() {
+    return precoCentavos;
+  }
+
+  public void setPrecoCentavos(long precoCentavos) {
+    this.precoCentavos = precoCentavos;
+  }
+
+  @JsonProperty("preco")
   public BigDecimal getPreco() {
-    return preco;
+    return Dinheiro.valorDe(precoCentavos, moeda);
+  }
+
+  public String getMoeda() {
+    return moeda;
   }
 
-  public void setPreco(BigDecimal preco) {
-    this.preco = preco;
+  public void setMoeda(String moeda) {
+    this.moeda = moeda;
   }
 
   @Override
@@ -74,8 +120,10 @@ public class ItemPedido {
       '\'' +
       ", quantidade=" +
       quantidade +
-      ", preco=" +
-      preco +
+      ", precoCentavos=" +
+      precoCentavos +
+      ", moeda=" +
+      moeda +
       '}'
     );
   }
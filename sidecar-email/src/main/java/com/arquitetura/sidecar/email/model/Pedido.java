@@ -1,5 +1,8 @@
 package com.arquitetura.sidecar.email.model;
 
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonProperty;
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
@@ -10,40 +13,72 @@ public class Pedido {
   private String id;
   private String clienteId;
   private List<ItemPedido> produtos;
-  private BigDecimal valorTotal;
+  private long valorTotalCentavos;
+  private String moeda;
   private StatusPedido status;
   private LocalDateTime dataCriacao;
 
   public Pedido() {
     this.produtos = new ArrayList<>();
-    this.valorTotal = BigDecimal.ZERO;
+    this.moeda = Dinheiro.MOEDA_PADRAO;
   }
 
   public Pedido(
     String id,
     String clienteId,
     List<ItemPedido> produtos,
-    BigDecimal valorTotal,
+    long valorTotalCentavos,
+    String moeda,
     StatusPedido status,
     LocalDateTime dataCriacao
   ) {
     this.id = id;
     this.clienteId = clienteId;
     this.produtos = produtos != null ? produtos : new ArrayList<>();
-    this.valorTotal = valorTotal != null ? valorTotal : BigDecimal.ZERO;
+    this.valorTotalCentavos = valorTotalCentavos;
+    this.moeda = Dinheiro.moedaOuPadrao(moeda);
     this.status = status;
     this.dataCriacao = dataCriacao;
   }
 
+  @JsonCreator
+  public static Pedido deJson(
+    @JsonProperty("id") String id,
+    @JsonProperty("clienteId") String clienteId,
+    @JsonProperty("produtos") List<ItemPedido> produtos,
+    @JsonProperty("valorTotal") BigDecimal valorTotal,
+    @JsonProperty("moeda") String moeda,
+    @JsonProperty("status") StatusPedido status,
+    @JsonProperty("dataCriacao") LocalDateTime dataCriacao
+  ) {
+    String codigoMoeda = Dinheiro.moedaOuPadrao(moeda);
+    return new Pedido(
+      id,
+      clienteId,
+      produtos,
+      valorTotal != null ? Dinheiro.centavosDe(valorTotal, codigoMoeda) : 0L,
+      codigoMoeda,
+      status,
+      dataCriacao
+    );
+  }
+
   public void calcularValorTotal() {
-    if (produtos != null && !produtos.isEmpty()) {
-      this.valorTotal = produtos
-        .stream()
-        .map(ItemPedido::getSubtotal)
-        .reduce(BigDecimal.ZERO, BigDecimal::add);
-    } else {
-      this.valorTotal = BigDecimal.ZERO;
+    long totalCentavos = 0L;
+    if (produtos != null) {
+      for (ItemPedido item : produtos) {
+        if (!moeda.equals(item.getMoeda())) {
+          throw new IllegalArgumentException(
+            "Moedas diferentes: " + moeda + " e " + item.getMoeda()
+          );
+        }
+        totalCentavos = Math.addExact(
+          totalCentavos,
+          item.getSubtotalCentavos()
+        );
+      }
     }
+    this.valorTotalCentavos = totalCentavos;
   }
 
   public String getId() {
@@ -70,12 +105,26 @@ public class Pedido {
     this.produtos = produtos;
   }
 
+  @JsonIgnore
+  public long getValorTotalCentavos() {
+    return valorTotalCentavos;
+  }
+
+  public void setValorTotalCentavos(long valorTotalCentavos) {
+    this.valorTotalCentavos = valorTotalCentavos;
+  }
+
+  @JsonProperty("valorTotal")
   public BigDecimal getValorTotal() {
-    return valorTotal;
+    return Dinheiro.valorDe(valorTotalCentavos, moeda);
+  }
+
+  public String getMoeda() {
+    return moeda;
   }
 
-  public void setValorTotal(BigDecimal valorTotal) {
-    this.valorTotal = valorTotal;
+  public void setMoeda(String moeda) {
+    this.moeda = moeda;
   }
 
   public StatusPedido getStatus() {
@@ -106,8 +155,10 @@ public class Pedido {
       '\'' +
       ", produtos=" +
       produtos +
-      ", valorTotal=" +
-      valorTotal +
+      ", valorTotalCentavos=" +
+      valorTotalCentavos +
+      ", moeda=" +
+      moeda +
       ", status=" +
       status +
       ", dataCriacao=" +
@@ -0,0 +1,291 @@
+package com.arquitetura.sidecar.email.serializer;
+
+import com.arquitetura.sidecar.email.model.ItemPedido;
+import com.arquitetura.sidecar.email.model.Pedido;
+import com.arquitetura.sidecar.email.model.StatusPedido;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Codificação binária versionada do evento de pedido.
+ *
+ * <p>Layout v1: {@code MAGICO, VERSAO, id, clienteId, moeda, valorTotal,
+ * status, dataCriacao, produtos[codigo, nome, quantidade, preco]}. Textos são
+ * UTF-8 prefixados pelo tamanho + 1 (0 = nulo), valores monetários são
+ * centavos em zigzag na moeda do pedido (gravada uma vez; todos os itens usam
+ * a mesma), e datas são segundos/nanos em UTC. O status é
+ * gravado pelo ordinal, portanto novas constantes de {@link StatusPedido} só
+ * podem ser adicionadas ao final do enum.
+ *
+ * <p>JSON sempre começa com '{' ou espaço, então o byte mágico permite que os
+ * consumidores aceitem os dois formatos durante a migração.
+ */
+public final class PedidoCodec {
+
+  public static final byte MAGICO = (byte) 0xB7;
+  public static final byte VERSAO = 1;
+
+  private static final int NULO = 0;
+  // codigo, nome, quantidade e preco
+  private static final int BYTES_MINIMOS_ITEM = 4;
+
+  private static final StatusPedido[] STATUS = StatusPedido.values();
+
+  private PedidoCodec() {}
+
+  public static boolean isBinario(byte[] dados) {
+    return dados != null && dados.length > 1 && dados[0] == MAGICO;
+  }
+
+  public static byte[] codificar(Pedido pedido) {
+    List<ItemPedido> produtos = pedido.getProdutos();
+    int tamanhoEstimado = 64 + (produtos != null ? produtos.size() * 48 : 0);
+
+    Escritor escritor = new Escritor(tamanhoEstimado);
+    escritor.escreverByte(MAGICO);
+    escritor.escreverByte(VERSAO);
+    escritor.escreverTexto(pedido.getId());
+    escritor.escreverTexto(pedido.getClienteId());
+    escritor.escreverTexto(pedido.getMoeda());
+    escritor.escreverZigZag(pedido.getValorTotalCentavos());
+    escritor.escreverByte(
+      pedido.getStatus() != null ? pedido.getStatus().ordinal() + 1 : NULO
+    );
+    escritor.escreverData(pedido.getDataCriacao());
+
+    if (produtos == null) {
+      escritor.escreverVarLong(NULO);
+    } else {
+      escritor.escreverVarLong(produtos.size() + 1L);
+      for (ItemPedido item : produtos) {
+        escritor.escreverTexto(item.getCodigo());
+        escritor.escreverTexto(item.getNome());
+        escritor.escreverInteiro(item.getQuantidade());
+        if (!Objects.equals(item.getMoeda(), pedido.getMoeda())) {
+          throw new IllegalArgumentException(
+            "Item em " + item.getMoeda() + " num pedido em " + pedido.getMoeda()
+          );
+        }
+        escritor.escreverZigZag(item.getPrecoCentavos());
+      }
+    }
+
+    return escritor.toByteArray();
+  }
+
+  public static Pedido decodificar(byte[] dados) {
+    if (!isBinario(dados)) {
+      throw new IllegalArgumentException("Conteúdo não é um pedido binário");
+    }
+
+    Leitor leitor = new Leitor(dados, 1);
+    int versao = leitor.lerByte();
+    if (versao != VERSAO) {
+      throw new IllegalArgumentException(
+        "Versão de codificação não suportada: " + versao
+      );
+    }
+
+    String id = leitor.lerTexto();
+    String clienteId = leitor.lerTexto();
+    String moeda = leitor.lerTexto();
+    long valorTotalCentavos = leitor.lerZigZag();
+    int codigoStatus = leitor.lerByte();
+    if (codigoStatus > STATUS.length) {
+      throw new IllegalArgumentException("Status inválido: " + codigoStatus);
+    }
+    LocalDateTime dataCriacao = leitor.lerData();
+
+    List<ItemPedido> produtos = null;
+    long quantidadeProdutos = leitor.lerVarLong();
+    if (quantidadeProdutos != NULO) {
+      // Cada item ocupa ao menos um byte por campo: uma contagem corrompida
+      // não reserva mais memória do que o próprio registro comportaria
+      if (
+        quantidadeProdutos < 0 ||
+        quantidadeProdutos - 1 > leitor.restantes() / BYTES_MINIMOS_ITEM
+      ) {
+        throw new IllegalArgumentException(
+          "Quantidade de produtos inválida: " + (quantidadeProdutos - 1)
+        );
+      }
+      int total = (int) (quantidadeProdutos - 1);
+      produtos = new ArrayList<>(total);
+      for (int i = 0; i < total; i++) {
+        produtos.add(
+          new ItemPedido(
+            leitor.lerTexto(),
+            leitor.lerTexto(),
+            leitor.lerInteiro(),
+            leitor.lerZigZag(),
+            moeda
+          )
+        );
+      }
+    }
+
+    return new Pedido(
+      id,
+      clienteId,
+      produtos,
+      valorTotalCentavos,
+      moeda,
+      codigoStatus != NULO ? STATUS[codigoStatus - 1] : null,
+      dataCriacao
+    );
+  }
+
+  private static final class Escritor {
+
+    private byte[] buffer;
+    private int posicao;
+
+    Escritor(int capacidade) {
+      this.buffer = new byte[capacidade];
+    }
+
+    void escreverByte(int valor) {
+      garantir(1);
+      buffer[posicao++] = (byte) valor;
+    }
+
+    void escreverVarLong(long valor) {
+      garantir(10);
+      while ((valor & ~0x7FL) != 0) {
+        buffer[posicao++] = (byte) ((valor & 0x7F) | 0x80);
+        valor >>>= 7;
+      }
+      buffer[posicao++] = (byte) valor;
+    }
+
+    void escreverZigZag(long valor) {
+      escreverVarLong((valor << 1) ^ (valor >> 63));
+    }
+
+    void escreverBytes(byte[] bytes) {
+      garantir(bytes.length);
+      System.arraycopy(bytes, 0, buffer, posicao, bytes.length);
+      posicao += bytes.length;
+    }
+
+    void escreverTexto(String texto) {
+      if (texto == null) {
+        escreverVarLong(NULO);
+        return;
+      }
+      byte[] bytes = texto.getBytes(StandardCharsets.UTF_8);
+      escreverVarLong(bytes.length + 1L);
+      escreverBytes(bytes);
+    }
+
+    void escreverInteiro(Integer valor) {
+      if (valor == null) {
+        escreverByte(NULO);
+        return;
+      }
+      escreverByte(1);
+      escreverZigZag(valor);
+    }
+
+    void escreverData(LocalDateTime data) {
+      if (data == null) {
+        escreverByte(NULO);
+        return;
+      }
+      escreverByte(1);
+      escreverZigZag(data.toEpochSecond(ZoneOffset.UTC));
+      escreverVarLong(data.getNano());
+    }
+
+    byte[] toByteArray() {
+      return Arrays.copyOf(buffer, posicao);
+    }
+
+    private void garantir(int adicional) {
+      if (posicao + adicional > buffer.length) {
+        buffer = Arrays.copyOf(
+          buffer,
+          Math.max(buffer.length * 2, posicao + adicional)
+        );
+      }
+    }
+  }
+
+  private static final class Leitor {
+
+    private final byte[] dados;
+    private int posicao;
+
+    Leitor(byte[] dados, int posicao) {
+      this.dados = dados;
+      this.posicao = posicao;
+    }
+
+    int lerByte() {
+      exigir(1);
+      return dados[posicao++] & 0xFF;
+    }
+
+    long lerVarLong() {
+      long resultado = 0;
+      for (int deslocamento = 0; deslocamento < Long.SIZE; deslocamento += 7) {
+        int atual = lerByte();
+        resultado |= (long) (atual & 0x7F) << deslocamento;
+        if ((atual & 0x80) == 0) {
+          return resultado;
+        }
+      }
+      throw new IllegalArgumentException("VarLong malformado");
+    }
+
+    long lerZigZag() {
+      long valor = lerVarLong();
+      return (valor >>> 1) ^ -(valor & 1);
+    }
+
+    String lerTexto() {
+      long tamanho = lerVarLong();
+      if (tamanho == NULO) {
+        return null;
+      }
+      int bytes = (int) (tamanho - 1);
+      exigir(bytes);
+      String texto = new String(dados, posicao, bytes, StandardCharsets.UTF_8);
+      posicao += bytes;
+      return texto;
+    }
+
+    Integer lerInteiro() {
+      if (lerByte() == NULO) {
+        return null;
+      }
+      return Math.toIntExact(lerZigZag());
+    }
+
+    LocalDateTime lerData() {
+      if (lerByte() == NULO) {
+        return null;
+      }
+      long segundos = lerZigZag();
+      int nanos = (int) lerVarLong();
+      return LocalDateTime.ofEpochSecond(segundos, nanos, ZoneOffset.UTC);
+    }
+
+    int restantes() {
+      return dados.length - posicao;
+    }
+
+    private void exigir(int quantidade) {
+      if (quantidade < 0 || posicao + quantidade > dados.length) {
+        throw new IllegalArgumentException(
+          "Pedido binário truncado na posição " + posicao
+        );
+      }
+    }
+  }
+}
@@ -2,6 +2,8 @@ package com.arquitetura.sidecar.email.service;
 
 import com.arquitetura.sidecar.email.model.Pedido;
 import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
@@ -23,13 +25,15 @@ public class EmailService {
     String corpo,
     Boolean isHtml
   ) {
-    log.info("═══════════════════════════════════════════════════════════");
-    log.info("📧 [SIDECAR EMAIL] Enviando email direto via HTTP");
-    log.info("   └─ De: {}", emailRemetente);
-    log.info("   └─ Para: {}", destinatario);
-    log.info("   └─ Assunto: {}", assunto);
-    log.info("   └─ Tipo: {}", isHtml ? "HTML" : "Texto Plano");
-    log.info("═══════════════════════════════════════════════════════════");
+    if (log.isDebugEnabled()) {
+      log.debug("═══════════════════════════════════════════════════════════");
+      log.debug("📧 [SIDECAR EMAIL] Enviando email direto via HTTP");
+      log.debug("   └─ De: {}", emailRemetente);
+      log.debug("   └─ Para: {}", destinatario);
+      log.debug("   └─ Assunto: {}", assunto);
+      log.debug("   └─ Tipo: {}", isHtml ? "HTML" : "Texto Plano");
+      log.debug("═══════════════════════════════════════════════════════════");
+    }
 
     try {
       Thread.sleep(500);
@@ -37,18 +41,63 @@ public class EmailService {
       Thread.currentThread().interrupt();
     }
 
-    log.info("📄 [SIDECAR EMAIL] Conteúdo do Email:");
-    log.info("─────────────────────────────────────────────────────────");
-    log.info("{}", corpo);
-    log.info("─────────────────────────────────────────────────────────");
+    if (log.isDebugEnabled()) {
+      log.debug("📄 [SIDECAR EMAIL] Conteúdo do Email:");
+      log.debug("─────────────────────────────────────────────────────────");
+      log.debug("{}", corpo);
+      log.debug("─────────────────────────────────────────────────────────");
 
-    log.info("✅ [SIDECAR EMAIL] Email enviado com sucesso!");
-    log.info("   └─ Protocolo: HTTP/REST");
-    log.info("   └─ Padrão: Sidecar Pattern");
-    log.info("═══════════════════════════════════════════════════════════");
+      log.debug("✅ [SIDECAR EMAIL] Email enviado com sucesso!");
+      log.debug("   └─ Protocolo: HTTP/REST");
+      log.debug("   └─ Padrão: Sidecar Pattern");
+      log.debug("═══════════════════════════════════════════════════════════");
+    }
   }
 
   public void enviarEmailConfirmacao(Pedido pedido) {
+    if (log.isDebugEnabled()) {
+      log.debug(montarResumoEmail(pedido));
+    }
+
+    simularEnvioEmail();
+
+    log.debug("✅ [EMAIL-SIDECAR] EMAIL ENVIADO COM SUCESSO!\n");
+  }
+
+  /**
+   * Envia as confirmações de um lote numa única conexão SMTP. Cada pedido é
+   * independente: a falha de um vira o resultado dele, sem interromper os
+   * demais. Devolve, na ordem do lote, null para enviado ou o motivo da
+   * falha.
+   */
+  public List<String> enviarEmailsConfirmacao(List<Pedido> pedidos) {
+    List<String> falhas = new ArrayList<>(pedidos.size());
+    if (!pausar("Conectando ao servidor SMTP...", 200)) {
+      pedidos.forEach(pedido -> falhas.add("Envio interrompido"));
+      return falhas;
+    }
+
+    for (Pedido pedido : pedidos) {
+      if (pedido == null || pedido.getId() == null) {
+        falhas.add("Pedido sem id");
+        continue;
+      }
+      try {
+        if (log.isDebugEnabled()) {
+          log.debug(montarResumoEmail(pedido));
+        }
+        boolean enviado =
+          pausar("Processando template HTML...", 300) &&
+          pausar("Enviando email...", 300);
+        falhas.add(enviado ? null : "Envio interrompido");
+      } catch (RuntimeException e) {
+        falhas.add(e.getMessage() != null ? e.getMessage() : e.toString());
+      }
+    }
+    return falhas;
+  }
+
+  private String montarResumoEmail(Pedido pedido) {
     DateTimeFormatter formatter = DateTimeFormatter.ofPattern(
       "dd/MM/yyyy HH:mm:ss"
     );
@@ -120,20 +169,28 @@ public class EmailService {
       "╚════════════════════════════════════════════════════════════════════╝"
     );
 
-    log.info(emailLog.toString());
-
-    simularEnvioEmail();
+    return emailLog.toString();
+  }
 
-    log.info("✅ [EMAIL-SIDECAR] EMAIL ENVIADO COM SUCESSO!\n");
+  private boolean pausar(String etapa, long millis) {
+    log.debug("📤 [EMAIL-SIDECAR] {}", etapa);
+    try {
+      Thread.sleep(millis);
+      return true;
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      log.warn("⚠️ [EMAIL-SIDECAR] Envio de email interrompido");
+      return false;
+    }
   }
 
   private void simularEnvioEmail() {
     try {
-      log.info("📤 [EMAIL-SIDECAR] Processando template HTML...");
+      log.debug("📤 [EMAIL-SIDECAR] Processando template HTML...");
       Thread.sleep(300);
-      log.info("📤 [EMAIL-SIDECAR] Conectando ao servidor SMTP...");
+      log.debug("📤 [EMAIL-SIDECAR] Conectando ao servidor SMTP...");
       Thread.sleep(200);
-      log.info("📤 [EMAIL-SIDECAR] Enviando email...");
+      log.debug("📤 [EMAIL-SIDECAR] Enviando email...");
       Thread.sleep(300);
     } catch (InterruptedException e) {
       Thread.currentThread().interrupt();